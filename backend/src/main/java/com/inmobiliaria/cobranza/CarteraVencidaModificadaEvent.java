@@ -0,0 +1,8 @@
+package com.inmobiliaria.cobranza;
+
+/**
+ * Evento publicado cuando cambia la cartera vencida de una empresa
+ * (altas, pagos, penalidades, cambios de estado o seguimientos).
+ */
+public record CarteraVencidaModificadaEvent(Long empresaId) {
+}
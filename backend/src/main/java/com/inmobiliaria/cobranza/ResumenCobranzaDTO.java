@@ -1,4 +1,4 @@
-package com.inmobiliaria.cobranza.dto;
+package com.inmobiliaria.cobranza;
 
 import lombok.Builder;
 import lombok.Data;
@@ -6,7 +6,7 @@ import lombok.Data;
 import java.math.BigDecimal;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class ResumenCobranzaDTO {
     private BigDecimal totalCarteraVencida;
     private BigDecimal totalPenalidades;
@@ -31,4 +31,11 @@ public class ResumenCobranzaDTO {
     private Integer enGestion;
     private Integer promesasPago;
     private Integer parcialmentePagados;
+
+    /**
+     * Copia independiente para no compartir la instancia guardada en el cache.
+     */
+    public ResumenCobranzaDTO copia() {
+        return toBuilder().build();
+    }
 }
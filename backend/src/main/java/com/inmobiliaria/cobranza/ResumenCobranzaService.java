@@ -0,0 +1,71 @@
+package com.inmobiliaria.cobranza;
+
+import com.inmobiliaria.cobranza.domain.CarteraVencida;
+import com.inmobiliaria.cobranza.repository.CarteraVencidaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+/**
+ * Resumen de la cartera vencida de una empresa (totales por clasificación y por estado de cobranza).
+ * Es parte de la API del módulo: el módulo de reportes lo expone en /api/cobranza/resumen con cache.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ResumenCobranzaService {
+
+    private final CarteraVencidaRepository carteraVencidaRepository;
+
+    public ResumenCobranzaDTO getResumenCobranza(Long empresaId) {
+        BigDecimal totalPendiente = carteraVencidaRepository.sumMontoPendienteByEmpresaId(empresaId);
+        BigDecimal totalPenalidad = carteraVencidaRepository.sumMontoPenalidadByEmpresaId(empresaId);
+        Long cantidad = carteraVencidaRepository.countByEmpresaIdAndActivoTrue(empresaId);
+
+        if (totalPendiente == null) totalPendiente = BigDecimal.ZERO;
+        if (totalPenalidad == null) totalPenalidad = BigDecimal.ZERO;
+
+        return ResumenCobranzaDTO.builder()
+                .totalCarteraVencida(totalPendiente)
+                .totalPenalidades(totalPenalidad)
+                .totalGeneral(totalPendiente.add(totalPenalidad))
+                .cantidadCuentasVencidas(cantidad != null ? cantidad.intValue() : 0)
+
+                // Por clasificación
+                .montoVigente(getMontoByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VIGENTE))
+                .monto1a30(getMontoByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VENCIDO_1_30))
+                .monto31a60(getMontoByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VENCIDO_31_60))
+                .monto61a90(getMontoByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VENCIDO_61_90))
+                .montoMas90(getMontoByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VENCIDO_MAS_90))
+
+                .cantidadVigente(getCantidadByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VIGENTE))
+                .cantidad1a30(getCantidadByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VENCIDO_1_30))
+                .cantidad31a60(getCantidadByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VENCIDO_31_60))
+                .cantidad61a90(getCantidadByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VENCIDO_61_90))
+                .cantidadMas90(getCantidadByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VENCIDO_MAS_90))
+
+                // Por estado
+                .pendientes(getCantidadByEstado(empresaId, CarteraVencida.EstadoCobranza.PENDIENTE))
+                .enGestion(getCantidadByEstado(empresaId, CarteraVencida.EstadoCobranza.EN_GESTION))
+                .promesasPago(getCantidadByEstado(empresaId, CarteraVencida.EstadoCobranza.PROMESA_PAGO))
+                .parcialmentePagados(getCantidadByEstado(empresaId, CarteraVencida.EstadoCobranza.PARCIALMENTE_PAGADO))
+                .build();
+    }
+
+    private BigDecimal getMontoByClasificacion(Long empresaId, CarteraVencida.ClasificacionAntiguedad clasificacion) {
+        BigDecimal monto = carteraVencidaRepository.sumMontoPendienteByClasificacion(empresaId, clasificacion);
+        return monto != null ? monto : BigDecimal.ZERO;
+    }
+
+    private Integer getCantidadByClasificacion(Long empresaId, CarteraVencida.ClasificacionAntiguedad clasificacion) {
+        Long cantidad = carteraVencidaRepository.countByClasificacion(empresaId, clasificacion);
+        return cantidad != null ? cantidad.intValue() : 0;
+    }
+
+    private Integer getCantidadByEstado(Long empresaId, CarteraVencida.EstadoCobranza estado) {
+        Long cantidad = carteraVencidaRepository.countByEstadoCobranza(empresaId, estado);
+        return cantidad != null ? cantidad.intValue() : 0;
+    }
+}
@@ -1,8 +1,10 @@
 package com.inmobiliaria.cobranza.controller;
 
 import com.inmobiliaria.cobranza.dto.*;
+import com.inmobiliaria.cobranza.service.AntiguedadCarteraService;
 import com.inmobiliaria.cobranza.service.CobranzaService;
 import com.inmobiliaria.cobranza.service.MorosidadAutomaticaService;
+import com.inmobiliaria.shared.multitenancy.TenantContext;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -24,6 +26,7 @@ public class CobranzaController {
 
     private final CobranzaService cobranzaService;
     private final MorosidadAutomaticaService morosidadAutomaticaService;
+    private final AntiguedadCarteraService antiguedadCarteraService;
 
     // ========== CARTERA VENCIDA ==========
 
@@ -91,11 +94,8 @@ public class CobranzaController {
     }
 
     // ========== RESUMEN ==========
-
-    @GetMapping("/resumen")
-    public ResponseEntity<ResumenCobranzaDTO> getResumenCobranza() {
-        return ResponseEntity.ok(cobranzaService.getResumenCobranza());
-    }
+    // GET /api/cobranza/resumen se atiende desde el módulo de reportes (ResumenCobranzaController),
+    // que guarda el resultado en cache por empresa.
 
     // ========== SEGUIMIENTO ==========
 
@@ -153,7 +153,7 @@ public class CobranzaController {
     @PostMapping("/sincronizar-morosidad")
     @PreAuthorize("hasRole('ADMINISTRADOR')")
     public ResponseEntity<Map<String, Object>> sincronizarMorosidad() {
-        Long empresaId = com.inmobiliaria.shared.multitenancy.TenantContext.getCurrentTenant();
+        Long empresaId = TenantContext.getCurrentTenant();
         MorosidadAutomaticaService.SincronizacionResult result =
                 morosidadAutomaticaService.sincronizarMorosidadPorEmpresa(empresaId);
 
@@ -165,4 +165,28 @@ public class CobranzaController {
                 "desactivados", result.desactivados()
         ));
     }
+
+    // ========== ANTIGÜEDAD DE CARTERA ==========
+
+    /**
+     * Recalcula manualmente días de atraso y clasificación de la cartera activa de la empresa.
+     */
+    @PostMapping("/recalcular-antiguedad")
+    @PreAuthorize("hasRole('ADMINISTRADOR')")
+    public ResponseEntity<AntiguedadCarteraService.RecalculoResult> recalcularAntiguedad() {
+        Long empresaId = TenantContext.getCurrentTenant();
+        return ResponseEntity.ok(antiguedadCarteraService.recalcularPorEmpresa(empresaId, LocalDate.now()));
+    }
+
+    /**
+     * Resultado de la empresa en la última ejecución programada del recálculo.
+     */
+    @GetMapping("/recalcular-antiguedad/ultima-ejecucion")
+    @PreAuthorize("hasRole('ADMINISTRADOR')")
+    public ResponseEntity<AntiguedadCarteraService.RecalculoResult> getUltimoRecalculoAntiguedad() {
+        Long empresaId = TenantContext.getCurrentTenant();
+        return antiguedadCarteraService.getUltimaEjecucion(empresaId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.noContent().build());
+    }
 }
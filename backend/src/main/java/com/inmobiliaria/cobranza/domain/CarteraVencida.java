@@ -27,6 +27,10 @@ public class CarteraVencida implements TenantAware {
     @Column(name = "contrato_id", nullable = false)
     private Long contratoId;
 
+    // Cargo de origen cuando el registro lo genera la sincronización de morosidad
+    @Column(name = "cargo_id")
+    private Long cargoId;
+
     @Column(name = "persona_id", nullable = false)
     private Long personaId;
 
@@ -94,26 +98,20 @@ public class CarteraVencida implements TenantAware {
 
     private void calcularDiasVencido() {
         if (this.fechaVencimiento != null) {
-            this.diasVencido = (int) java.time.temporal.ChronoUnit.DAYS.between(
-                this.fechaVencimiento, LocalDate.now());
-            if (this.diasVencido < 0) {
-                this.diasVencido = 0;
-            }
+            this.diasVencido = calcularDiasVencido(this.fechaVencimiento, LocalDate.now());
         }
     }
 
     private void calcularClasificacion() {
-        if (this.diasVencido == null || this.diasVencido <= 0) {
-            this.clasificacionAntiguedad = ClasificacionAntiguedad.VIGENTE;
-        } else if (this.diasVencido <= 30) {
-            this.clasificacionAntiguedad = ClasificacionAntiguedad.VENCIDO_1_30;
-        } else if (this.diasVencido <= 60) {
-            this.clasificacionAntiguedad = ClasificacionAntiguedad.VENCIDO_31_60;
-        } else if (this.diasVencido <= 90) {
-            this.clasificacionAntiguedad = ClasificacionAntiguedad.VENCIDO_61_90;
-        } else {
-            this.clasificacionAntiguedad = ClasificacionAntiguedad.VENCIDO_MAS_90;
-        }
+        this.clasificacionAntiguedad = ClasificacionAntiguedad.de(this.diasVencido);
+    }
+
+    /**
+     * Días de atraso a una fecha; cero si aún no vence.
+     */
+    public static int calcularDiasVencido(LocalDate fechaVencimiento, LocalDate fecha) {
+        int dias = (int) java.time.temporal.ChronoUnit.DAYS.between(fechaVencimiento, fecha);
+        return Math.max(dias, 0);
     }
 
     public enum EstadoCobranza {
@@ -130,6 +128,19 @@ public class CarteraVencida implements TenantAware {
         VENCIDO_1_30,
         VENCIDO_31_60,
         VENCIDO_61_90,
-        VENCIDO_MAS_90
+        VENCIDO_MAS_90;
+
+        public static ClasificacionAntiguedad de(Integer diasVencido) {
+            if (diasVencido == null || diasVencido <= 0) {
+                return VIGENTE;
+            } else if (diasVencido <= 30) {
+                return VENCIDO_1_30;
+            } else if (diasVencido <= 60) {
+                return VENCIDO_31_60;
+            } else if (diasVencido <= 90) {
+                return VENCIDO_61_90;
+            }
+            return VENCIDO_MAS_90;
+        }
     }
 }
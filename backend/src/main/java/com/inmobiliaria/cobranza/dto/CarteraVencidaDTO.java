@@ -14,6 +14,7 @@ public class CarteraVencidaDTO {
     private Long id;
     private Long empresaId;
     private Long contratoId;
+    private Long cargoId;
     private Long personaId;
     private Long propiedadId;
     private BigDecimal montoOriginal;
@@ -46,6 +47,7 @@ public class CarteraVencidaDTO {
                 .id(entity.getId())
                 .empresaId(entity.getEmpresaId())
                 .contratoId(entity.getContratoId())
+                .cargoId(entity.getCargoId())
                 .personaId(entity.getPersonaId())
                 .propiedadId(entity.getPropiedadId())
                 .montoOriginal(entity.getMontoOriginal())
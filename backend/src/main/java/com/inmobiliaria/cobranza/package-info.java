@@ -1,4 +1,4 @@
 @org.springframework.modulith.ApplicationModule(
-    allowedDependencies = {"shared", "persona", "propiedad"}
+    allowedDependencies = {"shared", "persona", "propiedad", "empresa", "pago", "pago::eventos"}
 )
 package com.inmobiliaria.cobranza;
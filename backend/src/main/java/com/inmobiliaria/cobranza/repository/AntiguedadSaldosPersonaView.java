@@ -0,0 +1,18 @@
+package com.inmobiliaria.cobranza.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Renglón de antigüedad de saldos por persona calculado en la base de datos
+ * (ver {@link CarteraVencidaRepository#findAntiguedadSaldosPorPersona}).
+ */
+public interface AntiguedadSaldosPersonaView {
+    Long getPersonaId();
+    Long getPropiedadId();
+    BigDecimal getVigente();
+    BigDecimal getVencido1a30();
+    BigDecimal getVencido31a60();
+    BigDecimal getVencido61a90();
+    BigDecimal getVencidoMas90();
+    Long getCantidadDocumentos();
+}
@@ -0,0 +1,17 @@
+package com.inmobiliaria.cobranza.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Totales de antigüedad de saldos de la empresa
+ * (ver {@link CarteraVencidaRepository#sumAntiguedadSaldos}).
+ */
+public interface AntiguedadSaldosTotalesView {
+    BigDecimal getVigente();
+    BigDecimal getVencido1a30();
+    BigDecimal getVencido31a60();
+    BigDecimal getVencido61a90();
+    BigDecimal getVencidoMas90();
+    Long getCantidadClientes();
+    Long getCantidadDocumentos();
+}
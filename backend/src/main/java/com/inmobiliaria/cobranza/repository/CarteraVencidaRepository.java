@@ -2,6 +2,7 @@ package com.inmobiliaria.cobranza.repository;
 
 import com.inmobiliaria.cobranza.domain.CarteraVencida;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,6 +15,37 @@ import java.util.Optional;
 @Repository
 public interface CarteraVencidaRepository extends JpaRepository<CarteraVencida, Long> {
 
+    /**
+     * Cartera activa con los días de atraso calculados respecto a la fecha de corte.
+     */
+    String CARTERA_A_FECHA_CORTE =
+            "(SELECT cv.id, cv.persona_id, cv.propiedad_id, cv.monto_pendiente, " +
+            "COALESCE(CAST(:fechaCorte AS DATE) - cv.fecha_vencimiento, 0) AS dias " +
+            "FROM cartera_vencida cv WHERE cv.empresa_id = :empresaId AND cv.activo = TRUE) c ";
+
+    String BUCKETS_ANTIGUEDAD =
+            "COALESCE(SUM(c.monto_pendiente) FILTER (WHERE c.dias <= 0), 0) AS vigente, " +
+            "COALESCE(SUM(c.monto_pendiente) FILTER (WHERE c.dias BETWEEN 1 AND 30), 0) AS vencido1a30, " +
+            "COALESCE(SUM(c.monto_pendiente) FILTER (WHERE c.dias BETWEEN 31 AND 60), 0) AS vencido31a60, " +
+            "COALESCE(SUM(c.monto_pendiente) FILTER (WHERE c.dias BETWEEN 61 AND 90), 0) AS vencido61a90, " +
+            "COALESCE(SUM(c.monto_pendiente) FILTER (WHERE c.dias > 90), 0) AS vencidoMas90, " +
+            "COUNT(*) AS cantidadDocumentos ";
+
+    /**
+     * Días de atraso y clasificación a la fecha :hoy, con las mismas reglas que
+     * CarteraVencida#calcularDiasVencido y #calcularClasificacion.
+     */
+    String ANTIGUEDAD_A_FECHA =
+            "(SELECT cv.id, d.dias, " +
+            "CASE WHEN d.dias <= 0 THEN 'VIGENTE' " +
+            "WHEN d.dias <= 30 THEN 'VENCIDO_1_30' " +
+            "WHEN d.dias <= 60 THEN 'VENCIDO_31_60' " +
+            "WHEN d.dias <= 90 THEN 'VENCIDO_61_90' " +
+            "ELSE 'VENCIDO_MAS_90' END AS clasificacion " +
+            "FROM cartera_vencida cv " +
+            "CROSS JOIN LATERAL (SELECT GREATEST(CAST(:hoy AS DATE) - cv.fecha_vencimiento, 0) AS dias) d " +
+            "WHERE cv.empresa_id = :empresaId AND cv.activo = TRUE) calc ";
+
     List<CarteraVencida> findByEmpresaIdAndActivoTrue(Long empresaId);
 
     List<CarteraVencida> findByEmpresaId(Long empresaId);
@@ -59,4 +91,53 @@ public interface CarteraVencidaRepository extends JpaRepository<CarteraVencida,
             @Param("contratoId") Long contratoId,
             @Param("concepto") String concepto,
             @Param("fechaVencimiento") LocalDate fechaVencimiento);
+
+    /**
+     * Antigüedad de saldos por persona a la fecha de corte, ordenada por saldo total descendente.
+     * La propiedad de cada persona es la del documento más antiguo en cartera.
+     */
+    @Query(value = "SELECT c.persona_id AS personaId, " +
+                   "(ARRAY_AGG(c.propiedad_id ORDER BY c.id))[1] AS propiedadId, " +
+                   BUCKETS_ANTIGUEDAD +
+                   "FROM " + CARTERA_A_FECHA_CORTE +
+                   "GROUP BY c.persona_id " +
+                   "ORDER BY SUM(c.monto_pendiente) DESC, c.persona_id " +
+                   "LIMIT :limite OFFSET :desplazamiento",
+           nativeQuery = true)
+    List<AntiguedadSaldosPersonaView> findAntiguedadSaldosPorPersona(
+            @Param("empresaId") Long empresaId,
+            @Param("fechaCorte") LocalDate fechaCorte,
+            @Param("limite") int limite,
+            @Param("desplazamiento") long desplazamiento);
+
+    @Query(value = "SELECT " + BUCKETS_ANTIGUEDAD + ", COUNT(DISTINCT c.persona_id) AS cantidadClientes " +
+                   "FROM " + CARTERA_A_FECHA_CORTE,
+           nativeQuery = true)
+    AntiguedadSaldosTotalesView sumAntiguedadSaldos(
+            @Param("empresaId") Long empresaId,
+            @Param("fechaCorte") LocalDate fechaCorte);
+
+    /**
+     * Reclasifica los registros activos cuya clasificación de antigüedad cambió a la fecha :hoy.
+     */
+    @Modifying
+    @Query(value = "UPDATE cartera_vencida c SET dias_vencido = calc.dias, " +
+                   "clasificacion_antiguedad = calc.clasificacion, updated_at = CURRENT_TIMESTAMP " +
+                   "FROM " + ANTIGUEDAD_A_FECHA +
+                   "WHERE c.id = calc.id " +
+                   "AND c.clasificacion_antiguedad IS DISTINCT FROM calc.clasificacion",
+           nativeQuery = true)
+    int reclasificarAntiguedad(@Param("empresaId") Long empresaId, @Param("hoy") LocalDate hoy);
+
+    /**
+     * Actualiza los días de atraso de los registros activos que no cambiaron de clasificación.
+     * Se ejecuta después de {@link #reclasificarAntiguedad}.
+     */
+    @Modifying
+    @Query(value = "UPDATE cartera_vencida c SET dias_vencido = calc.dias " +
+                   "FROM " + ANTIGUEDAD_A_FECHA +
+                   "WHERE c.id = calc.id " +
+                   "AND c.dias_vencido IS DISTINCT FROM calc.dias",
+           nativeQuery = true)
+    int actualizarDiasVencido(@Param("empresaId") Long empresaId, @Param("hoy") LocalDate hoy);
 }
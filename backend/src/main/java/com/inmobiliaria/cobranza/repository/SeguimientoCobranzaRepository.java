@@ -2,6 +2,8 @@ package com.inmobiliaria.cobranza.repository;
 
 import com.inmobiliaria.cobranza.domain.SeguimientoCobranza;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
@@ -19,6 +21,17 @@ public interface SeguimientoCobranzaRepository extends JpaRepository<Seguimiento
 
     List<SeguimientoCobranza> findByCarteraVencidaIdAndActivoTrueOrderByFechaContactoDesc(Long carteraVencidaId);
 
+    /**
+     * Última gestión activa de cada cartera vencida activa de la empresa, en una sola consulta.
+     */
+    @Query(value = "SELECT DISTINCT ON (s.cartera_vencida_id) s.* FROM seguimiento_cobranza s " +
+                   "JOIN cartera_vencida c ON c.id = s.cartera_vencida_id " +
+                   "WHERE s.empresa_id = :empresaId AND s.activo = TRUE " +
+                   "AND c.empresa_id = :empresaId AND c.activo = TRUE " +
+                   "ORDER BY s.cartera_vencida_id, s.fecha_contacto DESC, s.id DESC",
+           nativeQuery = true)
+    List<SeguimientoCobranza> findUltimoSeguimientoPorCarteraActiva(@Param("empresaId") Long empresaId);
+
     List<SeguimientoCobranza> findByEmpresaIdAndFechaProximaAccionBetweenAndActivoTrue(
             Long empresaId, LocalDate fechaInicio, LocalDate fechaFin);
 
@@ -0,0 +1,110 @@
+package com.inmobiliaria.cobranza.service;
+
+import com.inmobiliaria.cobranza.CarteraVencidaModificadaEvent;
+import com.inmobiliaria.cobranza.repository.CarteraVencidaRepository;
+import com.inmobiliaria.empresa.Empresa;
+import com.inmobiliaria.empresa.EmpresaRepository;
+import com.inmobiliaria.shared.multitenancy.TenantRunSummary;
+import com.inmobiliaria.shared.multitenancy.TenantTaskExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Recalcula diasVencido y clasificacionAntiguedad de la cartera activa.
+ * La entidad solo los calcula al guardarse, así que los registros que no se modifican
+ * envejecen sin que su clasificación cambie. Este proceso lo corrige con dos UPDATE por empresa
+ * que solo escriben los renglones cuyo valor realmente cambió.
+ */
+@Service
+@Slf4j
+public class AntiguedadCarteraService {
+
+    private final CarteraVencidaRepository carteraVencidaRepository;
+    private final EmpresaRepository empresaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final TenantTaskExecutor tenantTaskExecutor;
+
+    private volatile List<RecalculoResult> ultimaEjecucion = List.of();
+
+    public AntiguedadCarteraService(CarteraVencidaRepository carteraVencidaRepository,
+                                    EmpresaRepository empresaRepository,
+                                    ApplicationEventPublisher eventPublisher,
+                                    PlatformTransactionManager transactionManager,
+                                    TenantTaskExecutor tenantTaskExecutor) {
+        this.carteraVencidaRepository = carteraVencidaRepository;
+        this.empresaRepository = empresaRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tenantTaskExecutor = tenantTaskExecutor;
+    }
+
+    /**
+     * Se ejecuta todos los días a las 5:30 AM, antes de la sincronización de morosidad.
+     */
+    @Scheduled(cron = "0 30 5 * * *")
+    public void recalcularAntiguedadDiaria() {
+        log.info("Iniciando recálculo de antigüedad de cartera");
+        LocalDate hoy = LocalDate.now();
+        List<Long> empresaIds = empresaRepository.findByActivoTrue().stream().map(Empresa::getId).toList();
+
+        TenantRunSummary<RecalculoResult> resumen = tenantTaskExecutor.forEachTenant(
+                "Recálculo de antigüedad", empresaIds, empresaId -> recalcularPorEmpresa(empresaId, hoy));
+
+        List<RecalculoResult> resultados = resumen.successfulResults();
+        ultimaEjecucion = resultados;
+        log.info("Recálculo de antigüedad completado: {} empresas, {} reclasificados, {} con días actualizados",
+                resultados.size(),
+                resultados.stream().mapToInt(RecalculoResult::reclasificados).sum(),
+                resultados.stream().mapToInt(RecalculoResult::diasActualizados).sum());
+    }
+
+    /**
+     * Recalcula la antigüedad de una empresa en su propia transacción.
+     * Puede ser llamado manualmente o por el scheduler.
+     */
+    public RecalculoResult recalcularPorEmpresa(Long empresaId, LocalDate hoy) {
+        long inicio = System.nanoTime();
+
+        int[] conteos = transactionTemplate.execute(status -> {
+            int reclasificados = carteraVencidaRepository.reclasificarAntiguedad(empresaId, hoy);
+            int diasActualizados = carteraVencidaRepository.actualizarDiasVencido(empresaId, hoy);
+
+            if (reclasificados + diasActualizados > 0) {
+                eventPublisher.publishEvent(new CarteraVencidaModificadaEvent(empresaId));
+            }
+            return new int[]{reclasificados, diasActualizados};
+        });
+
+        RecalculoResult result = new RecalculoResult(empresaId, conteos[0], conteos[1],
+                (System.nanoTime() - inicio) / 1_000_000);
+
+        log.info("Antigüedad empresa {}: {} reclasificados, {} con días actualizados en {} ms",
+                empresaId, result.reclasificados(), result.diasActualizados(), result.duracionMs());
+        return result;
+    }
+
+    public Optional<RecalculoResult> getUltimaEjecucion(Long empresaId) {
+        return ultimaEjecucion.stream()
+                .filter(r -> r.empresaId().equals(empresaId))
+                .findFirst();
+    }
+
+    /**
+     * Resultado del recálculo por empresa.
+     */
+    public record RecalculoResult(
+            Long empresaId,
+            int reclasificados,
+            int diasActualizados,
+            long duracionMs
+    ) {}
+}
@@ -1,5 +1,6 @@
 package com.inmobiliaria.cobranza.service;
 
+import com.inmobiliaria.cobranza.CarteraVencidaModificadaEvent;
 import com.inmobiliaria.cobranza.domain.CarteraVencida;
 import com.inmobiliaria.cobranza.domain.ProyeccionCobranza;
 import com.inmobiliaria.cobranza.domain.SeguimientoCobranza;
@@ -10,6 +11,7 @@ import com.inmobiliaria.cobranza.repository.SeguimientoCobranzaRepository;
 import com.inmobiliaria.shared.multitenancy.TenantContext;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,6 +27,7 @@ public class CobranzaService {
     private final CarteraVencidaRepository carteraVencidaRepository;
     private final SeguimientoCobranzaRepository seguimientoCobranzaRepository;
     private final ProyeccionCobranzaRepository proyeccionCobranzaRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ========== CARTERA VENCIDA ==========
 
@@ -60,6 +63,7 @@ public class CobranzaService {
                 .build();
 
         CarteraVencida saved = carteraVencidaRepository.save(cartera);
+        eventPublisher.publishEvent(new CarteraVencidaModificadaEvent(empresaId));
         return CarteraVencidaDTO.fromEntity(saved);
     }
 
@@ -70,6 +74,7 @@ public class CobranzaService {
 
         cartera.setEstadoCobranza(CarteraVencida.EstadoCobranza.valueOf(estadoCobranza));
         CarteraVencida saved = carteraVencidaRepository.save(cartera);
+        eventPublisher.publishEvent(new CarteraVencidaModificadaEvent(empresaId));
         return CarteraVencidaDTO.fromEntity(saved);
     }
 
@@ -92,6 +97,7 @@ public class CobranzaService {
         }
 
         CarteraVencida saved = carteraVencidaRepository.save(cartera);
+        eventPublisher.publishEvent(new CarteraVencidaModificadaEvent(empresaId));
         return CarteraVencidaDTO.fromEntity(saved);
     }
 
@@ -108,6 +114,7 @@ public class CobranzaService {
         }
 
         CarteraVencida saved = carteraVencidaRepository.save(cartera);
+        eventPublisher.publishEvent(new CarteraVencidaModificadaEvent(empresaId));
         return CarteraVencidaDTO.fromEntity(saved);
     }
 
@@ -117,6 +124,7 @@ public class CobranzaService {
                 .orElseThrow(() -> new EntityNotFoundException("Cartera vencida no encontrada con ID: " + id));
         cartera.setActivo(false);
         carteraVencidaRepository.save(cartera);
+        eventPublisher.publishEvent(new CarteraVencidaModificadaEvent(empresaId));
     }
 
     public List<CarteraVencidaDTO> getCarteraByPersona(Long personaId) {
@@ -145,60 +153,6 @@ public class CobranzaService {
                 .stream().map(CarteraVencidaDTO::fromEntity).toList();
     }
 
-    // ========== RESUMEN Y ESTADÍSTICAS ==========
-
-    public ResumenCobranzaDTO getResumenCobranza() {
-        Long empresaId = TenantContext.getCurrentTenant();
-
-        BigDecimal totalPendiente = carteraVencidaRepository.sumMontoPendienteByEmpresaId(empresaId);
-        BigDecimal totalPenalidad = carteraVencidaRepository.sumMontoPenalidadByEmpresaId(empresaId);
-        Long cantidad = carteraVencidaRepository.countByEmpresaIdAndActivoTrue(empresaId);
-
-        if (totalPendiente == null) totalPendiente = BigDecimal.ZERO;
-        if (totalPenalidad == null) totalPenalidad = BigDecimal.ZERO;
-
-        return ResumenCobranzaDTO.builder()
-                .totalCarteraVencida(totalPendiente)
-                .totalPenalidades(totalPenalidad)
-                .totalGeneral(totalPendiente.add(totalPenalidad))
-                .cantidadCuentasVencidas(cantidad != null ? cantidad.intValue() : 0)
-
-                // Por clasificación
-                .montoVigente(getMontoByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VIGENTE))
-                .monto1a30(getMontoByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VENCIDO_1_30))
-                .monto31a60(getMontoByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VENCIDO_31_60))
-                .monto61a90(getMontoByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VENCIDO_61_90))
-                .montoMas90(getMontoByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VENCIDO_MAS_90))
-
-                .cantidadVigente(getCantidadByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VIGENTE))
-                .cantidad1a30(getCantidadByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VENCIDO_1_30))
-                .cantidad31a60(getCantidadByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VENCIDO_31_60))
-                .cantidad61a90(getCantidadByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VENCIDO_61_90))
-                .cantidadMas90(getCantidadByClasificacion(empresaId, CarteraVencida.ClasificacionAntiguedad.VENCIDO_MAS_90))
-
-                // Por estado
-                .pendientes(getCantidadByEstado(empresaId, CarteraVencida.EstadoCobranza.PENDIENTE))
-                .enGestion(getCantidadByEstado(empresaId, CarteraVencida.EstadoCobranza.EN_GESTION))
-                .promesasPago(getCantidadByEstado(empresaId, CarteraVencida.EstadoCobranza.PROMESA_PAGO))
-                .parcialmentePagados(getCantidadByEstado(empresaId, CarteraVencida.EstadoCobranza.PARCIALMENTE_PAGADO))
-                .build();
-    }
-
-    private BigDecimal getMontoByClasificacion(Long empresaId, CarteraVencida.ClasificacionAntiguedad clasificacion) {
-        BigDecimal monto = carteraVencidaRepository.sumMontoPendienteByClasificacion(empresaId, clasificacion);
-        return monto != null ? monto : BigDecimal.ZERO;
-    }
-
-    private Integer getCantidadByClasificacion(Long empresaId, CarteraVencida.ClasificacionAntiguedad clasificacion) {
-        Long cantidad = carteraVencidaRepository.countByClasificacion(empresaId, clasificacion);
-        return cantidad != null ? cantidad.intValue() : 0;
-    }
-
-    private Integer getCantidadByEstado(Long empresaId, CarteraVencida.EstadoCobranza estado) {
-        Long cantidad = carteraVencidaRepository.countByEstadoCobranza(empresaId, estado);
-        return cantidad != null ? cantidad.intValue() : 0;
-    }
-
     // ========== SEGUIMIENTO ==========
 
     public List<SeguimientoCobranzaDTO> getSeguimientoByCartera(Long carteraVencidaId) {
@@ -234,6 +188,7 @@ public class CobranzaService {
         }
 
         SeguimientoCobranza saved = seguimientoCobranzaRepository.save(seguimiento);
+        eventPublisher.publishEvent(new CarteraVencidaModificadaEvent(empresaId));
         return SeguimientoCobranzaDTO.fromEntity(saved);
     }
 
@@ -0,0 +1,170 @@
+package com.inmobiliaria.cobranza.service;
+
+import com.inmobiliaria.cobranza.domain.CarteraVencida;
+import com.inmobiliaria.pago.EstadoCargo;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Calcula en memoria la diferencia entre los cargos de una empresa y su cartera vencida activa:
+ * qué registros de cartera crear, cuáles actualizar y cuáles desactivar.
+ *
+ * Un registro de cartera corresponde a un cargo por cargo_id; los registros anteriores al vínculo
+ * se emparejan por (contrato, concepto, fecha de vencimiento) y se vinculan al actualizarse.
+ */
+public final class ConciliacionMorosidad {
+
+    private ConciliacionMorosidad() {
+    }
+
+    public record LlaveCargo(Long contratoId, String concepto, LocalDate fechaVencimiento) {
+    }
+
+    public record CarteraActiva(
+            Long id,
+            Long cargoId,
+            Long contratoId,
+            String concepto,
+            LocalDate fechaVencimiento,
+            BigDecimal montoPendiente
+    ) {
+        LlaveCargo llave() {
+            return new LlaveCargo(contratoId, concepto, fechaVencimiento);
+        }
+    }
+
+    public record CargoConciliable(
+            Long id,
+            Long contratoId,
+            String concepto,
+            LocalDate fechaVencimiento,
+            EstadoCargo estado,
+            BigDecimal montoOriginal,
+            BigDecimal montoPendiente,
+            Long arrendatarioId,
+            Long propiedadId,
+            BigDecimal montoPenalidadDiaria,
+            Integer diasGracia
+    ) {
+        LlaveCargo llave() {
+            return new LlaveCargo(contratoId, concepto, fechaVencimiento);
+        }
+    }
+
+    /**
+     * Cambio sobre un registro existente. estadoCobranza nulo conserva el estado actual.
+     */
+    public record Actualizacion(
+            Long carteraId,
+            Long cargoId,
+            BigDecimal montoPendiente,
+            CarteraVencida.EstadoCobranza estadoCobranza
+    ) {}
+
+    public record Plan(
+            List<CargoConciliable> nuevos,
+            List<Actualizacion> actualizaciones,
+            List<Long> desactivaciones,
+            int actualizados,
+            int sinCambios
+    ) {}
+
+    /**
+     * @param cartera registros activos de cartera vencida de la empresa
+     * @param cargos  cargos vencidos no pagados, más los cargos pagados de contratos con cartera activa
+     */
+    public static Plan calcular(List<CarteraActiva> cartera, List<CargoConciliable> cargos) {
+        Map<Long, CarteraActiva> porCargo = new HashMap<>();
+        Map<LlaveCargo, CarteraActiva> porLlave = new HashMap<>();
+        for (CarteraActiva registro : cartera) {
+            if (registro.cargoId() != null) {
+                porCargo.putIfAbsent(registro.cargoId(), registro);
+            } else {
+                porLlave.putIfAbsent(registro.llave(), registro);
+            }
+        }
+
+        Set<Long> cargosPagados = new HashSet<>();
+        Set<LlaveCargo> llavesPagadas = new HashSet<>();
+        for (CargoConciliable cargo : cargos) {
+            if (cargo.estado() == EstadoCargo.PAGADO) {
+                cargosPagados.add(cargo.id());
+                llavesPagadas.add(cargo.llave());
+            }
+        }
+
+        // Desactivar registros cuyo cargo ya fue pagado
+        Set<Long> desactivaciones = new LinkedHashSet<>();
+        for (CarteraActiva registro : cartera) {
+            boolean pagado = registro.cargoId() != null
+                    ? cargosPagados.contains(registro.cargoId())
+                    : llavesPagadas.contains(registro.llave());
+            if (pagado) {
+                desactivaciones.add(registro.id());
+            }
+        }
+
+        List<CargoConciliable> nuevos = new ArrayList<>();
+        List<Actualizacion> actualizaciones = new ArrayList<>();
+        Set<Long> emparejados = new HashSet<>();
+        int actualizados = 0;
+        int sinCambios = 0;
+
+        for (CargoConciliable cargo : cargos) {
+            if (cargo.estado() == EstadoCargo.PAGADO) {
+                continue;
+            }
+
+            CarteraActiva existente = porCargo.get(cargo.id());
+            if (existente == null) {
+                existente = porLlave.get(cargo.llave());
+            }
+            // Un registro solo corresponde a un cargo
+            if (existente != null && !emparejados.add(existente.id())) {
+                existente = null;
+            }
+
+            if (existente == null) {
+                nuevos.add(cargo);
+                continue;
+            }
+            if (desactivaciones.contains(existente.id())) {
+                continue;
+            }
+
+            boolean montoCambio = existente.montoPendiente().compareTo(cargo.montoPendiente()) != 0;
+            if (montoCambio) {
+                CarteraVencida.EstadoCobranza estado = cargo.estado() == EstadoCargo.PARCIAL
+                        ? CarteraVencida.EstadoCobranza.PARCIALMENTE_PAGADO
+                        : null;
+                actualizaciones.add(new Actualizacion(existente.id(), cargo.id(), cargo.montoPendiente(), estado));
+                actualizados++;
+            } else {
+                if (existente.cargoId() == null) {
+                    // Solo se vincula el registro anterior con su cargo
+                    actualizaciones.add(new Actualizacion(existente.id(), cargo.id(), existente.montoPendiente(), null));
+                }
+                sinCambios++;
+            }
+        }
+
+        return new Plan(nuevos, actualizaciones, new ArrayList<>(desactivaciones), actualizados, sinCambios);
+    }
+
+    /**
+     * Penalidad acumulada de un cargo vencido a la fecha, descontando los días de gracia del contrato.
+     */
+    public static BigDecimal calcularPenalidad(CargoConciliable cargo, LocalDate fecha) {
+        if (cargo.montoPenalidadDiaria() == null || cargo.montoPenalidadDiaria().compareTo(BigDecimal.ZERO) <= 0) {
+            return BigDecimal.ZERO;
+        }
+        long diasVencido = java.time.temporal.ChronoUnit.DAYS.between(cargo.fechaVencimiento(), fecha);
+        int diasGracia = cargo.diasGracia() != null ? cargo.diasGracia() : 0;
+        if (diasVencido <= diasGracia) {
+            return BigDecimal.ZERO;
+        }
+        return cargo.montoPenalidadDiaria().multiply(BigDecimal.valueOf(diasVencido - diasGracia));
+    }
+}
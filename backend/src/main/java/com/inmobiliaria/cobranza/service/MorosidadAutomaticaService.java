@@ -1,36 +1,110 @@
 package com.inmobiliaria.cobranza.service;
 
+import com.inmobiliaria.cobranza.CarteraVencidaModificadaEvent;
 import com.inmobiliaria.cobranza.domain.CarteraVencida;
-import com.inmobiliaria.cobranza.repository.CarteraVencidaRepository;
-import com.inmobiliaria.contrato.Contrato;
+import com.inmobiliaria.cobranza.service.ConciliacionMorosidad.Actualizacion;
+import com.inmobiliaria.cobranza.service.ConciliacionMorosidad.CargoConciliable;
+import com.inmobiliaria.cobranza.service.ConciliacionMorosidad.CarteraActiva;
 import com.inmobiliaria.empresa.Empresa;
 import com.inmobiliaria.empresa.EmpresaRepository;
-import com.inmobiliaria.pago.Cargo;
-import com.inmobiliaria.pago.CargoRepository;
 import com.inmobiliaria.pago.EstadoCargo;
+import com.inmobiliaria.pago.eventos.CargosVencidosEvent;
+import com.inmobiliaria.pago.eventos.PagoAplicadoEvent;
+import com.inmobiliaria.pago.eventos.PagoCanceladoEvent;
+import com.inmobiliaria.shared.multitenancy.TenantRunSummary;
+import com.inmobiliaria.shared.multitenancy.TenantTaskExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.modulith.events.ApplicationModuleListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Servicio que sincroniza automáticamente los cargos vencidos del módulo de pagos
  * con la cartera de cobranza, eliminando la necesidad de crear cartera manualmente.
+ *
+ * La cartera se mantiene al día con los eventos de pagos: al aplicar o cancelar un pago se
+ * sincronizan solo los cargos afectados, y al vencer cargos se sincroniza la empresa. El proceso
+ * de las 6 AM queda como verificación de consistencia y solo corrige diferencias.
+ *
+ * En ambos casos se leen los dos lados con dos consultas, la diferencia se calcula en memoria
+ * ({@link ConciliacionMorosidad}) y los cambios se escriben con batches JDBC.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class MorosidadAutomaticaService {
 
-    private final CargoRepository cargoRepository;
-    private final CarteraVencidaRepository carteraVencidaRepository;
+    private static final int TAMANO_BATCH = 500;
+
+    private static final String CARTERA_ACTIVA_SQL =
+            "SELECT id, cargo_id, contrato_id, concepto, fecha_vencimiento, monto_pendiente " +
+            "FROM cartera_vencida WHERE empresa_id = ? AND activo = TRUE";
+
+    // Cargos vencidos sin pagar, más los pagados de contratos con cartera activa (para desactivarla)
+    private static final String CARGOS_SQL =
+            "SELECT c.id, c.contrato_id, c.concepto, c.fecha_vencimiento, c.estado, c.monto_original, " +
+            "c.monto_pendiente, co.arrendatario_id, co.propiedad_id, co.monto_penalidad_diaria, co.dias_gracia " +
+            "FROM cargos c JOIN contratos co ON co.id = c.contrato_id " +
+            "WHERE c.empresa_id = ? AND (" +
+            "(c.fecha_vencimiento < ? AND c.estado IN ('PENDIENTE', 'PARCIAL', 'VENCIDO')) " +
+            "OR (c.estado = 'PAGADO' AND c.contrato_id IN (" +
+            "SELECT cv.contrato_id FROM cartera_vencida cv WHERE cv.empresa_id = ? AND cv.activo = TRUE)))";
+
+    private static final String CARTERA_DE_CARGOS_SQL =
+            "SELECT cv.id, cv.cargo_id, cv.contrato_id, cv.concepto, cv.fecha_vencimiento, cv.monto_pendiente " +
+            "FROM cartera_vencida cv WHERE cv.empresa_id = ? AND cv.activo = TRUE AND (cv.cargo_id IN (%1$s) " +
+            "OR (cv.cargo_id IS NULL AND EXISTS (SELECT 1 FROM cargos c WHERE c.id IN (%1$s) " +
+            "AND c.contrato_id = cv.contrato_id AND c.concepto = cv.concepto " +
+            "AND c.fecha_vencimiento = cv.fecha_vencimiento)))";
+
+    // Los cargos indicados que deben estar en cartera (vencidos sin pagar) o salir de ella (pagados)
+    private static final String CARGOS_POR_ID_SQL =
+            "SELECT c.id, c.contrato_id, c.concepto, c.fecha_vencimiento, c.estado, c.monto_original, " +
+            "c.monto_pendiente, co.arrendatario_id, co.propiedad_id, co.monto_penalidad_diaria, co.dias_gracia " +
+            "FROM cargos c JOIN contratos co ON co.id = c.contrato_id " +
+            "WHERE c.empresa_id = ? AND c.id IN (%s) AND (" +
+            "(c.fecha_vencimiento < ? AND c.estado IN ('PENDIENTE', 'PARCIAL', 'VENCIDO')) OR c.estado = 'PAGADO')";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO cartera_vencida (empresa_id, cargo_id, contrato_id, persona_id, propiedad_id, " +
+            "monto_original, monto_pendiente, monto_penalidad, fecha_vencimiento, dias_vencido, concepto, " +
+            "estado_cobranza, clasificacion_antiguedad, porcentaje_penalidad, activo, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, TRUE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (cargo_id) WHERE activo = TRUE AND cargo_id IS NOT NULL DO NOTHING";
+
+    // Serializa las sincronizaciones de una empresa (eventos, reintentos y proceso de las 6 AM)
+    private static final String BLOQUEAR_EMPRESA_SQL =
+            "SELECT 1 FROM (SELECT pg_advisory_xact_lock(hashtext('cartera_vencida'), ?)) bloqueo";
+
+    private static final String UPDATE_SQL =
+            "UPDATE cartera_vencida SET cargo_id = ?, monto_pendiente = ?, " +
+            "estado_cobranza = COALESCE(?, estado_cobranza), updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+
+    private static final String DESACTIVAR_SQL =
+            "UPDATE cartera_vencida SET estado_cobranza = 'PAGADO', activo = FALSE, monto_pendiente = 0, " +
+            "updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
     private final EmpresaRepository empresaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+    private final TenantTaskExecutor tenantTaskExecutor;
 
     /**
      * Proceso scheduled que sincroniza cargos vencidos con cartera de cobranza.
@@ -38,19 +112,78 @@ public class MorosidadAutomaticaService {
      */
     @Scheduled(cron = "0 0 6 * * *")
     public void sincronizarMorosidadAutomatica() {
-        log.info("Iniciando sincronización automática de morosidad");
+        log.info("Iniciando verificación de consistencia de morosidad");
 
-        List<Empresa> empresas = empresaRepository.findByActivoTrue();
+        List<Long> empresaIds = empresaRepository.findByActivoTrue().stream().map(Empresa::getId).toList();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
 
-        for (Empresa empresa : empresas) {
-            try {
-                sincronizarMorosidadPorEmpresa(empresa.getId());
-            } catch (Exception e) {
-                log.error("Error sincronizando morosidad para empresa {}: {}", empresa.getId(), e.getMessage());
+        // Una transacción por empresa: la llamada interna no pasa por el proxy de @Transactional
+        TenantRunSummary<SincronizacionResult> resumen = tenantTaskExecutor.forEachTenant(
+                "Verificación de morosidad", empresaIds,
+                empresaId -> transactionTemplate.execute(status -> sincronizarMorosidadPorEmpresa(empresaId)));
+
+        // Con los eventos al día no debería haber diferencias; si las hay, algún cambio no pasó por ellos
+        for (TenantRunSummary.TenantResult<SincronizacionResult> resultado : resumen.results()) {
+            SincronizacionResult sincronizacion = resultado.result();
+            if (sincronizacion != null && sincronizacion.conCambios()) {
+                log.warn("Verificación de morosidad empresa {}: cartera desfasada, corregida ({} nuevos, {} actualizados, {} desactivados)",
+                        resultado.empresaId(), sincronizacion.nuevosRegistros(), sincronizacion.actualizados(),
+                        sincronizacion.desactivados());
             }
         }
+    }
+
+    // ========== SINCRONIZACIÓN POR EVENTOS ==========
+
+    /**
+     * Al vencer cargos de una empresa se sincroniza su cartera de inmediato,
+     * sin esperar al proceso de las 6 AM.
+     */
+    @ApplicationModuleListener
+    void on(CargosVencidosEvent event) {
+        log.info("{} cargos vencidos en empresa {}, sincronizando morosidad", event.cargosVencidos(), event.empresaId());
+        sincronizarMorosidadPorEmpresa(event.empresaId());
+    }
+
+    @ApplicationModuleListener
+    void on(PagoAplicadoEvent event) {
+        sincronizarCargos(event.empresaId(), event.cargoIds());
+    }
+
+    @ApplicationModuleListener
+    void on(PagoCanceladoEvent event) {
+        sincronizarCargos(event.empresaId(), event.cargoIds());
+    }
+
+    /**
+     * Sincroniza solo la cartera de los cargos indicados (los afectados por un pago).
+     */
+    @Transactional
+    public SincronizacionResult sincronizarCargos(Long empresaId, Collection<Long> cargoIds) {
+        List<Long> ids = cargoIds.stream().distinct().toList();
+        if (ids.isEmpty()) {
+            return new SincronizacionResult(0, 0, 0, 0);
+        }
+        bloquearEmpresa(empresaId);
+        LocalDate hoy = LocalDate.now();
+        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(", "));
+
+        List<Object> parametrosCartera = new ArrayList<>();
+        parametrosCartera.add(empresaId);
+        parametrosCartera.addAll(ids);
+        List<CarteraActiva> cartera = jdbcTemplate.query(CARTERA_DE_CARGOS_SQL.formatted(placeholders),
+                this::mapCartera, parametrosCartera.toArray());
+
+        List<Object> parametrosCargos = new ArrayList<>();
+        parametrosCargos.add(empresaId);
+        parametrosCargos.addAll(ids);
+        parametrosCargos.add(Date.valueOf(hoy));
+        List<CargoConciliable> cargos = jdbcTemplate.query(CARGOS_POR_ID_SQL.formatted(placeholders),
+                this::mapCargo, parametrosCargos.toArray());
 
-        log.info("Sincronización automática de morosidad completada");
+        SincronizacionResult result = aplicarPlan(empresaId, ConciliacionMorosidad.calcular(cartera, cargos), hoy);
+        log.debug("Sincronización de {} cargos empresa {}: {}", ids.size(), empresaId, result);
+        return result;
     }
 
     /**
@@ -61,110 +194,109 @@ public class MorosidadAutomaticaService {
     public SincronizacionResult sincronizarMorosidadPorEmpresa(Long empresaId) {
         log.info("Sincronizando morosidad para empresa {}", empresaId);
 
+        bloquearEmpresa(empresaId);
         LocalDate hoy = LocalDate.now();
 
-        // Obtener cargos vencidos (fecha vencimiento < hoy y no pagados)
-        List<Cargo> cargosVencidos = cargoRepository.findCargosVencidos(empresaId, hoy);
-
-        int nuevosRegistros = 0;
-        int actualizados = 0;
-        int sinCambios = 0;
-
-        for (Cargo cargo : cargosVencidos) {
-            // Verificar si el cargo ya está en cartera
-            Optional<CarteraVencida> carteraExistente = carteraVencidaRepository.findByCargoIdentifier(
-                    empresaId,
-                    cargo.getContrato().getId(),
-                    cargo.getConcepto(),
-                    cargo.getFechaVencimiento()
-            );
-
-            if (carteraExistente.isPresent()) {
-                // Actualizar monto pendiente si cambió
-                CarteraVencida cartera = carteraExistente.get();
-                if (!cartera.getMontoPendiente().equals(cargo.getMontoPendiente())) {
-                    cartera.setMontoPendiente(cargo.getMontoPendiente());
-
-                    // Actualizar estado si se pagó parcialmente
-                    if (cargo.getEstado() == EstadoCargo.PARCIAL) {
-                        cartera.setEstadoCobranza(CarteraVencida.EstadoCobranza.PARCIALMENTE_PAGADO);
-                    } else if (cargo.getEstado() == EstadoCargo.PAGADO) {
-                        cartera.setEstadoCobranza(CarteraVencida.EstadoCobranza.PAGADO);
-                        cartera.setActivo(false);
-                    }
-
-                    carteraVencidaRepository.save(cartera);
-                    actualizados++;
-                } else {
-                    sinCambios++;
-                }
-            } else {
-                // Crear nuevo registro en cartera
-                crearCarteraDesdeCargoVencido(cargo);
-                nuevosRegistros++;
-            }
-        }
+        List<CarteraActiva> cartera = jdbcTemplate.query(CARTERA_ACTIVA_SQL, this::mapCartera, empresaId);
+        List<CargoConciliable> cargos = jdbcTemplate.query(CARGOS_SQL, this::mapCargo,
+                empresaId, Date.valueOf(hoy), empresaId);
 
-        // Desactivar registros de cartera cuyos cargos ya fueron pagados
-        List<CarteraVencida> carteraActiva = carteraVencidaRepository.findByEmpresaIdAndActivoTrue(empresaId);
-        int desactivados = 0;
-
-        for (CarteraVencida cartera : carteraActiva) {
-            // Buscar si el cargo correspondiente ya está pagado
-            List<Cargo> cargosContrato = cargoRepository.findByContratoIdAndEmpresaId(
-                    cartera.getContratoId(), empresaId);
-
-            boolean cargoPagado = cargosContrato.stream()
-                    .filter(c -> c.getConcepto().equals(cartera.getConcepto())
-                            && c.getFechaVencimiento().equals(cartera.getFechaVencimiento()))
-                    .anyMatch(c -> c.getEstado() == EstadoCargo.PAGADO);
-
-            if (cargoPagado && cartera.getActivo()) {
-                cartera.setEstadoCobranza(CarteraVencida.EstadoCobranza.PAGADO);
-                cartera.setActivo(false);
-                cartera.setMontoPendiente(BigDecimal.ZERO);
-                carteraVencidaRepository.save(cartera);
-                desactivados++;
-            }
-        }
+        SincronizacionResult result = aplicarPlan(empresaId, ConciliacionMorosidad.calcular(cartera, cargos), hoy);
 
         log.info("Sincronización empresa {}: {} nuevos, {} actualizados, {} sin cambios, {} desactivados",
-                empresaId, nuevosRegistros, actualizados, sinCambios, desactivados);
+                empresaId, result.nuevosRegistros(), result.actualizados(), result.sinCambios(), result.desactivados());
+        return result;
+    }
 
-        return new SincronizacionResult(nuevosRegistros, actualizados, sinCambios, desactivados);
+    /**
+     * Toma el lock de la empresa hasta el fin de la transacción: una segunda sincronización
+     * (p. ej. un evento reenviado mientras el original sigue en curso) espera y lee la cartera ya
+     * actualizada. El índice único por cargo activo es la red de seguridad.
+     */
+    private void bloquearEmpresa(Long empresaId) {
+        jdbcTemplate.queryForObject(BLOQUEAR_EMPRESA_SQL, Integer.class, empresaId.intValue());
     }
 
-    private void crearCarteraDesdeCargoVencido(Cargo cargo) {
-        Contrato contrato = cargo.getContrato();
-
-        CarteraVencida cartera = CarteraVencida.builder()
-                .empresaId(cargo.getEmpresaId())
-                .contratoId(contrato.getId())
-                .personaId(contrato.getArrendatario().getId())
-                .propiedadId(contrato.getPropiedad().getId())
-                .montoOriginal(cargo.getMontoOriginal())
-                .montoPendiente(cargo.getMontoPendiente())
-                .fechaVencimiento(cargo.getFechaVencimiento())
-                .concepto(cargo.getConcepto())
-                .estadoCobranza(cargo.getEstado() == EstadoCargo.PARCIAL
-                        ? CarteraVencida.EstadoCobranza.PARCIALMENTE_PAGADO
-                        : CarteraVencida.EstadoCobranza.PENDIENTE)
-                .activo(true)
-                .build();
-
-        // Calcular penalidad si aplica
-        if (contrato.getMontoPenalidadDiaria() != null && contrato.getMontoPenalidadDiaria().compareTo(BigDecimal.ZERO) > 0) {
-            long diasVencido = java.time.temporal.ChronoUnit.DAYS.between(cargo.getFechaVencimiento(), LocalDate.now());
-            int diasGracia = contrato.getDiasGracia() != null ? contrato.getDiasGracia() : 0;
-
-            if (diasVencido > diasGracia) {
-                BigDecimal penalidad = contrato.getMontoPenalidadDiaria()
-                        .multiply(BigDecimal.valueOf(diasVencido - diasGracia));
-                cartera.setMontoPenalidad(penalidad);
-            }
+    private SincronizacionResult aplicarPlan(Long empresaId, ConciliacionMorosidad.Plan plan, LocalDate hoy) {
+        int nuevosRegistros = insertarCartera(empresaId, plan.nuevos(), hoy);
+        actualizarCartera(plan.actualizaciones());
+        desactivarCartera(plan.desactivaciones());
+
+        int actualizados = plan.actualizados();
+        int sinCambios = plan.sinCambios();
+        int desactivados = plan.desactivaciones().size();
+
+        if (nuevosRegistros + actualizados + desactivados > 0) {
+            eventPublisher.publishEvent(new CarteraVencidaModificadaEvent(empresaId));
         }
 
-        carteraVencidaRepository.save(cartera);
+        return new SincronizacionResult(nuevosRegistros, actualizados, sinCambios, desactivados);
+    }
+
+    private CarteraActiva mapCartera(ResultSet rs, int rowNum) throws SQLException {
+        return new CarteraActiva(
+                rs.getLong("id"),
+                (Long) rs.getObject("cargo_id"),
+                rs.getLong("contrato_id"),
+                rs.getString("concepto"),
+                rs.getDate("fecha_vencimiento").toLocalDate(),
+                rs.getBigDecimal("monto_pendiente"));
+    }
+
+    private CargoConciliable mapCargo(ResultSet rs, int rowNum) throws SQLException {
+        return new CargoConciliable(
+                rs.getLong("id"),
+                rs.getLong("contrato_id"),
+                rs.getString("concepto"),
+                rs.getDate("fecha_vencimiento").toLocalDate(),
+                EstadoCargo.valueOf(rs.getString("estado")),
+                rs.getBigDecimal("monto_original"),
+                rs.getBigDecimal("monto_pendiente"),
+                rs.getLong("arrendatario_id"),
+                rs.getLong("propiedad_id"),
+                rs.getBigDecimal("monto_penalidad_diaria"),
+                (Integer) rs.getObject("dias_gracia"));
+    }
+
+    /**
+     * @return registros insertados; un cargo que ya tiene registro activo se omite
+     */
+    private int insertarCartera(Long empresaId, List<CargoConciliable> nuevos, LocalDate hoy) {
+        int[][] resultados = jdbcTemplate.batchUpdate(INSERT_SQL, nuevos, TAMANO_BATCH, (ps, cargo) -> {
+            int diasVencido = CarteraVencida.calcularDiasVencido(cargo.fechaVencimiento(), hoy);
+            CarteraVencida.EstadoCobranza estado = cargo.estado() == EstadoCargo.PARCIAL
+                    ? CarteraVencida.EstadoCobranza.PARCIALMENTE_PAGADO
+                    : CarteraVencida.EstadoCobranza.PENDIENTE;
+
+            ps.setLong(1, empresaId);
+            ps.setLong(2, cargo.id());
+            ps.setLong(3, cargo.contratoId());
+            ps.setLong(4, cargo.arrendatarioId());
+            ps.setLong(5, cargo.propiedadId());
+            ps.setBigDecimal(6, cargo.montoOriginal());
+            ps.setBigDecimal(7, cargo.montoPendiente());
+            ps.setBigDecimal(8, ConciliacionMorosidad.calcularPenalidad(cargo, hoy));
+            ps.setDate(9, Date.valueOf(cargo.fechaVencimiento()));
+            ps.setInt(10, diasVencido);
+            ps.setString(11, cargo.concepto());
+            ps.setString(12, estado.name());
+            ps.setString(13, CarteraVencida.ClasificacionAntiguedad.de(diasVencido).name());
+        });
+        return Arrays.stream(resultados).flatMapToInt(Arrays::stream).map(filas -> Math.max(filas, 0)).sum();
+    }
+
+    private void actualizarCartera(List<Actualizacion> actualizaciones) {
+        jdbcTemplate.batchUpdate(UPDATE_SQL, actualizaciones, TAMANO_BATCH, (ps, actualizacion) -> {
+            ps.setLong(1, actualizacion.cargoId());
+            ps.setBigDecimal(2, actualizacion.montoPendiente());
+            ps.setString(3, actualizacion.estadoCobranza() != null ? actualizacion.estadoCobranza().name() : null);
+            ps.setLong(4, actualizacion.carteraId());
+        });
+    }
+
+    private void desactivarCartera(List<Long> carteraIds) {
+        jdbcTemplate.batchUpdate(DESACTIVAR_SQL, carteraIds, TAMANO_BATCH,
+                (ps, carteraId) -> ps.setLong(1, carteraId));
     }
 
     /**
@@ -175,5 +307,9 @@ public class MorosidadAutomaticaService {
             int actualizados,
             int sinCambios,
             int desactivados
-    ) {}
+    ) {
+        public boolean conCambios() {
+            return nuevosRegistros + actualizados + desactivados > 0;
+        }
+    }
 }
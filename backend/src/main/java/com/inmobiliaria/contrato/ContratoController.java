@@ -109,9 +109,8 @@ public class ContratoController {
     }
 
     @PostMapping("/actualizar-vencimientos")
-    public ResponseEntity<Void> actualizarEstadosVencimiento() {
-        contratoService.actualizarEstadosVencimiento();
-        return ResponseEntity.ok().build();
+    public ResponseEntity<ContratoTransicionService.TransicionResult> actualizarEstadosVencimiento() {
+        return ResponseEntity.ok(contratoService.actualizarEstadosVencimiento());
     }
 
     // --- Statistics ---
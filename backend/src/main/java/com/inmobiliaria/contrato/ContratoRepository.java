@@ -26,8 +26,8 @@ public interface ContratoRepository extends JpaRepository<Contrato, Long> {
 
     List<Contrato> findByEmpresaIdAndArrendatarioId(Long empresaId, Long arrendatarioId);
 
-    @Query("SELECT c FROM Contrato c WHERE c.empresaId = :empresaId AND c.estado = 'ACTIVO' " +
-           "AND c.fechaFin <= :fechaLimite")
+    @Query("SELECT c FROM Contrato c JOIN FETCH c.propiedad JOIN FETCH c.arrendatario " +
+           "WHERE c.empresaId = :empresaId AND c.estado = 'ACTIVO' AND c.fechaFin <= :fechaLimite")
     List<Contrato> findContratosPorVencer(@Param("empresaId") Long empresaId,
                                           @Param("fechaLimite") LocalDate fechaLimite);
 
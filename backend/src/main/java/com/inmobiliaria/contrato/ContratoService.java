@@ -6,6 +6,8 @@ import com.inmobiliaria.persona.PersonaRepository;
 import com.inmobiliaria.propiedad.Propiedad;
 import com.inmobiliaria.propiedad.PropiedadRepository;
 import com.inmobiliaria.shared.multitenancy.TenantContext;
+import com.inmobiliaria.shared.numeracion.NumeracionService;
+import com.inmobiliaria.shared.numeracion.SerieDocumento;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -24,6 +26,8 @@ public class ContratoService {
     private final ContratoRepository contratoRepository;
     private final PropiedadRepository propiedadRepository;
     private final PersonaRepository personaRepository;
+    private final ContratoTransicionService contratoTransicionService;
+    private final NumeracionService numeracionService;
 
     // --- CRUD Operations ---
 
@@ -352,28 +356,9 @@ public class ContratoService {
     }
 
     @Transactional
-    public void actualizarEstadosVencimiento() {
+    public ContratoTransicionService.TransicionResult actualizarEstadosVencimiento() {
         Long empresaId = TenantContext.getCurrentTenant();
-        LocalDate hoy = LocalDate.now();
-
-        // Update contracts to POR_VENCER
-        List<Contrato> porVencer = contratoRepository.findContratosPorVencer(empresaId, hoy.plusDays(30));
-        for (Contrato contrato : porVencer) {
-            if (contrato.getEstado() == EstadoContrato.ACTIVO) {
-                contrato.setEstado(EstadoContrato.POR_VENCER);
-                contratoRepository.save(contrato);
-            }
-        }
-
-        // Update contracts to VENCIDO
-        List<Contrato> vencidos = contratoRepository.findContratosVencidos(empresaId, hoy);
-        for (Contrato contrato : vencidos) {
-            if (contrato.getEstado() == EstadoContrato.ACTIVO ||
-                contrato.getEstado() == EstadoContrato.POR_VENCER) {
-                contrato.setEstado(EstadoContrato.VENCIDO);
-                contratoRepository.save(contrato);
-            }
-        }
+        return contratoTransicionService.aplicarTransiciones(empresaId, LocalDate.now());
     }
 
     // --- Statistics ---
@@ -393,8 +378,8 @@ public class ContratoService {
 
     private String generateNumeroContrato(Long empresaId) {
         String prefix = "CTR-" + LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMM")) + "-";
-        long count = contratoRepository.findByEmpresaId(empresaId).size() + 1;
-        return prefix + String.format("%04d", count);
+        long consecutivo = numeracionService.siguiente(empresaId, SerieDocumento.CONTRATO);
+        return prefix + String.format("%04d", consecutivo);
     }
 
     @lombok.Data
@@ -0,0 +1,56 @@
+package com.inmobiliaria.contrato;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Transiciones de estado de contratos por fecha de fin, aplicadas con un UPDATE por transición.
+ * Cada UPDATE devuelve los IDs afectados para auditoría y notificaciones.
+ *
+ * Primero se marcan los vencidos y después los por vencer, para que un contrato ACTIVO
+ * cuya fecha de fin ya pasó termine como VENCIDO y no como POR_VENCER.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ContratoTransicionService {
+
+    public static final int DIAS_ANTICIPACION_POR_VENCER = 30;
+
+    private static final String MARCAR_VENCIDOS_SQL =
+            "UPDATE contratos SET estado = 'VENCIDO', updated_at = CURRENT_TIMESTAMP " +
+            "WHERE empresa_id = ? AND activo = TRUE AND estado IN ('ACTIVO', 'POR_VENCER') " +
+            "AND fecha_fin < ? " +
+            "RETURNING id";
+
+    private static final String MARCAR_POR_VENCER_SQL =
+            "UPDATE contratos SET estado = 'POR_VENCER', updated_at = CURRENT_TIMESTAMP " +
+            "WHERE empresa_id = ? AND activo = TRUE AND estado = 'ACTIVO' " +
+            "AND fecha_fin BETWEEN ? AND ? " +
+            "RETURNING id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    public TransicionResult aplicarTransiciones(Long empresaId, LocalDate hoy) {
+        List<Long> vencidos = jdbcTemplate.queryForList(MARCAR_VENCIDOS_SQL, Long.class,
+                empresaId, Date.valueOf(hoy));
+        List<Long> porVencer = jdbcTemplate.queryForList(MARCAR_POR_VENCER_SQL, Long.class,
+                empresaId, Date.valueOf(hoy), Date.valueOf(hoy.plusDays(DIAS_ANTICIPACION_POR_VENCER)));
+
+        if (!vencidos.isEmpty() || !porVencer.isEmpty()) {
+            log.info("Empresa {}: contratos marcados como VENCIDO {}, como POR_VENCER {}",
+                    empresaId, vencidos, porVencer);
+        }
+        return new TransicionResult(vencidos, porVencer);
+    }
+
+    public record TransicionResult(List<Long> contratosVencidos, List<Long> contratosPorVencer) {}
+}
@@ -95,9 +95,6 @@ public class OrdenMantenimiento implements TenantAware {
         if (fechaSolicitud == null) {
             fechaSolicitud = LocalDate.now();
         }
-        if (numeroOrden == null) {
-            numeroOrden = "OM-" + System.currentTimeMillis();
-        }
     }
 
     @PreUpdate
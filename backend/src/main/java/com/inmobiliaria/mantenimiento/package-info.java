@@ -1,4 +1,4 @@
 @org.springframework.modulith.ApplicationModule(
-    allowedDependencies = {"empresa", "persona", "propiedad", "shared", "shared::multitenancy"}
+    allowedDependencies = {"empresa", "persona", "propiedad", "shared", "shared::multitenancy", "shared::numeracion"}
 )
 package com.inmobiliaria.mantenimiento;
@@ -4,6 +4,8 @@ import com.inmobiliaria.mantenimiento.domain.*;
 import com.inmobiliaria.mantenimiento.dto.*;
 import com.inmobiliaria.mantenimiento.repository.*;
 import com.inmobiliaria.shared.multitenancy.TenantContext;
+import com.inmobiliaria.shared.numeracion.NumeracionService;
+import com.inmobiliaria.shared.numeracion.SerieDocumento;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,6 +27,7 @@ public class MantenimientoService {
     private final ProveedorRepository proveedorRepository;
     private final OrdenMantenimientoRepository ordenRepository;
     private final SeguimientoOrdenRepository seguimientoRepository;
+    private final NumeracionService numeracionService;
 
     // ==================== PROVEEDORES ====================
 
@@ -204,6 +207,8 @@ public class MantenimientoService {
 
         OrdenMantenimiento orden = OrdenMantenimiento.builder()
                 .empresaId(empresaId)
+                .numeroOrden(String.format("OM-%06d",
+                        numeracionService.siguiente(empresaId, SerieDocumento.ORDEN_MANTENIMIENTO)))
                 .propiedadId(request.getPropiedadId())
                 .proveedorId(request.getProveedorId())
                 .solicitanteId(request.getSolicitanteId())
@@ -1,16 +1,33 @@
 package com.inmobiliaria.notificacion.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 @Configuration
 @EnableScheduling
 public class NotificacionConfig {
 
+    /**
+     * Cliente HTTP compartido (API de WhatsApp). El HttpClient del JDK mantiene un pool de
+     * conexiones keep-alive, así que los envíos reutilizan la conexión TLS en lugar de abrir una
+     * por mensaje; los timeouts evitan que un proveedor lento retenga los hilos de envío.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(
+            @Value("${app.notifications.whatsapp.connect-timeout-ms:5000}") long connectTimeoutMs,
+            @Value("${app.notifications.whatsapp.read-timeout-ms:10000}") long readTimeoutMs) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        return new RestTemplate(requestFactory);
     }
 }
@@ -2,6 +2,7 @@ package com.inmobiliaria.notificacion.domain;
 
 public enum EstadoNotificacion {
     PENDIENTE,
+    ENVIANDO,
     ENVIADA,
     FALLIDA,
     CANCELADA
@@ -45,6 +45,9 @@ public class Notificacion implements TenantAware {
     @Column(columnDefinition = "TEXT", nullable = false)
     private String mensaje;
 
+    @Column(name = "html", nullable = false)
+    private Boolean html;
+
     @Column(name = "referencia_id")
     private Long referenciaId;
 
@@ -63,6 +66,18 @@ public class Notificacion implements TenantAware {
     @Column(name = "error_mensaje")
     private String errorMensaje;
 
+    @Column(name = "clave_dedupe")
+    private String claveDedupe;
+
+    @Column(name = "proximo_intento")
+    private LocalDateTime proximoIntento;
+
+    @Column(name = "en_envio_desde")
+    private LocalDateTime enEnvioDesde;
+
+    @Column(name = "nodo_envio")
+    private String nodoEnvio;
+
     @Column(name = "fecha_creacion")
     private LocalDateTime fechaCreacion;
 
@@ -76,6 +91,9 @@ public class Notificacion implements TenantAware {
         if (intentos == null) {
             intentos = 0;
         }
+        if (html == null) {
+            html = false;
+        }
         if (estado == null) {
             estado = EstadoNotificacion.PENDIENTE;
         }
@@ -25,6 +25,7 @@ public class NotificacionDTO {
     private LocalDateTime fechaEnvio;
     private Integer intentos;
     private String errorMensaje;
+    private LocalDateTime proximoIntento;
     private LocalDateTime fechaCreacion;
 
     public static NotificacionDTO fromEntity(Notificacion entity) {
@@ -43,6 +44,7 @@ public class NotificacionDTO {
                 .fechaEnvio(entity.getFechaEnvio())
                 .intentos(entity.getIntentos())
                 .errorMensaje(entity.getErrorMensaje())
+                .proximoIntento(entity.getProximoIntento())
                 .fechaCreacion(entity.getFechaCreacion())
                 .build();
     }
@@ -5,71 +5,104 @@ import com.inmobiliaria.cobranza.service.CobranzaService;
 import com.inmobiliaria.contrato.Contrato;
 import com.inmobiliaria.contrato.ContratoRepository;
 import com.inmobiliaria.notificacion.domain.*;
-import com.inmobiliaria.notificacion.dto.CreateNotificacionRequest;
 import com.inmobiliaria.notificacion.repository.ConfiguracionNotificacionRepository;
-import com.inmobiliaria.notificacion.repository.NotificacionRepository;
-import com.inmobiliaria.shared.multitenancy.TenantContext;
+import com.inmobiliaria.shared.multitenancy.TenantTaskExecutor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Genera las alertas diarias (vencimiento de contrato, pago pendiente, pago vencido).
+ *
+ * - Por empresa y categoría se carga en una sola consulta la última notificación de cada
+ *   persona y referencia; la frecuencia de recordatorio se decide en memoria.
+ * - Los mensajes se generan con las plantillas compiladas de {@link PlantillaService}.
+ * - Las notificaciones nuevas se insertan en un batch JDBC con una clave de deduplicación por
+ *   día: si el proceso se ejecuta de nuevo (o en dos instancias) no se duplican.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AlertSchedulerService {
 
-    private final NotificacionService notificacionService;
+    // Notificaciones que cuentan para la frecuencia: enviadas, por enviar o con reintento programado
+    private static final String ULTIMAS_NOTIFICACIONES_SQL =
+            "SELECT persona_id, referencia_id, MAX(fecha_creacion) AS ultima FROM notificaciones " +
+            "WHERE empresa_id = ? AND categoria = ? AND fecha_creacion > ? " +
+            "AND (estado IN ('ENVIADA', 'PENDIENTE', 'ENVIANDO') " +
+            "OR (estado = 'FALLIDA' AND proximo_intento IS NOT NULL)) " +
+            "GROUP BY persona_id, referencia_id";
+
+    private static final String INSERTAR_SQL =
+            "INSERT INTO notificaciones (empresa_id, persona_id, tipo, categoria, estado, destinatario, asunto, " +
+            "mensaje, html, referencia_id, referencia_tipo, intentos, clave_dedupe) " +
+            "VALUES (?, ?, ?, ?, 'PENDIENTE', ?, ?, ?, ?, ?, ?, 0, ?) " +
+            "ON CONFLICT (empresa_id, clave_dedupe) DO NOTHING";
+
+    private static final int FRECUENCIA_DEFAULT_DIAS = 7;
+
     private final ConfiguracionNotificacionRepository configuracionRepository;
-    private final NotificacionRepository notificacionRepository;
     private final CobranzaService cobranzaService;
     private final ContratoRepository contratoRepository;
+    private final TenantTaskExecutor tenantTaskExecutor;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlantillaService plantillaService;
 
     @Scheduled(cron = "0 0 8 * * *") // Todos los días a las 8 AM
     public void procesarAlertasDiarias() {
         log.info("Iniciando procesamiento de alertas diarias");
 
-        List<ConfiguracionNotificacion> configuraciones = configuracionRepository.findAll();
-
-        for (ConfiguracionNotificacion config : configuraciones) {
-            if (!config.getActivo()) continue;
-
-            try {
-                TenantContext.setCurrentTenant(config.getEmpresaId());
-
-                switch (config.getCategoria()) {
-                    case VENCIMIENTO_CONTRATO:
-                        procesarAlertasVencimientoContrato(config);
-                        break;
-                    case PAGO_PENDIENTE:
-                        procesarRecordatoriosPagoPendiente(config);
-                        break;
-                    case PAGO_VENCIDO:
-                        procesarAlertasPagoVencido(config);
-                        break;
-                    default:
-                        break;
-                }
-            } catch (Exception e) {
-                log.error("Error procesando alertas para empresa {}: {}",
-                    config.getEmpresaId(), e.getMessage());
-            } finally {
-                TenantContext.clear();
-            }
-        }
+        Map<Long, List<ConfiguracionNotificacion>> configuracionesPorEmpresa = configuracionRepository.findAll().stream()
+                .filter(config -> Boolean.TRUE.equals(config.getActivo()))
+                .collect(Collectors.groupingBy(ConfiguracionNotificacion::getEmpresaId));
+
+        // TenantTaskExecutor establece TenantContext para cada empresa
+        tenantTaskExecutor.forEachTenant("Alertas diarias", configuracionesPorEmpresa.keySet(), empresaId -> {
+            configuracionesPorEmpresa.get(empresaId).forEach(this::procesarConfiguracion);
+            return null;
+        });
 
         log.info("Procesamiento de alertas diarias completado");
     }
 
-    @Transactional
-    public void procesarAlertasVencimientoContrato(ConfiguracionNotificacion config) {
+    private void procesarConfiguracion(ConfiguracionNotificacion config) {
+        try {
+            LoteAlertas lote = new LoteAlertas(config, cargarUltimasNotificaciones(config));
+            switch (config.getCategoria()) {
+                case VENCIMIENTO_CONTRATO:
+                    procesarAlertasVencimientoContrato(lote);
+                    break;
+                case PAGO_PENDIENTE:
+                    procesarRecordatoriosPagoPendiente(lote);
+                    break;
+                case PAGO_VENCIDO:
+                    procesarAlertasPagoVencido(lote);
+                    break;
+                default:
+                    return;
+            }
+            insertarLote(lote);
+        } catch (Exception e) {
+            log.error("Error procesando alertas para empresa {}: {}",
+                config.getEmpresaId(), e.getMessage());
+        }
+    }
+
+    private void procesarAlertasVencimientoContrato(LoteAlertas lote) {
+        ConfiguracionNotificacion config = lote.config();
         int diasAnticipacion = config.getDiasAnticipacion() != null ? config.getDiasAnticipacion() : 30;
         LocalDate fechaLimite = LocalDate.now().plusDays(diasAnticipacion);
 
@@ -81,7 +114,7 @@ public class AlertSchedulerService {
                 config.getEmpresaId(), fechaLimite);
 
             for (Contrato contrato : contratosPorVencer) {
-                crearNotificacionVencimientoContrato(config, contrato);
+                crearNotificacionVencimientoContrato(lote, contrato);
             }
 
             log.info("Se procesaron {} contratos próximos a vencer para empresa {}",
@@ -91,75 +124,49 @@ public class AlertSchedulerService {
         }
     }
 
-    private void crearNotificacionVencimientoContrato(ConfiguracionNotificacion config, Contrato contrato) {
+    private void crearNotificacionVencimientoContrato(LoteAlertas lote, Contrato contrato) {
+        ConfiguracionNotificacion config = lote.config();
         // Verificar frecuencia de recordatorios
-        if (!debeEnviarNotificacion(config, contrato.getArrendatario().getId(),
-                CategoriaNotificacion.VENCIMIENTO_CONTRATO, contrato.getId())) {
+        if (!debeEnviarNotificacion(lote, contrato.getArrendatario().getId(), contrato.getId())) {
             return;
         }
 
         long diasRestantes = ChronoUnit.DAYS.between(LocalDate.now(), contrato.getFechaFin());
-        String mensaje = generarMensajeVencimientoContrato(config, contrato, diasRestantes);
+        Map<String, String> valores = valoresContrato(contrato, diasRestantes);
         String asunto = "Aviso: Contrato próximo a vencer - " + contrato.getPropiedad().getDireccionCompleta();
 
         String emailArrendatario = contrato.getArrendatario().getEmail();
         String telefonoArrendatario = contrato.getArrendatario().getTelefono();
 
         if (config.getEmailHabilitado() && emailArrendatario != null && !emailArrendatario.isEmpty()) {
-            crearNotificacion(
+            agregar(
+                lote,
                 TipoNotificacion.EMAIL,
-                CategoriaNotificacion.VENCIMIENTO_CONTRATO,
                 contrato.getArrendatario().getId(),
                 emailArrendatario,
                 asunto,
-                mensaje,
+                valores,
                 contrato.getId(),
                 "CONTRATO"
             );
         }
 
         if (config.getWhatsappHabilitado() && telefonoArrendatario != null && !telefonoArrendatario.isEmpty()) {
-            crearNotificacion(
+            agregar(
+                lote,
                 TipoNotificacion.WHATSAPP,
-                CategoriaNotificacion.VENCIMIENTO_CONTRATO,
                 contrato.getArrendatario().getId(),
                 telefonoArrendatario,
                 asunto,
-                mensaje,
+                valores,
                 contrato.getId(),
                 "CONTRATO"
             );
         }
     }
 
-    private String generarMensajeVencimientoContrato(ConfiguracionNotificacion config, Contrato contrato, long diasRestantes) {
-        if (config.getPlantillaEmail() != null && !config.getPlantillaEmail().isEmpty()) {
-            return config.getPlantillaEmail()
-                .replace("{{nombre}}", contrato.getArrendatario().getNombreCompleto())
-                .replace("{{propiedad}}", contrato.getPropiedad().getDireccionCompleta())
-                .replace("{{fecha_vencimiento}}", contrato.getFechaFin().toString())
-                .replace("{{dias_restantes}}", String.valueOf(diasRestantes))
-                .replace("{{numero_contrato}}", contrato.getNumeroContrato());
-        }
-
-        return String.format(
-            "Estimado(a) %s,\n\n" +
-            "Le informamos que su contrato de arrendamiento número %s " +
-            "para la propiedad ubicada en %s vencerá en %d días (fecha: %s).\n\n" +
-            "Por favor, comuníquese con nosotros para discutir la renovación o " +
-            "terminación del contrato.\n\n" +
-            "Saludos cordiales,\n" +
-            "Administración",
-            contrato.getArrendatario().getNombreCompleto(),
-            contrato.getNumeroContrato(),
-            contrato.getPropiedad().getDireccionCompleta(),
-            diasRestantes,
-            contrato.getFechaFin()
-        );
-    }
-
-    @Transactional
-    public void procesarRecordatoriosPagoPendiente(ConfiguracionNotificacion config) {
+    private void procesarRecordatoriosPagoPendiente(LoteAlertas lote) {
+        ConfiguracionNotificacion config = lote.config();
         log.info("Procesando recordatorios de pago pendiente para empresa {}", config.getEmpresaId());
 
         try {
@@ -168,7 +175,7 @@ public class AlertSchedulerService {
             for (CarteraVencidaDTO item : cartera) {
                 if (item.getDiasVencido() <= 0) {
                     // Pago próximo a vencer
-                    crearNotificacionPagoPendiente(config, item);
+                    crearNotificacionPagoPendiente(lote, item);
                 }
             }
         } catch (Exception e) {
@@ -176,8 +183,8 @@ public class AlertSchedulerService {
         }
     }
 
-    @Transactional
-    public void procesarAlertasPagoVencido(ConfiguracionNotificacion config) {
+    private void procesarAlertasPagoVencido(LoteAlertas lote) {
+        ConfiguracionNotificacion config = lote.config();
         log.info("Procesando alertas de pago vencido para empresa {}", config.getEmpresaId());
 
         try {
@@ -185,7 +192,7 @@ public class AlertSchedulerService {
 
             for (CarteraVencidaDTO item : cartera) {
                 if (item.getDiasVencido() > 0) {
-                    crearNotificacionPagoVencido(config, item);
+                    crearNotificacionPagoVencido(lote, item);
                 }
             }
         } catch (Exception e) {
@@ -193,169 +200,141 @@ public class AlertSchedulerService {
         }
     }
 
-    private void crearNotificacionPagoPendiente(ConfiguracionNotificacion config, CarteraVencidaDTO item) {
+    private void crearNotificacionPagoPendiente(LoteAlertas lote, CarteraVencidaDTO item) {
+        ConfiguracionNotificacion config = lote.config();
         // Verificar frecuencia de recordatorios
-        if (!debeEnviarNotificacion(config, item.getPersonaId(),
-                CategoriaNotificacion.PAGO_PENDIENTE, item.getContratoId())) {
+        if (!debeEnviarNotificacion(lote, item.getPersonaId(), item.getContratoId())) {
             return;
         }
 
-        String mensaje = generarMensajePagoPendiente(config, item);
+        Map<String, String> valores = valoresCartera(item);
         String asunto = "Recordatorio de pago - " + item.getDireccionPropiedad();
 
         if (config.getEmailHabilitado() && item.getEmailPersona() != null) {
-            crearNotificacion(
+            agregar(
+                lote,
                 TipoNotificacion.EMAIL,
-                CategoriaNotificacion.PAGO_PENDIENTE,
                 item.getPersonaId(),
                 item.getEmailPersona(),
                 asunto,
-                mensaje,
+                valores,
                 item.getContratoId(),
                 "CONTRATO"
             );
         }
 
         if (config.getWhatsappHabilitado() && item.getTelefonoPersona() != null) {
-            crearNotificacion(
+            agregar(
+                lote,
                 TipoNotificacion.WHATSAPP,
-                CategoriaNotificacion.PAGO_PENDIENTE,
                 item.getPersonaId(),
                 item.getTelefonoPersona(),
                 asunto,
-                mensaje,
+                valores,
                 item.getContratoId(),
                 "CONTRATO"
             );
         }
     }
 
-    private void crearNotificacionPagoVencido(ConfiguracionNotificacion config, CarteraVencidaDTO item) {
+    private void crearNotificacionPagoVencido(LoteAlertas lote, CarteraVencidaDTO item) {
+        ConfiguracionNotificacion config = lote.config();
         // Verificar frecuencia de recordatorios
-        if (!debeEnviarNotificacion(config, item.getPersonaId(),
-                CategoriaNotificacion.PAGO_VENCIDO, item.getContratoId())) {
+        if (!debeEnviarNotificacion(lote, item.getPersonaId(), item.getContratoId())) {
             return;
         }
 
-        String mensaje = generarMensajePagoVencido(config, item);
+        Map<String, String> valores = valoresCartera(item);
         String asunto = "URGENTE: Pago vencido - " + item.getDireccionPropiedad();
 
         if (config.getEmailHabilitado() && item.getEmailPersona() != null) {
-            crearNotificacion(
+            agregar(
+                lote,
                 TipoNotificacion.EMAIL,
-                CategoriaNotificacion.PAGO_VENCIDO,
                 item.getPersonaId(),
                 item.getEmailPersona(),
                 asunto,
-                mensaje,
+                valores,
                 item.getContratoId(),
                 "CONTRATO"
             );
         }
 
         if (config.getWhatsappHabilitado() && item.getTelefonoPersona() != null) {
-            crearNotificacion(
+            agregar(
+                lote,
                 TipoNotificacion.WHATSAPP,
-                CategoriaNotificacion.PAGO_VENCIDO,
                 item.getPersonaId(),
                 item.getTelefonoPersona(),
                 asunto,
-                mensaje,
+                valores,
                 item.getContratoId(),
                 "CONTRATO"
             );
         }
     }
 
-    private void crearNotificacion(TipoNotificacion tipo, CategoriaNotificacion categoria,
-                                   Long personaId, String destinatario, String asunto,
-                                   String mensaje, Long referenciaId, String referenciaTipo) {
-        CreateNotificacionRequest request = CreateNotificacionRequest.builder()
-            .personaId(personaId)
-            .tipo(tipo)
-            .categoria(categoria)
-            .destinatario(destinatario)
-            .asunto(asunto)
-            .mensaje(mensaje)
-            .referenciaId(referenciaId)
-            .referenciaTipo(referenciaTipo)
-            .build();
-
-        notificacionService.create(request);
+    private static Map<String, String> valoresContrato(Contrato contrato, long diasRestantes) {
+        Map<String, String> valores = new HashMap<>();
+        valores.put("nombre", contrato.getArrendatario().getNombreCompleto());
+        valores.put("propiedad", contrato.getPropiedad().getDireccionCompleta());
+        valores.put("fecha_vencimiento", contrato.getFechaFin().toString());
+        valores.put("dias_restantes", String.valueOf(diasRestantes));
+        valores.put("numero_contrato", contrato.getNumeroContrato());
+        return valores;
     }
 
-    private String generarMensajePagoPendiente(ConfiguracionNotificacion config, CarteraVencidaDTO item) {
-        if (config.getPlantillaEmail() != null && !config.getPlantillaEmail().isEmpty()) {
-            return aplicarPlantilla(config.getPlantillaEmail(), item);
-        }
-
-        return String.format(
-            "Estimado(a) %s,\n\n" +
-            "Le recordamos que tiene un pago pendiente por la cantidad de $%s " +
-            "correspondiente a la propiedad ubicada en %s.\n\n" +
-            "Por favor, realice su pago a la brevedad posible.\n\n" +
-            "Saludos cordiales,\n" +
-            "Administración",
-            item.getNombrePersona(),
-            item.getMontoTotal(),
-            item.getDireccionPropiedad()
-        );
+    private static Map<String, String> valoresCartera(CarteraVencidaDTO item) {
+        Map<String, String> valores = new HashMap<>();
+        valores.put("nombre", item.getNombrePersona());
+        valores.put("monto", item.getMontoTotal() != null ? item.getMontoTotal().toString() : "0");
+        valores.put("propiedad", item.getDireccionPropiedad());
+        valores.put("dias_vencido", String.valueOf(item.getDiasVencido()));
+        return valores;
     }
 
-    private String generarMensajePagoVencido(ConfiguracionNotificacion config, CarteraVencidaDTO item) {
-        if (config.getPlantillaEmail() != null && !config.getPlantillaEmail().isEmpty()) {
-            return aplicarPlantilla(config.getPlantillaEmail(), item);
-        }
-
-        return String.format(
-            "Estimado(a) %s,\n\n" +
-            "Le informamos que tiene un pago vencido desde hace %d días " +
-            "por la cantidad de $%s correspondiente a la propiedad ubicada en %s.\n\n" +
-            "Es urgente que regularice su situación para evitar cargos adicionales.\n\n" +
-            "Saludos cordiales,\n" +
-            "Administración",
-            item.getNombrePersona(),
-            item.getDiasVencido(),
-            item.getMontoTotal(),
-            item.getDireccionPropiedad()
-        );
+    /**
+     * Genera el mensaje con la plantilla del canal y lo agrega al lote.
+     */
+    private void agregar(LoteAlertas lote, TipoNotificacion tipo, Long personaId, String destinatario,
+                         String asunto, Map<String, String> valores, Long referenciaId, String referenciaTipo) {
+        PlantillaMensaje plantilla = plantillaService.obtener(lote.config(), tipo);
+        String mensaje = plantilla.renderizar(valores, lote.buffer());
+        lote.nuevas().add(new NuevaNotificacion(tipo, lote.config().getCategoria(), personaId, destinatario,
+            asunto, mensaje, plantilla.isHtml(), referenciaId, referenciaTipo));
     }
 
-    private String aplicarPlantilla(String plantilla, CarteraVencidaDTO item) {
-        return plantilla
-            .replace("{{nombre}}", item.getNombrePersona() != null ? item.getNombrePersona() : "")
-            .replace("{{monto}}", item.getMontoTotal() != null ? item.getMontoTotal().toString() : "0")
-            .replace("{{propiedad}}", item.getDireccionPropiedad() != null ? item.getDireccionPropiedad() : "")
-            .replace("{{dias_vencido}}", String.valueOf(item.getDiasVencido()));
+    /**
+     * Última notificación de la categoría por persona y referencia, solo dentro de la ventana de
+     * frecuencia (lo anterior ya no limita el envío).
+     */
+    private Map<ClaveDestino, LocalDateTime> cargarUltimasNotificaciones(ConfiguracionNotificacion config) {
+        LocalDateTime desde = LocalDateTime.now().minusDays(frecuenciaDias(config));
+        Map<ClaveDestino, LocalDateTime> ultimas = new HashMap<>();
+        jdbcTemplate.query(ULTIMAS_NOTIFICACIONES_SQL, rs -> {
+            ultimas.put(
+                new ClaveDestino(rs.getObject("persona_id", Long.class), rs.getObject("referencia_id", Long.class)),
+                rs.getTimestamp("ultima").toLocalDateTime());
+        }, config.getEmpresaId(), config.getCategoria().name(), Timestamp.valueOf(desde));
+        return ultimas;
     }
 
     /**
      * Verifica si se debe enviar una notificación basado en frecuenciaRecordatorio.
-     * @param config Configuración con frecuenciaRecordatorio (en días)
+     * @param lote Lote de la configuración, con las últimas notificaciones precargadas
      * @param personaId ID de la persona
-     * @param categoria Categoría de notificación
      * @param referenciaId ID de referencia (contratoId)
      * @return true si se debe enviar la notificación
      */
-    private boolean debeEnviarNotificacion(ConfiguracionNotificacion config, Long personaId,
-                                           CategoriaNotificacion categoria, Long referenciaId) {
-        Integer frecuenciaDias = config.getFrecuenciaRecordatorio();
-
-        // Si no hay frecuencia configurada, usar valor por defecto de 7 días
-        if (frecuenciaDias == null || frecuenciaDias <= 0) {
-            frecuenciaDias = 7;
-        }
-
-        var ultimaNotificacion = notificacionRepository.findUltimaNotificacion(
-            config.getEmpresaId(), personaId, categoria, referenciaId);
+    private boolean debeEnviarNotificacion(LoteAlertas lote, Long personaId, Long referenciaId) {
+        LocalDateTime fechaUltima = lote.ultimas().get(new ClaveDestino(personaId, referenciaId));
 
-        if (ultimaNotificacion.isEmpty()) {
-            // No hay notificación previa, se debe enviar
+        if (fechaUltima == null) {
+            // No hay notificación previa dentro de la ventana, se debe enviar
             return true;
         }
 
-        LocalDateTime fechaUltima = ultimaNotificacion.get().getFechaCreacion();
-        LocalDateTime fechaLimite = fechaUltima.plusDays(frecuenciaDias);
+        LocalDateTime fechaLimite = fechaUltima.plusDays(frecuenciaDias(lote.config()));
 
         boolean debeEnviar = LocalDateTime.now().isAfter(fechaLimite);
 
@@ -367,10 +346,55 @@ public class AlertSchedulerService {
         return debeEnviar;
     }
 
-    // Método para procesar notificaciones pendientes
-    @Scheduled(fixedRate = 300000) // Cada 5 minutos
-    public void procesarNotificacionesPendientes() {
-        log.debug("Procesando notificaciones pendientes de envío");
-        notificacionService.procesarPendientes();
+    private static int frecuenciaDias(ConfiguracionNotificacion config) {
+        Integer frecuenciaDias = config.getFrecuenciaRecordatorio();
+        // Si no hay frecuencia configurada, usar valor por defecto de 7 días
+        return frecuenciaDias != null && frecuenciaDias > 0 ? frecuenciaDias : FRECUENCIA_DEFAULT_DIAS;
+    }
+
+    private void insertarLote(LoteAlertas lote) {
+        if (lote.nuevas().isEmpty()) {
+            return;
+        }
+        Long empresaId = lote.config().getEmpresaId();
+        LocalDate hoy = LocalDate.now();
+        List<Object[]> parametros = lote.nuevas().stream()
+            .map(n -> new Object[]{
+                empresaId, n.personaId(), n.tipo().name(), n.categoria().name(), n.destinatario(), n.asunto(),
+                n.mensaje(), n.html(), n.referenciaId(), n.referenciaTipo(), n.claveDedupe(hoy)})
+            .toList();
+
+        int[] resultados = jdbcTemplate.batchUpdate(INSERTAR_SQL, parametros);
+        long insertadas = Arrays.stream(resultados).filter(r -> r != 0).count();
+        log.info("Alertas {} para empresa {}: {} notificaciones nuevas, {} ya existían",
+            lote.config().getCategoria(), empresaId, insertadas, parametros.size() - insertadas);
+    }
+
+    // ========== Tipos ==========
+
+    private record ClaveDestino(Long personaId, Long referenciaId) {}
+
+    private record NuevaNotificacion(TipoNotificacion tipo, CategoriaNotificacion categoria, Long personaId,
+                                     String destinatario, String asunto, String mensaje, boolean html,
+                                     Long referenciaId, String referenciaTipo) {
+
+        /**
+         * Una por categoría, canal, persona, referencia y día.
+         */
+        String claveDedupe(LocalDate dia) {
+            return String.join(":", categoria.name(), tipo.name(), String.valueOf(personaId),
+                referenciaTipo, String.valueOf(referenciaId), dia.toString());
+        }
+    }
+
+    /**
+     * Notificaciones nuevas de una configuración; el buffer se reutiliza para generar todos sus mensajes.
+     */
+    private record LoteAlertas(ConfiguracionNotificacion config, Map<ClaveDestino, LocalDateTime> ultimas,
+                               List<NuevaNotificacion> nuevas, StringBuilder buffer) {
+
+        LoteAlertas(ConfiguracionNotificacion config, Map<ClaveDestino, LocalDateTime> ultimas) {
+            this(config, ultimas, new ArrayList<>(), new StringBuilder(512));
+        }
     }
 }
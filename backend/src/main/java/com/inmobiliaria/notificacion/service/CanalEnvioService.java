@@ -0,0 +1,152 @@
+package com.inmobiliaria.notificacion.service;
+
+import com.inmobiliaria.notificacion.domain.TipoNotificacion;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Envía notificaciones por su canal respetando los límites de cada proveedor.
+ *
+ * - Cada canal tiene su {@link LimitadorCanal}: envíos simultáneos y mensajes por segundo.
+ * - Los correos se agrupan para enviar varios por la misma conexión SMTP; los WhatsApp se
+ *   envían uno por petición sobre el cliente HTTP compartido (conexiones keep-alive).
+ * - Los envíos corren en hilos virtuales: esperar un lugar o un token no ocupa hilos del pool.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CanalEnvioService {
+
+    private final EmailService emailService;
+    private final WhatsAppService whatsAppService;
+
+    @Value("${app.notifications.email.concurrencia:2}")
+    private int emailConcurrencia;
+
+    @Value("${app.notifications.email.mensajes-por-segundo:5}")
+    private double emailMensajesPorSegundo;
+
+    @Value("${app.notifications.email.rafaga:20}")
+    private int emailRafaga;
+
+    @Value("${app.notifications.email.mensajes-por-conexion:20}")
+    private int mensajesPorConexion;
+
+    @Value("${app.notifications.whatsapp.concurrencia:8}")
+    private int whatsappConcurrencia;
+
+    @Value("${app.notifications.whatsapp.mensajes-por-segundo:20}")
+    private double whatsappMensajesPorSegundo;
+
+    @Value("${app.notifications.whatsapp.rafaga:40}")
+    private int whatsappRafaga;
+
+    private LimitadorCanal limitadorEmail;
+    private LimitadorCanal limitadorWhatsApp;
+
+    @PostConstruct
+    void init() {
+        limitadorEmail = new LimitadorCanal("EMAIL", emailConcurrencia, emailMensajesPorSegundo, emailRafaga);
+        limitadorWhatsApp = new LimitadorCanal("WHATSAPP", whatsappConcurrencia, whatsappMensajesPorSegundo, whatsappRafaga);
+    }
+
+    /**
+     * Envía un mensaje sin tocar la base de datos.
+     *
+     * @return null si se envió, o el motivo del fallo
+     */
+    public String enviar(Envio envio) {
+        return enviar(List.of(envio)).get(envio.id());
+    }
+
+    /**
+     * Envía los mensajes sin tocar la base de datos; bloquea hasta que todos terminan.
+     *
+     * @return motivo del fallo por id de notificación; los enviados no aparecen
+     */
+    public Map<Long, String> enviar(List<Envio> envios) {
+        List<Envio> correos = new ArrayList<>();
+        List<List<Envio>> grupos = new ArrayList<>();
+        Map<Long, String> errores = new HashMap<>();
+
+        for (Envio envio : envios) {
+            switch (envio.tipo()) {
+                case EMAIL -> correos.add(envio);
+                case WHATSAPP -> grupos.add(List.of(envio));
+                default -> errores.put(envio.id(), "Tipo de notificación no soportado");
+            }
+        }
+        for (int i = 0; i < correos.size(); i += mensajesPorConexion) {
+            grupos.add(correos.subList(i, Math.min(i + mensajesPorConexion, correos.size())));
+        }
+
+        List<Future<Map<Long, String>>> tareas = new ArrayList<>(grupos.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<Envio> grupo : grupos) {
+                tareas.add(executor.submit(() -> grupo.get(0).tipo() == TipoNotificacion.EMAIL
+                        ? limitadorEmail.ejecutar(grupo.size(), () -> enviarCorreos(grupo))
+                        : limitadorWhatsApp.ejecutar(1, () -> enviarWhatsApp(grupo.get(0)))));
+            }
+            for (int i = 0; i < grupos.size(); i++) {
+                esperar(tareas.get(i), grupos.get(i), errores);
+            }
+        }
+        return errores;
+    }
+
+    private Map<Long, String> enviarCorreos(List<Envio> grupo) {
+        List<String> resultados = emailService.sendEmails(grupo.stream()
+                .map(e -> new EmailService.Correo(e.destinatario(), e.asunto(), e.mensaje(), e.html()))
+                .toList());
+        Map<Long, String> errores = new HashMap<>();
+        for (int i = 0; i < grupo.size(); i++) {
+            if (resultados.get(i) != null) {
+                errores.put(grupo.get(i).id(), resultados.get(i));
+            }
+        }
+        return errores;
+    }
+
+    private Map<Long, String> enviarWhatsApp(Envio envio) {
+        if (whatsAppService.sendMessage(envio.destinatario(), envio.mensaje())) {
+            return Map.of();
+        }
+        return Map.of(envio.id(), "El canal WHATSAPP no confirmó el envío");
+    }
+
+    private static void esperar(Future<Map<Long, String>> tarea, List<Envio> grupo, Map<Long, String> errores) {
+        String error;
+        try {
+            errores.putAll(tarea.get());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Envío interrumpido";
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            error = causa.getMessage() != null ? causa.getMessage() : causa.getClass().getSimpleName();
+        }
+        log.error("Error enviando {} notificaciones por {}: {}", grupo.size(), grupo.get(0).tipo(), error);
+        for (Envio envio : grupo) {
+            errores.put(envio.id(), error);
+        }
+    }
+
+    /**
+     * @param html solo aplica a correo: el mensaje se envía como text/html
+     */
+    public record Envio(Long id, TipoNotificacion tipo, String destinatario, String asunto, String mensaje,
+                        boolean html) {}
+}
@@ -3,7 +3,8 @@ package com.inmobiliaria.notificacion.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
@@ -11,6 +12,11 @@ import org.springframework.stereotype.Service;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -25,48 +31,77 @@ public class EmailService {
     private boolean emailEnabled;
 
     public boolean sendEmail(String to, String subject, String body) {
+        return sendEmails(List.of(new Correo(to, subject, body, false))).get(0) == null;
+    }
+
+    /**
+     * Envía varios correos por una sola conexión SMTP (JavaMailSender abre el transporte una vez
+     * para todo el arreglo).
+     *
+     * @return por cada correo, en el mismo orden, null si se envió o el motivo del fallo
+     */
+    public List<String> sendEmails(List<Correo> correos) {
         if (!emailEnabled) {
-            log.info("Email deshabilitado. Simulando envío a: {} - Asunto: {}", to, subject);
-            return true;
+            correos.forEach(c -> log.info("Email deshabilitado. Simulando envío a: {} - Asunto: {}", c.to(), c.subject()));
+            return Arrays.asList(new String[correos.size()]);
         }
 
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(body);
-
-            mailSender.send(message);
-            log.info("Email enviado exitosamente a: {}", to);
-            return true;
-        } catch (Exception e) {
-            log.error("Error al enviar email a {}: {}", to, e.getMessage());
-            return false;
+        MimeMessage[] mensajes = new MimeMessage[correos.size()];
+        String[] errores = new String[correos.size()];
+        for (int i = 0; i < correos.size(); i++) {
+            Correo correo = correos.get(i);
+            try {
+                mensajes[i] = mailSender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(mensajes[i], correo.html(), "UTF-8");
+                helper.setFrom(fromEmail);
+                helper.setTo(correo.to());
+                helper.setSubject(correo.subject());
+                helper.setText(correo.body(), correo.html());
+            } catch (MessagingException e) {
+                errores[i] = e.getMessage();
+                mensajes[i] = null;
+            }
         }
-    }
 
-    public boolean sendHtmlEmail(String to, String subject, String htmlBody) {
-        if (!emailEnabled) {
-            log.info("Email deshabilitado. Simulando envío HTML a: {} - Asunto: {}", to, subject);
-            return true;
+        MimeMessage[] validos = Arrays.stream(mensajes).filter(Objects::nonNull).toArray(MimeMessage[]::new);
+        if (validos.length == 0) {
+            return Arrays.asList(errores);
         }
-
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlBody, true);
+            mailSender.send(validos);
+        } catch (MailSendException e) {
+            // Sin mensajes fallidos el error fue al cerrar la conexión, después de entregarlos todos
+            Map<Object, Exception> fallidos = e.getFailedMessages();
+            if (fallidos.isEmpty()) {
+                log.warn("Lote de {} emails entregado, pero falló el cierre de la conexión SMTP: {}",
+                        validos.length, e.getMessage());
+            }
+            for (int i = 0; i < mensajes.length; i++) {
+                if (mensajes[i] != null && fallidos.containsKey(mensajes[i])) {
+                    Exception causa = fallidos.get(mensajes[i]);
+                    errores[i] = causa != null ? causa.getMessage() : e.getMessage();
+                }
+            }
+        } catch (MailException e) {
+            for (int i = 0; i < mensajes.length; i++) {
+                if (mensajes[i] != null) {
+                    errores[i] = e.getMessage();
+                }
+            }
+        }
 
-            mailSender.send(message);
-            log.info("Email HTML enviado exitosamente a: {}", to);
-            return true;
-        } catch (MessagingException e) {
-            log.error("Error al enviar email HTML a {}: {}", to, e.getMessage());
-            return false;
+        for (int i = 0; i < errores.length; i++) {
+            if (errores[i] != null) {
+                log.error("Error al enviar email a {}: {}", correos.get(i).to(), errores[i]);
+            }
         }
+        log.info("Lote de {} emails enviado por una conexión SMTP", validos.length);
+        return Arrays.asList(errores);
     }
+
+    public boolean sendHtmlEmail(String to, String subject, String htmlBody) {
+        return sendEmails(List.of(new Correo(to, subject, htmlBody, true))).get(0) == null;
+    }
+
+    public record Correo(String to, String subject, String body, boolean html) {}
 }
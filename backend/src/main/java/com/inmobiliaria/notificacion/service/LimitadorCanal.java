@@ -0,0 +1,111 @@
+package com.inmobiliaria.notificacion.service;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Límite de un canal de envío: envíos simultáneos (semáforo) y tasa sostenida con ráfaga
+ * (token bucket). Las esperas bloquean al hilo que envía, pensado para hilos virtuales.
+ *
+ * El límite es por instancia: con varias instancias la tasa total es la suma de todas.
+ */
+public class LimitadorCanal {
+
+    private static final long NANOS_POR_SEGUNDO = TimeUnit.SECONDS.toNanos(1);
+
+    private final String canal;
+    private final Semaphore concurrencia;
+    private final double tokensPorNano;
+    private final double capacidad;
+    private final Reloj reloj;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private double tokens;
+    private long ultimaRecarga;
+
+    public LimitadorCanal(String canal, int concurrencia, double mensajesPorSegundo, int rafaga) {
+        this(canal, concurrencia, mensajesPorSegundo, rafaga, Reloj.SISTEMA);
+    }
+
+    LimitadorCanal(String canal, int concurrencia, double mensajesPorSegundo, int rafaga, Reloj reloj) {
+        if (concurrencia < 1 || mensajesPorSegundo <= 0 || rafaga < 1) {
+            throw new IllegalArgumentException("Límites inválidos para el canal " + canal);
+        }
+        this.canal = canal;
+        this.concurrencia = new Semaphore(concurrencia, true);
+        this.tokensPorNano = mensajesPorSegundo / NANOS_POR_SEGUNDO;
+        this.capacidad = rafaga;
+        this.reloj = reloj;
+        this.tokens = rafaga;
+        this.ultimaRecarga = reloj.nanos();
+    }
+
+    /**
+     * Ejecuta el envío de {@code mensajes} mensajes (p. ej. un lote por la misma conexión SMTP)
+     * ocupando un lugar de concurrencia y un token por mensaje.
+     */
+    public <T> T ejecutar(int mensajes, Supplier<T> envio) throws InterruptedException {
+        concurrencia.acquire();
+        try {
+            for (int i = 0; i < mensajes; i++) {
+                adquirirToken();
+            }
+            return envio.get();
+        } finally {
+            concurrencia.release();
+        }
+    }
+
+    private void adquirirToken() throws InterruptedException {
+        while (true) {
+            long espera;
+            lock.lock();
+            try {
+                recargar();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                espera = (long) Math.ceil((1 - tokens) / tokensPorNano);
+            } finally {
+                lock.unlock();
+            }
+            reloj.esperar(espera);
+        }
+    }
+
+    private void recargar() {
+        long ahora = reloj.nanos();
+        tokens = Math.min(capacidad, tokens + (ahora - ultimaRecarga) * tokensPorNano);
+        ultimaRecarga = ahora;
+    }
+
+    public String getCanal() {
+        return canal;
+    }
+
+    /**
+     * Tiempo que mide la recarga y espera a que haya tokens; las pruebas lo reemplazan para no
+     * depender del reloj real.
+     */
+    interface Reloj {
+
+        Reloj SISTEMA = new Reloj() {
+            @Override
+            public long nanos() {
+                return System.nanoTime();
+            }
+
+            @Override
+            public void esperar(long nanos) throws InterruptedException {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            }
+        };
+
+        long nanos();
+
+        void esperar(long nanos) throws InterruptedException;
+    }
+}
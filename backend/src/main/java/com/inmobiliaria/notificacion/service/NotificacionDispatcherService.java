@@ -0,0 +1,190 @@
+package com.inmobiliaria.notificacion.service;
+
+import com.inmobiliaria.notificacion.domain.TipoNotificacion;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Despacha las notificaciones pendientes (outbox) desde cualquier número de instancias.
+ *
+ * - Cada lote se reclama con un solo UPDATE sobre un SELECT ... FOR UPDATE SKIP LOCKED: dos
+ *   instancias nunca reclaman la misma notificación y no se esperan entre sí.
+ * - El reclamo se confirma antes de enviar (estado ENVIANDO), el lote se envía con
+ *   {@link CanalEnvioService} (límites por canal) y los resultados se registran en una
+ *   transacción por lote.
+ * - Las fallidas se reintentan según {@link NotificacionReintentoService}: cada ciclo devuelve a
+ *   PENDIENTE los reintentos vencidos antes de reclamar.
+ * - Si una instancia se detiene con un lote reclamado, al vencer el plazo de reclamo sus
+ *   notificaciones vuelven a PENDIENTE.
+ * - El resultado solo se registra si el reclamo sigue siendo del lote (nodo_envio y
+ *   en_envio_desde): si el plazo venció y otra instancia la volvió a reclamar, esa instancia
+ *   registra su propio envío.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificacionDispatcherService {
+
+    private static final String RECLAMAR_SQL =
+            "UPDATE notificaciones SET estado = 'ENVIANDO', en_envio_desde = CURRENT_TIMESTAMP, nodo_envio = ?, " +
+            "fecha_actualizacion = CURRENT_TIMESTAMP " +
+            "WHERE id IN (SELECT id FROM notificaciones WHERE estado = 'PENDIENTE' " +
+            "AND (fecha_programada IS NULL OR fecha_programada <= CURRENT_TIMESTAMP) " +
+            "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, empresa_id, en_envio_desde, tipo, destinatario, asunto, mensaje, html, COALESCE(intentos, 0) AS intentos, " +
+            "(SELECT c.max_intentos FROM configuracion_notificaciones c " +
+            "WHERE c.empresa_id = notificaciones.empresa_id AND c.categoria = notificaciones.categoria) AS max_intentos";
+
+    private static final String ENVIADA_SQL =
+            "UPDATE notificaciones SET estado = 'ENVIADA', fecha_envio = CURRENT_TIMESTAMP, " +
+            "intentos = COALESCE(intentos, 0) + 1, error_mensaje = NULL, en_envio_desde = NULL, nodo_envio = NULL, " +
+            "fecha_actualizacion = CURRENT_TIMESTAMP " +
+            "WHERE id = ? AND estado = 'ENVIANDO' AND nodo_envio = ? AND en_envio_desde = ?";
+
+    private static final String FALLIDA_SQL =
+            "UPDATE notificaciones SET estado = 'FALLIDA', error_mensaje = ?, " +
+            "proximo_intento = CURRENT_TIMESTAMP + make_interval(secs => CAST(? AS DOUBLE PRECISION)), " +
+            "intentos = COALESCE(intentos, 0) + 1, en_envio_desde = NULL, nodo_envio = NULL, " +
+            "fecha_actualizacion = CURRENT_TIMESTAMP " +
+            "WHERE id = ? AND estado = 'ENVIANDO' AND nodo_envio = ? AND en_envio_desde = ?";
+
+    private static final String LIBERAR_VENCIDAS_SQL =
+            "UPDATE notificaciones SET estado = 'PENDIENTE', en_envio_desde = NULL, nodo_envio = NULL, " +
+            "fecha_actualizacion = CURRENT_TIMESTAMP " +
+            "WHERE estado = 'ENVIANDO' AND en_envio_desde < CURRENT_TIMESTAMP - make_interval(mins => ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final CanalEnvioService canalEnvioService;
+    private final NotificacionReintentoService reintentoService;
+
+    @Value("${app.notifications.dispatcher.batch-size:50}")
+    private int tamanoLote;
+
+    @Value("${app.notifications.dispatcher.max-lotes:20}")
+    private int maxLotes;
+
+    @Value("${app.notifications.dispatcher.reclamo-minutos:10}")
+    private int reclamoMinutos;
+
+    @Value("${app.notifications.dispatcher.nodo:${HOSTNAME:local}}")
+    private String nodo;
+
+    @Scheduled(fixedDelayString = "${app.notifications.dispatcher.intervalo-ms:30000}")
+    public void despacharPendientes() {
+        int liberadas = jdbcTemplate.update(LIBERAR_VENCIDAS_SQL, reclamoMinutos);
+        if (liberadas > 0) {
+            log.warn("{} notificaciones reclamadas hace más de {} minutos vuelven a PENDIENTE", liberadas, reclamoMinutos);
+        }
+        reintentoService.reprogramarVencidos();
+
+        int enviadas = 0;
+        int fallidas = 0;
+        // Un lote incompleto indica que la cola quedó vacía (o que otras instancias tienen el resto)
+        for (int lote = 0; lote < maxLotes; lote++) {
+            ResultadoLote resultado = procesarLote();
+            enviadas += resultado.enviadas();
+            fallidas += resultado.fallidas();
+            if (resultado.reclamadas() < tamanoLote) {
+                break;
+            }
+        }
+
+        if (enviadas + fallidas > 0) {
+            log.info("Despacho de notificaciones en {}: {} enviadas, {} fallidas", nodo, enviadas, fallidas);
+        }
+    }
+
+    /**
+     * Reclama, envía y registra un lote.
+     */
+    ResultadoLote procesarLote() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        List<NotificacionReclamada> reclamadas = transactionTemplate.execute(status ->
+                jdbcTemplate.query(RECLAMAR_SQL, this::mapReclamada, nodo, tamanoLote));
+        if (reclamadas == null || reclamadas.isEmpty()) {
+            return new ResultadoLote(0, 0, 0);
+        }
+
+        Map<Long, String> errores = canalEnvioService.enviar(reclamadas.stream()
+                .map(n -> new CanalEnvioService.Envio(n.id(), n.tipo(), n.destinatario(), n.asunto(), n.mensaje(), n.html()))
+                .toList());
+
+        List<Object[]> enviadas = new ArrayList<>();
+        List<Object[]> fallidas = new ArrayList<>();
+        List<Fallo> fallos = new ArrayList<>();
+        for (NotificacionReclamada notificacion : reclamadas) {
+            String error = errores.get(notificacion.id());
+            if (error == null) {
+                enviadas.add(new Object[]{notificacion.id(), nodo, notificacion.enEnvioDesde()});
+            } else {
+                // Sin espera (intentos agotados) make_interval da NULL y no se programa otro intento
+                Duration espera = reintentoService.esperaReintento(notificacion.tipo(),
+                        notificacion.intentos() + 1, notificacion.maxIntentos());
+                fallidas.add(new Object[]{error, NotificacionReintentoService.segundos(espera), notificacion.id(),
+                        nodo, notificacion.enEnvioDesde()});
+                fallos.add(new Fallo(notificacion.tipo(), espera != null));
+            }
+        }
+
+        List<int[]> filas = transactionTemplate.execute(status -> List.of(
+                jdbcTemplate.batchUpdate(ENVIADA_SQL, enviadas),
+                jdbcTemplate.batchUpdate(FALLIDA_SQL, fallidas)));
+        int[] filasFallidas = filas.get(1);
+        // Solo cuentan los fallos que quedaron guardados: los perdidos los registra el nodo que los reclamó
+        for (int i = 0; i < filasFallidas.length; i++) {
+            if (filasFallidas[i] != 0) {
+                reintentoService.registrarFallo(fallos.get(i).tipo(), fallos.get(i).reintentoProgramado());
+            }
+        }
+
+        int perdidas = sinActualizar(filas.get(0)) + sinActualizar(filasFallidas);
+        if (perdidas > 0) {
+            log.warn("{} notificaciones del lote ya no estaban reclamadas por {}: su resultado no se registró",
+                    perdidas, nodo);
+        }
+        return new ResultadoLote(reclamadas.size(), enviadas.size(), fallidas.size());
+    }
+
+    private static int sinActualizar(int[] filas) {
+        return (int) Arrays.stream(filas).filter(f -> f == 0).count();
+    }
+
+    private NotificacionReclamada mapReclamada(ResultSet rs, int rowNum) throws SQLException {
+        return new NotificacionReclamada(
+                rs.getLong("id"),
+                rs.getLong("empresa_id"),
+                rs.getObject("en_envio_desde", LocalDateTime.class),
+                TipoNotificacion.valueOf(rs.getString("tipo")),
+                rs.getString("destinatario"),
+                rs.getString("asunto"),
+                rs.getString("mensaje"),
+                rs.getBoolean("html"),
+                rs.getInt("intentos"),
+                rs.getObject("max_intentos", Integer.class));
+    }
+
+    record NotificacionReclamada(Long id, Long empresaId, LocalDateTime enEnvioDesde, TipoNotificacion tipo,
+                                 String destinatario, String asunto, String mensaje, boolean html,
+                                 int intentos, Integer maxIntentos) {}
+
+    record ResultadoLote(int reclamadas, int enviadas, int fallidas) {}
+
+    private record Fallo(TipoNotificacion tipo, boolean reintentoProgramado) {}
+}
@@ -0,0 +1,134 @@
+package com.inmobiliaria.notificacion.service;
+
+import com.inmobiliaria.notificacion.domain.TipoNotificacion;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Política de reintentos de notificaciones fallidas.
+ *
+ * - Tras un fallo se programa el siguiente intento (columna proximo_intento) con espera
+ *   exponencial acotada y jitter, para que los fallos de un mismo corte del proveedor no se
+ *   reintenten todos en el mismo instante. La fecha se calcula en la base de datos
+ *   (CURRENT_TIMESTAMP + espera), con el mismo reloj que compara {@link #reprogramarVencidos}.
+ * - Al llegar a maxIntentos de la configuración de la categoría ya no se programa otro intento:
+ *   la notificación queda FALLIDA sin proximo_intento y solo se reenvía manualmente.
+ * - {@link #reprogramarVencidos} devuelve a PENDIENTE los reintentos cuya fecha ya llegó para que
+ *   el despachador los reclame como cualquier otra notificación.
+ */
+@Service
+@Slf4j
+public class NotificacionReintentoService {
+
+    private static final String REPROGRAMAR_SQL =
+            "UPDATE notificaciones SET estado = 'PENDIENTE', proximo_intento = NULL, " +
+            "fecha_actualizacion = CURRENT_TIMESTAMP " +
+            "WHERE estado = 'FALLIDA' AND proximo_intento <= CURRENT_TIMESTAMP RETURNING tipo";
+
+    private static final String FECHA_REINTENTO_SQL =
+            "SELECT CAST(CURRENT_TIMESTAMP + make_interval(secs => ?) AS TIMESTAMP)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long esperaBaseMs;
+    private final long esperaMaximaMs;
+    private final int maxIntentosDefault;
+
+    public NotificacionReintentoService(JdbcTemplate jdbcTemplate,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${app.notifications.reintentos.espera-base-segundos:60}") long esperaBaseSegundos,
+                                        @Value("${app.notifications.reintentos.espera-maxima-minutos:360}") long esperaMaximaMinutos,
+                                        @Value("${app.notifications.reintentos.max-intentos:3}") int maxIntentosDefault) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.esperaBaseMs = Duration.ofSeconds(esperaBaseSegundos).toMillis();
+        this.esperaMaximaMs = Duration.ofMinutes(esperaMaximaMinutos).toMillis();
+        this.maxIntentosDefault = maxIntentosDefault;
+    }
+
+    /**
+     * Devuelve a PENDIENTE los reintentos vencidos.
+     *
+     * @return notificaciones reprogramadas
+     */
+    public int reprogramarVencidos() {
+        List<String> tipos = jdbcTemplate.queryForList(REPROGRAMAR_SQL, String.class);
+        if (!tipos.isEmpty()) {
+            Map<String, Long> porCanal = tipos.stream()
+                    .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+            porCanal.forEach((canal, cantidad) ->
+                    meterRegistry.counter("notificaciones.reintentos.ejecutados", "canal", canal).increment(cantidad));
+            log.info("{} notificaciones fallidas vuelven a PENDIENTE para reintento: {}", tipos.size(), porCanal);
+        }
+        return tipos.size();
+    }
+
+    /**
+     * Espera hasta el siguiente intento tras un fallo, o null si ya se agotaron los intentos.
+     * Quien escribe proximo_intento la suma a CURRENT_TIMESTAMP en el mismo UPDATE y, si el
+     * UPDATE se aplicó, lo registra con {@link #registrarFallo}.
+     *
+     * @param intentos    intentos realizados, incluido el que acaba de fallar
+     * @param maxIntentos límite de la configuración de la categoría; null usa el valor por defecto
+     */
+    public Duration esperaReintento(TipoNotificacion tipo, int intentos, Integer maxIntentos) {
+        int limite = maxIntentos != null ? maxIntentos : maxIntentosDefault;
+        if (intentos >= limite) {
+            return null;
+        }
+        return espera(intentos);
+    }
+
+    /**
+     * Cuenta un fallo ya guardado: reintento programado o intentos agotados. No se cuenta al
+     * calcular la espera porque el resultado puede no guardarse (el reclamo ya no es del nodo).
+     */
+    public void registrarFallo(TipoNotificacion tipo, boolean reintentoProgramado) {
+        String metrica = reintentoProgramado ? "notificaciones.reintentos.programados" : "notificaciones.reintentos.agotados";
+        meterRegistry.counter(metrica, "canal", tipo.name()).increment();
+    }
+
+    /**
+     * Fecha del siguiente intento según el reloj de la base de datos, para quien guarda la
+     * notificación por JPA en lugar de con un UPDATE; null si ya se agotaron los intentos.
+     */
+    public LocalDateTime proximoIntento(TipoNotificacion tipo, int intentos, Integer maxIntentos) {
+        Duration espera = esperaReintento(tipo, intentos, maxIntentos);
+        if (espera == null) {
+            return null;
+        }
+        return jdbcTemplate.queryForObject(FECHA_REINTENTO_SQL, LocalDateTime.class, segundos(espera));
+    }
+
+    /**
+     * Espera en segundos para make_interval(secs => ?); null se conserva (sin reintento).
+     */
+    public static Double segundos(Duration espera) {
+        return espera != null ? espera.toMillis() / 1000.0 : null;
+    }
+
+    /**
+     * Espera exponencial (base * 2^(intentos-1), acotada) de la que la mitad es fija y la otra
+     * mitad aleatoria.
+     */
+    Duration espera(int intentos) {
+        int exponente = Math.min(Math.max(intentos - 1, 0), 30);
+        long exponencial = Math.min(esperaMaximaMs, esperaBaseMs << exponente);
+        if (exponencial < 0) {
+            exponencial = esperaMaximaMs;
+        }
+        long mitad = exponencial / 2;
+        return Duration.ofMillis(mitad + ThreadLocalRandom.current().nextLong(mitad + 1));
+    }
+}
@@ -21,8 +21,9 @@ public class NotificacionService {
 
     private final NotificacionRepository notificacionRepository;
     private final ConfiguracionNotificacionRepository configuracionRepository;
-    private final EmailService emailService;
-    private final WhatsAppService whatsAppService;
+    private final CanalEnvioService canalEnvioService;
+    private final NotificacionReintentoService reintentoService;
+    private final PlantillaService plantillaService;
 
     @Transactional(readOnly = true)
     public List<NotificacionDTO> findAll() {
@@ -85,84 +86,69 @@ public class NotificacionService {
         return NotificacionDTO.fromEntity(notificacion);
     }
 
+    /**
+     * Envío manual. La fila se bloquea mientras se envía, así que el despachador
+     * ({@link NotificacionDispatcherService}) la omite y no puede enviarla en paralelo.
+     */
     @Transactional
     public NotificacionDTO enviar(Long id) {
         Long empresaId = TenantContext.getCurrentTenant();
-        Notificacion notificacion = notificacionRepository.findById(id)
-                .filter(n -> n.getEmpresaId().equals(empresaId))
+        Notificacion notificacion = notificacionRepository.findByIdAndEmpresaIdForUpdate(id, empresaId)
                 .orElseThrow(() -> new EntityNotFoundException("Notificación no encontrada"));
 
+        if (notificacion.getEstado() == EstadoNotificacion.ENVIANDO) {
+            throw new IllegalStateException("La notificación se está enviando");
+        }
+
         return enviarNotificacion(notificacion);
     }
 
-    @Transactional
-    public NotificacionDTO enviarNotificacion(Notificacion notificacion) {
-        boolean enviado = false;
-        String error = null;
-
-        try {
-            switch (notificacion.getTipo()) {
-                case EMAIL:
-                    enviado = emailService.sendEmail(
-                            notificacion.getDestinatario(),
-                            notificacion.getAsunto(),
-                            notificacion.getMensaje()
-                    );
-                    break;
-                case WHATSAPP:
-                    enviado = whatsAppService.sendMessage(
-                            notificacion.getDestinatario(),
-                            notificacion.getMensaje()
-                    );
-                    break;
-                default:
-                    error = "Tipo de notificación no soportado";
-            }
-        } catch (Exception e) {
-            error = e.getMessage();
-            log.error("Error enviando notificación {}: {}", notificacion.getId(), error);
-        }
+    private NotificacionDTO enviarNotificacion(Notificacion notificacion) {
+        String error = canalEnvioService.enviar(new CanalEnvioService.Envio(notificacion.getId(), notificacion.getTipo(),
+                notificacion.getDestinatario(), notificacion.getAsunto(), notificacion.getMensaje(),
+                Boolean.TRUE.equals(notificacion.getHtml())));
+        boolean enviado = error == null;
 
         notificacion.setIntentos(notificacion.getIntentos() + 1);
 
         if (enviado) {
             notificacion.setEstado(EstadoNotificacion.ENVIADA);
             notificacion.setFechaEnvio(LocalDateTime.now());
+            notificacion.setErrorMensaje(null);
+            notificacion.setProximoIntento(null);
             log.info("Notificación {} enviada exitosamente", notificacion.getId());
         } else {
+            Integer maxIntentos = configuracionRepository
+                    .findByEmpresaIdAndCategoria(notificacion.getEmpresaId(), notificacion.getCategoria())
+                    .map(ConfiguracionNotificacion::getMaxIntentos)
+                    .orElse(null);
             notificacion.setEstado(EstadoNotificacion.FALLIDA);
             notificacion.setErrorMensaje(error);
+            notificacion.setProximoIntento(reintentoService.proximoIntento(
+                    notificacion.getTipo(), notificacion.getIntentos(), maxIntentos));
             log.warn("Notificación {} falló: {}", notificacion.getId(), error);
         }
 
-        notificacion = notificacionRepository.save(notificacion);
-        return NotificacionDTO.fromEntity(notificacion);
-    }
-
-    @Transactional
-    public void procesarPendientes() {
-        List<Notificacion> pendientes = notificacionRepository
-                .findAllPendientesParaEnvio(LocalDateTime.now());
-
-        log.info("Procesando {} notificaciones pendientes", pendientes.size());
-
-        for (Notificacion notificacion : pendientes) {
-            try {
-                enviarNotificacion(notificacion);
-            } catch (Exception e) {
-                log.error("Error procesando notificación {}: {}", notificacion.getId(), e.getMessage());
-            }
+        notificacion = notificacionRepository.saveAndFlush(notificacion);
+        if (!enviado) {
+            // La fila está bloqueada desde la lectura: guardada la fila, el fallo ya es de este envío
+            reintentoService.registrarFallo(notificacion.getTipo(), notificacion.getProximoIntento() != null);
         }
+        return NotificacionDTO.fromEntity(notificacion);
     }
 
     @Transactional
     public void cancelar(Long id) {
         Long empresaId = TenantContext.getCurrentTenant();
-        Notificacion notificacion = notificacionRepository.findById(id)
-                .filter(n -> n.getEmpresaId().equals(empresaId))
+        Notificacion notificacion = notificacionRepository.findByIdAndEmpresaIdForUpdate(id, empresaId)
                 .orElseThrow(() -> new EntityNotFoundException("Notificación no encontrada"));
 
+        if (notificacion.getEstado() == EstadoNotificacion.ENVIANDO) {
+            throw new IllegalStateException("La notificación se está enviando");
+        }
+
         notificacion.setEstado(EstadoNotificacion.CANCELADA);
+        notificacion.setProximoIntento(null);
         notificacionRepository.save(notificacion);
         log.info("Notificación {} cancelada", id);
     }
@@ -214,6 +200,7 @@ public class NotificacionService {
         }
 
         config = configuracionRepository.save(config);
+        plantillaService.invalidar(empresaId, request.getCategoria());
         log.info("Configuración actualizada para categoría: {}", request.getCategoria());
 
         return ConfiguracionNotificacionDTO.fromEntity(config);
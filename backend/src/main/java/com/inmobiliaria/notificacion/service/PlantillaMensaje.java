@@ -0,0 +1,105 @@
+package com.inmobiliaria.notificacion.service;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Plantilla de mensaje compilada: el texto se separa una sola vez en segmentos fijos y
+ * variables ({{nombre}}) y cada destinatario solo recorre la lista.
+ *
+ * - Si la plantilla contiene etiquetas HTML se envía como correo HTML y los valores se escapan.
+ * - Las variables sin valor en el mapa se dejan tal cual; un valor null se escribe vacío.
+ */
+public final class PlantillaMensaje {
+
+    private static final Pattern NOMBRE_VARIABLE = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final Pattern ETIQUETA_HTML = Pattern.compile("</?[A-Za-z][A-Za-z0-9]*(\\s[^>]*)?/?>");
+
+    private final List<Segmento> segmentos;
+    private final boolean html;
+    private final int longitudFija;
+
+    private PlantillaMensaje(List<Segmento> segmentos, boolean html) {
+        this.segmentos = List.copyOf(segmentos);
+        this.html = html;
+        this.longitudFija = segmentos.stream()
+                .filter(Texto.class::isInstance)
+                .mapToInt(s -> ((Texto) s).texto().length())
+                .sum();
+    }
+
+    public static PlantillaMensaje compilar(String texto) {
+        List<Segmento> segmentos = new ArrayList<>();
+        int inicio = 0;
+        int apertura;
+        while ((apertura = texto.indexOf("{{", inicio)) >= 0) {
+            int cierre = texto.indexOf("}}", apertura + 2);
+            if (cierre < 0) {
+                break;
+            }
+            String nombre = texto.substring(apertura + 2, cierre).trim();
+            if (!NOMBRE_VARIABLE.matcher(nombre).matches()) {
+                // No es una variable: se conserva el texto y se sigue buscando después de "{{"
+                agregarTexto(segmentos, texto.substring(inicio, apertura + 2));
+                inicio = apertura + 2;
+                continue;
+            }
+            agregarTexto(segmentos, texto.substring(inicio, apertura));
+            segmentos.add(new Variable(nombre, texto.substring(apertura, cierre + 2)));
+            inicio = cierre + 2;
+        }
+        agregarTexto(segmentos, texto.substring(inicio));
+        return new PlantillaMensaje(segmentos, ETIQUETA_HTML.matcher(texto).find());
+    }
+
+    private static void agregarTexto(List<Segmento> segmentos, String texto) {
+        if (texto.isEmpty()) {
+            return;
+        }
+        // Texto contiguo (p. ej. tras un "{{" que no era variable) se une en un solo segmento
+        if (!segmentos.isEmpty() && segmentos.get(segmentos.size() - 1) instanceof Texto anterior) {
+            segmentos.set(segmentos.size() - 1, new Texto(anterior.texto() + texto));
+        } else {
+            segmentos.add(new Texto(texto));
+        }
+    }
+
+    /**
+     * Escribe el mensaje en {@code buffer} (se vacía antes) y lo devuelve. El buffer se puede
+     * reutilizar entre destinatarios desde un mismo hilo.
+     */
+    public String renderizar(Map<String, String> valores, StringBuilder buffer) {
+        buffer.setLength(0);
+        buffer.ensureCapacity(longitudFija + 16 * segmentos.size());
+        for (Segmento segmento : segmentos) {
+            switch (segmento) {
+                case Texto t -> buffer.append(t.texto());
+                case Variable v -> {
+                    if (!valores.containsKey(v.nombre())) {
+                        buffer.append(v.original());
+                    } else {
+                        String valor = valores.get(v.nombre());
+                        if (valor != null) {
+                            buffer.append(html ? HtmlUtils.htmlEscape(valor) : valor);
+                        }
+                    }
+                }
+            }
+        }
+        return buffer.toString();
+    }
+
+    public boolean isHtml() {
+        return html;
+    }
+
+    private sealed interface Segmento permits Texto, Variable {}
+
+    private record Texto(String texto) implements Segmento {}
+
+    private record Variable(String nombre, String original) implements Segmento {}
+}
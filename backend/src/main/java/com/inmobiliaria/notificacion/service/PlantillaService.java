@@ -0,0 +1,89 @@
+package com.inmobiliaria.notificacion.service;
+
+import com.inmobiliaria.notificacion.domain.CategoriaNotificacion;
+import com.inmobiliaria.notificacion.domain.ConfiguracionNotificacion;
+import com.inmobiliaria.notificacion.domain.TipoNotificacion;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Plantillas de mensaje compiladas por empresa, categoría y canal.
+ *
+ * - La plantilla de correo viene de plantillaEmail y la de WhatsApp de plantillaWhatsapp; sin
+ *   plantilla propia se usa el texto por defecto de la categoría.
+ * - Cada entrada guarda la fecha de actualización de la configuración con la que se compiló: un
+ *   cambio hecho en otra instancia también se detecta al leer la configuración nueva.
+ */
+@Service
+@Slf4j
+public class PlantillaService {
+
+    private static final String SALUDO = "Estimado(a) {{nombre}},\n\n";
+    private static final String DESPEDIDA = "\n\nSaludos cordiales,\nAdministración";
+
+    private static final Map<CategoriaNotificacion, PlantillaMensaje> POR_DEFECTO =
+            new EnumMap<>(CategoriaNotificacion.class);
+
+    static {
+        POR_DEFECTO.put(CategoriaNotificacion.VENCIMIENTO_CONTRATO, PlantillaMensaje.compilar(SALUDO +
+                "Le informamos que su contrato de arrendamiento número {{numero_contrato}} " +
+                "para la propiedad ubicada en {{propiedad}} vencerá en {{dias_restantes}} días " +
+                "(fecha: {{fecha_vencimiento}}).\n\n" +
+                "Por favor, comuníquese con nosotros para discutir la renovación o " +
+                "terminación del contrato." + DESPEDIDA));
+        POR_DEFECTO.put(CategoriaNotificacion.PAGO_PENDIENTE, PlantillaMensaje.compilar(SALUDO +
+                "Le recordamos que tiene un pago pendiente por la cantidad de ${{monto}} " +
+                "correspondiente a la propiedad ubicada en {{propiedad}}.\n\n" +
+                "Por favor, realice su pago a la brevedad posible." + DESPEDIDA));
+        POR_DEFECTO.put(CategoriaNotificacion.PAGO_VENCIDO, PlantillaMensaje.compilar(SALUDO +
+                "Le informamos que tiene un pago vencido desde hace {{dias_vencido}} días " +
+                "por la cantidad de ${{monto}} correspondiente a la propiedad ubicada en {{propiedad}}.\n\n" +
+                "Es urgente que regularice su situación para evitar cargos adicionales." + DESPEDIDA));
+    }
+
+    private final Map<ClavePlantilla, PlantillaCompilada> plantillas = new ConcurrentHashMap<>();
+
+    private record ClavePlantilla(Long empresaId, CategoriaNotificacion categoria, TipoNotificacion canal) {
+    }
+
+    private record PlantillaCompilada(LocalDateTime version, PlantillaMensaje plantilla) {
+    }
+
+    /**
+     * Plantilla compilada para la configuración y el canal.
+     *
+     * @throws IllegalArgumentException si no hay plantilla propia ni texto por defecto para la categoría
+     */
+    public PlantillaMensaje obtener(ConfiguracionNotificacion config, TipoNotificacion canal) {
+        String texto = canal == TipoNotificacion.EMAIL ? config.getPlantillaEmail() : config.getPlantillaWhatsapp();
+        if (texto == null || texto.isBlank()) {
+            PlantillaMensaje porDefecto = POR_DEFECTO.get(config.getCategoria());
+            if (porDefecto == null) {
+                throw new IllegalArgumentException("Sin plantilla para la categoría " + config.getCategoria());
+            }
+            return porDefecto;
+        }
+
+        ClavePlantilla clave = new ClavePlantilla(config.getEmpresaId(), config.getCategoria(), canal);
+        PlantillaCompilada compilada = plantillas.get(clave);
+        if (compilada == null || !Objects.equals(compilada.version(), config.getFechaActualizacion())) {
+            compilada = new PlantillaCompilada(config.getFechaActualizacion(), PlantillaMensaje.compilar(texto));
+            plantillas.put(clave, compilada);
+            log.debug("Plantilla {} / {} compilada para empresa {}", config.getCategoria(), canal, config.getEmpresaId());
+        }
+        return compilada.plantilla();
+    }
+
+    /**
+     * Descarta las plantillas compiladas de la categoría (todos los canales).
+     */
+    public void invalidar(Long empresaId, CategoriaNotificacion categoria) {
+        plantillas.keySet().removeIf(clave -> clave.empresaId().equals(empresaId) && clave.categoria() == categoria);
+    }
+}
@@ -0,0 +1,245 @@
+package com.inmobiliaria.pago;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Aplica el monto de un pago a los cargos abiertos de su contrato.
+ *
+ * - Los cargos se leen en una sola consulta con SELECT ... FOR UPDATE, siempre en orden de ID,
+ *   así que dos pagos concurrentes sobre el mismo contrato se serializan en lugar de competir
+ *   por monto_pendiente (y no pueden bloquearse mutuamente).
+ * - Las aplicaciones se calculan en memoria y se escriben con dos batches JDBC
+ *   (pago_aplicaciones y cargos). El pago se actualiza sobre la entidad administrada.
+ * - La reversión de un pago cancelado bloquea sus cargos de la misma forma, así que no compite
+ *   con un pago que se esté aplicando a esos cargos.
+ *
+ * Debe llamarse dentro de la transacción que creó o bloqueó el pago.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(propagation = Propagation.MANDATORY)
+public class AplicacionPagoService {
+
+    private static final String CARGOS_ABIERTOS_CONTRATO_SQL =
+            "SELECT id, monto_original, monto_pagado, fecha_vencimiento FROM cargos " +
+            "WHERE empresa_id = ? AND contrato_id = ? AND estado IN ('PENDIENTE', 'PARCIAL', 'VENCIDO') " +
+            "ORDER BY id FOR UPDATE";
+
+    private static final String CARGOS_POR_ID_SQL =
+            "SELECT id, monto_original, monto_pagado, fecha_vencimiento FROM cargos " +
+            "WHERE empresa_id = ? AND id IN (%s) ORDER BY id FOR UPDATE";
+
+    private static final String INSERT_APLICACION_SQL =
+            "INSERT INTO pago_aplicaciones (empresa_id, pago_id, cargo_id, monto_aplicado, created_at) " +
+            "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)";
+
+    private static final String APLICACIONES_PAGO_SQL =
+            "SELECT cargo_id, SUM(monto_aplicado) AS monto_aplicado FROM pago_aplicaciones " +
+            "WHERE empresa_id = ? AND pago_id = ? GROUP BY cargo_id";
+
+    private static final String DELETE_APLICACIONES_PAGO_SQL =
+            "DELETE FROM pago_aplicaciones WHERE empresa_id = ? AND pago_id = ?";
+
+    private static final String UPDATE_CARGO_SQL =
+            "UPDATE cargos SET monto_pagado = ?, monto_pendiente = ?, estado = ?, " +
+            "updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Aplica el pago a los cargos abiertos del contrato, del vencimiento más antiguo al más reciente.
+     */
+    public List<Aplicacion> aplicarAutomatico(Pago pago) {
+        List<CargoAbierto> cargos = jdbcTemplate.query(CARGOS_ABIERTOS_CONTRATO_SQL, this::mapCargo,
+                pago.getEmpresaId(), pago.getContrato().getId());
+        cargos.sort(Comparator.comparing(CargoAbierto::fechaVencimiento).thenComparing(CargoAbierto::id));
+
+        return registrar(pago, distribuir(pago.getMontoDisponible(), cargos));
+    }
+
+    /**
+     * Aplica el pago a los cargos indicados, en el orden en que se solicitaron.
+     */
+    public List<Aplicacion> aplicarACargos(Pago pago, List<Long> cargoIds) {
+        Map<Long, CargoAbierto> bloqueados = bloquearCargos(pago.getEmpresaId(), cargoIds);
+        List<CargoAbierto> cargos = cargoIds.stream().distinct().map(bloqueados::get).toList();
+
+        return registrar(pago, distribuir(pago.getMontoDisponible(), cargos));
+    }
+
+    /**
+     * Aplica un monto específico del pago a un solo cargo.
+     */
+    public List<Aplicacion> aplicarACargo(Pago pago, Long cargoId, BigDecimal monto) {
+        CargoAbierto cargo = bloquearCargos(pago.getEmpresaId(), List.of(cargoId)).get(cargoId);
+
+        if (monto.compareTo(pago.getMontoDisponible()) > 0) {
+            throw new IllegalArgumentException("El monto a aplicar excede el monto disponible del pago");
+        }
+        if (monto.compareTo(cargo.montoPendiente()) > 0) {
+            throw new IllegalArgumentException("El monto a aplicar excede el monto pendiente del cargo");
+        }
+
+        return registrar(pago, List.of(cargo.aplicar(monto)));
+    }
+
+    /**
+     * Devuelve a sus cargos el monto aplicado por el pago y borra sus aplicaciones.
+     *
+     * @return IDs de los cargos revertidos
+     */
+    public List<Long> revertir(Pago pago) {
+        Map<Long, BigDecimal> aplicadoPorCargo = new HashMap<>();
+        for (Map.Entry<Long, BigDecimal> aplicado : jdbcTemplate.query(APLICACIONES_PAGO_SQL,
+                (rs, rowNum) -> Map.entry(rs.getLong("cargo_id"), rs.getBigDecimal("monto_aplicado")),
+                pago.getEmpresaId(), pago.getId())) {
+            aplicadoPorCargo.put(aplicado.getKey(), aplicado.getValue());
+        }
+
+        List<Long> cargoIds = aplicadoPorCargo.keySet().stream().sorted().toList();
+        Map<Long, CargoAbierto> cargos = bloquearCargos(pago.getEmpresaId(), cargoIds);
+        List<Aplicacion> reversiones = cargoIds.stream()
+                .map(id -> cargos.get(id).revertir(aplicadoPorCargo.get(id)))
+                .toList();
+
+        if (!reversiones.isEmpty()) {
+            actualizarCargos(reversiones);
+            jdbcTemplate.update(DELETE_APLICACIONES_PAGO_SQL, pago.getEmpresaId(), pago.getId());
+        }
+        pago.setMontoAplicado(BigDecimal.ZERO);
+        pago.setFechaAplicacion(null);
+
+        log.debug("Pago {} revertido en {} cargos", pago.getId(), reversiones.size());
+        return cargoIds;
+    }
+
+    // ========== Cálculo ==========
+
+    /**
+     * Reparte el monto disponible sobre los cargos en el orden recibido.
+     * Los cargos sin saldo pendiente se omiten.
+     */
+    static List<Aplicacion> distribuir(BigDecimal disponible, List<CargoAbierto> cargos) {
+        List<Aplicacion> aplicaciones = new ArrayList<>();
+        BigDecimal restante = disponible;
+        for (CargoAbierto cargo : cargos) {
+            if (restante.compareTo(BigDecimal.ZERO) <= 0) break;
+            if (cargo.montoPendiente().compareTo(BigDecimal.ZERO) <= 0) continue;
+
+            BigDecimal monto = restante.min(cargo.montoPendiente());
+            aplicaciones.add(cargo.aplicar(monto));
+            restante = restante.subtract(monto);
+        }
+        return aplicaciones;
+    }
+
+    // ========== Persistencia ==========
+
+    private Map<Long, CargoAbierto> bloquearCargos(Long empresaId, List<Long> cargoIds) {
+        if (cargoIds.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> ids = cargoIds.stream().distinct().sorted().toList();
+        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(", "));
+
+        List<Object> parametros = new ArrayList<>(ids.size() + 1);
+        parametros.add(empresaId);
+        parametros.addAll(ids);
+
+        Map<Long, CargoAbierto> cargos = new HashMap<>();
+        for (CargoAbierto cargo : jdbcTemplate.query(CARGOS_POR_ID_SQL.formatted(placeholders), this::mapCargo,
+                parametros.toArray())) {
+            cargos.put(cargo.id(), cargo);
+        }
+        for (Long id : ids) {
+            if (!cargos.containsKey(id)) {
+                throw new EntityNotFoundException("Cargo no encontrado: " + id);
+            }
+        }
+        return cargos;
+    }
+
+    private List<Aplicacion> registrar(Pago pago, List<Aplicacion> aplicaciones) {
+        if (aplicaciones.isEmpty()) {
+            return aplicaciones;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_APLICACION_SQL, aplicaciones.stream()
+                .map(a -> new Object[]{pago.getEmpresaId(), pago.getId(), a.cargoId(), a.monto()})
+                .toList());
+        actualizarCargos(aplicaciones);
+
+        BigDecimal total = aplicaciones.stream().map(Aplicacion::monto).reduce(BigDecimal.ZERO, BigDecimal::add);
+        pago.aplicarMonto(total);
+        if (pago.getMontoDisponible().compareTo(BigDecimal.ZERO) <= 0) {
+            pago.setFechaAplicacion(LocalDate.now());
+        }
+
+        log.debug("Pago {} aplicado a {} cargos por {}", pago.getId(), aplicaciones.size(), total);
+        return aplicaciones;
+    }
+
+    private void actualizarCargos(List<Aplicacion> aplicaciones) {
+        jdbcTemplate.batchUpdate(UPDATE_CARGO_SQL, aplicaciones.stream()
+                .map(a -> new Object[]{a.montoPagado(), a.montoPendiente(), a.estado().name(), a.cargoId()})
+                .toList());
+    }
+
+    private CargoAbierto mapCargo(ResultSet rs, int rowNum) throws SQLException {
+        Date fechaVencimiento = rs.getDate("fecha_vencimiento");
+        return new CargoAbierto(
+                rs.getLong("id"),
+                rs.getBigDecimal("monto_original"),
+                rs.getBigDecimal("monto_pagado"),
+                fechaVencimiento.toLocalDate());
+    }
+
+    // ========== Tipos ==========
+
+    record CargoAbierto(Long id, BigDecimal montoOriginal, BigDecimal montoPagado, LocalDate fechaVencimiento) {
+
+        BigDecimal montoPendiente() {
+            return montoOriginal.subtract(montoPagado).max(BigDecimal.ZERO);
+        }
+
+        /**
+         * Mismas reglas que {@link Cargo#aplicarPago(BigDecimal)}.
+         */
+        Aplicacion aplicar(BigDecimal monto) {
+            BigDecimal pagado = montoPagado.add(monto);
+            BigDecimal pendiente = montoOriginal.subtract(pagado);
+            if (pendiente.compareTo(BigDecimal.ZERO) <= 0) {
+                return new Aplicacion(id, monto, pagado, BigDecimal.ZERO, EstadoCargo.PAGADO);
+            }
+            return new Aplicacion(id, monto, pagado, pendiente, EstadoCargo.PARCIAL);
+        }
+
+        /**
+         * Quita un monto aplicado; el resultado lleva el monto en negativo.
+         */
+        Aplicacion revertir(BigDecimal monto) {
+            BigDecimal pagado = montoPagado.subtract(monto);
+            BigDecimal pendiente = montoOriginal.subtract(pagado);
+            EstadoCargo estado = pendiente.compareTo(montoOriginal) >= 0 ? EstadoCargo.PENDIENTE : EstadoCargo.PARCIAL;
+            return new Aplicacion(id, monto.negate(), pagado, pendiente, estado);
+        }
+    }
+
+    public record Aplicacion(Long cargoId, BigDecimal monto, BigDecimal montoPagado,
+                             BigDecimal montoPendiente, EstadoCargo estado) {}
+}
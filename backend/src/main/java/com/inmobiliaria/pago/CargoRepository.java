@@ -1,6 +1,7 @@
 package com.inmobiliaria.pago;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -29,20 +30,21 @@ public interface CargoRepository extends JpaRepository<Cargo, Long> {
     List<Cargo> findCargosVencidos(@Param("empresaId") Long empresaId,
                                     @Param("fecha") LocalDate fecha);
 
-    @Query("SELECT c FROM Cargo c WHERE c.empresaId = :empresaId " +
-           "AND c.contrato.id = :contratoId AND c.periodoMes = :mes AND c.periodoAnio = :anio " +
-           "AND c.tipoCargo = :tipoCargo")
-    Optional<Cargo> findCargoByPeriodo(@Param("empresaId") Long empresaId,
-                                       @Param("contratoId") Long contratoId,
-                                       @Param("mes") Integer mes,
-                                       @Param("anio") Integer anio,
-                                       @Param("tipoCargo") TipoCargo tipoCargo);
-
-    @Query("SELECT COALESCE(SUM(c.montoPendiente), 0) FROM Cargo c " +
-           "WHERE c.empresaId = :empresaId AND c.contrato.id = :contratoId " +
-           "AND c.estado IN ('PENDIENTE', 'PARCIAL', 'VENCIDO')")
-    java.math.BigDecimal getSaldoPendienteByContrato(@Param("empresaId") Long empresaId,
-                                                     @Param("contratoId") Long contratoId);
+    @Modifying
+    @Query("UPDATE Cargo c SET c.estado = com.inmobiliaria.pago.EstadoCargo.VENCIDO, c.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE c.empresaId = :empresaId AND c.fechaVencimiento < :fecha " +
+           "AND c.estado = com.inmobiliaria.pago.EstadoCargo.PENDIENTE")
+    int marcarCargosVencidos(@Param("empresaId") Long empresaId,
+                             @Param("fecha") LocalDate fecha);
+
+    @Query("SELECT c FROM Cargo c JOIN FETCH c.contrato co JOIN FETCH co.propiedad JOIN FETCH co.arrendatario " +
+           "WHERE c.empresaId = :empresaId AND co.id IN :contratoIds " +
+           "AND c.periodoMes = :mes AND c.periodoAnio = :anio AND c.tipoCargo = :tipoCargo")
+    List<Cargo> findCargosByPeriodoAndContratoIdIn(@Param("empresaId") Long empresaId,
+                                                   @Param("contratoIds") List<Long> contratoIds,
+                                                   @Param("mes") Integer mes,
+                                                   @Param("anio") Integer anio,
+                                                   @Param("tipoCargo") TipoCargo tipoCargo);
 
     @Query("SELECT c FROM Cargo c WHERE c.empresaId = :empresaId " +
            "AND c.fechaVencimiento BETWEEN :fechaInicio AND :fechaFin")
@@ -0,0 +1,62 @@
+package com.inmobiliaria.pago;
+
+import com.inmobiliaria.empresa.Empresa;
+import com.inmobiliaria.empresa.EmpresaRepository;
+import com.inmobiliaria.shared.multitenancy.TenantRunSummary;
+import com.inmobiliaria.shared.multitenancy.TenantTaskExecutor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Procesos programados de cargos para todas las empresas.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CargoSchedulerService {
+
+    private final GeneracionCargosService generacionCargosService;
+    private final PagoService pagoService;
+    private final EmpresaRepository empresaRepository;
+    private final TenantTaskExecutor tenantTaskExecutor;
+
+    /**
+     * Marca los cargos vencidos todas las noches a las 0:30 AM, antes del recálculo de cartera.
+     */
+    @Scheduled(cron = "0 30 0 * * *")
+    public void marcarCargosVencidos() {
+        LocalDate hoy = LocalDate.now();
+        log.info("Iniciando marcado de cargos vencidos");
+        List<Long> empresaIds = empresaRepository.findByActivoTrue().stream().map(Empresa::getId).toList();
+
+        TenantRunSummary<Integer> resumen = tenantTaskExecutor.forEachTenant(
+                "Marcado de cargos vencidos", empresaIds,
+                empresaId -> pagoService.marcarCargosVencidos(empresaId, hoy));
+
+        log.info("Marcado de cargos vencidos completado: {} cargos",
+                resumen.successfulResults().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    /**
+     * Genera las rentas del mes el día 1 a la 1:00 AM.
+     */
+    @Scheduled(cron = "0 0 1 1 * *")
+    public void generarRentasDelMes() {
+        YearMonth periodo = YearMonth.now();
+        log.info("Iniciando generación de rentas de {}", periodo);
+        List<Long> empresaIds = empresaRepository.findByActivoTrue().stream().map(Empresa::getId).toList();
+
+        TenantRunSummary<List<Long>> resumen = tenantTaskExecutor.forEachTenant(
+                "Generación de rentas " + periodo, empresaIds,
+                empresaId -> generacionCargosService.generarRentas(empresaId, periodo, null));
+
+        log.info("Generación de rentas de {} completada: {} cargos generados", periodo,
+                resumen.successfulResults().stream().mapToInt(List::size).sum());
+    }
+}
@@ -0,0 +1,102 @@
+package com.inmobiliaria.pago;
+
+import com.inmobiliaria.pago.eventos.PagosModificadosEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Genera los cargos de renta de un periodo.
+ *
+ * Los contratos sin cargo de renta en el periodo se obtienen con una sola consulta (NOT EXISTS)
+ * y los cargos se insertan con batches JDBC. El índice único de cargos fijos por
+ * (contrato, tipo, periodo) junto con ON CONFLICT DO NOTHING evita duplicados si dos
+ * generaciones del mismo periodo corren a la vez.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GeneracionCargosService {
+
+    private static final int TAMANO_BATCH = 500;
+
+    // Contratos vigentes en el periodo sin cargo de renta; con contrato explícito no se filtra por estado
+    private static final String CONTRATOS_SIN_RENTA_SQL =
+            "SELECT co.id, co.monto_renta, co.dia_pago FROM contratos co " +
+            "WHERE co.empresa_id = ? AND (" +
+            "(CAST(? AS BIGINT) IS NULL AND co.activo = TRUE AND co.estado IN ('ACTIVO', 'POR_VENCER') " +
+            "AND co.fecha_inicio <= ? AND co.fecha_fin >= ?) " +
+            "OR co.id = ?) " +
+            "AND NOT EXISTS (SELECT 1 FROM cargos c WHERE c.contrato_id = co.id AND c.tipo_cargo = 'RENTA' " +
+            "AND c.periodo_anio = ? AND c.periodo_mes = ?) " +
+            "ORDER BY co.id";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO cargos (empresa_id, contrato_id, tipo_cargo, concepto, monto_original, monto_pagado, " +
+            "monto_pendiente, fecha_cargo, fecha_vencimiento, estado, es_cargo_fijo, periodo_mes, periodo_anio, created_at) " +
+            "VALUES (?, ?, 'RENTA', ?, ?, 0, ?, ?, ?, 'PENDIENTE', TRUE, ?, ?, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (contrato_id, tipo_cargo, periodo_anio, periodo_mes) WHERE es_cargo_fijo = TRUE DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SaldoContratoService saldoContratoService;
+
+    /**
+     * Genera la renta del periodo para los contratos que no la tienen.
+     *
+     * @param contratoId contrato específico, o null para todos los contratos vigentes de la empresa
+     * @return IDs de los contratos a los que se les generó cargo
+     */
+    @Transactional
+    public List<Long> generarRentas(Long empresaId, YearMonth periodo, Long contratoId) {
+        LocalDate inicio = periodo.atDay(1);
+        LocalDate fin = periodo.atEndOfMonth();
+
+        List<ContratoSinRenta> contratos = jdbcTemplate.query(CONTRATOS_SIN_RENTA_SQL,
+                (rs, rowNum) -> new ContratoSinRenta(rs.getLong("id"), rs.getBigDecimal("monto_renta"), rs.getInt("dia_pago")),
+                empresaId, contratoId, Date.valueOf(fin), Date.valueOf(inicio), contratoId,
+                periodo.getYear(), periodo.getMonthValue());
+
+        String concepto = "Renta " + periodo.getMonth().name() + " " + periodo.getYear();
+        List<Long> generados = new ArrayList<>(contratos.size());
+        for (int desde = 0; desde < contratos.size(); desde += TAMANO_BATCH) {
+            List<ContratoSinRenta> lote = contratos.subList(desde, Math.min(desde + TAMANO_BATCH, contratos.size()));
+            int[] filas = jdbcTemplate.batchUpdate(INSERT_SQL, lote.stream()
+                    .map(c -> new Object[]{
+                            empresaId, c.id(), concepto, c.montoRenta(), c.montoRenta(),
+                            Date.valueOf(inicio), Date.valueOf(fechaVencimiento(periodo, c.diaPago())),
+                            periodo.getMonthValue(), periodo.getYear()})
+                    .toList());
+            for (int i = 0; i < filas.length; i++) {
+                // 0 = otro proceso ya lo insertó (ON CONFLICT DO NOTHING)
+                if (filas[i] != 0) {
+                    generados.add(lote.get(i).id());
+                }
+            }
+        }
+
+        if (!generados.isEmpty()) {
+            log.info("Empresa {}: {} cargos de renta generados para {}", empresaId, generados.size(), periodo);
+            saldoContratoService.actualizar(empresaId, generados);
+            eventPublisher.publishEvent(new PagosModificadosEvent(empresaId));
+        }
+        return generados;
+    }
+
+    static LocalDate fechaVencimiento(YearMonth periodo, int diaPago) {
+        int dia = diaPago > 0 ? diaPago : 1;
+        return periodo.atDay(Math.min(dia, periodo.lengthOfMonth()));
+    }
+
+    private record ContratoSinRenta(Long id, BigDecimal montoRenta, int diaPago) {}
+}
@@ -0,0 +1,478 @@
+package com.inmobiliaria.pago;
+
+import com.inmobiliaria.contrato.ContratoRepository;
+import com.inmobiliaria.pago.dto.ImportacionPagosDTO;
+import com.inmobiliaria.pago.dto.ImportacionPagosDTO.EstadoLinea;
+import com.inmobiliaria.pago.dto.ImportacionPagosDTO.ResultadoLinea;
+import com.inmobiliaria.pago.dto.ImportacionPagosDTO.TipoCoincidencia;
+import com.inmobiliaria.pago.eventos.PagosModificadosEvent;
+import com.inmobiliaria.persona.PersonaRepository;
+import com.inmobiliaria.shared.multitenancy.TenantContext;
+import com.inmobiliaria.shared.numeracion.NumeracionService;
+import com.inmobiliaria.shared.numeracion.SerieDocumento;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Importa depósitos de un estado de cuenta bancario (CSV) como pagos.
+ *
+ * El archivo se lee en streaming y cada línea se asigna a un contrato con mapas precargados
+ * (una consulta de contratos y otra de pagos ya registrados para detectar duplicados), sin
+ * consultas por línea. Las líneas aceptadas se suman a los registrados, así que una línea
+ * repetida dentro del archivo también se marca como duplicada. Los pagos se crean por lotes,
+ * cada lote en su transacción, con la misma lógica que {@link PagoService#createPago}; si un
+ * lote falla se reintenta línea por línea para que un renglón con error no descarte a los demás.
+ *
+ * Las líneas de un mismo contrato siempre van en el mismo lote.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImportacionPagosService {
+
+    private static final int TAMANO_LOTE = 200;
+
+    private static final List<DateTimeFormatter> FORMATOS_FECHA = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+
+    // Parte entera de un monto: sin separadores o con miles agrupados de tres en tres
+    private static final Pattern MONTO_ENTERO = Pattern.compile("-?(\\d*|\\d{1,3}(\\.\\d{3})+|\\d{1,3}(,\\d{3})+)");
+
+    private static final String CONTRATOS_SQL =
+            "SELECT id, numero_contrato, arrendatario_id, monto_renta FROM contratos " +
+            "WHERE empresa_id = ? AND activo = TRUE AND estado IN ('ACTIVO', 'POR_VENCER', 'VENCIDO')";
+
+    private static final String PAGOS_EXISTENTES_SQL =
+            "SELECT referencia, fecha_pago, monto FROM pagos " +
+            "WHERE empresa_id = ? AND fecha_pago BETWEEN ? AND ? AND referencia IS NOT NULL " +
+            "AND estado <> 'CANCELADO'";
+
+    private final PagoService pagoService;
+    private final NumeracionService numeracionService;
+    private final ContratoRepository contratoRepository;
+    private final PersonaRepository personaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final SaldoContratoService saldoContratoService;
+
+    public ImportacionPagosDTO importar(MultipartFile archivo, TipoPago tipoPago, String banco) {
+        if (archivo.isEmpty()) {
+            throw new IllegalArgumentException("El archivo está vacío");
+        }
+        try (InputStream entrada = archivo.getInputStream()) {
+            return importar(TenantContext.getCurrentTenant(), entrada, tipoPago, banco);
+        } catch (IOException ex) {
+            throw new RuntimeException("Error al leer el archivo de pagos", ex);
+        }
+    }
+
+    ImportacionPagosDTO importar(Long empresaId, InputStream entrada, TipoPago tipoPago, String banco)
+            throws IOException {
+        long inicio = System.currentTimeMillis();
+        List<ResultadoLinea> resultados = new ArrayList<>();
+        List<LineaEstadoCuenta> lineas = leerLineas(entrada, resultados);
+
+        Map<Long, List<Asignacion>> porContrato = asignar(empresaId, lineas, resultados);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (List<Asignacion> lote : lotes(porContrato)) {
+            resultados.addAll(registrarConReintento(transactionTemplate, empresaId, lote, tipoPago, banco));
+        }
+
+        resultados.sort(Comparator.comparingInt(ResultadoLinea::getLinea));
+        ImportacionPagosDTO resumen = ImportacionPagosDTO.builder()
+                .totalLineas(resultados.size())
+                .importados(contar(resultados, EstadoLinea.IMPORTADO))
+                .duplicados(contar(resultados, EstadoLinea.DUPLICADO))
+                .sinCoincidencia(contar(resultados, EstadoLinea.SIN_COINCIDENCIA))
+                .conError(contar(resultados, EstadoLinea.INVALIDA) + contar(resultados, EstadoLinea.ERROR))
+                .montoImportado(resultados.stream()
+                        .filter(r -> r.getEstado() == EstadoLinea.IMPORTADO)
+                        .map(ResultadoLinea::getMonto)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add))
+                .duracionMs(System.currentTimeMillis() - inicio)
+                .lineas(resultados)
+                .build();
+
+        log.info("Importación de pagos empresa {}: {} líneas, {} importadas, {} duplicadas, {} sin coincidencia, {} con error en {} ms",
+                empresaId, resumen.getTotalLineas(), resumen.getImportados(), resumen.getDuplicados(),
+                resumen.getSinCoincidencia(), resumen.getConError(), resumen.getDuracionMs());
+        return resumen;
+    }
+
+    // ========== Lectura ==========
+
+    private List<LineaEstadoCuenta> leerLineas(InputStream entrada, List<ResultadoLinea> resultados) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        String encabezado = reader.readLine();
+        if (encabezado == null) {
+            throw new IllegalArgumentException("El archivo está vacío");
+        }
+        encabezado = encabezado.replace("\uFEFF", "");
+        char separador = encabezado.indexOf(';') >= 0 && encabezado.indexOf(',') < 0 ? ';' : ',';
+
+        Map<String, Integer> columnas = new HashMap<>();
+        List<String> nombres = separarCampos(encabezado, separador);
+        for (int i = 0; i < nombres.size(); i++) {
+            columnas.put(nombres.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String requerida : List.of("fecha", "monto", "referencia")) {
+            if (!columnas.containsKey(requerida)) {
+                throw new IllegalArgumentException("Falta la columna '" + requerida + "' en el encabezado");
+            }
+        }
+
+        List<LineaEstadoCuenta> lineas = new ArrayList<>();
+        String texto;
+        int numero = 1;
+        while ((texto = reader.readLine()) != null) {
+            numero++;
+            if (texto.isBlank()) {
+                continue;
+            }
+            List<String> campos = separarCampos(texto, separador);
+            String referencia = limpiar(campo(campos, columnas.get("referencia")));
+            try {
+                if (referencia != null && referencia.length() > 100) {
+                    throw new IllegalArgumentException("La referencia no puede exceder 100 caracteres");
+                }
+                lineas.add(new LineaEstadoCuenta(
+                        numero,
+                        parsearFecha(campo(campos, columnas.get("fecha"))),
+                        parsearMonto(campo(campos, columnas.get("monto"))),
+                        referencia,
+                        limpiar(campo(campos, columnas.get("banco")))));
+            } catch (IllegalArgumentException | DateTimeParseException ex) {
+                resultados.add(ResultadoLinea.builder()
+                        .linea(numero)
+                        .estado(EstadoLinea.INVALIDA)
+                        .referencia(referencia)
+                        .mensaje(ex.getMessage())
+                        .build());
+            }
+        }
+        return lineas;
+    }
+
+    /**
+     * Separa una línea CSV respetando comillas dobles (y "" como comilla escapada).
+     */
+    static List<String> separarCampos(String linea, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (c == '"') {
+                if (entreComillas && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else {
+                    entreComillas = !entreComillas;
+                }
+            } else if (c == separador && !entreComillas) {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    private static String campo(List<String> campos, Integer indice) {
+        return indice != null && indice < campos.size() ? campos.get(indice) : null;
+    }
+
+    private static String limpiar(String valor) {
+        return valor == null || valor.isBlank() ? null : valor.trim();
+    }
+
+    static LocalDate parsearFecha(String valor) {
+        String texto = limpiar(valor);
+        if (texto == null) {
+            throw new IllegalArgumentException("La fecha es requerida");
+        }
+        for (DateTimeFormatter formato : FORMATOS_FECHA) {
+            try {
+                return LocalDate.parse(texto, formato);
+            } catch (DateTimeParseException ignored) {
+                // Probar el siguiente formato
+            }
+        }
+        throw new IllegalArgumentException("Fecha inválida: " + texto);
+    }
+
+    /**
+     * Acepta punto o coma decimal ("1,234.50", "1.234,50", "1234,50"). El último separador es el
+     * decimal cuando es un punto único o una coma seguida de uno o dos dígitos; los demás deben
+     * agrupar miles. Un formato que no encaja (p. ej. "1,234,50") se rechaza en lugar de adivinarlo.
+     */
+    static BigDecimal parsearMonto(String valor) {
+        String texto = limpiar(valor);
+        if (texto == null) {
+            throw new IllegalArgumentException("El monto es requerido");
+        }
+        try {
+            BigDecimal monto = new BigDecimal(normalizarMonto(texto.replace("$", "").replace(" ", "")));
+            if (monto.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalArgumentException("El monto debe ser mayor a 0");
+            }
+            return monto.setScale(2, RoundingMode.HALF_UP);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Monto inválido: " + texto);
+        }
+    }
+
+    private static String normalizarMonto(String texto) {
+        int ultimoPunto = texto.lastIndexOf('.');
+        int ultimaComa = texto.lastIndexOf(',');
+        int separadorDecimal = -1;
+        if (ultimoPunto >= 0 && ultimaComa >= 0) {
+            separadorDecimal = Math.max(ultimoPunto, ultimaComa);
+        } else if (ultimoPunto >= 0) {
+            // Varios puntos solo pueden ser de miles ("1.234.567")
+            separadorDecimal = ultimoPunto == texto.indexOf('.') ? ultimoPunto : -1;
+        } else if (ultimaComa >= 0) {
+            // "1234,50" lleva coma decimal; "1,234" es de miles
+            separadorDecimal = ultimaComa == texto.indexOf(',') && texto.length() - ultimaComa - 1 <= 2
+                    ? ultimaComa : -1;
+        }
+
+        String entero = separadorDecimal >= 0 ? texto.substring(0, separadorDecimal) : texto;
+        String decimales = separadorDecimal >= 0 ? texto.substring(separadorDecimal + 1) : "";
+        if (!MONTO_ENTERO.matcher(entero).matches() || !decimales.chars().allMatch(Character::isDigit)) {
+            throw new IllegalArgumentException("Monto con formato no reconocido: " + texto);
+        }
+        String digitos = entero.replace(".", "").replace(",", "");
+        return decimales.isEmpty() ? digitos : digitos + "." + decimales;
+    }
+
+    // ========== Asignación a contratos ==========
+
+    private Map<Long, List<Asignacion>> asignar(Long empresaId, List<LineaEstadoCuenta> lineas,
+                                                List<ResultadoLinea> resultados) {
+        Map<String, ContratoImportable> porNumero = new HashMap<>();
+        Map<BigDecimal, List<ContratoImportable>> porMonto = new HashMap<>();
+        jdbcTemplate.query(CONTRATOS_SQL, rs -> {
+            ContratoImportable contrato = new ContratoImportable(
+                    rs.getLong("id"),
+                    rs.getString("numero_contrato"),
+                    rs.getLong("arrendatario_id"),
+                    rs.getBigDecimal("monto_renta").setScale(2, RoundingMode.HALF_UP));
+            porNumero.put(normalizar(contrato.numeroContrato()), contrato);
+            porMonto.computeIfAbsent(contrato.montoRenta(), m -> new ArrayList<>()).add(contrato);
+        }, empresaId);
+
+        Set<LlavePago> existentes = pagosExistentes(empresaId, lineas);
+
+        Map<Long, List<Asignacion>> porContrato = new LinkedHashMap<>();
+        for (LineaEstadoCuenta linea : lineas) {
+            LlavePago llave = linea.referencia() != null
+                    ? new LlavePago(linea.referencia(), linea.fecha(), linea.monto())
+                    : null;
+            if (llave != null && existentes.contains(llave)) {
+                resultados.add(resultado(linea, EstadoLinea.DUPLICADO)
+                        .mensaje("Ya existe un pago con la misma referencia, fecha y monto")
+                        .build());
+                continue;
+            }
+
+            ContratoImportable contrato = buscarPorReferencia(linea.referencia(), porNumero);
+            TipoCoincidencia coincidencia = TipoCoincidencia.REFERENCIA;
+            if (contrato == null) {
+                List<ContratoImportable> candidatos = porMonto.getOrDefault(linea.monto(), List.of());
+                if (candidatos.size() != 1) {
+                    resultados.add(resultado(linea, EstadoLinea.SIN_COINCIDENCIA)
+                            .mensaje(candidatos.isEmpty()
+                                    ? "Ningún contrato coincide con la referencia o el monto"
+                                    : "El monto coincide con " + candidatos.size() + " contratos")
+                            .build());
+                    continue;
+                }
+                contrato = candidatos.get(0);
+                coincidencia = TipoCoincidencia.MONTO;
+            }
+            porContrato.computeIfAbsent(contrato.id(), id -> new ArrayList<>())
+                    .add(new Asignacion(linea, contrato, coincidencia));
+            // Una línea repetida más adelante en el mismo archivo también es duplicada
+            if (llave != null) {
+                existentes.add(llave);
+            }
+        }
+        return porContrato;
+    }
+
+    private Set<LlavePago> pagosExistentes(Long empresaId, List<LineaEstadoCuenta> lineas) {
+        Set<LlavePago> existentes = new HashSet<>();
+        if (lineas.isEmpty()) {
+            return existentes;
+        }
+        LocalDate desde = lineas.stream().map(LineaEstadoCuenta::fecha).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDate hasta = lineas.stream().map(LineaEstadoCuenta::fecha).max(Comparator.naturalOrder()).orElseThrow();
+        jdbcTemplate.query(PAGOS_EXISTENTES_SQL, rs -> {
+            existentes.add(new LlavePago(
+                    rs.getString("referencia").trim(),
+                    rs.getDate("fecha_pago").toLocalDate(),
+                    rs.getBigDecimal("monto").setScale(2, RoundingMode.HALF_UP)));
+        }, empresaId, Date.valueOf(desde), Date.valueOf(hasta));
+        return existentes;
+    }
+
+    /**
+     * La referencia coincide si completa, o alguna de sus palabras, es un número de contrato.
+     */
+    static ContratoImportable buscarPorReferencia(String referencia, Map<String, ContratoImportable> porNumero) {
+        if (referencia == null) {
+            return null;
+        }
+        ContratoImportable contrato = porNumero.get(normalizar(referencia));
+        if (contrato != null) {
+            return contrato;
+        }
+        for (String palabra : referencia.split("[^A-Za-z0-9-]+")) {
+            contrato = porNumero.get(normalizar(palabra));
+            if (contrato != null) {
+                return contrato;
+            }
+        }
+        return null;
+    }
+
+    private static String normalizar(String valor) {
+        return valor.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // ========== Registro por lotes ==========
+
+    private List<List<Asignacion>> lotes(Map<Long, List<Asignacion>> porContrato) {
+        List<List<Asignacion>> lotes = new ArrayList<>();
+        List<Asignacion> actual = new ArrayList<>();
+        for (List<Asignacion> delContrato : porContrato.values()) {
+            actual.addAll(delContrato);
+            if (actual.size() >= TAMANO_LOTE) {
+                lotes.add(actual);
+                actual = new ArrayList<>();
+            }
+        }
+        if (!actual.isEmpty()) {
+            lotes.add(actual);
+        }
+        return lotes;
+    }
+
+    private List<ResultadoLinea> registrarConReintento(TransactionTemplate transactionTemplate, Long empresaId,
+                                                       List<Asignacion> lote, TipoPago tipoPago, String banco) {
+        try {
+            return transactionTemplate.execute(status -> registrarLote(empresaId, lote, tipoPago, banco));
+        } catch (RuntimeException ex) {
+            if (lote.size() == 1) {
+                Asignacion asignacion = lote.get(0);
+                log.warn("Línea {} del estado de cuenta no importada: {}", asignacion.linea().numero(), ex.getMessage());
+                return List.of(resultado(asignacion.linea(), EstadoLinea.ERROR)
+                        .coincidencia(asignacion.coincidencia())
+                        .contratoId(asignacion.contrato().id())
+                        .numeroContrato(asignacion.contrato().numeroContrato())
+                        .mensaje(ex.getMessage())
+                        .build());
+            }
+            log.warn("Lote de {} pagos falló, se reintenta línea por línea: {}", lote.size(), ex.getMessage());
+            List<ResultadoLinea> resultados = new ArrayList<>(lote.size());
+            for (Asignacion asignacion : lote) {
+                resultados.addAll(registrarConReintento(transactionTemplate, empresaId, List.of(asignacion), tipoPago, banco));
+            }
+            return resultados;
+        }
+    }
+
+    private List<ResultadoLinea> registrarLote(Long empresaId, List<Asignacion> lote, TipoPago tipoPago, String banco) {
+        List<Long> folios = numeracionService.siguientes(empresaId, SerieDocumento.RECIBO, lote.size());
+
+        List<ResultadoLinea> resultados = new ArrayList<>(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            Asignacion asignacion = lote.get(i);
+            LineaEstadoCuenta linea = asignacion.linea();
+
+            Pago pago = Pago.builder()
+                    .empresaId(empresaId)
+                    .contrato(contratoRepository.getReferenceById(asignacion.contrato().id()))
+                    .persona(personaRepository.getReferenceById(asignacion.contrato().arrendatarioId()))
+                    .numeroRecibo(PagoService.formatearNumeroRecibo(folios.get(i)))
+                    .monto(linea.monto())
+                    .tipoPago(tipoPago)
+                    .fechaPago(linea.fecha())
+                    .referencia(linea.referencia())
+                    .banco(linea.banco() != null ? linea.banco() : banco)
+                    .notas("Importado de estado de cuenta, línea " + linea.numero())
+                    .estado(EstadoPago.PENDIENTE)
+                    .build();
+
+            pago = pagoService.registrarPago(pago, true, null);
+
+            resultados.add(resultado(linea, EstadoLinea.IMPORTADO)
+                    .coincidencia(asignacion.coincidencia())
+                    .contratoId(asignacion.contrato().id())
+                    .numeroContrato(asignacion.contrato().numeroContrato())
+                    .pagoId(pago.getId())
+                    .numeroRecibo(pago.getNumeroRecibo())
+                    .montoAplicado(pago.getMontoAplicado())
+                    .build());
+        }
+
+        saldoContratoService.actualizar(empresaId, lote.stream().map(a -> a.contrato().id()).toList());
+        eventPublisher.publishEvent(new PagosModificadosEvent(empresaId));
+
+        // Los pagos del lote ya no se usan; evita que el contexto de persistencia crezca con el archivo
+        entityManager.flush();
+        entityManager.clear();
+        return resultados;
+    }
+
+    private static ResultadoLinea.ResultadoLineaBuilder resultado(LineaEstadoCuenta linea, EstadoLinea estado) {
+        return ResultadoLinea.builder()
+                .linea(linea.numero())
+                .estado(estado)
+                .fecha(linea.fecha())
+                .monto(linea.monto())
+                .referencia(linea.referencia());
+    }
+
+    private static int contar(List<ResultadoLinea> resultados, EstadoLinea estado) {
+        return (int) resultados.stream().filter(r -> r.getEstado() == estado).count();
+    }
+
+    // ========== Tipos ==========
+
+    record LineaEstadoCuenta(int numero, LocalDate fecha, BigDecimal monto, String referencia, String banco) {}
+
+    record ContratoImportable(Long id, String numeroContrato, Long arrendatarioId, BigDecimal montoRenta) {}
+
+    private record Asignacion(LineaEstadoCuenta linea, ContratoImportable contrato, TipoCoincidencia coincidencia) {}
+
+    private record LlavePago(String referencia, LocalDate fecha, BigDecimal monto) {}
+}
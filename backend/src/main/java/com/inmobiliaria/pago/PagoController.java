@@ -10,9 +10,12 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 @RestController
@@ -23,6 +26,7 @@ public class PagoController {
 
     private final PagoService pagoService;
     private final ReciboPdfService reciboPdfService;
+    private final ImportacionPagosService importacionPagosService;
 
     // ==================== PAGOS ====================
 
@@ -53,6 +57,18 @@ public class PagoController {
         return new ResponseEntity<>(pagoService.createPago(request), HttpStatus.CREATED);
     }
 
+    /**
+     * Importa los depósitos de un estado de cuenta (CSV con columnas fecha, monto, referencia
+     * y opcionalmente banco) y devuelve el resultado de cada línea.
+     */
+    @PostMapping(value = "/importar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportacionPagosDTO> importarPagos(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "TRANSFERENCIA") TipoPago tipoPago,
+            @RequestParam(required = false) String banco) {
+        return ResponseEntity.ok(importacionPagosService.importar(file, tipoPago, banco));
+    }
+
     @PostMapping("/{id}/aplicar")
     public ResponseEntity<PagoDTO> aplicarPago(
             @PathVariable Long id,
@@ -113,9 +129,8 @@ public class PagoController {
     }
 
     @PostMapping("/cargos/actualizar-vencidos")
-    public ResponseEntity<Void> actualizarCargosVencidos() {
-        pagoService.actualizarCargosVencidos();
-        return ResponseEntity.noContent().build();
+    public ResponseEntity<Integer> actualizarCargosVencidos() {
+        return ResponseEntity.ok(pagoService.actualizarCargosVencidos());
     }
 
     // ==================== ESTADÍSTICAS ====================
@@ -130,6 +145,20 @@ public class PagoController {
         return ResponseEntity.ok(pagoService.getSaldoPendienteContrato(contratoId));
     }
 
+    @GetMapping("/saldos/{contratoId}")
+    public ResponseEntity<SaldoContratoService.SaldoContrato> getSaldoContrato(@PathVariable Long contratoId) {
+        return ResponseEntity.ok(pagoService.getSaldoContrato(contratoId));
+    }
+
+    /**
+     * Reconstruye desde cero los saldos por contrato de la empresa a partir de cargos y pagos.
+     */
+    @PostMapping("/saldos/reconstruir")
+    @PreAuthorize("hasRole('ADMINISTRADOR')")
+    public ResponseEntity<Integer> reconstruirSaldos() {
+        return ResponseEntity.ok(pagoService.reconstruirSaldos());
+    }
+
     // ==================== RECIBO PDF ====================
 
     /**
@@ -137,14 +166,34 @@ public class PagoController {
      */
     @GetMapping("/{id}/recibo/pdf")
     public ResponseEntity<byte[]> descargarReciboPdf(@PathVariable Long id) {
-        Pago pago = pagoService.getPagoEntity(id);
-        byte[] pdfData = reciboPdfService.generarReciboPdf(pago);
+        ReciboView recibo = pagoService.getRecibo(id);
+        byte[] pdfData = reciboPdfService.generarReciboPdf(recibo);
 
-        String filename = "recibo_" + pago.getNumeroRecibo() + ".pdf";
+        String filename = ReciboPdfService.nombreArchivo(recibo);
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
                 .contentType(MediaType.APPLICATION_PDF)
                 .body(pdfData);
     }
+
+    /**
+     * Descarga en un ZIP los recibos de los pagos del periodo (no cancelados).
+     * Los datos se leen antes de empezar a escribir; los PDF se generan mientras se envía el archivo.
+     */
+    @GetMapping("/recibos/zip")
+    public ResponseEntity<StreamingResponseBody> descargarRecibosZip(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        List<ReciboView> recibos = pagoService.getRecibosByPeriodo(fechaInicio, fechaFin);
+        StreamingResponseBody zipData = out -> reciboPdfService.escribirRecibosZip(recibos, out);
+
+        String filename = "recibos_" + fechaInicio.format(DateTimeFormatter.BASIC_ISO_DATE) +
+                "_" + fechaFin.format(DateTimeFormatter.BASIC_ISO_DATE) + ".zip";
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(zipData);
+    }
 }
@@ -0,0 +1,15 @@
+package com.inmobiliaria.pago;
+
+import java.math.BigDecimal;
+
+/**
+ * Pagos agregados por contrato y mes de pago (GROUP BY contrato, año, mes).
+ */
+public record PagoMensualView(
+        Long contratoId,
+        Integer anio,
+        Integer mes,
+        Long cantidadPagos,
+        BigDecimal montoAplicado
+) {
+}
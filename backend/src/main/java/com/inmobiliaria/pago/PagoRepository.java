@@ -1,6 +1,8 @@
 package com.inmobiliaria.pago;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -13,10 +15,23 @@ import java.util.Optional;
 @Repository
 public interface PagoRepository extends JpaRepository<Pago, Long> {
 
+    // Proyección para recibos PDF: pago, cliente, contrato y propiedad en una sola consulta
+    String RECIBO_VIEW_SELECT = "SELECT new com.inmobiliaria.pago.ReciboView(p.id, p.numeroRecibo, p.fechaPago, " +
+            "p.createdAt, p.estado, p.tipoPago, p.referencia, p.banco, p.monto, " +
+            "pe.tipoPersona, pe.nombre, pe.apellidoPaterno, pe.apellidoMaterno, pe.razonSocial, pe.rfc, pe.email, pe.telefono, " +
+            "c.numeroContrato, c.fechaInicio, c.fechaFin, " +
+            "pr.calle, pr.numeroExterior, pr.numeroInterior, col.nombre, mun.nombre, edo.nombre, pr.codigoPostal) " +
+            "FROM Pago p JOIN p.persona pe JOIN p.contrato c LEFT JOIN c.propiedad pr " +
+            "LEFT JOIN pr.colonia col LEFT JOIN pr.municipio mun LEFT JOIN pr.estado edo ";
+
     List<Pago> findByEmpresaId(Long empresaId);
 
     Optional<Pago> findByIdAndEmpresaId(Long id, Long empresaId);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Pago p WHERE p.id = :id AND p.empresaId = :empresaId")
+    Optional<Pago> findByIdAndEmpresaIdForUpdate(@Param("id") Long id, @Param("empresaId") Long empresaId);
+
     List<Pago> findByContratoIdAndEmpresaId(Long contratoId, Long empresaId);
 
     List<Pago> findByPersonaIdAndEmpresaId(Long personaId, Long empresaId);
@@ -43,8 +58,23 @@ public interface PagoRepository extends JpaRepository<Pago, Long> {
     List<Pago> findPagosByContratoOrdenados(@Param("empresaId") Long empresaId,
                                              @Param("contratoId") Long contratoId);
 
-    @Query("SELECT MAX(p.numeroRecibo) FROM Pago p WHERE p.empresaId = :empresaId")
-    String findUltimoNumeroRecibo(@Param("empresaId") Long empresaId);
+    @Query("SELECT new com.inmobiliaria.pago.PagoMensualView(p.contrato.id, YEAR(p.fechaPago), MONTH(p.fechaPago), " +
+           "COUNT(p), SUM(p.montoAplicado)) " +
+           "FROM Pago p WHERE p.empresaId = :empresaId " +
+           "AND p.fechaPago BETWEEN :fechaInicio AND :fechaFin " +
+           "GROUP BY p.contrato.id, YEAR(p.fechaPago), MONTH(p.fechaPago)")
+    List<PagoMensualView> sumPagosPorContratoYMes(@Param("empresaId") Long empresaId,
+                                                  @Param("fechaInicio") LocalDate fechaInicio,
+                                                  @Param("fechaFin") LocalDate fechaFin);
+
+    @Query(RECIBO_VIEW_SELECT + "WHERE p.id = :id AND p.empresaId = :empresaId")
+    Optional<ReciboView> findReciboById(@Param("id") Long id, @Param("empresaId") Long empresaId);
+
+    @Query(RECIBO_VIEW_SELECT + "WHERE p.empresaId = :empresaId AND p.fechaPago BETWEEN :fechaInicio AND :fechaFin " +
+           "AND p.estado <> com.inmobiliaria.pago.EstadoPago.CANCELADO ORDER BY p.numeroRecibo")
+    List<ReciboView> findRecibosByPeriodo(@Param("empresaId") Long empresaId,
+                                          @Param("fechaInicio") LocalDate fechaInicio,
+                                          @Param("fechaFin") LocalDate fechaFin);
 
     @Query("SELECT COUNT(p) FROM Pago p WHERE p.empresaId = :empresaId " +
            "AND p.fechaPago BETWEEN :fechaInicio AND :fechaFin")
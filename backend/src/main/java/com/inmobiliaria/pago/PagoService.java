@@ -2,21 +2,25 @@ package com.inmobiliaria.pago;
 
 import com.inmobiliaria.contrato.Contrato;
 import com.inmobiliaria.contrato.ContratoRepository;
-import com.inmobiliaria.contrato.EstadoContrato;
 import com.inmobiliaria.pago.dto.*;
+import com.inmobiliaria.pago.eventos.CargosVencidosEvent;
+import com.inmobiliaria.pago.eventos.PagoAplicadoEvent;
+import com.inmobiliaria.pago.eventos.PagoCanceladoEvent;
+import com.inmobiliaria.pago.eventos.PagosModificadosEvent;
 import com.inmobiliaria.persona.Persona;
 import com.inmobiliaria.persona.PersonaRepository;
 import com.inmobiliaria.shared.multitenancy.TenantContext;
+import com.inmobiliaria.shared.numeracion.NumeracionService;
+import com.inmobiliaria.shared.numeracion.SerieDocumento;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.YearMonth;
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -30,6 +34,11 @@ public class PagoService {
     private final PagoAplicacionRepository pagoAplicacionRepository;
     private final ContratoRepository contratoRepository;
     private final PersonaRepository personaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NumeracionService numeracionService;
+    private final AplicacionPagoService aplicacionPagoService;
+    private final GeneracionCargosService generacionCargosService;
+    private final SaldoContratoService saldoContratoService;
 
     // ==================== PAGOS ====================
 
@@ -47,12 +56,23 @@ public class PagoService {
         return toDTO(pago);
     }
 
-    public Pago getPagoEntity(Long id) {
+    public ReciboView getRecibo(Long id) {
         Long empresaId = TenantContext.getCurrentTenant();
-        return pagoRepository.findByIdAndEmpresaId(id, empresaId)
+        return pagoRepository.findReciboById(id, empresaId)
                 .orElseThrow(() -> new EntityNotFoundException("Pago no encontrado"));
     }
 
+    /**
+     * Recibos de los pagos no cancelados del periodo, ordenados por número de recibo.
+     */
+    public List<ReciboView> getRecibosByPeriodo(LocalDate fechaInicio, LocalDate fechaFin) {
+        if (fechaFin.isBefore(fechaInicio)) {
+            throw new IllegalArgumentException("La fecha fin no puede ser anterior a la fecha inicio");
+        }
+        Long empresaId = TenantContext.getCurrentTenant();
+        return pagoRepository.findRecibosByPeriodo(empresaId, fechaInicio, fechaFin);
+    }
+
     public List<PagoDTO> getPagosByContrato(Long contratoId) {
         Long empresaId = TenantContext.getCurrentTenant();
         return pagoRepository.findPagosByContratoOrdenados(empresaId, contratoId).stream()
@@ -94,144 +114,76 @@ public class PagoService {
                 .estado(EstadoPago.PENDIENTE)
                 .build();
 
+        pago = registrarPago(pago, request.getAplicarAutomaticamente(), request.getCargoIds());
+        saldoContratoService.actualizar(empresaId, List.of(contrato.getId()));
+
+        eventPublisher.publishEvent(new PagosModificadosEvent(empresaId));
+        return toDTO(pago);
+    }
+
+    /**
+     * Guarda el pago y lo aplica a cargos. Lo comparten createPago y la importación
+     * de estados de cuenta ({@link ImportacionPagosService}). Publica {@link PagoAplicadoEvent}
+     * si hubo aplicaciones; el {@link PagosModificadosEvent} y el saldo del contrato
+     * ({@link SaldoContratoService}) quedan a cargo de quien llama.
+     */
+    public Pago registrarPago(Pago pago, Boolean aplicarAutomaticamente, List<Long> cargoIds) {
         pago = pagoRepository.save(pago);
 
-        if (Boolean.TRUE.equals(request.getAplicarAutomaticamente())) {
-            aplicarPagoAutomatico(pago);
-        } else if (request.getCargoIds() != null && !request.getCargoIds().isEmpty()) {
-            aplicarPagoACargos(pago, request.getCargoIds());
+        if (Boolean.TRUE.equals(aplicarAutomaticamente)) {
+            publicarAplicacion(pago, aplicacionPagoService.aplicarAutomatico(pago));
+        } else if (cargoIds != null && !cargoIds.isEmpty()) {
+            publicarAplicacion(pago, aplicacionPagoService.aplicarACargos(pago, cargoIds));
         }
+        return pago;
+    }
 
-        return toDTO(pago);
+    private void publicarAplicacion(Pago pago, List<AplicacionPagoService.Aplicacion> aplicaciones) {
+        if (!aplicaciones.isEmpty()) {
+            eventPublisher.publishEvent(new PagoAplicadoEvent(pago.getEmpresaId(), pago.getId(),
+                    aplicaciones.stream().map(AplicacionPagoService.Aplicacion::cargoId).toList()));
+        }
     }
 
     public PagoDTO aplicarPago(Long pagoId, AplicarPagoRequest request) {
         Long empresaId = TenantContext.getCurrentTenant();
 
-        Pago pago = pagoRepository.findByIdAndEmpresaId(pagoId, empresaId)
+        // El pago se bloquea antes que sus cargos, igual que en cancelarPago
+        Pago pago = pagoRepository.findByIdAndEmpresaIdForUpdate(pagoId, empresaId)
                 .orElseThrow(() -> new EntityNotFoundException("Pago no encontrado"));
 
-        Cargo cargo = cargoRepository.findByIdAndEmpresaId(request.getCargoId(), empresaId)
-                .orElseThrow(() -> new EntityNotFoundException("Cargo no encontrado"));
-
-        BigDecimal montoDisponible = pago.getMontoDisponible();
-        if (request.getMontoAplicar().compareTo(montoDisponible) > 0) {
-            throw new IllegalArgumentException("El monto a aplicar excede el monto disponible del pago");
-        }
-
-        if (request.getMontoAplicar().compareTo(cargo.getMontoPendiente()) > 0) {
-            throw new IllegalArgumentException("El monto a aplicar excede el monto pendiente del cargo");
-        }
-
-        aplicarMontoACargo(pago, cargo, request.getMontoAplicar());
+        List<AplicacionPagoService.Aplicacion> aplicaciones =
+                aplicacionPagoService.aplicarACargo(pago, request.getCargoId(), request.getMontoAplicar());
+        publicarAplicacion(pago, aplicaciones);
+        saldoContratoService.actualizar(empresaId, List.of(pago.getContrato().getId()));
 
+        eventPublisher.publishEvent(new PagosModificadosEvent(empresaId));
         return toDTO(pago);
     }
 
     public void cancelarPago(Long id) {
         Long empresaId = TenantContext.getCurrentTenant();
-        Pago pago = pagoRepository.findByIdAndEmpresaId(id, empresaId)
+        Pago pago = pagoRepository.findByIdAndEmpresaIdForUpdate(id, empresaId)
                 .orElseThrow(() -> new EntityNotFoundException("Pago no encontrado"));
 
+        List<Long> cargosRevertidos = List.of();
         if (pago.getEstado() == EstadoPago.APLICADO || pago.getEstado() == EstadoPago.PARCIAL) {
-            revertirAplicaciones(pago);
+            cargosRevertidos = aplicacionPagoService.revertir(pago);
         }
 
         pago.setEstado(EstadoPago.CANCELADO);
         pagoRepository.save(pago);
+        saldoContratoService.actualizar(empresaId, List.of(pago.getContrato().getId()));
+        eventPublisher.publishEvent(new PagoCanceladoEvent(empresaId, pago.getId(), cargosRevertidos));
+        eventPublisher.publishEvent(new PagosModificadosEvent(empresaId));
     }
 
-    private void aplicarPagoAutomatico(Pago pago) {
-        Long empresaId = TenantContext.getCurrentTenant();
-        List<Cargo> cargosPendientes = cargoRepository
-                .findByContratoIdAndEmpresaIdAndEstado(pago.getContrato().getId(), empresaId, EstadoCargo.PENDIENTE);
-
-        cargosPendientes.addAll(cargoRepository
-                .findByContratoIdAndEmpresaIdAndEstado(pago.getContrato().getId(), empresaId, EstadoCargo.PARCIAL));
-
-        cargosPendientes.sort(Comparator.comparing(Cargo::getFechaVencimiento));
-
-        BigDecimal montoRestante = pago.getMonto();
-        for (Cargo cargo : cargosPendientes) {
-            if (montoRestante.compareTo(BigDecimal.ZERO) <= 0) break;
-
-            BigDecimal montoAAplicar = montoRestante.min(cargo.getMontoPendiente());
-            aplicarMontoACargo(pago, cargo, montoAAplicar);
-            montoRestante = montoRestante.subtract(montoAAplicar);
-        }
-    }
-
-    private void aplicarPagoACargos(Pago pago, List<Long> cargoIds) {
-        Long empresaId = TenantContext.getCurrentTenant();
-        BigDecimal montoRestante = pago.getMonto();
-
-        for (Long cargoId : cargoIds) {
-            if (montoRestante.compareTo(BigDecimal.ZERO) <= 0) break;
-
-            Cargo cargo = cargoRepository.findByIdAndEmpresaId(cargoId, empresaId)
-                    .orElseThrow(() -> new EntityNotFoundException("Cargo no encontrado: " + cargoId));
-
-            BigDecimal montoAAplicar = montoRestante.min(cargo.getMontoPendiente());
-            aplicarMontoACargo(pago, cargo, montoAAplicar);
-            montoRestante = montoRestante.subtract(montoAAplicar);
-        }
-    }
-
-    private void aplicarMontoACargo(Pago pago, Cargo cargo, BigDecimal monto) {
-        Long empresaId = TenantContext.getCurrentTenant();
-
-        pago.aplicarMonto(monto);
-        cargo.aplicarPago(monto);
-
-        PagoAplicacion aplicacion = PagoAplicacion.builder()
-                .empresaId(empresaId)
-                .pago(pago)
-                .cargo(cargo)
-                .montoAplicado(monto)
-                .build();
-
-        pagoAplicacionRepository.save(aplicacion);
-        cargoRepository.save(cargo);
-        pagoRepository.save(pago);
-
-        if (pago.getMontoDisponible().compareTo(BigDecimal.ZERO) <= 0) {
-            pago.setFechaAplicacion(LocalDate.now());
-        }
-    }
-
-    private void revertirAplicaciones(Pago pago) {
-        List<PagoAplicacion> aplicaciones = pagoAplicacionRepository.findByPagoId(pago.getId());
-
-        for (PagoAplicacion aplicacion : aplicaciones) {
-            Cargo cargo = aplicacion.getCargo();
-            cargo.setMontoPagado(cargo.getMontoPagado().subtract(aplicacion.getMontoAplicado()));
-            cargo.setMontoPendiente(cargo.getMontoOriginal().subtract(cargo.getMontoPagado()));
-
-            if (cargo.getMontoPendiente().compareTo(cargo.getMontoOriginal()) >= 0) {
-                cargo.setEstado(EstadoCargo.PENDIENTE);
-            } else {
-                cargo.setEstado(EstadoCargo.PARCIAL);
-            }
-
-            cargoRepository.save(cargo);
-            pagoAplicacionRepository.delete(aplicacion);
-        }
-
-        pago.setMontoAplicado(BigDecimal.ZERO);
-        pago.setFechaAplicacion(null);
+    private String generarNumeroRecibo(Long empresaId) {
+        return formatearNumeroRecibo(numeracionService.siguiente(empresaId, SerieDocumento.RECIBO));
     }
 
-    private String generarNumeroRecibo(Long empresaId) {
-        String ultimo = pagoRepository.findUltimoNumeroRecibo(empresaId);
-        int siguiente = 1;
-        if (ultimo != null && ultimo.startsWith("REC-")) {
-            try {
-                siguiente = Integer.parseInt(ultimo.substring(4)) + 1;
-            } catch (NumberFormatException e) {
-                // Usar valor por defecto
-            }
-        }
-        return String.format("REC-%06d", siguiente);
+    static String formatearNumeroRecibo(long folio) {
+        return String.format("REC-%06d", folio);
     }
 
     // ==================== CARGOS ====================
@@ -295,6 +247,8 @@ public class PagoService {
                 .build();
 
         cargo = cargoRepository.save(cargo);
+        saldoContratoService.actualizar(empresaId, List.of(contrato.getId()));
+        eventPublisher.publishEvent(new PagosModificadosEvent(empresaId));
         return toCargoDTO(cargo);
     }
 
@@ -309,67 +263,43 @@ public class PagoService {
 
         cargo.setEstado(EstadoCargo.CANCELADO);
         cargoRepository.save(cargo);
+        saldoContratoService.actualizar(empresaId, List.of(cargo.getContrato().getId()));
+        eventPublisher.publishEvent(new PagosModificadosEvent(empresaId));
     }
 
     // ==================== GENERACIÓN AUTOMÁTICA ====================
 
     public List<CargoDTO> generarCargosFijos(GenerarCargosFijosRequest request) {
         Long empresaId = TenantContext.getCurrentTenant();
-        List<Cargo> cargosGenerados = new ArrayList<>();
-
-        List<Contrato> contratos;
-        if (request.getContratoId() != null) {
-            contratos = contratoRepository.findByIdAndEmpresaId(request.getContratoId(), empresaId)
-                    .map(List::of)
-                    .orElse(List.of());
-        } else {
-            contratos = contratoRepository.findByEmpresaIdAndEstado(empresaId, EstadoContrato.ACTIVO);
-        }
 
-        YearMonth periodo = YearMonth.of(request.getAnio(), request.getMes());
-        LocalDate fechaCargo = periodo.atDay(1);
-
-        for (Contrato contrato : contratos) {
-            // Verificar si ya existe cargo de renta para este periodo
-            if (cargoRepository.findCargoByPeriodo(empresaId, contrato.getId(),
-                    request.getMes(), request.getAnio(), TipoCargo.RENTA).isEmpty()) {
-
-                int diaPago = contrato.getDiaPago() != null ? contrato.getDiaPago() : 1;
-                int ultimoDia = periodo.lengthOfMonth();
-                LocalDate fechaVencimiento = periodo.atDay(Math.min(diaPago, ultimoDia));
-
-                Cargo cargo = Cargo.builder()
-                        .empresaId(empresaId)
-                        .contrato(contrato)
-                        .tipoCargo(TipoCargo.RENTA)
-                        .concepto("Renta " + periodo.getMonth().name() + " " + request.getAnio())
-                        .montoOriginal(contrato.getMontoRenta())
-                        .montoPendiente(contrato.getMontoRenta())
-                        .fechaCargo(fechaCargo)
-                        .fechaVencimiento(fechaVencimiento)
-                        .esCargoFijo(true)
-                        .periodoMes(request.getMes())
-                        .periodoAnio(request.getAnio())
-                        .estado(EstadoCargo.PENDIENTE)
-                        .build();
-
-                cargosGenerados.add(cargoRepository.save(cargo));
-            }
+        List<Long> contratoIds = generacionCargosService.generarRentas(empresaId,
+                YearMonth.of(request.getAnio(), request.getMes()), request.getContratoId());
+        if (contratoIds.isEmpty()) {
+            return List.of();
         }
 
-        return cargosGenerados.stream()
+        return cargoRepository.findCargosByPeriodoAndContratoIdIn(empresaId, contratoIds,
+                        request.getMes(), request.getAnio(), TipoCargo.RENTA).stream()
                 .map(this::toCargoDTO)
                 .collect(Collectors.toList());
     }
 
-    public void actualizarCargosVencidos() {
-        Long empresaId = TenantContext.getCurrentTenant();
-        List<Cargo> cargosVencidos = cargoRepository.findCargosVencidos(empresaId, LocalDate.now());
+    public int actualizarCargosVencidos() {
+        return marcarCargosVencidos(TenantContext.getCurrentTenant(), LocalDate.now());
+    }
+
+    /**
+     * Pasa a VENCIDO los cargos pendientes con vencimiento anterior a la fecha, en un solo UPDATE.
+     * Si hubo cambios recalcula los saldos de la empresa y publica un {@link CargosVencidosEvent}.
+     */
+    public int marcarCargosVencidos(Long empresaId, LocalDate fecha) {
+        int cargosVencidos = cargoRepository.marcarCargosVencidos(empresaId, fecha);
 
-        for (Cargo cargo : cargosVencidos) {
-            cargo.setEstado(EstadoCargo.VENCIDO);
-            cargoRepository.save(cargo);
+        if (cargosVencidos > 0) {
+            saldoContratoService.actualizarEmpresa(empresaId);
+            eventPublisher.publishEvent(new CargosVencidosEvent(empresaId, fecha, cargosVencidos));
         }
+        return cargosVencidos;
     }
 
     // ==================== ESTADÍSTICAS ====================
@@ -383,29 +313,31 @@ public class PagoService {
         BigDecimal totalPagadoMes = pagoRepository.getTotalPagadoByPeriodo(empresaId, inicioMes, finMes);
         Long totalPagosMes = pagoRepository.countPagosByPeriodo(empresaId, inicioMes, finMes);
 
-        List<EstadoCargo> estadosPendientes = List.of(EstadoCargo.PENDIENTE, EstadoCargo.PARCIAL, EstadoCargo.VENCIDO);
-        List<Cargo> cargosPendientes = cargoRepository.findByEmpresaIdAndEstadoIn(empresaId, estadosPendientes);
-
-        BigDecimal totalPendiente = cargosPendientes.stream()
-                .map(Cargo::getMontoPendiente)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        long cargosVencidos = cargosPendientes.stream()
-                .filter(c -> c.getEstado() == EstadoCargo.VENCIDO)
-                .count();
+        SaldoContratoService.ResumenSaldos saldos = saldoContratoService.getResumen(empresaId);
 
         return PagoEstadisticas.builder()
                 .totalPagadoMes(totalPagadoMes)
                 .totalPagosMes(totalPagosMes)
-                .totalPendiente(totalPendiente)
-                .totalCargosPendientes((long) cargosPendientes.size())
-                .totalCargosVencidos(cargosVencidos)
+                .totalPendiente(saldos.saldoPendiente())
+                .totalCargosPendientes(saldos.cargosPendientes())
+                .totalCargosVencidos(saldos.cargosVencidos())
                 .build();
     }
 
     public BigDecimal getSaldoPendienteContrato(Long contratoId) {
+        return getSaldoContrato(contratoId).saldoPendiente();
+    }
+
+    public SaldoContratoService.SaldoContrato getSaldoContrato(Long contratoId) {
         Long empresaId = TenantContext.getCurrentTenant();
-        return cargoRepository.getSaldoPendienteByContrato(empresaId, contratoId);
+        return saldoContratoService.getSaldo(empresaId, contratoId);
+    }
+
+    /**
+     * Reconstruye desde cero los saldos por contrato de la empresa.
+     */
+    public int reconstruirSaldos() {
+        return saldoContratoService.reconstruir(TenantContext.getCurrentTenant());
     }
 
     // ==================== MAPPERS ====================
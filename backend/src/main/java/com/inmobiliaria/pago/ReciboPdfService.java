@@ -4,17 +4,40 @@ import com.lowagie.text.*;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.awt.Color;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
  * Servicio para generar recibos de pago en formato PDF.
+ *
+ * - Los datos llegan en un {@link ReciboView} (una consulta por recibo o por periodo).
+ * - Los elementos fijos del formato (título, encabezados, etiquetas, pie) se construyen una vez;
+ *   cada recibo agrega copias de esos prototipos y solo crea las celdas con valores.
+ * - El ZIP de un periodo se genera en un pool acotado, con una ventana de recibos en curso
+ *   para no tener todo el periodo en memoria.
  */
 @Service
 @RequiredArgsConstructor
@@ -22,235 +45,289 @@ import java.time.format.DateTimeFormatter;
 public class ReciboPdfService {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
     private static final Font TITLE_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 18, Color.DARK_GRAY);
     private static final Font HEADER_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 12, Color.WHITE);
     private static final Font LABEL_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 10, Color.DARK_GRAY);
     private static final Font VALUE_FONT = FontFactory.getFont(FontFactory.HELVETICA, 10, Color.BLACK);
     private static final Font TOTAL_FONT = FontFactory.getFont(FontFactory.HELVETICA_BOLD, 14, Color.BLACK);
+    private static final Font FOOTER_FONT = FontFactory.getFont(FontFactory.HELVETICA, 8, Color.GRAY);
+    private static final Color HEADER_BACKGROUND = new Color(51, 51, 51);
+
+    // ========== Formato precalculado ==========
+
+    private static final float[] ANCHOS_INFO = {1, 1};
+    private static final float[] ANCHOS_SECCION = {1, 2};
+    private static final float[] ANCHOS_DETALLE = {2, 1};
+
+    private static final Paragraph TITULO = crearTitulo();
+    private static final Paragraph PIE_PAGINA = crearPiePagina();
+    private static final PdfPCell ENCABEZADO_CLIENTE = crearEncabezado("DATOS DEL CLIENTE");
+    private static final PdfPCell ENCABEZADO_CONTRATO = crearEncabezado("DATOS DEL CONTRATO");
+    private static final PdfPCell ENCABEZADO_DETALLE = crearEncabezado("DETALLE DEL PAGO");
+    private static final PdfPCell ETIQUETA_TOTAL = crearCeldaTotal("TOTAL PAGADO:", Element.ALIGN_LEFT);
+    private static final Map<String, PdfPCell> ETIQUETAS = Stream.of(
+                    "Fecha de Pago:", "Fecha de Registro:", "Estado:",
+                    "Nombre:", "RFC:", "Email:", "Teléfono:",
+                    "No. Contrato:", "Propiedad:", "Vigencia:",
+                    "Concepto:", "Tipo de Pago:", "Referencia:", "Banco:")
+            .collect(Collectors.toUnmodifiableMap(Function.identity(),
+                    etiqueta -> crearCelda(etiqueta, LABEL_FONT, Element.ALIGN_LEFT)));
+
+    @Value("${app.recibos.zip.workers:4}")
+    private int workers;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        // Pool propio (no se expone como bean para no reemplazar el executor por defecto de Spring)
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setThreadNamePrefix("recibo-pdf-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // ========== API ==========
 
     /**
      * Genera un recibo de pago en formato PDF.
      */
-    public byte[] generarReciboPdf(Pago pago) {
+    public byte[] generarReciboPdf(ReciboView recibo) {
         try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
             Document document = new Document(PageSize.LETTER);
             PdfWriter.getInstance(document, out);
 
             document.open();
 
-            // Título
-            Paragraph titulo = new Paragraph("RECIBO DE PAGO", TITLE_FONT);
-            titulo.setAlignment(Element.ALIGN_CENTER);
-            titulo.setSpacingAfter(20);
-            document.add(titulo);
+            document.add(new Paragraph(TITULO));
 
             // Número de recibo
-            Paragraph numeroRecibo = new Paragraph("No. " + pago.getNumeroRecibo(), TOTAL_FONT);
+            Paragraph numeroRecibo = new Paragraph("No. " + recibo.numeroRecibo(), TOTAL_FONT);
             numeroRecibo.setAlignment(Element.ALIGN_CENTER);
             numeroRecibo.setSpacingAfter(30);
             document.add(numeroRecibo);
 
-            // Información del recibo
-            document.add(crearTablaInfoRecibo(pago));
-            document.add(new Paragraph(" "));
-
-            // Información del cliente
-            document.add(crearSeccionCliente(pago));
-            document.add(new Paragraph(" "));
-
-            // Información del contrato/propiedad
-            document.add(crearSeccionContrato(pago));
-            document.add(new Paragraph(" "));
-
-            // Detalle del pago
-            document.add(crearTablaDetallePago(pago));
-            document.add(new Paragraph(" "));
-
-            // Total
-            document.add(crearSeccionTotal(pago));
-            document.add(new Paragraph(" "));
-            document.add(new Paragraph(" "));
-
-            // Pie de página
-            document.add(crearPiePagina());
+            document.add(crearTablaInfoRecibo(recibo));
+            document.add(espacio());
+            document.add(crearSeccionCliente(recibo));
+            document.add(espacio());
+            document.add(crearSeccionContrato(recibo));
+            document.add(espacio());
+            document.add(crearTablaDetallePago(recibo));
+            document.add(espacio());
+            document.add(crearSeccionTotal(recibo));
+            document.add(espacio());
+            document.add(espacio());
+            document.add(new Paragraph(PIE_PAGINA));
 
             document.close();
 
             return out.toByteArray();
         } catch (Exception e) {
-            log.error("Error generando recibo PDF: {}", e.getMessage());
+            log.error("Error generando recibo PDF {}: {}", recibo.numeroRecibo(), e.getMessage());
             throw new RuntimeException("Error generando recibo PDF", e);
         }
     }
 
-    private PdfPTable crearTablaInfoRecibo(Pago pago) throws DocumentException {
-        PdfPTable table = new PdfPTable(2);
-        table.setWidthPercentage(100);
-        table.setWidths(new float[]{1, 1});
-
-        addCell(table, "Fecha de Pago:", LABEL_FONT, Element.ALIGN_LEFT, false);
-        addCell(table, pago.getFechaPago().format(DATE_FORMATTER), VALUE_FONT, Element.ALIGN_LEFT, false);
-
-        addCell(table, "Fecha de Registro:", LABEL_FONT, Element.ALIGN_LEFT, false);
-        addCell(table, pago.getCreatedAt() != null ? pago.getCreatedAt().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm")) : "", VALUE_FONT, Element.ALIGN_LEFT, false);
+    /**
+     * Escribe un ZIP con el PDF de cada recibo, en el orden recibido. Los recibos se generan en
+     * paralelo en el pool del servicio, con a lo más dos por worker pendientes de escribir.
+     */
+    public void escribirRecibosZip(List<ReciboView> recibos, OutputStream out) throws IOException {
+        int ventana = Math.max(1, workers * 2);
+        Deque<Future<byte[]>> enCurso = new ArrayDeque<>(ventana);
+        int siguiente = 0;
+        int escritos = 0;
+
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            while (escritos < recibos.size()) {
+                while (siguiente < recibos.size() && enCurso.size() < ventana) {
+                    ReciboView recibo = recibos.get(siguiente++);
+                    enCurso.add(executor.submit(() -> generarReciboPdf(recibo)));
+                }
+
+                ReciboView recibo = recibos.get(escritos++);
+                byte[] pdf = esperar(enCurso.poll());
+                zip.putNextEntry(new ZipEntry(nombreArchivo(recibo)));
+                zip.write(pdf);
+                zip.closeEntry();
+            }
+        } finally {
+            // Si el cliente cortó la descarga o un recibo falló, no se generan los pendientes
+            enCurso.forEach(future -> future.cancel(true));
+        }
+        log.info("ZIP de recibos generado: {} recibos", escritos);
+    }
 
-        addCell(table, "Estado:", LABEL_FONT, Element.ALIGN_LEFT, false);
-        addCell(table, pago.getEstado() != null ? pago.getEstado().name() : "", VALUE_FONT, Element.ALIGN_LEFT, false);
+    public static String nombreArchivo(ReciboView recibo) {
+        String numero = recibo.numeroRecibo() != null ? recibo.numeroRecibo() : "pago_" + recibo.pagoId();
+        return "recibo_" + numero + ".pdf";
+    }
 
-        return table;
+    private static byte[] esperar(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Generación de recibos interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error generando recibo PDF", e.getCause());
+        }
     }
 
-    private PdfPTable crearSeccionCliente(Pago pago) throws DocumentException {
-        PdfPTable table = new PdfPTable(1);
+    // ========== Secciones ==========
+
+    private PdfPTable crearTablaInfoRecibo(ReciboView recibo) throws DocumentException {
+        PdfPTable table = new PdfPTable(2);
         table.setWidthPercentage(100);
+        table.setWidths(ANCHOS_INFO);
 
-        // Header
-        PdfPCell headerCell = new PdfPCell(new Phrase("DATOS DEL CLIENTE", HEADER_FONT));
-        headerCell.setBackgroundColor(new Color(51, 51, 51));
-        headerCell.setPadding(8);
-        table.addCell(headerCell);
+        addFila(table, "Fecha de Pago:", recibo.fechaPago().format(DATE_FORMATTER), Element.ALIGN_LEFT);
+        addFila(table, "Fecha de Registro:",
+                recibo.fechaRegistro() != null ? recibo.fechaRegistro().format(DATE_TIME_FORMATTER) : "", Element.ALIGN_LEFT);
+        addFila(table, "Estado:", recibo.estado() != null ? recibo.estado().name() : "", Element.ALIGN_LEFT);
 
-        // Contenido
+        return table;
+    }
+
+    private PdfPTable crearSeccionCliente(ReciboView recibo) throws DocumentException {
         PdfPTable contentTable = new PdfPTable(2);
         contentTable.setWidthPercentage(100);
-        contentTable.setWidths(new float[]{1, 2});
+        contentTable.setWidths(ANCHOS_SECCION);
 
-        if (pago.getPersona() != null) {
-            addCell(contentTable, "Nombre:", LABEL_FONT, Element.ALIGN_LEFT, false);
-            addCell(contentTable, pago.getPersona().getNombreCompleto(), VALUE_FONT, Element.ALIGN_LEFT, false);
+        addFila(contentTable, "Nombre:", recibo.nombreCliente(), Element.ALIGN_LEFT);
+        addFila(contentTable, "RFC:", valorOGuion(recibo.rfc()), Element.ALIGN_LEFT);
+        addFila(contentTable, "Email:", valorOGuion(recibo.email()), Element.ALIGN_LEFT);
+        addFila(contentTable, "Teléfono:", valorOGuion(recibo.telefono()), Element.ALIGN_LEFT);
 
-            addCell(contentTable, "RFC:", LABEL_FONT, Element.ALIGN_LEFT, false);
-            addCell(contentTable, pago.getPersona().getRfc() != null ? pago.getPersona().getRfc() : "-", VALUE_FONT, Element.ALIGN_LEFT, false);
+        return crearSeccion(ENCABEZADO_CLIENTE, contentTable);
+    }
 
-            addCell(contentTable, "Email:", LABEL_FONT, Element.ALIGN_LEFT, false);
-            addCell(contentTable, pago.getPersona().getEmail() != null ? pago.getPersona().getEmail() : "-", VALUE_FONT, Element.ALIGN_LEFT, false);
+    private PdfPTable crearSeccionContrato(ReciboView recibo) throws DocumentException {
+        PdfPTable contentTable = new PdfPTable(2);
+        contentTable.setWidthPercentage(100);
+        contentTable.setWidths(ANCHOS_SECCION);
+
+        addFila(contentTable, "No. Contrato:", recibo.numeroContrato(), Element.ALIGN_LEFT);
 
-            addCell(contentTable, "Teléfono:", LABEL_FONT, Element.ALIGN_LEFT, false);
-            addCell(contentTable, pago.getPersona().getTelefono() != null ? pago.getPersona().getTelefono() : "-", VALUE_FONT, Element.ALIGN_LEFT, false);
+        String direccion = recibo.direccionPropiedad();
+        if (direccion != null) {
+            addFila(contentTable, "Propiedad:", direccion, Element.ALIGN_LEFT);
         }
 
-        PdfPCell contentCell = new PdfPCell(contentTable);
-        contentCell.setPadding(10);
-        table.addCell(contentCell);
+        String vigencia = recibo.fechaInicioContrato().format(DATE_FORMATTER) +
+                " - " + recibo.fechaFinContrato().format(DATE_FORMATTER);
+        addFila(contentTable, "Vigencia:", vigencia, Element.ALIGN_LEFT);
 
-        return table;
+        return crearSeccion(ENCABEZADO_CONTRATO, contentTable);
     }
 
-    private PdfPTable crearSeccionContrato(Pago pago) throws DocumentException {
-        PdfPTable table = new PdfPTable(1);
-        table.setWidthPercentage(100);
-
-        // Header
-        PdfPCell headerCell = new PdfPCell(new Phrase("DATOS DEL CONTRATO", HEADER_FONT));
-        headerCell.setBackgroundColor(new Color(51, 51, 51));
-        headerCell.setPadding(8);
-        table.addCell(headerCell);
-
-        // Contenido
+    private PdfPTable crearTablaDetallePago(ReciboView recibo) throws DocumentException {
         PdfPTable contentTable = new PdfPTable(2);
         contentTable.setWidthPercentage(100);
-        contentTable.setWidths(new float[]{1, 2});
+        contentTable.setWidths(ANCHOS_DETALLE);
 
-        if (pago.getContrato() != null) {
-            addCell(contentTable, "No. Contrato:", LABEL_FONT, Element.ALIGN_LEFT, false);
-            addCell(contentTable, pago.getContrato().getNumeroContrato(), VALUE_FONT, Element.ALIGN_LEFT, false);
+        addFila(contentTable, "Concepto:", "Pago de arrendamiento", Element.ALIGN_RIGHT);
+        addFila(contentTable, "Tipo de Pago:",
+                recibo.tipoPago() != null ? formatTipoPago(recibo.tipoPago()) : "-", Element.ALIGN_RIGHT);
 
-            if (pago.getContrato().getPropiedad() != null) {
-                addCell(contentTable, "Propiedad:", LABEL_FONT, Element.ALIGN_LEFT, false);
-                addCell(contentTable, pago.getContrato().getPropiedad().getDireccionCompleta(), VALUE_FONT, Element.ALIGN_LEFT, false);
-            }
+        if (recibo.referencia() != null && !recibo.referencia().isEmpty()) {
+            addFila(contentTable, "Referencia:", recibo.referencia(), Element.ALIGN_RIGHT);
+        }
 
-            addCell(contentTable, "Vigencia:", LABEL_FONT, Element.ALIGN_LEFT, false);
-            String vigencia = pago.getContrato().getFechaInicio().format(DATE_FORMATTER) +
-                    " - " + pago.getContrato().getFechaFin().format(DATE_FORMATTER);
-            addCell(contentTable, vigencia, VALUE_FONT, Element.ALIGN_LEFT, false);
+        if (recibo.banco() != null && !recibo.banco().isEmpty()) {
+            addFila(contentTable, "Banco:", recibo.banco(), Element.ALIGN_RIGHT);
         }
 
-        PdfPCell contentCell = new PdfPCell(contentTable);
-        contentCell.setPadding(10);
-        table.addCell(contentCell);
+        return crearSeccion(ENCABEZADO_DETALLE, contentTable);
+    }
+
+    private PdfPTable crearSeccionTotal(ReciboView recibo) throws DocumentException {
+        PdfPTable table = new PdfPTable(2);
+        table.setWidthPercentage(50);
+        table.setHorizontalAlignment(Element.ALIGN_RIGHT);
+        table.setWidths(ANCHOS_INFO);
+
+        table.addCell(new PdfPCell(ETIQUETA_TOTAL));
+        table.addCell(crearCeldaTotal(formatMoney(recibo.monto()), Element.ALIGN_RIGHT));
 
         return table;
     }
 
-    private PdfPTable crearTablaDetallePago(Pago pago) throws DocumentException {
+    private PdfPTable crearSeccion(PdfPCell encabezado, PdfPTable contenido) {
         PdfPTable table = new PdfPTable(1);
         table.setWidthPercentage(100);
+        table.addCell(new PdfPCell(encabezado));
 
-        // Header
-        PdfPCell headerCell = new PdfPCell(new Phrase("DETALLE DEL PAGO", HEADER_FONT));
-        headerCell.setBackgroundColor(new Color(51, 51, 51));
-        headerCell.setPadding(8);
-        table.addCell(headerCell);
-
-        // Contenido
-        PdfPTable contentTable = new PdfPTable(2);
-        contentTable.setWidthPercentage(100);
-        contentTable.setWidths(new float[]{2, 1});
-
-        addCell(contentTable, "Concepto:", LABEL_FONT, Element.ALIGN_LEFT, false);
-        addCell(contentTable, "Pago de arrendamiento", VALUE_FONT, Element.ALIGN_RIGHT, false);
-
-        addCell(contentTable, "Tipo de Pago:", LABEL_FONT, Element.ALIGN_LEFT, false);
-        addCell(contentTable, pago.getTipoPago() != null ? formatTipoPago(pago.getTipoPago()) : "-", VALUE_FONT, Element.ALIGN_RIGHT, false);
-
-        if (pago.getReferencia() != null && !pago.getReferencia().isEmpty()) {
-            addCell(contentTable, "Referencia:", LABEL_FONT, Element.ALIGN_LEFT, false);
-            addCell(contentTable, pago.getReferencia(), VALUE_FONT, Element.ALIGN_RIGHT, false);
-        }
-
-        if (pago.getBanco() != null && !pago.getBanco().isEmpty()) {
-            addCell(contentTable, "Banco:", LABEL_FONT, Element.ALIGN_LEFT, false);
-            addCell(contentTable, pago.getBanco(), VALUE_FONT, Element.ALIGN_RIGHT, false);
-        }
-
-        PdfPCell contentCell = new PdfPCell(contentTable);
+        PdfPCell contentCell = new PdfPCell(contenido);
         contentCell.setPadding(10);
         table.addCell(contentCell);
 
         return table;
     }
 
-    private PdfPTable crearSeccionTotal(Pago pago) throws DocumentException {
-        PdfPTable table = new PdfPTable(2);
-        table.setWidthPercentage(50);
-        table.setHorizontalAlignment(Element.ALIGN_RIGHT);
-        table.setWidths(new float[]{1, 1});
-
-        // Monto
-        PdfPCell labelCell = new PdfPCell(new Phrase("TOTAL PAGADO:", TOTAL_FONT));
-        labelCell.setBorder(Rectangle.TOP);
-        labelCell.setBorderWidth(2);
-        labelCell.setPaddingTop(10);
-        labelCell.setHorizontalAlignment(Element.ALIGN_LEFT);
-        table.addCell(labelCell);
-
-        PdfPCell valueCell = new PdfPCell(new Phrase(formatMoney(pago.getMonto()), TOTAL_FONT));
-        valueCell.setBorder(Rectangle.TOP);
-        valueCell.setBorderWidth(2);
-        valueCell.setPaddingTop(10);
-        valueCell.setHorizontalAlignment(Element.ALIGN_RIGHT);
-        table.addCell(valueCell);
+    private void addFila(PdfPTable table, String etiqueta, String valor, int alineacionValor) {
+        table.addCell(new PdfPCell(ETIQUETAS.get(etiqueta)));
+        table.addCell(crearCelda(valor, VALUE_FONT, alineacionValor));
+    }
 
-        return table;
+    private static Paragraph espacio() {
+        return new Paragraph(" ");
     }
 
-    private Paragraph crearPiePagina() {
-        Font footerFont = FontFactory.getFont(FontFactory.HELVETICA, 8, Color.GRAY);
+    // ========== Prototipos ==========
+
+    private static Paragraph crearTitulo() {
+        Paragraph titulo = new Paragraph("RECIBO DE PAGO", TITLE_FONT);
+        titulo.setAlignment(Element.ALIGN_CENTER);
+        titulo.setSpacingAfter(20);
+        return titulo;
+    }
+
+    private static Paragraph crearPiePagina() {
         Paragraph footer = new Paragraph();
         footer.setAlignment(Element.ALIGN_CENTER);
-        footer.add(new Chunk("Este recibo es un comprobante de pago.", footerFont));
+        footer.add(new Chunk("Este recibo es un comprobante de pago.", FOOTER_FONT));
         footer.add(Chunk.NEWLINE);
-        footer.add(new Chunk("Conserve este documento para cualquier aclaración.", footerFont));
+        footer.add(new Chunk("Conserve este documento para cualquier aclaración.", FOOTER_FONT));
         return footer;
     }
 
-    private void addCell(PdfPTable table, String text, Font font, int alignment, boolean border) {
+    private static PdfPCell crearEncabezado(String texto) {
+        PdfPCell headerCell = new PdfPCell(new Phrase(texto, HEADER_FONT));
+        headerCell.setBackgroundColor(HEADER_BACKGROUND);
+        headerCell.setPadding(8);
+        return headerCell;
+    }
+
+    private static PdfPCell crearCeldaTotal(String texto, int alineacion) {
+        PdfPCell cell = new PdfPCell(new Phrase(texto, TOTAL_FONT));
+        cell.setBorder(Rectangle.TOP);
+        cell.setBorderWidth(2);
+        cell.setPaddingTop(10);
+        cell.setHorizontalAlignment(alineacion);
+        return cell;
+    }
+
+    private static PdfPCell crearCelda(String text, Font font, int alignment) {
         PdfPCell cell = new PdfPCell(new Phrase(text, font));
         cell.setHorizontalAlignment(alignment);
-        cell.setBorder(border ? Rectangle.BOX : Rectangle.NO_BORDER);
+        cell.setBorder(Rectangle.NO_BORDER);
         cell.setPadding(5);
-        table.addCell(cell);
+        return cell;
+    }
+
+    // ========== Formato ==========
+
+    private static String valorOGuion(String valor) {
+        return valor != null ? valor : "-";
     }
 
     private String formatMoney(BigDecimal amount) {
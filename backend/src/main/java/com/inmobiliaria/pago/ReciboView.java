@@ -0,0 +1,59 @@
+package com.inmobiliaria.pago;
+
+import com.inmobiliaria.persona.TipoPersona;
+import com.inmobiliaria.shared.FormatoTexto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Datos de un recibo de pago leídos en una sola consulta (pago, cliente, contrato y propiedad),
+ * para generar el PDF sin cargar las asociaciones lazy de {@link Pago}.
+ */
+public record ReciboView(
+        Long pagoId,
+        String numeroRecibo,
+        LocalDate fechaPago,
+        LocalDateTime fechaRegistro,
+        EstadoPago estado,
+        TipoPago tipoPago,
+        String referencia,
+        String banco,
+        BigDecimal monto,
+        TipoPersona tipoPersona,
+        String nombre,
+        String apellidoPaterno,
+        String apellidoMaterno,
+        String razonSocial,
+        String rfc,
+        String email,
+        String telefono,
+        String numeroContrato,
+        LocalDate fechaInicioContrato,
+        LocalDate fechaFinContrato,
+        String calle,
+        String numeroExterior,
+        String numeroInterior,
+        String colonia,
+        String municipio,
+        String estadoPropiedad,
+        String codigoPostal
+) {
+
+    public String nombreCliente() {
+        return FormatoTexto.nombreCompleto(tipoPersona == TipoPersona.MORAL, razonSocial, nombre,
+                apellidoPaterno, apellidoMaterno);
+    }
+
+    /**
+     * Null si el contrato no tiene propiedad.
+     */
+    public String direccionPropiedad() {
+        if (calle == null) {
+            return null;
+        }
+        return FormatoTexto.direccionCompleta(calle, numeroExterior, numeroInterior, colonia, municipio,
+                estadoPropiedad, codigoPostal);
+    }
+}
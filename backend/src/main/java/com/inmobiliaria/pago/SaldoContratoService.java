@@ -0,0 +1,183 @@
+package com.inmobiliaria.pago;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Saldos precalculados por contrato (tabla saldo_contrato): pendiente, vencido, pagado y
+ * fecha del último pago.
+ *
+ * - Quien modifica cargos o pagos llama a {@link #actualizar} dentro de su transacción; el saldo
+ *   se recalcula con una agregación sobre los cargos del contrato, así que no acumula errores.
+ * - La fila del contrato se bloquea antes de recalcular: dos transacciones sobre el mismo
+ *   contrato se serializan y la segunda ya ve los cambios de la primera.
+ * - {@link #reconstruir} regenera los saldos de la empresa desde cero.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SaldoContratoService {
+
+    // Crea las filas que falten y bloquea las existentes (ON CONFLICT DO UPDATE toma el lock de la fila)
+    private static final String BLOQUEAR_SQL =
+            "INSERT INTO saldo_contrato (contrato_id, empresa_id) " +
+            "SELECT id, empresa_id FROM contratos WHERE empresa_id = ? %s ORDER BY id " +
+            "ON CONFLICT (contrato_id) DO UPDATE SET updated_at = saldo_contrato.updated_at";
+
+    private static final String RECALCULAR_SQL =
+            "UPDATE saldo_contrato s SET total_cargos = a.total_cargos, total_pagado = a.total_pagado, " +
+            "saldo_pendiente = a.saldo_pendiente, saldo_vencido = a.saldo_vencido, " +
+            "cargos_pendientes = a.cargos_pendientes, cargos_vencidos = a.cargos_vencidos, " +
+            "fecha_ultimo_pago = (SELECT MAX(p.fecha_pago) FROM pagos p " +
+            "WHERE p.contrato_id = s.contrato_id AND p.estado <> 'CANCELADO'), " +
+            "updated_at = CURRENT_TIMESTAMP " +
+            "FROM (SELECT sc.contrato_id, " +
+            "COALESCE(SUM(c.monto_original), 0) AS total_cargos, " +
+            "COALESCE(SUM(c.monto_pagado), 0) AS total_pagado, " +
+            "COALESCE(SUM(c.monto_pendiente) FILTER (WHERE c.estado IN ('PENDIENTE', 'PARCIAL', 'VENCIDO')), 0) AS saldo_pendiente, " +
+            "COALESCE(SUM(c.monto_pendiente) FILTER (WHERE c.estado = 'VENCIDO'), 0) AS saldo_vencido, " +
+            "COUNT(c.id) FILTER (WHERE c.estado IN ('PENDIENTE', 'PARCIAL', 'VENCIDO')) AS cargos_pendientes, " +
+            "COUNT(c.id) FILTER (WHERE c.estado = 'VENCIDO') AS cargos_vencidos " +
+            "FROM saldo_contrato sc LEFT JOIN cargos c ON c.contrato_id = sc.contrato_id AND c.estado <> 'CANCELADO' " +
+            "WHERE sc.empresa_id = ? %s GROUP BY sc.contrato_id) a " +
+            "WHERE s.contrato_id = a.contrato_id";
+
+    private static final String SALDO_SQL =
+            "SELECT contrato_id, total_cargos, total_pagado, saldo_pendiente, saldo_vencido, " +
+            "cargos_pendientes, cargos_vencidos, fecha_ultimo_pago FROM saldo_contrato " +
+            "WHERE empresa_id = ? AND contrato_id = ?";
+
+    private static final String RESUMEN_SQL =
+            "SELECT COALESCE(SUM(saldo_pendiente), 0) AS saldo_pendiente, " +
+            "COALESCE(SUM(saldo_vencido), 0) AS saldo_vencido, " +
+            "COALESCE(SUM(cargos_pendientes), 0) AS cargos_pendientes, " +
+            "COALESCE(SUM(cargos_vencidos), 0) AS cargos_vencidos " +
+            "FROM saldo_contrato WHERE empresa_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    // ========== MANTENIMIENTO ==========
+
+    /**
+     * Recalcula el saldo de los contratos indicados. Debe llamarse en la transacción que
+     * modificó sus cargos o pagos.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void actualizar(Long empresaId, Collection<Long> contratoIds) {
+        List<Long> ids = contratoIds.stream().distinct().sorted().toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(", "));
+
+        List<Object> parametros = new ArrayList<>(ids.size() + 1);
+        parametros.add(empresaId);
+        parametros.addAll(ids);
+
+        recalcular("AND id IN (" + placeholders + ")", "AND sc.contrato_id IN (" + placeholders + ")",
+                parametros.toArray());
+    }
+
+    /**
+     * Recalcula el saldo de todos los contratos de la empresa (p. ej. después de marcar
+     * cargos vencidos en bloque).
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void actualizarEmpresa(Long empresaId) {
+        recalcular("", "", empresaId);
+    }
+
+    /**
+     * Descarta los saldos de la empresa y los vuelve a calcular desde cargos y pagos.
+     *
+     * @return contratos recalculados
+     */
+    @Transactional
+    public int reconstruir(Long empresaId) {
+        jdbcTemplate.update("DELETE FROM saldo_contrato WHERE empresa_id = ?", empresaId);
+        int contratos = recalcular("", "", empresaId);
+        log.info("Saldos de contratos reconstruidos para empresa {}: {} contratos", empresaId, contratos);
+        return contratos;
+    }
+
+    private int recalcular(String filtroContratos, String filtroSaldos, Object... parametros) {
+        // Los cambios hechos con JPA en esta transacción deben llegar a la base antes de agregar
+        entityManager.flush();
+        jdbcTemplate.update(BLOQUEAR_SQL.formatted(filtroContratos), parametros);
+        return jdbcTemplate.update(RECALCULAR_SQL.formatted(filtroSaldos), parametros);
+    }
+
+    // ========== CONSULTAS ==========
+
+    /**
+     * Saldo del contrato; en ceros si el contrato aún no tiene cargos ni pagos registrados.
+     */
+    @Transactional(readOnly = true)
+    public SaldoContrato getSaldo(Long empresaId, Long contratoId) {
+        return jdbcTemplate.query(SALDO_SQL, (rs, rowNum) -> {
+                    Date fechaUltimoPago = rs.getDate("fecha_ultimo_pago");
+                    return new SaldoContrato(
+                            rs.getLong("contrato_id"),
+                            rs.getBigDecimal("total_cargos"),
+                            rs.getBigDecimal("total_pagado"),
+                            rs.getBigDecimal("saldo_pendiente"),
+                            rs.getBigDecimal("saldo_vencido"),
+                            rs.getInt("cargos_pendientes"),
+                            rs.getInt("cargos_vencidos"),
+                            fechaUltimoPago != null ? fechaUltimoPago.toLocalDate() : null);
+                }, empresaId, contratoId).stream()
+                .findFirst()
+                .orElseGet(() -> SaldoContrato.vacio(contratoId));
+    }
+
+    /**
+     * Totales de la empresa sumando los saldos de sus contratos.
+     */
+    @Transactional(readOnly = true)
+    public ResumenSaldos getResumen(Long empresaId) {
+        return jdbcTemplate.queryForObject(RESUMEN_SQL, (rs, rowNum) -> new ResumenSaldos(
+                rs.getBigDecimal("saldo_pendiente"),
+                rs.getBigDecimal("saldo_vencido"),
+                rs.getLong("cargos_pendientes"),
+                rs.getLong("cargos_vencidos")), empresaId);
+    }
+
+    // ========== Tipos ==========
+
+    public record SaldoContrato(
+            Long contratoId,
+            BigDecimal totalCargos,
+            BigDecimal totalPagado,
+            BigDecimal saldoPendiente,
+            BigDecimal saldoVencido,
+            int cargosPendientes,
+            int cargosVencidos,
+            LocalDate fechaUltimoPago
+    ) {
+        static SaldoContrato vacio(Long contratoId) {
+            return new SaldoContrato(contratoId, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
+                    BigDecimal.ZERO, 0, 0, null);
+        }
+    }
+
+    public record ResumenSaldos(
+            BigDecimal saldoPendiente,
+            BigDecimal saldoVencido,
+            long cargosPendientes,
+            long cargosVencidos
+    ) {}
+}
@@ -0,0 +1,54 @@
+package com.inmobiliaria.pago.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+public class ImportacionPagosDTO {
+    private int totalLineas;
+    private int importados;
+    private int duplicados;
+    private int sinCoincidencia;
+    private int conError;
+    private BigDecimal montoImportado;
+    private long duracionMs;
+    private List<ResultadoLinea> lineas;
+
+    public enum EstadoLinea {
+        IMPORTADO,
+        DUPLICADO,
+        SIN_COINCIDENCIA,
+        INVALIDA,
+        ERROR
+    }
+
+    /**
+     * Coincidencia usada para asignar la línea a un contrato.
+     */
+    public enum TipoCoincidencia {
+        REFERENCIA,
+        MONTO
+    }
+
+    @Data
+    @Builder
+    public static class ResultadoLinea {
+        private int linea;
+        private EstadoLinea estado;
+        private LocalDate fecha;
+        private BigDecimal monto;
+        private String referencia;
+        private TipoCoincidencia coincidencia;
+        private Long contratoId;
+        private String numeroContrato;
+        private Long pagoId;
+        private String numeroRecibo;
+        private BigDecimal montoAplicado;
+        private String mensaje;
+    }
+}
@@ -0,0 +1,10 @@
+package com.inmobiliaria.pago.eventos;
+
+import java.time.LocalDate;
+
+/**
+ * Evento publicado una vez por empresa cuando cargos pendientes pasan a VENCIDO.
+ * Agrupa todos los cargos de la ejecución en lugar de un evento por cargo.
+ */
+public record CargosVencidosEvent(Long empresaId, LocalDate fechaCorte, int cargosVencidos) {
+}
@@ -0,0 +1,10 @@
+package com.inmobiliaria.pago.eventos;
+
+import java.util.List;
+
+/**
+ * Evento publicado cuando un pago se aplica a cargos (alta con aplicación, aplicación manual
+ * o importación). Lleva los cargos cuyo saldo cambió para que cobranza actualice solo esos.
+ */
+public record PagoAplicadoEvent(Long empresaId, Long pagoId, List<Long> cargoIds) {
+}
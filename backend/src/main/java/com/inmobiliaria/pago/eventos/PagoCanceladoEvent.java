@@ -0,0 +1,10 @@
+package com.inmobiliaria.pago.eventos;
+
+import java.util.List;
+
+/**
+ * Evento publicado al cancelar un pago. cargoIds son los cargos cuyas aplicaciones
+ * se revirtieron (vacío si el pago no estaba aplicado).
+ */
+public record PagoCanceladoEvent(Long empresaId, Long pagoId, List<Long> cargoIds) {
+}
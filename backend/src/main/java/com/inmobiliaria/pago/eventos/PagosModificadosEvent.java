@@ -0,0 +1,9 @@
+package com.inmobiliaria.pago.eventos;
+
+/**
+ * Evento publicado cuando cambian pagos o cargos de una empresa
+ * (registro, aplicación o cancelación de pagos; alta, cancelación o vencimiento de cargos).
+ * Los módulos que mantienen información derivada de saldos lo escuchan para invalidarla.
+ */
+public record PagosModificadosEvent(Long empresaId) {
+}
@@ -0,0 +1,5 @@
+/**
+ * Eventos que publica el módulo de pagos; cobranza y reportes los escuchan.
+ */
+@org.springframework.modulith.NamedInterface("eventos")
+package com.inmobiliaria.pago.eventos;
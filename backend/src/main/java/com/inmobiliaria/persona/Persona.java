@@ -1,5 +1,6 @@
 package com.inmobiliaria.persona;
 
+import com.inmobiliaria.shared.FormatoTexto;
 import com.inmobiliaria.shared.multitenancy.TenantAware;
 import jakarta.persistence.*;
 import lombok.*;
@@ -95,13 +96,7 @@ public class Persona implements TenantAware {
     }
 
     public String getNombreCompleto() {
-        if (tipoPersona == TipoPersona.MORAL) {
-            return razonSocial;
-        }
-        StringBuilder sb = new StringBuilder();
-        if (nombre != null) sb.append(nombre);
-        if (apellidoPaterno != null) sb.append(" ").append(apellidoPaterno);
-        if (apellidoMaterno != null) sb.append(" ").append(apellidoMaterno);
-        return sb.toString().trim();
+        return FormatoTexto.nombreCompleto(tipoPersona == TipoPersona.MORAL, razonSocial, nombre,
+                apellidoPaterno, apellidoMaterno);
     }
 }
@@ -0,0 +1,22 @@
+package com.inmobiliaria.persona;
+
+import com.inmobiliaria.shared.FormatoTexto;
+
+/**
+ * Proyección ligera de Persona con los campos necesarios para armar el nombre completo.
+ * Se usa en reportes para evitar cargar la entidad completa con sus colecciones.
+ */
+public record PersonaNombreView(
+        Long id,
+        TipoPersona tipoPersona,
+        String nombre,
+        String apellidoPaterno,
+        String apellidoMaterno,
+        String razonSocial
+) {
+
+    public String getNombreCompleto() {
+        return FormatoTexto.nombreCompleto(tipoPersona == TipoPersona.MORAL, razonSocial, nombre,
+                apellidoPaterno, apellidoMaterno);
+    }
+}
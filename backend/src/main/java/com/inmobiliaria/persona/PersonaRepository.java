@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +23,10 @@ public interface PersonaRepository extends JpaRepository<Persona, Long> {
     @Query("SELECT p FROM Persona p JOIN p.roles pr WHERE p.empresaId = :empresaId AND pr.rol.id = :rolId AND p.activo = true AND pr.activo = true")
     List<Persona> findByEmpresaIdAndRol(@Param("empresaId") Long empresaId, @Param("rolId") Integer rolId);
 
+    @Query("SELECT new com.inmobiliaria.persona.PersonaNombreView(p.id, p.tipoPersona, p.nombre, p.apellidoPaterno, p.apellidoMaterno, p.razonSocial) " +
+           "FROM Persona p WHERE p.empresaId = :empresaId AND p.id IN :ids")
+    List<PersonaNombreView> findNombresByEmpresaIdAndIdIn(@Param("empresaId") Long empresaId, @Param("ids") Collection<Long> ids);
+
     boolean existsByRfcAndEmpresaId(String rfc, Long empresaId);
 
     boolean existsByEmailAndEmpresaId(String email, Long empresaId);
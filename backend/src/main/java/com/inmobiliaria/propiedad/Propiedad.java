@@ -1,6 +1,7 @@
 package com.inmobiliaria.propiedad;
 
 import com.inmobiliaria.catalogo.*;
+import com.inmobiliaria.shared.FormatoTexto;
 import com.inmobiliaria.shared.multitenancy.TenantAware;
 import jakarta.persistence.*;
 import lombok.*;
@@ -127,14 +128,10 @@ public class Propiedad implements TenantAware {
     }
 
     public String getDireccionCompleta() {
-        StringBuilder sb = new StringBuilder();
-        sb.append(calle);
-        if (numeroExterior != null) sb.append(" ").append(numeroExterior);
-        if (numeroInterior != null) sb.append(" Int. ").append(numeroInterior);
-        if (colonia != null) sb.append(", ").append(colonia.getNombre());
-        if (municipio != null) sb.append(", ").append(municipio.getNombre());
-        if (estado != null) sb.append(", ").append(estado.getNombre());
-        if (codigoPostal != null) sb.append(" C.P. ").append(codigoPostal);
-        return sb.toString();
+        return FormatoTexto.direccionCompleta(calle, numeroExterior, numeroInterior,
+                colonia != null ? colonia.getNombre() : null,
+                municipio != null ? municipio.getNombre() : null,
+                estado != null ? estado.getNombre() : null,
+                codigoPostal);
     }
 }
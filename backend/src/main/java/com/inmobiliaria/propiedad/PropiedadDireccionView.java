@@ -0,0 +1,24 @@
+package com.inmobiliaria.propiedad;
+
+import com.inmobiliaria.shared.FormatoTexto;
+
+/**
+ * Proyección ligera de Propiedad con los campos necesarios para armar la dirección completa.
+ * Los nombres de colonia, municipio y estado se resuelven en la misma consulta.
+ */
+public record PropiedadDireccionView(
+        Long id,
+        String calle,
+        String numeroExterior,
+        String numeroInterior,
+        String colonia,
+        String municipio,
+        String estado,
+        String codigoPostal
+) {
+
+    public String getDireccionCompleta() {
+        return FormatoTexto.direccionCompleta(calle, numeroExterior, numeroInterior, colonia, municipio,
+                estado, codigoPostal);
+    }
+}
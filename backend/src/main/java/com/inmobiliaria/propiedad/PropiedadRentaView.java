@@ -0,0 +1,12 @@
+package com.inmobiliaria.propiedad;
+
+import java.math.BigDecimal;
+
+/**
+ * Proyección ligera de Propiedad con su renta mensual, para resolverla en lote en los reportes.
+ */
+public record PropiedadRentaView(
+        Long id,
+        BigDecimal rentaMensual
+) {
+}
@@ -4,6 +4,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,5 +24,15 @@ public interface PropiedadRepository extends JpaRepository<Propiedad, Long> {
     @Query("SELECT p FROM Propiedad p JOIN p.propietarios pp WHERE p.empresaId = :empresaId AND pp.propietario.id = :propietarioId AND p.activo = true")
     List<Propiedad> findByEmpresaIdAndPropietarioId(@Param("empresaId") Long empresaId, @Param("propietarioId") Long propietarioId);
 
+    @Query("SELECT new com.inmobiliaria.propiedad.PropiedadDireccionView(p.id, p.calle, p.numeroExterior, p.numeroInterior, " +
+           "c.nombre, m.nombre, e.nombre, p.codigoPostal) " +
+           "FROM Propiedad p LEFT JOIN p.colonia c LEFT JOIN p.municipio m LEFT JOIN p.estado e " +
+           "WHERE p.empresaId = :empresaId AND p.id IN :ids")
+    List<PropiedadDireccionView> findDireccionesByEmpresaIdAndIdIn(@Param("empresaId") Long empresaId, @Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.inmobiliaria.propiedad.PropiedadRentaView(p.id, p.rentaMensual) " +
+           "FROM Propiedad p WHERE p.empresaId = :empresaId AND p.id IN :ids")
+    List<PropiedadRentaView> findRentasByEmpresaIdAndIdIn(@Param("empresaId") Long empresaId, @Param("ids") Collection<Long> ids);
+
     boolean existsByClaveCatastralAndEmpresaId(String claveCatastral, Long empresaId);
 }
@@ -3,7 +3,10 @@ package com.inmobiliaria.reporte.controller;
 import com.inmobiliaria.contrato.EstadoContrato;
 import com.inmobiliaria.reporte.dto.*;
 import com.inmobiliaria.reporte.service.ExportService;
+import com.inmobiliaria.reporte.service.ReporteCacheService;
+import com.inmobiliaria.reporte.service.ReporteCsvStreamService;
 import com.inmobiliaria.reporte.service.ReporteService;
+import com.inmobiliaria.shared.multitenancy.TenantContext;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
@@ -11,8 +14,8 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
@@ -24,6 +27,8 @@ public class ReporteController {
 
     private final ReporteService reporteService;
     private final ExportService exportService;
+    private final ReporteCsvStreamService reporteCsvStreamService;
+    private final ReporteCacheService reporteCacheService;
 
     // ========== ESTADO DE CUENTA (#39) ==========
 
@@ -36,12 +41,12 @@ public class ReporteController {
     }
 
     @GetMapping("/estado-cuenta/{personaId}/excel")
-    public ResponseEntity<byte[]> exportEstadoCuentaExcel(
+    public ResponseEntity<StreamingResponseBody> exportEstadoCuentaExcel(
             @PathVariable Long personaId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) throws IOException {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
         EstadoCuentaDTO estadoCuenta = reporteService.generarEstadoCuenta(personaId, fechaInicio, fechaFin);
-        byte[] excelData = exportService.exportEstadoCuentaExcel(estadoCuenta);
+        StreamingResponseBody excelData = out -> exportService.writeEstadoCuentaExcel(estadoCuenta, out);
 
         String filename = "estado_cuenta_" + personaId + "_" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + ".xlsx";
 
@@ -71,15 +76,17 @@ public class ReporteController {
 
     @GetMapping("/antiguedad-saldos")
     public ResponseEntity<AntiguedadSaldosDTO> getAntiguedadSaldos(
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaCorte) {
-        return ResponseEntity.ok(reporteService.generarAntiguedadSaldos(fechaCorte));
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaCorte,
+            @RequestParam(required = false) Integer pagina,
+            @RequestParam(required = false) Integer tamanoPagina) {
+        return ResponseEntity.ok(reporteService.generarAntiguedadSaldos(fechaCorte, pagina, tamanoPagina));
     }
 
     @GetMapping("/antiguedad-saldos/excel")
-    public ResponseEntity<byte[]> exportAntiguedadSaldosExcel(
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaCorte) throws IOException {
+    public ResponseEntity<StreamingResponseBody> exportAntiguedadSaldosExcel(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaCorte) {
         AntiguedadSaldosDTO antiguedad = reporteService.generarAntiguedadSaldos(fechaCorte);
-        byte[] excelData = exportService.exportAntiguedadSaldosExcel(antiguedad);
+        StreamingResponseBody excelData = out -> exportService.writeAntiguedadSaldosExcel(antiguedad, out);
 
         String filename = "antiguedad_saldos_" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + ".xlsx";
 
@@ -90,10 +97,10 @@ public class ReporteController {
     }
 
     @GetMapping("/antiguedad-saldos/csv")
-    public ResponseEntity<byte[]> exportAntiguedadSaldosCsv(
+    public ResponseEntity<StreamingResponseBody> exportAntiguedadSaldosCsv(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaCorte) {
-        AntiguedadSaldosDTO antiguedad = reporteService.generarAntiguedadSaldos(fechaCorte);
-        byte[] csvData = exportService.exportAntiguedadSaldosCsv(antiguedad);
+        Long empresaId = TenantContext.getCurrentTenant();
+        StreamingResponseBody csvData = out -> reporteCsvStreamService.streamAntiguedadSaldosCsv(empresaId, fechaCorte, out);
 
         String filename = "antiguedad_saldos_" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + ".csv";
 
@@ -112,10 +119,10 @@ public class ReporteController {
     }
 
     @GetMapping("/cartera-vencida/excel")
-    public ResponseEntity<byte[]> exportCarteraVencidaExcel(
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaCorte) throws IOException {
+    public ResponseEntity<StreamingResponseBody> exportCarteraVencidaExcel(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaCorte) {
         ReporteCarteraVencidaDTO cartera = reporteService.generarReporteCarteraVencida(fechaCorte);
-        byte[] excelData = exportService.exportCarteraVencidaExcel(cartera);
+        StreamingResponseBody excelData = out -> exportService.writeCarteraVencidaExcel(cartera, out);
 
         String filename = "cartera_vencida_" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + ".xlsx";
 
@@ -126,10 +133,10 @@ public class ReporteController {
     }
 
     @GetMapping("/cartera-vencida/csv")
-    public ResponseEntity<byte[]> exportCarteraVencidaCsv(
+    public ResponseEntity<StreamingResponseBody> exportCarteraVencidaCsv(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaCorte) {
-        ReporteCarteraVencidaDTO cartera = reporteService.generarReporteCarteraVencida(fechaCorte);
-        byte[] csvData = exportService.exportCarteraVencidaCsv(cartera);
+        Long empresaId = TenantContext.getCurrentTenant();
+        StreamingResponseBody csvData = out -> reporteCsvStreamService.streamCarteraVencidaCsv(empresaId, fechaCorte, out);
 
         String filename = "cartera_vencida_" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + ".csv";
 
@@ -139,6 +146,25 @@ public class ReporteController {
                 .body(csvData);
     }
 
+    // ========== PAGOS POR PERIODO ==========
+
+    @GetMapping("/pagos/csv")
+    public ResponseEntity<StreamingResponseBody> exportPagosPorPeriodoCsv(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        Long empresaId = TenantContext.getCurrentTenant();
+        StreamingResponseBody csvData = out ->
+                reporteCsvStreamService.streamPagosPorPeriodoCsv(empresaId, fechaInicio, fechaFin, out);
+
+        String filename = "pagos_" + fechaInicio.format(DateTimeFormatter.BASIC_ISO_DATE) + "_"
+                + fechaFin.format(DateTimeFormatter.BASIC_ISO_DATE) + ".csv";
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .body(csvData);
+    }
+
     // ========== PROYECCIÓN DE COBRANZA (#42) ==========
 
     @GetMapping("/proyeccion")
@@ -157,12 +183,12 @@ public class ReporteController {
     }
 
     @GetMapping("/proyeccion/excel")
-    public ResponseEntity<byte[]> exportProyeccionExcel(
+    public ResponseEntity<StreamingResponseBody> exportProyeccionExcel(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate periodoInicio,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate periodoFin,
             @RequestParam(required = false) Long propiedadId,
             @RequestParam(required = false) Long arrendatarioId,
-            @RequestParam(required = false) EstadoContrato estadoContrato) throws IOException {
+            @RequestParam(required = false) EstadoContrato estadoContrato) {
         ProyeccionCobranzaReporteDTO proyeccion;
         if (propiedadId != null || arrendatarioId != null || estadoContrato != null) {
             proyeccion = reporteService.generarReporteProyeccionConFiltros(
@@ -170,7 +196,7 @@ public class ReporteController {
         } else {
             proyeccion = reporteService.generarReporteProyeccion(periodoInicio, periodoFin);
         }
-        byte[] excelData = exportService.exportProyeccionExcel(proyeccion);
+        StreamingResponseBody excelData = out -> exportService.writeProyeccionExcel(proyeccion, out);
 
         String filename = "proyeccion_cobranza_" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + ".xlsx";
 
@@ -212,9 +238,9 @@ public class ReporteController {
     }
 
     @GetMapping("/finiquito/{contratoId}/excel")
-    public ResponseEntity<byte[]> exportFiniquitoExcel(@PathVariable Long contratoId) throws IOException {
+    public ResponseEntity<StreamingResponseBody> exportFiniquitoExcel(@PathVariable Long contratoId) {
         FiniquitoDTO finiquito = reporteService.generarFiniquito(contratoId);
-        byte[] excelData = exportService.exportFiniquitoExcel(finiquito);
+        StreamingResponseBody excelData = out -> exportService.writeFiniquitoExcel(finiquito, out);
 
         String filename = "finiquito_" + finiquito.getNumeroContrato() + "_" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + ".xlsx";
 
@@ -248,12 +274,12 @@ public class ReporteController {
     }
 
     @GetMapping("/estado-cuenta-mensual/{personaId}/excel")
-    public ResponseEntity<byte[]> exportEstadoCuentaMensualExcel(
+    public ResponseEntity<StreamingResponseBody> exportEstadoCuentaMensualExcel(
             @PathVariable Long personaId,
             @RequestParam Integer mes,
-            @RequestParam Integer anio) throws IOException {
+            @RequestParam Integer anio) {
         EstadoCuentaMensualDTO estadoCuenta = reporteService.generarEstadoCuentaMensual(personaId, mes, anio);
-        byte[] excelData = exportService.exportEstadoCuentaMensualExcel(estadoCuenta);
+        StreamingResponseBody excelData = out -> exportService.writeEstadoCuentaMensualExcel(estadoCuenta, out);
 
         String filename = "estado_cuenta_mensual_" + personaId + "_" + anio + "_" + String.format("%02d", mes) + ".xlsx";
 
@@ -289,11 +315,11 @@ public class ReporteController {
     }
 
     @GetMapping("/mensual/excel")
-    public ResponseEntity<byte[]> exportReporteMensualExcel(
+    public ResponseEntity<StreamingResponseBody> exportReporteMensualExcel(
             @RequestParam Integer mes,
-            @RequestParam Integer anio) throws IOException {
+            @RequestParam Integer anio) {
         ReporteMensualDTO reporte = reporteService.generarReporteMensual(mes, anio);
-        byte[] excelData = exportService.exportReporteMensualExcel(reporte);
+        StreamingResponseBody excelData = out -> exportService.writeReporteMensualExcel(reporte, out);
 
         String filename = "reporte_mensual_" + anio + "_" + String.format("%02d", mes) + ".xlsx";
 
@@ -317,4 +343,12 @@ public class ReporteController {
                 .contentType(MediaType.parseMediaType("text/csv"))
                 .body(csvData);
     }
+
+    // ========== CACHE ==========
+
+    @GetMapping("/cache/estadisticas")
+    @PreAuthorize("hasRole('ADMINISTRADOR')")
+    public ResponseEntity<ReporteCacheService.EstadisticasCache> getEstadisticasCache() {
+        return ResponseEntity.ok(reporteCacheService.getEstadisticas());
+    }
 }
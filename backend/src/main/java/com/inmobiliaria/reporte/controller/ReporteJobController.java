@@ -0,0 +1,49 @@
+package com.inmobiliaria.reporte.controller;
+
+import com.inmobiliaria.reporte.domain.EstadoReporteJob;
+import com.inmobiliaria.reporte.dto.ReporteJobDTO;
+import com.inmobiliaria.reporte.dto.ReporteJobRequest;
+import com.inmobiliaria.reporte.service.ReporteJobService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/reportes/jobs")
+@RequiredArgsConstructor
+@PreAuthorize("hasAnyRole('ADMINISTRADOR', 'AGENTE')")
+public class ReporteJobController {
+
+    private final ReporteJobService reporteJobService;
+
+    @PostMapping
+    public ResponseEntity<ReporteJobDTO> enviar(@Valid @RequestBody ReporteJobRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reporteJobService.enviar(request));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ReporteJobDTO> getJob(@PathVariable String id) {
+        return ResponseEntity.ok(reporteJobService.getJob(id));
+    }
+
+    @GetMapping("/{id}/descarga")
+    public ResponseEntity<Resource> descargar(@PathVariable String id) {
+        ReporteJobDTO job = reporteJobService.getJob(id);
+        if (job.getEstado() != EstadoReporteJob.COMPLETADO) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
+        Resource resource = reporteJobService.loadResultado(id);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + job.getNombreArchivo())
+                .contentType(MediaType.parseMediaType(job.getFormato().getContentType()))
+                .body(resource);
+    }
+}
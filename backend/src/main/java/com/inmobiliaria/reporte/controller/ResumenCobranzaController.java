@@ -0,0 +1,29 @@
+package com.inmobiliaria.reporte.controller;
+
+import com.inmobiliaria.cobranza.ResumenCobranzaDTO;
+import com.inmobiliaria.reporte.service.ReporteService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Resumen del dashboard de cobranza. Vive en el módulo de reportes para usar su cache
+ * sin que cobranza dependa de reporte; el cálculo lo hace {@link com.inmobiliaria.cobranza.ResumenCobranzaService},
+ * parte de la API de cobranza.
+ */
+@RestController
+@RequestMapping("/api/cobranza")
+@RequiredArgsConstructor
+@PreAuthorize("hasAnyRole('ADMINISTRADOR', 'AGENTE')")
+public class ResumenCobranzaController {
+
+    private final ReporteService reporteService;
+
+    @GetMapping("/resumen")
+    public ResponseEntity<ResumenCobranzaDTO> getResumenCobranza() {
+        return ResponseEntity.ok(reporteService.getResumenCobranza());
+    }
+}
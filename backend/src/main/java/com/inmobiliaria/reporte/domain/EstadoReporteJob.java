@@ -0,0 +1,8 @@
+package com.inmobiliaria.reporte.domain;
+
+public enum EstadoReporteJob {
+    PENDIENTE,
+    EN_PROCESO,
+    COMPLETADO,
+    FALLIDO
+}
@@ -0,0 +1,14 @@
+package com.inmobiliaria.reporte.domain;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum FormatoReporte {
+    EXCEL(".xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+    CSV(".csv", "text/csv");
+
+    private final String extension;
+    private final String contentType;
+}
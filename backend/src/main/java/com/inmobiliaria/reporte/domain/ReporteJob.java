@@ -0,0 +1,31 @@
+package com.inmobiliaria.reporte.domain;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trabajo de generación de reporte en segundo plano, tal como está en la tabla reporte_jobs.
+ * El resultado se guarda en el directorio compartido de trabajos hasta que expira.
+ */
+@Getter
+@Builder
+public class ReporteJob {
+
+    private final String id;
+    private final Long empresaId;
+    private final TipoReporteJob tipo;
+    private final FormatoReporte formato;
+    /** Solicitud original en JSON */
+    private final String parametros;
+    private final EstadoReporteJob estado;
+    private final LocalDateTime fechaCreacion;
+    private final LocalDateTime fechaInicio;
+    private final LocalDateTime fechaFin;
+    private final LocalDateTime fechaExpiracion;
+    /** Nombre del archivo dentro del directorio de trabajos */
+    private final String archivo;
+    private final String nombreArchivo;
+    private final String errorMensaje;
+}
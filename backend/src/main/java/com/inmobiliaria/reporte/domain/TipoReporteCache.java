@@ -0,0 +1,7 @@
+package com.inmobiliaria.reporte.domain;
+
+public enum TipoReporteCache {
+    ANTIGUEDAD_SALDOS,
+    CARTERA_VENCIDA,
+    RESUMEN_COBRANZA
+}
@@ -0,0 +1,12 @@
+package com.inmobiliaria.reporte.domain;
+
+public enum TipoReporteJob {
+    ESTADO_CUENTA,
+    ESTADO_CUENTA_MENSUAL,
+    ANTIGUEDAD_SALDOS,
+    CARTERA_VENCIDA,
+    PROYECCION,
+    FINIQUITO,
+    REPORTE_MENSUAL,
+    PAGOS
+}
@@ -5,10 +5,12 @@ import lombok.Data;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class AntiguedadSaldosDTO {
     // Información general
     private Long empresaId;
@@ -33,6 +35,22 @@ public class AntiguedadSaldosDTO {
     private BigDecimal porcentajeVigente;
     private BigDecimal porcentajeVencido;
 
+    // Paginación del detalle (nulos cuando se devuelve completo)
+    private Integer pagina;
+    private Integer tamanoPagina;
+    private Integer totalPaginas;
+
     // Detalle por cliente
     private List<AntiguedadSaldosItemDTO> detalle;
+
+    /**
+     * Copia independiente (incluido el detalle) para no compartir la instancia guardada en el cache.
+     */
+    public AntiguedadSaldosDTO copia() {
+        return toBuilder()
+                .detalle(detalle != null
+                        ? detalle.stream().map(item -> item.toBuilder().build()).collect(Collectors.toCollection(ArrayList::new))
+                        : null)
+                .build();
+    }
 }
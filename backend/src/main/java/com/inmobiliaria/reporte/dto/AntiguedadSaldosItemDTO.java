@@ -6,7 +6,7 @@ import lombok.Data;
 import java.math.BigDecimal;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class AntiguedadSaldosItemDTO {
     private Long personaId;
     private String nombreCliente;
@@ -5,10 +5,12 @@ import lombok.Data;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class ReporteCarteraVencidaDTO {
     // Información general
     private Long empresaId;
@@ -43,8 +45,19 @@ public class ReporteCarteraVencidaDTO {
     // Detalle
     private List<CarteraVencidaItemDTO> detalle;
 
+    /**
+     * Copia independiente (incluido el detalle) para no compartir la instancia guardada en el cache.
+     */
+    public ReporteCarteraVencidaDTO copia() {
+        return toBuilder()
+                .detalle(detalle != null
+                        ? detalle.stream().map(item -> item.toBuilder().build()).collect(Collectors.toCollection(ArrayList::new))
+                        : null)
+                .build();
+    }
+
     @Data
-    @Builder
+    @Builder(toBuilder = true)
     public static class CarteraVencidaItemDTO {
         private Long id;
         private Long personaId;
@@ -0,0 +1,40 @@
+package com.inmobiliaria.reporte.dto;
+
+import com.inmobiliaria.reporte.domain.EstadoReporteJob;
+import com.inmobiliaria.reporte.domain.FormatoReporte;
+import com.inmobiliaria.reporte.domain.ReporteJob;
+import com.inmobiliaria.reporte.domain.TipoReporteJob;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class ReporteJobDTO {
+    private String id;
+    private TipoReporteJob tipo;
+    private FormatoReporte formato;
+    private EstadoReporteJob estado;
+    private LocalDateTime fechaCreacion;
+    private LocalDateTime fechaInicio;
+    private LocalDateTime fechaFin;
+    private LocalDateTime fechaExpiracion;
+    private String nombreArchivo;
+    private String errorMensaje;
+
+    public static ReporteJobDTO fromEntity(ReporteJob job) {
+        return ReporteJobDTO.builder()
+                .id(job.getId())
+                .tipo(job.getTipo())
+                .formato(job.getFormato())
+                .estado(job.getEstado())
+                .fechaCreacion(job.getFechaCreacion())
+                .fechaInicio(job.getFechaInicio())
+                .fechaFin(job.getFechaFin())
+                .fechaExpiracion(job.getFechaExpiracion())
+                .nombreArchivo(job.getNombreArchivo())
+                .errorMensaje(job.getErrorMensaje())
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.inmobiliaria.reporte.dto;
+
+import com.inmobiliaria.contrato.EstadoContrato;
+import com.inmobiliaria.reporte.domain.FormatoReporte;
+import com.inmobiliaria.reporte.domain.TipoReporteJob;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Solicitud de reporte asíncrono. Solo se usan los parámetros que aplican al tipo de reporte.
+ * Dos solicitudes iguales de la misma empresa comparten el mismo trabajo mientras esté en curso.
+ */
+@Data
+public class ReporteJobRequest {
+    @NotNull(message = "El tipo de reporte es requerido")
+    private TipoReporteJob tipo;
+
+    @NotNull(message = "El formato es requerido")
+    private FormatoReporte formato;
+
+    private Long personaId;
+    private Long contratoId;
+    private Long propiedadId;
+    private Long arrendatarioId;
+    private EstadoContrato estadoContrato;
+
+    private LocalDate fechaCorte;
+    private LocalDate fechaInicio;
+    private LocalDate fechaFin;
+    private LocalDate periodoInicio;
+    private LocalDate periodoFin;
+
+    private Integer mes;
+    private Integer anio;
+}
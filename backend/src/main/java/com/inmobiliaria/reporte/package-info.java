@@ -1,4 +1,4 @@
 @org.springframework.modulith.ApplicationModule(
-        allowedDependencies = {"shared", "cobranza", "persona", "propiedad", "empresa"}
+        allowedDependencies = {"shared", "cobranza", "contrato", "persona", "propiedad", "empresa", "pago", "pago::eventos"}
 )
 package com.inmobiliaria.reporte;
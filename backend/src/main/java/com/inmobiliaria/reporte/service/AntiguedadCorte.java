@@ -0,0 +1,20 @@
+package com.inmobiliaria.reporte.service;
+
+import com.inmobiliaria.cobranza.domain.CarteraVencida;
+
+import java.time.LocalDate;
+
+/**
+ * Días de atraso y clasificación de un cargo de cartera vencida a una fecha de corte.
+ * La usan el reporte de cartera vencida y su exportación CSV para que ambos coincidan.
+ */
+public record AntiguedadCorte(Integer dias, CarteraVencida.ClasificacionAntiguedad clasificacion) {
+
+    public static AntiguedadCorte de(LocalDate fechaVencimiento, LocalDate fechaCorte) {
+        if (fechaVencimiento == null) {
+            return new AntiguedadCorte(null, CarteraVencida.ClasificacionAntiguedad.VIGENTE);
+        }
+        int dias = CarteraVencida.calcularDiasVencido(fechaVencimiento, fechaCorte);
+        return new AntiguedadCorte(dias, CarteraVencida.ClasificacionAntiguedad.de(dias));
+    }
+}
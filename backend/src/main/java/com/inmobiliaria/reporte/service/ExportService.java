@@ -3,11 +3,14 @@ package com.inmobiliaria.reporte.service;
 import com.inmobiliaria.reporte.dto.*;
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -19,11 +22,24 @@ public class ExportService {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
+    // Filas que SXSSF mantiene en memoria; las anteriores se escriben a un archivo temporal
+    @Value("${app.reportes.excel.row-window:100}")
+    private int excelRowWindow;
+
     // ========== EXCEL EXPORTS ==========
+    // Los métodos write*Excel escriben directo al OutputStream recibido (p. ej. la respuesta HTTP)
+    // usando SXSSFWorkbook, de modo que la memoria no crece con el número de renglones.
 
     public byte[] exportEstadoCuentaExcel(EstadoCuentaDTO estadoCuenta) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = workbook.createSheet("Estado de Cuenta");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeEstadoCuentaExcel(estadoCuenta, out);
+        return out.toByteArray();
+    }
+
+    public void writeEstadoCuentaExcel(EstadoCuentaDTO estadoCuenta, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = createStreamingWorkbook();
+        try {
+            Sheet sheet = createSheet(workbook, "Estado de Cuenta");
 
             CellStyle headerStyle = createHeaderStyle(workbook);
             CellStyle moneyStyle = createMoneyStyle(workbook);
@@ -81,13 +97,21 @@ public class ExportService {
             }
 
             workbook.write(out);
-            return out.toByteArray();
+        } finally {
+            closeStreamingWorkbook(workbook);
         }
     }
 
     public byte[] exportAntiguedadSaldosExcel(AntiguedadSaldosDTO antiguedad) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = workbook.createSheet("Antigüedad de Saldos");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeAntiguedadSaldosExcel(antiguedad, out);
+        return out.toByteArray();
+    }
+
+    public void writeAntiguedadSaldosExcel(AntiguedadSaldosDTO antiguedad, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = createStreamingWorkbook();
+        try {
+            Sheet sheet = createSheet(workbook, "Antigüedad de Saldos");
 
             CellStyle headerStyle = createHeaderStyle(workbook);
             int rowNum = 0;
@@ -143,13 +167,21 @@ public class ExportService {
             }
 
             workbook.write(out);
-            return out.toByteArray();
+        } finally {
+            closeStreamingWorkbook(workbook);
         }
     }
 
     public byte[] exportCarteraVencidaExcel(ReporteCarteraVencidaDTO cartera) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = workbook.createSheet("Cartera Vencida");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeCarteraVencidaExcel(cartera, out);
+        return out.toByteArray();
+    }
+
+    public void writeCarteraVencidaExcel(ReporteCarteraVencidaDTO cartera, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = createStreamingWorkbook();
+        try {
+            Sheet sheet = createSheet(workbook, "Cartera Vencida");
 
             CellStyle headerStyle = createHeaderStyle(workbook);
             int rowNum = 0;
@@ -200,13 +232,21 @@ public class ExportService {
             }
 
             workbook.write(out);
-            return out.toByteArray();
+        } finally {
+            closeStreamingWorkbook(workbook);
         }
     }
 
     public byte[] exportProyeccionExcel(ProyeccionCobranzaReporteDTO proyeccion) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = workbook.createSheet("Proyección Cobranza");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeProyeccionExcel(proyeccion, out);
+        return out.toByteArray();
+    }
+
+    public void writeProyeccionExcel(ProyeccionCobranzaReporteDTO proyeccion, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = createStreamingWorkbook();
+        try {
+            Sheet sheet = createSheet(workbook, "Proyección Cobranza");
 
             CellStyle headerStyle = createHeaderStyle(workbook);
             int rowNum = 0;
@@ -251,7 +291,8 @@ public class ExportService {
             }
 
             workbook.write(out);
-            return out.toByteArray();
+        } finally {
+            closeStreamingWorkbook(workbook);
         }
     }
 
@@ -276,49 +317,6 @@ public class ExportService {
         return csv.toString().getBytes();
     }
 
-    public byte[] exportAntiguedadSaldosCsv(AntiguedadSaldosDTO antiguedad) {
-        StringBuilder csv = new StringBuilder();
-        csv.append("Cliente,Propiedad,Vigente,1-30,31-60,61-90,+90,Total Vencido,Saldo Total\n");
-
-        for (AntiguedadSaldosItemDTO item : antiguedad.getDetalle()) {
-            csv.append(String.format("%s,%s,%s,%s,%s,%s,%s,%s,%s\n",
-                    escapeCsv(item.getNombreCliente()),
-                    escapeCsv(item.getDireccionPropiedad()),
-                    item.getVigente(),
-                    item.getVencido1a30(),
-                    item.getVencido31a60(),
-                    item.getVencido61a90(),
-                    item.getVencidoMas90(),
-                    item.getTotalVencido(),
-                    item.getSaldoTotal()));
-        }
-
-        return csv.toString().getBytes();
-    }
-
-    public byte[] exportCarteraVencidaCsv(ReporteCarteraVencidaDTO cartera) {
-        StringBuilder csv = new StringBuilder();
-        csv.append("ID,Cliente,Propiedad,Concepto,Fecha Venc.,Días Venc.,Clasificación,Monto Original,Pendiente,Penalidad,Total,Estado\n");
-
-        for (ReporteCarteraVencidaDTO.CarteraVencidaItemDTO item : cartera.getDetalle()) {
-            csv.append(String.format("%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s\n",
-                    item.getId(),
-                    escapeCsv(item.getNombreCliente()),
-                    escapeCsv(item.getDireccionPropiedad()),
-                    escapeCsv(item.getConcepto()),
-                    item.getFechaVencimiento() != null ? item.getFechaVencimiento().format(DATE_FORMATTER) : "",
-                    item.getDiasVencido(),
-                    item.getClasificacion(),
-                    item.getMontoOriginal(),
-                    item.getMontoPendiente(),
-                    item.getMontoPenalidad() != null ? item.getMontoPenalidad() : BigDecimal.ZERO,
-                    item.getMontoTotal(),
-                    item.getEstadoCobranza()));
-        }
-
-        return csv.toString().getBytes();
-    }
-
     public byte[] exportProyeccionCsv(ProyeccionCobranzaReporteDTO proyeccion) {
         StringBuilder csv = new StringBuilder();
         csv.append("Periodo,Proyectado,Cobrado,Diferencia,% Cumplimiento,Contratos,Pagos Esperados,Pagos Recibidos\n");
@@ -340,6 +338,24 @@ public class ExportService {
 
     // ========== HELPER METHODS ==========
 
+    private SXSSFWorkbook createStreamingWorkbook() {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(excelRowWindow);
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
+
+    private Sheet createSheet(SXSSFWorkbook workbook, String name) {
+        SXSSFSheet sheet = workbook.createSheet(name);
+        // Las filas ya escritas a disco no están disponibles al final, se mide el ancho al vuelo
+        sheet.trackAllColumnsForAutoSizing();
+        return sheet;
+    }
+
+    private void closeStreamingWorkbook(SXSSFWorkbook workbook) throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+
     private CellStyle createHeaderStyle(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
         Font font = workbook.createFont();
@@ -386,8 +402,15 @@ public class ExportService {
     // ========== FINIQUITO EXPORTS ==========
 
     public byte[] exportFiniquitoExcel(FiniquitoDTO finiquito) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = workbook.createSheet("Finiquito");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeFiniquitoExcel(finiquito, out);
+        return out.toByteArray();
+    }
+
+    public void writeFiniquitoExcel(FiniquitoDTO finiquito, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = createStreamingWorkbook();
+        try {
+            Sheet sheet = createSheet(workbook, "Finiquito");
 
             CellStyle headerStyle = createHeaderStyle(workbook);
             int rowNum = 0;
@@ -445,7 +468,8 @@ public class ExportService {
             }
 
             workbook.write(out);
-            return out.toByteArray();
+        } finally {
+            closeStreamingWorkbook(workbook);
         }
     }
 
@@ -469,9 +493,16 @@ public class ExportService {
     // ========== REPORTE MENSUAL EXPORTS ==========
 
     public byte[] exportReporteMensualExcel(ReporteMensualDTO reporte) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeReporteMensualExcel(reporte, out);
+        return out.toByteArray();
+    }
+
+    public void writeReporteMensualExcel(ReporteMensualDTO reporte, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = createStreamingWorkbook();
+        try {
             // Hoja de resumen
-            Sheet resumenSheet = workbook.createSheet("Resumen");
+            Sheet resumenSheet = createSheet(workbook, "Resumen");
             CellStyle headerStyle = createHeaderStyle(workbook);
             int rowNum = 0;
 
@@ -516,7 +547,7 @@ public class ExportService {
             resumenSheet.autoSizeColumn(1);
 
             // Hoja de propiedades
-            Sheet propiedadesSheet = workbook.createSheet("Propiedades");
+            Sheet propiedadesSheet = createSheet(workbook, "Propiedades");
             rowNum = 0;
 
             Row propHeaderRow = propiedadesSheet.createRow(rowNum++);
@@ -544,7 +575,7 @@ public class ExportService {
             }
 
             // Hoja de ingresos
-            Sheet ingresosSheet = workbook.createSheet("Ingresos");
+            Sheet ingresosSheet = createSheet(workbook, "Ingresos");
             rowNum = 0;
 
             Row ingHeaderRow = ingresosSheet.createRow(rowNum++);
@@ -571,7 +602,8 @@ public class ExportService {
             }
 
             workbook.write(out);
-            return out.toByteArray();
+        } finally {
+            closeStreamingWorkbook(workbook);
         }
     }
 
@@ -597,8 +629,15 @@ public class ExportService {
     // ========== ESTADO DE CUENTA MENSUAL EXPORTS ==========
 
     public byte[] exportEstadoCuentaMensualExcel(EstadoCuentaMensualDTO estadoCuenta) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            Sheet sheet = workbook.createSheet("Estado de Cuenta Mensual");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeEstadoCuentaMensualExcel(estadoCuenta, out);
+        return out.toByteArray();
+    }
+
+    public void writeEstadoCuentaMensualExcel(EstadoCuentaMensualDTO estadoCuenta, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = createStreamingWorkbook();
+        try {
+            Sheet sheet = createSheet(workbook, "Estado de Cuenta Mensual");
 
             CellStyle headerStyle = createHeaderStyle(workbook);
             int rowNum = 0;
@@ -657,7 +696,8 @@ public class ExportService {
             }
 
             workbook.write(out);
-            return out.toByteArray();
+        } finally {
+            closeStreamingWorkbook(workbook);
         }
     }
 
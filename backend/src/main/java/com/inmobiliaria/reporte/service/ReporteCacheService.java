@@ -0,0 +1,217 @@
+package com.inmobiliaria.reporte.service;
+
+import com.inmobiliaria.cobranza.CarteraVencidaModificadaEvent;
+import com.inmobiliaria.pago.eventos.CargosVencidosEvent;
+import com.inmobiliaria.pago.eventos.PagosModificadosEvent;
+import com.inmobiliaria.reporte.domain.TipoReporteCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.modulith.events.ApplicationModuleListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache en memoria de resultados de reportes, por empresa, tipo de reporte y parámetros.
+ * El tamaño está acotado (se desaloja la entrada usada hace más tiempo) y cada entrada expira
+ * por TTL como red de seguridad. Las entradas de una empresa se invalidan cuando el módulo de pagos
+ * o el de cobranza publican que sus datos cambiaron.
+ *
+ * Cada empresa lleva un número de generación en la tabla reporte_cache_generaciones, compartida
+ * por todas las instancias: los eventos de invalidación solo llegan a la instancia que los
+ * publicó, pero al incrementar la generación las demás dejan de usar sus entradas anteriores.
+ * Un resultado calculado antes de una invalidación tampoco se guarda, aunque termine de
+ * calcularse después. La generación leída se reutiliza durante app.reportes.cache.generacion-ms
+ * para no consultar la tabla en cada solicitud: ese es el retraso máximo con el que una instancia
+ * nota una invalidación hecha en otra. Las invalidaciones locales se ven de inmediato.
+ *
+ * Los reportes son DTOs mutables: se guarda una copia del resultado y cada acierto devuelve
+ * otra copia, para que ningún llamador modifique lo que reciben los demás.
+ */
+@Service
+@Slf4j
+public class ReporteCacheService {
+
+    private static final String METRICA_SOLICITUDES = "reportes.cache.solicitudes";
+
+    private static final String GENERACION_SQL =
+            "SELECT generacion FROM reporte_cache_generaciones WHERE empresa_id = ?";
+
+    private static final String INCREMENTAR_GENERACION_SQL =
+            "INSERT INTO reporte_cache_generaciones (empresa_id, generacion) VALUES (?, 1) " +
+            "ON CONFLICT (empresa_id) DO UPDATE SET generacion = reporte_cache_generaciones.generacion + 1 " +
+            "RETURNING generacion";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxEntradas;
+    private final long ttlNanos;
+    private final long vigenciaGeneracionNanos;
+
+    private final LinkedHashMap<ClaveReporte, Entrada> entradas;
+    private final Map<Long, GeneracionLeida> generaciones = new ConcurrentHashMap<>();
+    private final Counter desalojos;
+    private final Counter invalidaciones;
+
+    private record ClaveReporte(Long empresaId, TipoReporteCache tipo, Object parametros) {
+    }
+
+    private record Entrada(Object valor, long generacion, long expiraEn) {
+    }
+
+    private record GeneracionLeida(long generacion, long leidaEn) {
+    }
+
+    public record EstadisticasCache(
+            int entradas,
+            int maxEntradas,
+            long aciertos,
+            long fallos,
+            long desalojos,
+            long invalidaciones
+    ) {}
+
+    public ReporteCacheService(JdbcTemplate jdbcTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.reportes.cache.max-entradas:500}") int maxEntradas,
+                               @Value("${app.reportes.cache.ttl-minutes:10}") long ttlMinutes,
+                               @Value("${app.reportes.cache.generacion-ms:1000}") long generacionMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.maxEntradas = maxEntradas;
+        this.ttlNanos = TimeUnit.MINUTES.toNanos(ttlMinutes);
+        this.vigenciaGeneracionNanos = TimeUnit.MILLISECONDS.toNanos(generacionMs);
+        this.desalojos = meterRegistry.counter("reportes.cache.desalojos");
+        this.invalidaciones = meterRegistry.counter("reportes.cache.invalidaciones");
+
+        // Orden de acceso: la primera entrada es la usada hace más tiempo
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ClaveReporte, Entrada> eldest) {
+                if (size() > ReporteCacheService.this.maxEntradas) {
+                    desalojos.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        Gauge.builder("reportes.cache.entradas", this, ReporteCacheService::tamano)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Devuelve el reporte guardado para la clave o lo genera y lo guarda.
+     * Los parámetros deben tener equals/hashCode por valor (fechas, records, listas).
+     * {@code copia} debe devolver una instancia independiente del reporte (ver clase).
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T obtener(Long empresaId, TipoReporteCache tipo, Object parametros, Supplier<T> generador,
+                         UnaryOperator<T> copia) {
+        ClaveReporte clave = new ClaveReporte(empresaId, tipo, parametros);
+        long generacion = generacion(empresaId);
+
+        synchronized (entradas) {
+            Entrada entrada = entradas.get(clave);
+            if (entrada != null) {
+                if (entrada.generacion() == generacion && entrada.expiraEn() - System.nanoTime() > 0) {
+                    registrarSolicitud(tipo, true);
+                    return copia.apply((T) entrada.valor());
+                }
+                entradas.remove(clave);
+            }
+        }
+
+        registrarSolicitud(tipo, false);
+        T valor = generador.get();
+
+        // Si hubo una invalidación mientras se calculaba, el resultado puede estar desactualizado
+        if (generacion(empresaId) == generacion) {
+            synchronized (entradas) {
+                entradas.put(clave, new Entrada(copia.apply(valor), generacion, System.nanoTime() + ttlNanos));
+            }
+        }
+        return valor;
+    }
+
+    public void invalidarEmpresa(Long empresaId) {
+        Long generacion = jdbcTemplate.queryForObject(INCREMENTAR_GENERACION_SQL, Long.class, empresaId);
+        generaciones.put(empresaId, new GeneracionLeida(generacion, System.nanoTime()));
+        synchronized (entradas) {
+            entradas.keySet().removeIf(clave -> clave.empresaId().equals(empresaId));
+        }
+        invalidaciones.increment();
+        log.debug("Cache de reportes invalidado para empresa {}", empresaId);
+    }
+
+    public EstadisticasCache getEstadisticas() {
+        return new EstadisticasCache(
+                tamano(),
+                maxEntradas,
+                contarSolicitudes("acierto"),
+                contarSolicitudes("fallo"),
+                (long) desalojos.count(),
+                (long) invalidaciones.count());
+    }
+
+    // ========== INVALIDACIÓN POR EVENTOS ==========
+
+    @ApplicationModuleListener
+    void on(PagosModificadosEvent event) {
+        invalidarEmpresa(event.empresaId());
+    }
+
+    @ApplicationModuleListener
+    void on(CargosVencidosEvent event) {
+        invalidarEmpresa(event.empresaId());
+    }
+
+    @ApplicationModuleListener
+    void on(CarteraVencidaModificadaEvent event) {
+        invalidarEmpresa(event.empresaId());
+    }
+
+    // ========== HELPER METHODS ==========
+
+    private int tamano() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+
+    private long generacion(Long empresaId) {
+        long ahora = System.nanoTime();
+        GeneracionLeida leida = generaciones.get(empresaId);
+        if (leida != null && ahora - leida.leidaEn() < vigenciaGeneracionNanos) {
+            return leida.generacion();
+        }
+        List<Long> filas = jdbcTemplate.queryForList(GENERACION_SQL, Long.class, empresaId);
+        long generacion = filas.isEmpty() ? 0L : filas.get(0);
+        // Una invalidación local hecha mientras se leía tiene prioridad sobre lo leído
+        generaciones.merge(empresaId, new GeneracionLeida(generacion, ahora),
+                (actual, nueva) -> actual.generacion() > nueva.generacion() ? actual : nueva);
+        return generacion;
+    }
+
+    private void registrarSolicitud(TipoReporteCache tipo, boolean acierto) {
+        meterRegistry.counter(METRICA_SOLICITUDES,
+                "tipo", tipo.name(),
+                "resultado", acierto ? "acierto" : "fallo").increment();
+    }
+
+    private long contarSolicitudes(String resultado) {
+        return (long) meterRegistry.find(METRICA_SOLICITUDES)
+                .tag("resultado", resultado)
+                .counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+}
@@ -0,0 +1,252 @@
+package com.inmobiliaria.reporte.service;
+
+import com.inmobiliaria.persona.PersonaNombreView;
+import com.inmobiliaria.persona.TipoPersona;
+import com.inmobiliaria.propiedad.PropiedadDireccionView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Exportaciones CSV que leen renglón por renglón de un cursor JDBC (forward-only, con fetch size)
+ * y escriben directo al OutputStream de la respuesta, sin construir el DTO del reporte en memoria.
+ * PostgreSQL solo usa cursor cuando la conexión no está en autocommit, por eso cada método es transaccional.
+ * El empresaId se recibe explícito porque la escritura ocurre fuera del hilo de la petición.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ReporteCsvStreamService {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final String PERSONA_COLUMNS =
+            "pe.tipo_persona, pe.nombre, pe.apellido_paterno, pe.apellido_materno, pe.razon_social";
+
+    private static final String PROPIEDAD_COLUMNS =
+            "pr.calle, pr.numero_exterior, pr.numero_interior, col.nombre AS colonia_nombre, " +
+            "mun.nombre AS municipio_nombre, est.nombre AS estado_nombre, pr.codigo_postal";
+
+    private static final String PROPIEDAD_JOINS =
+            "LEFT JOIN cat_colonias col ON col.id = pr.colonia_id " +
+            "LEFT JOIN cat_municipios mun ON mun.id = pr.municipio_id " +
+            "LEFT JOIN cat_estados est ON est.id = pr.estado_id ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReporteCsvStreamService(DataSource dataSource,
+                                   @Value("${app.reportes.csv.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    // ========== CARTERA VENCIDA ==========
+
+    public void streamCarteraVencidaCsv(Long empresaId, LocalDate fechaCorte, OutputStream out) throws IOException {
+        LocalDate corte = fechaCorte != null ? fechaCorte : LocalDate.now();
+
+        String sql = "SELECT cv.id, cv.concepto, cv.fecha_vencimiento, " +
+                "cv.monto_original, cv.monto_pendiente, cv.monto_penalidad, cv.estado_cobranza, " +
+                PERSONA_COLUMNS + ", " + PROPIEDAD_COLUMNS + " " +
+                "FROM cartera_vencida cv " +
+                "LEFT JOIN personas pe ON pe.id = cv.persona_id " +
+                "LEFT JOIN propiedades pr ON pr.id = cv.propiedad_id " +
+                PROPIEDAD_JOINS +
+                "WHERE cv.empresa_id = ? AND cv.activo = TRUE " +
+                "ORDER BY cv.id";
+
+        Writer writer = newWriter(out);
+        writer.write("ID,Cliente,Propiedad,Concepto,Fecha Venc.,Días Venc.,Clasificación,Monto Original,Pendiente,Penalidad,Total,Estado\n");
+        writer.flush();
+
+        jdbcTemplate.query(sql, rowWriter(writer, rs -> {
+            BigDecimal pendiente = rs.getBigDecimal("monto_pendiente");
+            BigDecimal penalidad = rs.getBigDecimal("monto_penalidad");
+            BigDecimal total = pendiente;
+            if (pendiente != null && penalidad != null) {
+                total = pendiente.add(penalidad);
+            }
+            // Días y clasificación a la fecha de corte, con el mismo cálculo que el reporte en JSON/Excel
+            Date fechaVencimiento = rs.getDate("fecha_vencimiento");
+            AntiguedadCorte antiguedad = AntiguedadCorte.de(
+                    fechaVencimiento != null ? fechaVencimiento.toLocalDate() : null, corte);
+            return String.format("%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s\n",
+                    rs.getLong("id"),
+                    escapeCsv(nombrePersona(rs)),
+                    escapeCsv(direccionPropiedad(rs)),
+                    escapeCsv(rs.getString("concepto")),
+                    formatDate(fechaVencimiento),
+                    antiguedad.dias() != null ? antiguedad.dias() : "",
+                    antiguedad.clasificacion().name(),
+                    rs.getBigDecimal("monto_original"),
+                    pendiente,
+                    penalidad != null ? penalidad : BigDecimal.ZERO,
+                    total,
+                    valueOrEmpty(rs.getString("estado_cobranza")));
+        }), empresaId);
+
+        writer.flush();
+    }
+
+    // ========== ANTIGÜEDAD DE SALDOS ==========
+
+    public void streamAntiguedadSaldosCsv(Long empresaId, LocalDate fechaCorte, OutputStream out) throws IOException {
+        LocalDate corte = fechaCorte != null ? fechaCorte : LocalDate.now();
+
+        // Mismos rangos que CarteraVencidaRepository#findAntiguedadSaldosPorPersona, relativos a la fecha de corte
+        String sql = "WITH saldos AS (" +
+                "  SELECT c.persona_id, " +
+                "    (ARRAY_AGG(c.propiedad_id ORDER BY c.id))[1] AS propiedad_id, " +
+                "    COALESCE(SUM(c.monto_pendiente) FILTER (WHERE c.dias <= 0), 0) AS vigente, " +
+                "    COALESCE(SUM(c.monto_pendiente) FILTER (WHERE c.dias BETWEEN 1 AND 30), 0) AS vencido_1_30, " +
+                "    COALESCE(SUM(c.monto_pendiente) FILTER (WHERE c.dias BETWEEN 31 AND 60), 0) AS vencido_31_60, " +
+                "    COALESCE(SUM(c.monto_pendiente) FILTER (WHERE c.dias BETWEEN 61 AND 90), 0) AS vencido_61_90, " +
+                "    COALESCE(SUM(c.monto_pendiente) FILTER (WHERE c.dias > 90), 0) AS vencido_mas_90 " +
+                "  FROM (SELECT cv.id, cv.persona_id, cv.propiedad_id, cv.monto_pendiente, " +
+                "          COALESCE(CAST(? AS DATE) - cv.fecha_vencimiento, 0) AS dias " +
+                "        FROM cartera_vencida cv WHERE cv.empresa_id = ? AND cv.activo = TRUE) c " +
+                "  GROUP BY c.persona_id" +
+                ") " +
+                "SELECT s.*, " + PERSONA_COLUMNS + ", " + PROPIEDAD_COLUMNS + " " +
+                "FROM saldos s " +
+                "LEFT JOIN personas pe ON pe.id = s.persona_id " +
+                "LEFT JOIN propiedades pr ON pr.id = s.propiedad_id " +
+                PROPIEDAD_JOINS +
+                "ORDER BY s.persona_id";
+
+        Writer writer = newWriter(out);
+        writer.write("Cliente,Propiedad,Vigente,1-30,31-60,61-90,+90,Total Vencido,Saldo Total\n");
+        writer.flush();
+
+        jdbcTemplate.query(sql, rowWriter(writer, rs -> {
+            BigDecimal vigente = rs.getBigDecimal("vigente");
+            BigDecimal vencido1a30 = rs.getBigDecimal("vencido_1_30");
+            BigDecimal vencido31a60 = rs.getBigDecimal("vencido_31_60");
+            BigDecimal vencido61a90 = rs.getBigDecimal("vencido_61_90");
+            BigDecimal vencidoMas90 = rs.getBigDecimal("vencido_mas_90");
+            BigDecimal totalVencido = vencido1a30.add(vencido31a60).add(vencido61a90).add(vencidoMas90);
+
+            String nombre = rs.getString("tipo_persona") != null
+                    ? nombrePersona(rs)
+                    : "Cliente ID: " + rs.getLong("persona_id");
+
+            return String.format("%s,%s,%s,%s,%s,%s,%s,%s,%s\n",
+                    escapeCsv(nombre),
+                    escapeCsv(direccionPropiedad(rs)),
+                    vigente,
+                    vencido1a30,
+                    vencido31a60,
+                    vencido61a90,
+                    vencidoMas90,
+                    totalVencido,
+                    vigente.add(totalVencido));
+        }), empresaId);
+
+        writer.flush();
+    }
+
+    // ========== PAGOS POR PERIODO ==========
+
+    public void streamPagosPorPeriodoCsv(Long empresaId, LocalDate fechaInicio, LocalDate fechaFin,
+                                         OutputStream out) throws IOException {
+        String sql = "SELECT pa.fecha_pago, pa.numero_recibo, pa.monto, pa.monto_aplicado, pa.tipo_pago, pa.estado AS estado_pago, " +
+                "pa.referencia, pa.banco, co.numero_contrato, " +
+                PERSONA_COLUMNS + ", " + PROPIEDAD_COLUMNS + " " +
+                "FROM pagos pa " +
+                "JOIN contratos co ON co.id = pa.contrato_id " +
+                "LEFT JOIN personas pe ON pe.id = pa.persona_id " +
+                "LEFT JOIN propiedades pr ON pr.id = co.propiedad_id " +
+                PROPIEDAD_JOINS +
+                "WHERE pa.empresa_id = ? AND pa.fecha_pago BETWEEN ? AND ? " +
+                "ORDER BY pa.fecha_pago, pa.id";
+
+        Writer writer = newWriter(out);
+        writer.write("Fecha,Recibo,Contrato,Cliente,Propiedad,Monto,Monto Aplicado,Tipo Pago,Estado,Referencia,Banco\n");
+        writer.flush();
+
+        jdbcTemplate.query(sql, rowWriter(writer, rs -> String.format("%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s\n",
+                formatDate(rs.getDate("fecha_pago")),
+                valueOrEmpty(rs.getString("numero_recibo")),
+                escapeCsv(rs.getString("numero_contrato")),
+                escapeCsv(nombrePersona(rs)),
+                escapeCsv(direccionPropiedad(rs)),
+                rs.getBigDecimal("monto"),
+                rs.getBigDecimal("monto_aplicado") != null ? rs.getBigDecimal("monto_aplicado") : BigDecimal.ZERO,
+                valueOrEmpty(rs.getString("tipo_pago")),
+                valueOrEmpty(rs.getString("estado_pago")),
+                escapeCsv(rs.getString("referencia")),
+                escapeCsv(rs.getString("banco")))),
+                empresaId, Date.valueOf(fechaInicio), Date.valueOf(fechaFin));
+
+        writer.flush();
+    }
+
+    // ========== HELPER METHODS ==========
+
+    @FunctionalInterface
+    private interface CsvLineMapper {
+        String map(ResultSet rs) throws SQLException;
+    }
+
+    private RowCallbackHandler rowWriter(Writer writer, CsvLineMapper mapper) {
+        return rs -> {
+            try {
+                writer.write(mapper.map(rs));
+            } catch (IOException e) {
+                // El cliente cerró la conexión; se aborta la lectura del cursor
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private Writer newWriter(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+    }
+
+    private String nombrePersona(ResultSet rs) throws SQLException {
+        String tipo = rs.getString("tipo_persona");
+        if (tipo == null) {
+            return "";
+        }
+        String nombre = new PersonaNombreView(null, TipoPersona.valueOf(tipo),
+                rs.getString("nombre"), rs.getString("apellido_paterno"),
+                rs.getString("apellido_materno"), rs.getString("razon_social")).getNombreCompleto();
+        return nombre != null ? nombre : "";
+    }
+
+    private String direccionPropiedad(ResultSet rs) throws SQLException {
+        if (rs.getString("calle") == null) {
+            return "";
+        }
+        return new PropiedadDireccionView(null, rs.getString("calle"), rs.getString("numero_exterior"),
+                rs.getString("numero_interior"), rs.getString("colonia_nombre"), rs.getString("municipio_nombre"),
+                rs.getString("estado_nombre"), rs.getString("codigo_postal")).getDireccionCompleta();
+    }
+
+    private String formatDate(Date date) {
+        return date != null ? date.toLocalDate().format(DATE_FORMATTER) : "";
+    }
+
+    private String valueOrEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private String escapeCsv(String value) {
+        if (value == null) return "";
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
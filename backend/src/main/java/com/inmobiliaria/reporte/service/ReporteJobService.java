@@ -0,0 +1,473 @@
+package com.inmobiliaria.reporte.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inmobiliaria.reporte.domain.EstadoReporteJob;
+import com.inmobiliaria.reporte.domain.FormatoReporte;
+import com.inmobiliaria.reporte.domain.ReporteJob;
+import com.inmobiliaria.reporte.domain.TipoReporteJob;
+import com.inmobiliaria.reporte.dto.*;
+import com.inmobiliaria.shared.multitenancy.TenantContext;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecuta reportes pesados fuera del hilo de la petición.
+ * Los trabajos se registran en la tabla reporte_jobs y cualquier instancia los reclama
+ * (FOR UPDATE SKIP LOCKED) según los lugares libres de su pool. El archivo resultante se guarda
+ * en el directorio compartido app.reportes.jobs.dir y se elimina al expirar. Solicitudes
+ * idénticas de la misma empresa mientras el trabajo está en curso reciben el mismo trabajo:
+ * lo garantiza el índice único parcial sobre (empresa_id, tipo, clave_parametros).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReporteJobService {
+
+    private static final String COLUMNAS =
+            "id, empresa_id, tipo, formato, parametros, estado, fecha_creacion, fecha_inicio, fecha_fin, " +
+            "fecha_expiracion, archivo, nombre_archivo, error_mensaje";
+
+    private static final String INSERTAR_SQL =
+            "INSERT INTO reporte_jobs (id, empresa_id, tipo, formato, parametros, clave_parametros, estado, fecha_creacion) " +
+            "VALUES (?, ?, ?, ?, ?, ?, 'PENDIENTE', CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (empresa_id, tipo, clave_parametros) WHERE estado IN ('PENDIENTE', 'EN_PROCESO') DO NOTHING " +
+            "RETURNING " + COLUMNAS;
+
+    private static final String BUSCAR_EN_CURSO_SQL =
+            "SELECT " + COLUMNAS + " FROM reporte_jobs " +
+            "WHERE empresa_id = ? AND tipo = ? AND clave_parametros = ? AND estado IN ('PENDIENTE', 'EN_PROCESO')";
+
+    private static final String BUSCAR_SQL =
+            "SELECT " + COLUMNAS + " FROM reporte_jobs WHERE id = ? AND empresa_id = ?";
+
+    private static final String CONTAR_PENDIENTES_SQL =
+            "SELECT COUNT(*) FROM reporte_jobs WHERE estado = 'PENDIENTE'";
+
+    private static final String RECLAMAR_SQL =
+            "UPDATE reporte_jobs SET estado = 'EN_PROCESO', nodo = ?, fecha_inicio = CURRENT_TIMESTAMP " +
+            "WHERE id IN (SELECT id FROM reporte_jobs WHERE estado = 'PENDIENTE' " +
+            "ORDER BY fecha_creacion LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING " + COLUMNAS;
+
+    private static final String COMPLETADO_SQL =
+            "UPDATE reporte_jobs SET estado = 'COMPLETADO', archivo = ?, nombre_archivo = ?, fecha_fin = CURRENT_TIMESTAMP, " +
+            "fecha_expiracion = CURRENT_TIMESTAMP + make_interval(mins => ?) " +
+            "WHERE id = ? AND estado = 'EN_PROCESO' AND nodo = ? AND fecha_inicio = ?";
+
+    private static final String FALLIDO_SQL =
+            "UPDATE reporte_jobs SET estado = 'FALLIDO', error_mensaje = ?, fecha_fin = CURRENT_TIMESTAMP, " +
+            "fecha_expiracion = CURRENT_TIMESTAMP + make_interval(mins => ?) " +
+            "WHERE id = ? AND estado = 'EN_PROCESO' AND nodo = ? AND fecha_inicio = ?";
+
+    private static final String DEVOLVER_SQL =
+            "UPDATE reporte_jobs SET estado = 'PENDIENTE', nodo = NULL, fecha_inicio = NULL " +
+            "WHERE id = ? AND estado = 'EN_PROCESO' AND nodo = ?";
+
+    private static final String INTERRUMPIR_PROPIOS_SQL =
+            "UPDATE reporte_jobs SET estado = 'FALLIDO', error_mensaje = 'La generación del reporte se interrumpió', " +
+            "fecha_fin = CURRENT_TIMESTAMP, fecha_expiracion = CURRENT_TIMESTAMP + make_interval(mins => ?) " +
+            "WHERE estado = 'EN_PROCESO' AND nodo = ? " +
+            "RETURNING id, formato";
+
+    private static final String INTERRUMPIR_VENCIDOS_SQL =
+            "UPDATE reporte_jobs SET estado = 'FALLIDO', error_mensaje = 'La generación del reporte se interrumpió', " +
+            "fecha_fin = CURRENT_TIMESTAMP, fecha_expiracion = CURRENT_TIMESTAMP + make_interval(mins => ?) " +
+            "WHERE estado = 'EN_PROCESO' AND fecha_inicio < CURRENT_TIMESTAMP - make_interval(mins => ?) " +
+            "RETURNING id, formato";
+
+    private static final String ELIMINAR_EXPIRADOS_SQL =
+            "DELETE FROM reporte_jobs WHERE fecha_expiracion < CURRENT_TIMESTAMP RETURNING archivo";
+
+    /** Intentos de registrar una solicitud cuando el trabajo en curso termina entre la búsqueda y el INSERT */
+    private static final int INTENTOS_REGISTRO = 3;
+
+    private final ReporteService reporteService;
+    private final ExportService exportService;
+    private final ReporteCsvStreamService reporteCsvStreamService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.reportes.jobs.dir:reportes-jobs}")
+    private String jobsDir;
+
+    @Value("${app.reportes.jobs.workers:2}")
+    private int workers;
+
+    @Value("${app.reportes.jobs.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${app.reportes.jobs.ttl-minutes:60}")
+    private int ttlMinutes;
+
+    @Value("${app.reportes.jobs.reclamo-minutos:30}")
+    private int reclamoMinutos;
+
+    @Value("${app.reportes.jobs.nodo:${HOSTNAME:local}}")
+    private String nodo;
+
+    private final AtomicInteger enEjecucion = new AtomicInteger();
+
+    private Path jobsLocation;
+    private ThreadPoolTaskExecutor executor;
+
+    /** Subdirectorio propio dentro de app.reportes.jobs.dir */
+    private static final String SUBDIRECTORIO = "trabajos";
+
+    @PostConstruct
+    public void init() {
+        this.jobsLocation = Paths.get(jobsDir).resolve(SUBDIRECTORIO).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(jobsLocation);
+        } catch (IOException ex) {
+            throw new RuntimeException("No se pudo crear el directorio de reportes", ex);
+        }
+
+        // Lo que este nodo tenía en proceso antes de reiniciar ya no va a terminar
+        eliminarParciales(jdbcTemplate.query(INTERRUMPIR_PROPIOS_SQL, this::mapParcial, ttlMinutes, nodo));
+
+        // Pool propio (no se expone como bean para no reemplazar el executor por defecto de Spring).
+        // Solo recibe los trabajos que ya reclamó, así que la cola no necesita ser mayor que el pool.
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers);
+        executor.setThreadNamePrefix("reporte-job-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // ==================== API ====================
+
+    public ReporteJobDTO enviar(ReporteJobRequest request) {
+        Long empresaId = TenantContext.getCurrentTenant();
+        validar(request);
+
+        String parametros = serializar(request);
+        String clave = clave(parametros);
+
+        for (int intento = 0; intento < INTENTOS_REGISTRO; intento++) {
+            List<ReporteJob> enCurso = jdbcTemplate.query(BUSCAR_EN_CURSO_SQL, this::mapJob,
+                    empresaId, request.getTipo().name(), clave);
+            if (!enCurso.isEmpty()) {
+                ReporteJob job = enCurso.get(0);
+                log.info("Reporte {} ya en curso para empresa {}, se reutiliza el trabajo {}",
+                        request.getTipo(), empresaId, job.getId());
+                return ReporteJobDTO.fromEntity(job);
+            }
+
+            Long pendientes = jdbcTemplate.queryForObject(CONTAR_PENDIENTES_SQL, Long.class);
+            if (pendientes != null && pendientes >= queueCapacity) {
+                throw new IllegalStateException("Hay demasiados reportes en proceso, intente más tarde");
+            }
+
+            // Si otra petición igual se registró al mismo tiempo el índice único descarta esta
+            List<ReporteJob> creado = jdbcTemplate.query(INSERTAR_SQL, this::mapJob,
+                    UUID.randomUUID().toString(), empresaId, request.getTipo().name(),
+                    request.getFormato().name(), parametros, clave);
+            if (!creado.isEmpty()) {
+                ReporteJob job = creado.get(0);
+                log.info("Reporte {} en cola para empresa {} (trabajo {})", request.getTipo(), empresaId, job.getId());
+                despachar();
+                return ReporteJobDTO.fromEntity(job);
+            }
+        }
+        throw new IllegalStateException("No se pudo registrar el reporte, intente de nuevo");
+    }
+
+    public ReporteJobDTO getJob(String id) {
+        return ReporteJobDTO.fromEntity(findJob(id));
+    }
+
+    public Resource loadResultado(String id) {
+        ReporteJob job = findJob(id);
+        if (job.getEstado() != EstadoReporteJob.COMPLETADO) {
+            throw new IllegalStateException("El reporte aún no está disponible");
+        }
+        Resource resource = new FileSystemResource(jobsLocation.resolve(job.getArchivo()));
+        if (!resource.exists() || !resource.isReadable()) {
+            throw new EntityNotFoundException("El archivo del reporte ya no está disponible");
+        }
+        return resource;
+    }
+
+    private ReporteJob findJob(String id) {
+        Long empresaId = TenantContext.getCurrentTenant();
+        return jdbcTemplate.query(BUSCAR_SQL, this::mapJob, id, empresaId).stream()
+                .findFirst()
+                .orElseThrow(() -> new EntityNotFoundException("Trabajo de reporte no encontrado"));
+    }
+
+    // ==================== EJECUCIÓN ====================
+
+    /**
+     * Libera los trabajos que quedaron en proceso en un nodo caído y reclama pendientes.
+     */
+    @Scheduled(fixedDelayString = "${app.reportes.jobs.intervalo-ms:5000}")
+    public void despacharPendientes() {
+        List<Path> interrumpidos = jdbcTemplate.query(INTERRUMPIR_VENCIDOS_SQL, this::mapParcial,
+                ttlMinutes, reclamoMinutos);
+        if (!interrumpidos.isEmpty()) {
+            log.warn("{} reportes en proceso hace más de {} minutos se marcan como fallidos",
+                    interrumpidos.size(), reclamoMinutos);
+            eliminarParciales(interrumpidos);
+        }
+        despachar();
+    }
+
+    /**
+     * Reclama tantos pendientes como lugares libres tenga el pool de esta instancia.
+     */
+    synchronized void despachar() {
+        int libres = workers - enEjecucion.get();
+        if (libres <= 0) {
+            return;
+        }
+
+        List<ReporteJob> reclamados = jdbcTemplate.query(RECLAMAR_SQL, this::mapJob, nodo, libres);
+        for (ReporteJob job : reclamados) {
+            enEjecucion.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    try {
+                        ejecutar(job);
+                    } finally {
+                        enEjecucion.decrementAndGet();
+                        despachar();
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                enEjecucion.decrementAndGet();
+                jdbcTemplate.update(DEVOLVER_SQL, job.getId(), nodo);
+                log.warn("Pool de reportes lleno en {}, el trabajo {} vuelve a la cola", nodo, job.getId());
+            }
+        }
+    }
+
+    private void ejecutar(ReporteJob job) {
+        FormatoReporte formato = job.getFormato();
+        String archivo = job.getId() + formato.getExtension();
+        Path destino = jobsLocation.resolve(archivo);
+        Path temporal = jobsLocation.resolve(archivo + ".part");
+
+        try {
+            ReporteJobRequest request = objectMapper.readValue(job.getParametros(), ReporteJobRequest.class);
+            TenantContext.setCurrentTenant(job.getEmpresaId());
+
+            try (OutputStream out = Files.newOutputStream(temporal)) {
+                generar(job.getEmpresaId(), request, out);
+            }
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            String nombreArchivo = job.getTipo().name().toLowerCase() + "_"
+                    + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + formato.getExtension();
+            int filas = jdbcTemplate.update(COMPLETADO_SQL, archivo, nombreArchivo, ttlMinutes,
+                    job.getId(), nodo, job.getFechaInicio());
+            if (filas == 0) {
+                // Se dio por interrumpido mientras corría: nadie va a descargar ni a limpiar este archivo
+                eliminarArchivo(destino);
+                log.warn("El trabajo de reporte {} ya no estaba reclamado por {}: se descarta el resultado",
+                        job.getId(), nodo);
+                return;
+            }
+            log.info("Reporte {} completado para empresa {} (trabajo {})",
+                    job.getTipo(), job.getEmpresaId(), job.getId());
+        } catch (Exception e) {
+            eliminarArchivo(temporal);
+            jdbcTemplate.update(FALLIDO_SQL, e.getMessage(), ttlMinutes, job.getId(), nodo, job.getFechaInicio());
+            log.error("Error generando reporte {} para empresa {}: {}",
+                    job.getTipo(), job.getEmpresaId(), e.getMessage());
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    private void generar(Long empresaId, ReporteJobRequest r, OutputStream out) throws IOException {
+        boolean excel = r.getFormato() == FormatoReporte.EXCEL;
+
+        switch (r.getTipo()) {
+            case ESTADO_CUENTA -> {
+                EstadoCuentaDTO dto = reporteService.generarEstadoCuenta(r.getPersonaId(), r.getFechaInicio(), r.getFechaFin());
+                if (excel) exportService.writeEstadoCuentaExcel(dto, out);
+                else out.write(exportService.exportEstadoCuentaCsv(dto));
+            }
+            case ESTADO_CUENTA_MENSUAL -> {
+                EstadoCuentaMensualDTO dto = reporteService.generarEstadoCuentaMensual(r.getPersonaId(), r.getMes(), r.getAnio());
+                if (excel) exportService.writeEstadoCuentaMensualExcel(dto, out);
+                else out.write(exportService.exportEstadoCuentaMensualCsv(dto));
+            }
+            case ANTIGUEDAD_SALDOS -> {
+                if (excel) exportService.writeAntiguedadSaldosExcel(reporteService.generarAntiguedadSaldos(r.getFechaCorte()), out);
+                else reporteCsvStreamService.streamAntiguedadSaldosCsv(empresaId, r.getFechaCorte(), out);
+            }
+            case CARTERA_VENCIDA -> {
+                if (excel) exportService.writeCarteraVencidaExcel(reporteService.generarReporteCarteraVencida(r.getFechaCorte()), out);
+                else reporteCsvStreamService.streamCarteraVencidaCsv(empresaId, r.getFechaCorte(), out);
+            }
+            case PROYECCION -> {
+                ProyeccionCobranzaReporteDTO dto;
+                if (r.getPropiedadId() != null || r.getArrendatarioId() != null || r.getEstadoContrato() != null) {
+                    dto = reporteService.generarReporteProyeccionConFiltros(r.getPeriodoInicio(), r.getPeriodoFin(),
+                            r.getPropiedadId(), r.getArrendatarioId(), r.getEstadoContrato());
+                } else {
+                    dto = reporteService.generarReporteProyeccion(r.getPeriodoInicio(), r.getPeriodoFin());
+                }
+                if (excel) exportService.writeProyeccionExcel(dto, out);
+                else out.write(exportService.exportProyeccionCsv(dto));
+            }
+            case FINIQUITO -> {
+                FiniquitoDTO dto = reporteService.generarFiniquito(r.getContratoId());
+                if (excel) exportService.writeFiniquitoExcel(dto, out);
+                else out.write(exportService.exportFiniquitoCsv(dto));
+            }
+            case REPORTE_MENSUAL -> {
+                ReporteMensualDTO dto = reporteService.generarReporteMensual(r.getMes(), r.getAnio());
+                if (excel) exportService.writeReporteMensualExcel(dto, out);
+                else out.write(exportService.exportReporteMensualCsv(dto));
+            }
+            case PAGOS -> reporteCsvStreamService.streamPagosPorPeriodoCsv(empresaId, r.getFechaInicio(), r.getFechaFin(), out);
+        }
+    }
+
+    private void validar(ReporteJobRequest r) {
+        switch (r.getTipo()) {
+            case ESTADO_CUENTA -> {
+                if (r.getPersonaId() == null) {
+                    throw new IllegalArgumentException("personaId es requerido");
+                }
+            }
+            case FINIQUITO -> {
+                if (r.getContratoId() == null) {
+                    throw new IllegalArgumentException("contratoId es requerido");
+                }
+            }
+            case ESTADO_CUENTA_MENSUAL -> {
+                if (r.getPersonaId() == null || r.getMes() == null || r.getAnio() == null) {
+                    throw new IllegalArgumentException("personaId, mes y anio son requeridos");
+                }
+            }
+            case REPORTE_MENSUAL -> {
+                if (r.getMes() == null || r.getAnio() == null) {
+                    throw new IllegalArgumentException("mes y anio son requeridos");
+                }
+            }
+            case PROYECCION -> {
+                if (r.getPeriodoInicio() == null || r.getPeriodoFin() == null) {
+                    throw new IllegalArgumentException("periodoInicio y periodoFin son requeridos");
+                }
+            }
+            case PAGOS -> {
+                if (r.getFechaInicio() == null || r.getFechaFin() == null) {
+                    throw new IllegalArgumentException("fechaInicio y fechaFin son requeridos");
+                }
+                if (r.getFormato() != FormatoReporte.CSV) {
+                    throw new IllegalArgumentException("El reporte de pagos solo está disponible en CSV");
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    // ==================== LIMPIEZA ====================
+
+    @Scheduled(fixedDelayString = "${app.reportes.jobs.cleanup-interval-ms:300000}")
+    public void eliminarExpirados() {
+        // El DELETE ... RETURNING entrega cada archivo a una sola instancia
+        List<String> archivos = jdbcTemplate.queryForList(ELIMINAR_EXPIRADOS_SQL, String.class);
+        archivos.stream()
+                .filter(Objects::nonNull)
+                .forEach(archivo -> eliminarArchivo(jobsLocation.resolve(archivo)));
+        if (!archivos.isEmpty()) {
+            log.debug("{} trabajos de reporte expirados", archivos.size());
+        }
+    }
+
+    private void eliminarParciales(List<Path> parciales) {
+        parciales.forEach(this::eliminarArchivo);
+    }
+
+    private void eliminarArchivo(Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            log.warn("No se pudo eliminar el archivo {}: {}", archivo, e.getMessage());
+        }
+    }
+
+    // ==================== PARÁMETROS ====================
+
+    private String serializar(ReporteJobRequest request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Parámetros de reporte inválidos", e);
+        }
+    }
+
+    /** SHA-256 de la solicitud serializada: identifica solicitudes idénticas */
+    static String clave(String parametros) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(parametros.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ReporteJob mapJob(ResultSet rs, int rowNum) throws SQLException {
+        return ReporteJob.builder()
+                .id(rs.getString("id"))
+                .empresaId(rs.getLong("empresa_id"))
+                .tipo(TipoReporteJob.valueOf(rs.getString("tipo")))
+                .formato(FormatoReporte.valueOf(rs.getString("formato")))
+                .parametros(rs.getString("parametros"))
+                .estado(EstadoReporteJob.valueOf(rs.getString("estado")))
+                .fechaCreacion(rs.getObject("fecha_creacion", LocalDateTime.class))
+                .fechaInicio(rs.getObject("fecha_inicio", LocalDateTime.class))
+                .fechaFin(rs.getObject("fecha_fin", LocalDateTime.class))
+                .fechaExpiracion(rs.getObject("fecha_expiracion", LocalDateTime.class))
+                .archivo(rs.getString("archivo"))
+                .nombreArchivo(rs.getString("nombre_archivo"))
+                .errorMensaje(rs.getString("error_mensaje"))
+                .build();
+    }
+
+    /** Archivo {@code .part} que dejó un trabajo interrumpido */
+    private Path mapParcial(ResultSet rs, int rowNum) throws SQLException {
+        FormatoReporte formato = FormatoReporte.valueOf(rs.getString("formato"));
+        return jobsLocation.resolve(rs.getString("id") + formato.getExtension() + ".part");
+    }
+}
@@ -0,0 +1,92 @@
+package com.inmobiliaria.reporte.service;
+
+import com.inmobiliaria.persona.PersonaNombreView;
+import com.inmobiliaria.persona.PersonaRepository;
+import com.inmobiliaria.propiedad.PropiedadDireccionView;
+import com.inmobiliaria.propiedad.PropiedadRentaView;
+import com.inmobiliaria.propiedad.PropiedadRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Resuelve nombres de personas y direcciones de propiedades en lote para los reportes.
+ * Junta todos los IDs, hace una consulta IN (...) por tipo de entidad y devuelve mapas en memoria,
+ * en lugar de consultar la base de datos por cada renglón del reporte.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ReporteLookupService {
+
+    // Límite de parámetros por consulta IN para no exceder el máximo del driver
+    private static final int TAMANO_LOTE = 1000;
+
+    private final PersonaRepository personaRepository;
+    private final PropiedadRepository propiedadRepository;
+
+    public Map<Long, String> nombresPersonas(Long empresaId, Collection<Long> personaIds) {
+        Map<Long, String> nombres = new HashMap<>();
+        for (List<Long> lote : lotes(personaIds)) {
+            for (PersonaNombreView persona : personaRepository.findNombresByEmpresaIdAndIdIn(empresaId, lote)) {
+                nombres.put(persona.id(), persona.getNombreCompleto());
+            }
+        }
+        return nombres;
+    }
+
+    public Map<Long, String> direccionesPropiedades(Long empresaId, Collection<Long> propiedadIds) {
+        Map<Long, String> direcciones = new HashMap<>();
+        for (List<Long> lote : lotes(propiedadIds)) {
+            for (PropiedadDireccionView propiedad : propiedadRepository.findDireccionesByEmpresaIdAndIdIn(empresaId, lote)) {
+                direcciones.put(propiedad.id(), propiedad.getDireccionCompleta());
+            }
+        }
+        return direcciones;
+    }
+
+    /**
+     * Renta mensual por propiedad; las propiedades sin renta capturada no aparecen en el mapa.
+     */
+    public Map<Long, BigDecimal> rentasPropiedades(Long empresaId, Collection<Long> propiedadIds) {
+        Map<Long, BigDecimal> rentas = new HashMap<>();
+        for (List<Long> lote : lotes(propiedadIds)) {
+            for (PropiedadRentaView propiedad : propiedadRepository.findRentasByEmpresaIdAndIdIn(empresaId, lote)) {
+                if (propiedad.rentaMensual() != null) {
+                    rentas.put(propiedad.id(), propiedad.rentaMensual());
+                }
+            }
+        }
+        return rentas;
+    }
+
+    /**
+     * Atajo para extraer los IDs de una lista de renglones antes de llamar a los métodos de lote.
+     */
+    public static <T> Set<Long> ids(Collection<T> items, Function<T, Long> extractor) {
+        Set<Long> ids = new HashSet<>();
+        for (T item : items) {
+            Long id = extractor.apply(item);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private List<List<Long>> lotes(Collection<Long> ids) {
+        List<Long> unicos = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        List<List<Long>> lotes = new ArrayList<>();
+        for (int i = 0; i < unicos.size(); i += TAMANO_LOTE) {
+            lotes.add(unicos.subList(i, Math.min(i + TAMANO_LOTE, unicos.size())));
+        }
+        return lotes;
+    }
+}
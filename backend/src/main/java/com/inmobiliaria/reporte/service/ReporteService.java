@@ -1,8 +1,12 @@
 package com.inmobiliaria.reporte.service;
 
+import com.inmobiliaria.cobranza.ResumenCobranzaDTO;
+import com.inmobiliaria.cobranza.ResumenCobranzaService;
 import com.inmobiliaria.cobranza.domain.CarteraVencida;
 import com.inmobiliaria.cobranza.domain.ProyeccionCobranza;
 import com.inmobiliaria.cobranza.domain.SeguimientoCobranza;
+import com.inmobiliaria.cobranza.repository.AntiguedadSaldosPersonaView;
+import com.inmobiliaria.cobranza.repository.AntiguedadSaldosTotalesView;
 import com.inmobiliaria.cobranza.repository.CarteraVencidaRepository;
 import com.inmobiliaria.cobranza.repository.ProyeccionCobranzaRepository;
 import com.inmobiliaria.cobranza.repository.SeguimientoCobranzaRepository;
@@ -14,11 +18,14 @@ import com.inmobiliaria.empresa.EmpresaRepository;
 import com.inmobiliaria.pago.Cargo;
 import com.inmobiliaria.pago.CargoRepository;
 import com.inmobiliaria.pago.Pago;
+import com.inmobiliaria.pago.PagoMensualView;
 import com.inmobiliaria.pago.PagoRepository;
+import com.inmobiliaria.pago.SaldoContratoService;
 import com.inmobiliaria.persona.Persona;
 import com.inmobiliaria.persona.PersonaRepository;
 import com.inmobiliaria.propiedad.Propiedad;
 import com.inmobiliaria.propiedad.PropiedadRepository;
+import com.inmobiliaria.reporte.domain.TipoReporteCache;
 import com.inmobiliaria.reporte.dto.*;
 import com.inmobiliaria.shared.multitenancy.TenantContext;
 import lombok.RequiredArgsConstructor;
@@ -31,6 +38,7 @@ import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.TextStyle;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -47,7 +55,11 @@ public class ReporteService {
     private final ContratoRepository contratoRepository;
     private final PagoRepository pagoRepository;
     private final CargoRepository cargoRepository;
+    private final SaldoContratoService saldoContratoService;
     private final EmpresaRepository empresaRepository;
+    private final ReporteLookupService reporteLookupService;
+    private final ReporteCacheService reporteCacheService;
+    private final ResumenCobranzaService resumenCobranzaService;
 
     private String getNombreEmpresa(Long empresaId) {
         return empresaRepository.findById(empresaId)
@@ -133,12 +145,13 @@ public class ReporteService {
         BigDecimal saldoPorVencer = saldoActual.subtract(saldoVencido);
 
         // Obtener propiedades relacionadas
-        List<String> propiedades = cartera.stream()
+        List<Long> propiedadIds = cartera.stream()
                 .map(CarteraVencida::getPropiedadId)
                 .distinct()
-                .map(propId -> propiedadRepository.findByIdAndEmpresaId(propId, empresaId)
-                        .map(Propiedad::getDireccionCompleta)
-                        .orElse("Propiedad ID: " + propId))
+                .toList();
+        Map<Long, String> direcciones = reporteLookupService.direccionesPropiedades(empresaId, propiedadIds);
+        List<String> propiedades = propiedadIds.stream()
+                .map(propId -> direcciones.getOrDefault(propId, "Propiedad ID: " + propId))
                 .toList();
 
         // Obtener dirección principal
@@ -174,74 +187,69 @@ public class ReporteService {
     // ========== ANTIGÜEDAD DE SALDOS (#40) ==========
 
     public AntiguedadSaldosDTO generarAntiguedadSaldos(LocalDate fechaCorte) {
+        return generarAntiguedadSaldos(fechaCorte, null, null);
+    }
+
+    /**
+     * Los montos por rango se calculan en la base de datos respecto a la fecha de corte.
+     * Si tamanoPagina es nulo el detalle incluye a todos los clientes (exportaciones);
+     * los nombres y direcciones solo se resuelven para los clientes de la página devuelta.
+     */
+    public AntiguedadSaldosDTO generarAntiguedadSaldos(LocalDate fechaCorte, Integer pagina, Integer tamanoPagina) {
         Long empresaId = TenantContext.getCurrentTenant();
+        LocalDate corte = fechaCorte != null ? fechaCorte : LocalDate.now();
 
-        if (fechaCorte == null) {
-            fechaCorte = LocalDate.now();
+        if (tamanoPagina != null && tamanoPagina <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor a cero");
         }
+        int numeroPagina = pagina != null ? Math.max(pagina, 0) : 0;
 
-        List<CarteraVencida> cartera = carteraVencidaRepository.findByEmpresaIdAndActivoTrue(empresaId);
-
-        // Agrupar por persona
-        Map<Long, List<CarteraVencida>> porPersona = cartera.stream()
-                .collect(Collectors.groupingBy(CarteraVencida::getPersonaId));
-
-        List<AntiguedadSaldosItemDTO> detalle = new ArrayList<>();
-
-        BigDecimal totalVigente = BigDecimal.ZERO;
-        BigDecimal totalVencido1a30 = BigDecimal.ZERO;
-        BigDecimal totalVencido31a60 = BigDecimal.ZERO;
-        BigDecimal totalVencido61a90 = BigDecimal.ZERO;
-        BigDecimal totalVencidoMas90 = BigDecimal.ZERO;
-
-        for (Map.Entry<Long, List<CarteraVencida>> entry : porPersona.entrySet()) {
-            Long personaId = entry.getKey();
-            List<CarteraVencida> cuentas = entry.getValue();
+        return reporteCacheService.obtener(empresaId, TipoReporteCache.ANTIGUEDAD_SALDOS,
+                Arrays.asList(corte, numeroPagina, tamanoPagina),
+                () -> calcularAntiguedadSaldos(empresaId, corte, numeroPagina, tamanoPagina),
+                AntiguedadSaldosDTO::copia);
+    }
 
-            Persona persona = personaRepository.findByIdAndEmpresaId(personaId, empresaId)
-                    .orElse(null);
-            String nombreCliente = persona != null ? persona.getNombreCompleto() : "Cliente ID: " + personaId;
+    private AntiguedadSaldosDTO calcularAntiguedadSaldos(Long empresaId, LocalDate fechaCorte,
+                                                         int pagina, Integer tamanoPagina) {
+        AntiguedadSaldosTotalesView totales = carteraVencidaRepository.sumAntiguedadSaldos(empresaId, fechaCorte);
 
-            // Calcular montos por clasificación
-            BigDecimal vigente = sumByClasificacion(cuentas, CarteraVencida.ClasificacionAntiguedad.VIGENTE);
-            BigDecimal vencido1a30 = sumByClasificacion(cuentas, CarteraVencida.ClasificacionAntiguedad.VENCIDO_1_30);
-            BigDecimal vencido31a60 = sumByClasificacion(cuentas, CarteraVencida.ClasificacionAntiguedad.VENCIDO_31_60);
-            BigDecimal vencido61a90 = sumByClasificacion(cuentas, CarteraVencida.ClasificacionAntiguedad.VENCIDO_61_90);
-            BigDecimal vencidoMas90 = sumByClasificacion(cuentas, CarteraVencida.ClasificacionAntiguedad.VENCIDO_MAS_90);
+        List<AntiguedadSaldosPersonaView> filas = tamanoPagina != null
+                ? carteraVencidaRepository.findAntiguedadSaldosPorPersona(
+                        empresaId, fechaCorte, tamanoPagina, (long) pagina * tamanoPagina)
+                : carteraVencidaRepository.findAntiguedadSaldosPorPersona(
+                        empresaId, fechaCorte, Integer.MAX_VALUE, 0);
 
-            BigDecimal totalVenc = vencido1a30.add(vencido31a60).add(vencido61a90).add(vencidoMas90);
-            BigDecimal saldoTotal = vigente.add(totalVenc);
+        // Resolver nombres y direcciones en lote, solo para la página
+        Map<Long, String> nombres = reporteLookupService.nombresPersonas(empresaId,
+                ReporteLookupService.ids(filas, AntiguedadSaldosPersonaView::getPersonaId));
+        Map<Long, String> direcciones = reporteLookupService.direccionesPropiedades(empresaId,
+                ReporteLookupService.ids(filas, AntiguedadSaldosPersonaView::getPropiedadId));
 
-            // Obtener propiedad principal
-            Long propiedadId = cuentas.get(0).getPropiedadId();
-            String direccionPropiedad = propiedadRepository.findByIdAndEmpresaId(propiedadId, empresaId)
-                    .map(Propiedad::getDireccionCompleta)
-                    .orElse("");
+        List<AntiguedadSaldosItemDTO> detalle = new ArrayList<>(filas.size());
+        for (AntiguedadSaldosPersonaView fila : filas) {
+            BigDecimal totalVenc = fila.getVencido1a30().add(fila.getVencido31a60())
+                    .add(fila.getVencido61a90()).add(fila.getVencidoMas90());
 
             detalle.add(AntiguedadSaldosItemDTO.builder()
-                    .personaId(personaId)
-                    .nombreCliente(nombreCliente)
-                    .propiedadId(propiedadId)
-                    .direccionPropiedad(direccionPropiedad)
-                    .vigente(vigente)
-                    .vencido1a30(vencido1a30)
-                    .vencido31a60(vencido31a60)
-                    .vencido61a90(vencido61a90)
-                    .vencidoMas90(vencidoMas90)
+                    .personaId(fila.getPersonaId())
+                    .nombreCliente(nombres.getOrDefault(fila.getPersonaId(), "Cliente ID: " + fila.getPersonaId()))
+                    .propiedadId(fila.getPropiedadId())
+                    .direccionPropiedad(direcciones.getOrDefault(fila.getPropiedadId(), ""))
+                    .vigente(fila.getVigente())
+                    .vencido1a30(fila.getVencido1a30())
+                    .vencido31a60(fila.getVencido31a60())
+                    .vencido61a90(fila.getVencido61a90())
+                    .vencidoMas90(fila.getVencidoMas90())
                     .totalVencido(totalVenc)
-                    .saldoTotal(saldoTotal)
-                    .cantidadDocumentos(cuentas.size())
+                    .saldoTotal(fila.getVigente().add(totalVenc))
+                    .cantidadDocumentos(fila.getCantidadDocumentos().intValue())
                     .build());
-
-            // Acumular totales
-            totalVigente = totalVigente.add(vigente);
-            totalVencido1a30 = totalVencido1a30.add(vencido1a30);
-            totalVencido31a60 = totalVencido31a60.add(vencido31a60);
-            totalVencido61a90 = totalVencido61a90.add(vencido61a90);
-            totalVencidoMas90 = totalVencidoMas90.add(vencidoMas90);
         }
 
-        BigDecimal totalVencido = totalVencido1a30.add(totalVencido31a60).add(totalVencido61a90).add(totalVencidoMas90);
+        BigDecimal totalVigente = totales.getVigente();
+        BigDecimal totalVencido = totales.getVencido1a30().add(totales.getVencido31a60())
+                .add(totales.getVencido61a90()).add(totales.getVencidoMas90());
         BigDecimal totalGeneral = totalVigente.add(totalVencido);
 
         // Calcular porcentajes
@@ -252,58 +260,91 @@ public class ReporteService {
             porcentajeVencido = totalVencido.multiply(BigDecimal.valueOf(100)).divide(totalGeneral, 2, RoundingMode.HALF_UP);
         }
 
+        int cantidadClientes = totales.getCantidadClientes().intValue();
+
         return AntiguedadSaldosDTO.builder()
                 .empresaId(empresaId)
                 .nombreEmpresa(getNombreEmpresa(empresaId))
                 .fechaCorte(fechaCorte)
                 .fechaGeneracion(LocalDate.now())
                 .totalVigente(totalVigente)
-                .totalVencido1a30(totalVencido1a30)
-                .totalVencido31a60(totalVencido31a60)
-                .totalVencido61a90(totalVencido61a90)
-                .totalVencidoMas90(totalVencidoMas90)
+                .totalVencido1a30(totales.getVencido1a30())
+                .totalVencido31a60(totales.getVencido31a60())
+                .totalVencido61a90(totales.getVencido61a90())
+                .totalVencidoMas90(totales.getVencidoMas90())
                 .totalVencido(totalVencido)
                 .totalGeneral(totalGeneral)
-                .cantidadClientes(porPersona.size())
-                .cantidadDocumentos(cartera.size())
+                .cantidadClientes(cantidadClientes)
+                .cantidadDocumentos(totales.getCantidadDocumentos().intValue())
                 .porcentajeVigente(porcentajeVigente)
                 .porcentajeVencido(porcentajeVencido)
+                .pagina(tamanoPagina != null ? pagina : null)
+                .tamanoPagina(tamanoPagina)
+                .totalPaginas(tamanoPagina != null ? (cantidadClientes + tamanoPagina - 1) / tamanoPagina : null)
                 .detalle(detalle)
                 .build();
     }
 
-    private BigDecimal sumByClasificacion(List<CarteraVencida> cuentas, CarteraVencida.ClasificacionAntiguedad clasificacion) {
+    private BigDecimal sumByClasificacion(List<CarteraVencida> cuentas, Map<Long, AntiguedadCorte> antiguedades,
+                                          CarteraVencida.ClasificacionAntiguedad clasificacion) {
         return cuentas.stream()
-                .filter(c -> c.getClasificacionAntiguedad() == clasificacion)
+                .filter(c -> antiguedades.get(c.getId()).clasificacion() == clasificacion)
                 .map(CarteraVencida::getMontoPendiente)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
+    // ========== RESUMEN DE COBRANZA ==========
+
+    public ResumenCobranzaDTO getResumenCobranza() {
+        Long empresaId = TenantContext.getCurrentTenant();
+        // Sin fecha en la llave: el resumen suma la clasificación guardada en cartera_vencida, que solo
+        // cambia junto con un evento que invalida el cache (incluido el recálculo diario de antigüedad)
+        return reporteCacheService.obtener(empresaId, TipoReporteCache.RESUMEN_COBRANZA, null,
+                () -> resumenCobranzaService.getResumenCobranza(empresaId), ResumenCobranzaDTO::copia);
+    }
+
     // ========== CARTERA VENCIDA (#41) ==========
 
     public ReporteCarteraVencidaDTO generarReporteCarteraVencida(LocalDate fechaCorte) {
         Long empresaId = TenantContext.getCurrentTenant();
+        LocalDate corte = fechaCorte != null ? fechaCorte : LocalDate.now();
 
-        if (fechaCorte == null) {
-            fechaCorte = LocalDate.now();
-        }
+        return reporteCacheService.obtener(empresaId, TipoReporteCache.CARTERA_VENCIDA, corte,
+                () -> calcularReporteCarteraVencida(empresaId, corte), ReporteCarteraVencidaDTO::copia);
+    }
 
+    private ReporteCarteraVencidaDTO calcularReporteCarteraVencida(Long empresaId, LocalDate fechaCorte) {
         List<CarteraVencida> cartera = carteraVencidaRepository.findByEmpresaIdAndActivoTrue(empresaId);
 
+        // Resolver nombres y direcciones en lote
+        Map<Long, String> nombres = reporteLookupService.nombresPersonas(empresaId,
+                ReporteLookupService.ids(cartera, CarteraVencida::getPersonaId));
+        Map<Long, String> direcciones = reporteLookupService.direccionesPropiedades(empresaId,
+                ReporteLookupService.ids(cartera, CarteraVencida::getPropiedadId));
+
+        // Última gestión por cartera en una sola consulta
+        Map<Long, SeguimientoCobranza> ultimasGestiones = seguimientoCobranzaRepository
+                .findUltimoSeguimientoPorCarteraActiva(empresaId)
+                .stream()
+                .collect(Collectors.toMap(SeguimientoCobranza::getCarteraVencidaId, s -> s));
+
+        // Días y clasificación a la fecha de corte (los de la entidad son a la fecha de su última actualización)
+        Map<Long, AntiguedadCorte> antiguedades = new HashMap<>();
+        for (CarteraVencida cv : cartera) {
+            antiguedades.put(cv.getId(), AntiguedadCorte.de(cv.getFechaVencimiento(), fechaCorte));
+        }
+
         // Crear detalle
         List<ReporteCarteraVencidaDTO.CarteraVencidaItemDTO> detalle = new ArrayList<>();
 
         for (CarteraVencida cv : cartera) {
-            Persona persona = personaRepository.findByIdAndEmpresaId(cv.getPersonaId(), empresaId).orElse(null);
-            Propiedad propiedad = propiedadRepository.findByIdAndEmpresaId(cv.getPropiedadId(), empresaId).orElse(null);
+            AntiguedadCorte antiguedad = antiguedades.get(cv.getId());
 
             // Obtener última gestión
-            List<SeguimientoCobranza> seguimientos = seguimientoCobranzaRepository
-                    .findByCarteraVencidaIdAndActivoTrueOrderByFechaContactoDesc(cv.getId());
+            SeguimientoCobranza ultimo = ultimasGestiones.get(cv.getId());
             String ultimaGestion = "";
             LocalDate fechaUltimaGestion = null;
-            if (!seguimientos.isEmpty()) {
-                SeguimientoCobranza ultimo = seguimientos.get(0);
+            if (ultimo != null) {
                 ultimaGestion = ultimo.getDescripcion();
                 fechaUltimaGestion = ultimo.getFechaContacto().toLocalDate();
             }
@@ -316,13 +357,13 @@ public class ReporteService {
             detalle.add(ReporteCarteraVencidaDTO.CarteraVencidaItemDTO.builder()
                     .id(cv.getId())
                     .personaId(cv.getPersonaId())
-                    .nombreCliente(persona != null ? persona.getNombreCompleto() : "")
+                    .nombreCliente(nombres.getOrDefault(cv.getPersonaId(), ""))
                     .propiedadId(cv.getPropiedadId())
-                    .direccionPropiedad(propiedad != null ? propiedad.getDireccionCompleta() : "")
+                    .direccionPropiedad(direcciones.getOrDefault(cv.getPropiedadId(), ""))
                     .concepto(cv.getConcepto())
                     .fechaVencimiento(cv.getFechaVencimiento())
-                    .diasVencido(cv.getDiasVencido())
-                    .clasificacion(cv.getClasificacionAntiguedad() != null ? cv.getClasificacionAntiguedad().name() : "")
+                    .diasVencido(antiguedad.dias())
+                    .clasificacion(antiguedad.clasificacion().name())
                     .montoOriginal(cv.getMontoOriginal())
                     .montoPendiente(cv.getMontoPendiente())
                     .montoPenalidad(cv.getMontoPenalidad())
@@ -347,11 +388,11 @@ public class ReporteService {
                 .collect(Collectors.groupingBy(c -> c.getEstadoCobranza() != null ? c.getEstadoCobranza() : CarteraVencida.EstadoCobranza.PENDIENTE));
 
         // Por clasificación
-        BigDecimal montoVigente = sumByClasificacion(cartera, CarteraVencida.ClasificacionAntiguedad.VIGENTE);
-        BigDecimal monto1a30 = sumByClasificacion(cartera, CarteraVencida.ClasificacionAntiguedad.VENCIDO_1_30);
-        BigDecimal monto31a60 = sumByClasificacion(cartera, CarteraVencida.ClasificacionAntiguedad.VENCIDO_31_60);
-        BigDecimal monto61a90 = sumByClasificacion(cartera, CarteraVencida.ClasificacionAntiguedad.VENCIDO_61_90);
-        BigDecimal montoMas90 = sumByClasificacion(cartera, CarteraVencida.ClasificacionAntiguedad.VENCIDO_MAS_90);
+        BigDecimal montoVigente = sumByClasificacion(cartera, antiguedades, CarteraVencida.ClasificacionAntiguedad.VIGENTE);
+        BigDecimal monto1a30 = sumByClasificacion(cartera, antiguedades, CarteraVencida.ClasificacionAntiguedad.VENCIDO_1_30);
+        BigDecimal monto31a60 = sumByClasificacion(cartera, antiguedades, CarteraVencida.ClasificacionAntiguedad.VENCIDO_31_60);
+        BigDecimal monto61a90 = sumByClasificacion(cartera, antiguedades, CarteraVencida.ClasificacionAntiguedad.VENCIDO_61_90);
+        BigDecimal montoMas90 = sumByClasificacion(cartera, antiguedades, CarteraVencida.ClasificacionAntiguedad.VENCIDO_MAS_90);
 
         return ReporteCarteraVencidaDTO.builder()
                 .empresaId(empresaId)
@@ -476,19 +517,10 @@ public class ReporteService {
         // Obtener pagos del contrato
         List<Pago> pagos = pagoRepository.findByContratoIdAndEmpresaId(contratoId, empresaId);
 
-        // Calcular totales
-        BigDecimal totalRentasPagadas = pagos.stream()
-                .map(Pago::getMontoAplicado)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalCargos = cargos.stream()
-                .map(Cargo::getMontoOriginal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal saldoPendiente = cargos.stream()
-                .map(Cargo::getMontoPendiente)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Totales precalculados del contrato (los cargos cancelados no cuentan)
+        SaldoContratoService.SaldoContrato saldo = saldoContratoService.getSaldo(empresaId, contratoId);
+        BigDecimal totalRentasPagadas = saldo.totalPagado();
+        BigDecimal saldoPendiente = saldo.saldoPendiente();
 
         BigDecimal totalRentasPendientes = saldoPendiente;
 
@@ -709,22 +741,25 @@ public class ReporteService {
         }
 
         // Top 5 morosos
-        List<ReporteMensualDTO.MorosoDTO> topMorosos = cartera.stream()
+        List<CarteraVencida> morosos = cartera.stream()
                 .filter(c -> c.getMontoPendiente().compareTo(BigDecimal.ZERO) > 0)
                 .sorted((a, b) -> b.getMontoPendiente().compareTo(a.getMontoPendiente()))
                 .limit(5)
-                .map(cv -> {
-                    Persona persona = personaRepository.findByIdAndEmpresaId(cv.getPersonaId(), empresaId).orElse(null);
-                    Propiedad prop = propiedadRepository.findByIdAndEmpresaId(cv.getPropiedadId(), empresaId).orElse(null);
-                    return ReporteMensualDTO.MorosoDTO.builder()
-                            .personaId(cv.getPersonaId())
-                            .nombre(persona != null ? persona.getNombreCompleto() : "")
-                            .propiedad(prop != null ? prop.getDireccionCompleta() : "")
-                            .montoAdeudado(cv.getMontoPendiente())
-                            .diasVencido(cv.getDiasVencido() != null ? cv.getDiasVencido() : 0)
-                            .estadoCobranza(cv.getEstadoCobranza() != null ? cv.getEstadoCobranza().name() : "")
-                            .build();
-                })
+                .toList();
+        Map<Long, String> nombresMorosos = reporteLookupService.nombresPersonas(empresaId,
+                ReporteLookupService.ids(morosos, CarteraVencida::getPersonaId));
+        Map<Long, String> direccionesMorosos = reporteLookupService.direccionesPropiedades(empresaId,
+                ReporteLookupService.ids(morosos, CarteraVencida::getPropiedadId));
+
+        List<ReporteMensualDTO.MorosoDTO> topMorosos = morosos.stream()
+                .map(cv -> ReporteMensualDTO.MorosoDTO.builder()
+                        .personaId(cv.getPersonaId())
+                        .nombre(nombresMorosos.getOrDefault(cv.getPersonaId(), ""))
+                        .propiedad(direccionesMorosos.getOrDefault(cv.getPropiedadId(), ""))
+                        .montoAdeudado(cv.getMontoPendiente())
+                        .diasVencido(cv.getDiasVencido() != null ? cv.getDiasVencido() : 0)
+                        .estadoCobranza(cv.getEstadoCobranza() != null ? cv.getEstadoCobranza().name() : "")
+                        .build())
                 .toList();
 
         return ReporteMensualDTO.builder()
@@ -802,11 +837,11 @@ public class ReporteService {
                 .sorted(Comparator.comparing(CarteraVencida::getFechaVencimiento))
                 .toList();
 
+        Map<Long, String> direcciones = reporteLookupService.direccionesPropiedades(empresaId,
+                ReporteLookupService.ids(carteraOrdenada, CarteraVencida::getPropiedadId));
+
         for (CarteraVencida cv : carteraOrdenada) {
-            // Obtener propiedad
-            String direccionPropiedad = propiedadRepository.findByIdAndEmpresaId(cv.getPropiedadId(), empresaId)
-                    .map(Propiedad::getDireccionCompleta)
-                    .orElse("");
+            String direccionPropiedad = direcciones.getOrDefault(cv.getPropiedadId(), "");
 
             // Agregar cargo
             saldoAcumulado = saldoAcumulado.add(cv.getMontoOriginal());
@@ -865,15 +900,16 @@ public class ReporteService {
         // Agrupar por propiedad
         Map<Long, List<CarteraVencida>> porPropiedad = carteraDelMes.stream()
                 .collect(Collectors.groupingBy(CarteraVencida::getPropiedadId));
+        // Las direcciones ya se resolvieron para los movimientos (misma cartera del mes)
+        Map<Long, BigDecimal> rentas = reporteLookupService.rentasPropiedades(empresaId, porPropiedad.keySet());
 
         List<EstadoCuentaMensualDTO.PropiedadResumenDTO> propiedadesResumen = new ArrayList<>();
         for (Map.Entry<Long, List<CarteraVencida>> entry : porPropiedad.entrySet()) {
             Long propiedadId = entry.getKey();
             List<CarteraVencida> carteraProp = entry.getValue();
 
-            Propiedad prop = propiedadRepository.findByIdAndEmpresaId(propiedadId, empresaId).orElse(null);
-            String direccion = prop != null ? prop.getDireccionCompleta() : "";
-            BigDecimal rentaMensual = prop != null ? prop.getRentaMensual() : BigDecimal.ZERO;
+            String direccion = direcciones.getOrDefault(propiedadId, "");
+            BigDecimal rentaMensual = rentas.getOrDefault(propiedadId, BigDecimal.ZERO);
 
             BigDecimal cargosDelMes = carteraProp.stream()
                     .map(CarteraVencida::getMontoOriginal)
@@ -892,7 +928,7 @@ public class ReporteService {
             propiedadesResumen.add(EstadoCuentaMensualDTO.PropiedadResumenDTO.builder()
                     .propiedadId(propiedadId)
                     .direccion(direccion)
-                    .rentaMensual(rentaMensual != null ? rentaMensual : BigDecimal.ZERO)
+                    .rentaMensual(rentaMensual)
                     .cargosDelMes(cargosDelMes)
                     .pagosDelMes(pagosDelMes)
                     .saldoPendiente(saldoPendiente)
@@ -949,6 +985,52 @@ public class ReporteService {
         List<Contrato> contratos = contratoRepository.findContratosParaProyeccion(
                 empresaId, propiedadId, arrendatarioId, estadoContrato, periodoInicio, periodoFin);
 
+        YearMonth mesInicio = YearMonth.from(periodoInicio);
+        YearMonth mesFin = YearMonth.from(periodoFin);
+        int numMeses = (int) mesInicio.until(mesFin, ChronoUnit.MONTHS) + 1;
+
+        // Pagos del periodo agrupados por contrato y mes en una sola consulta
+        Map<Long, Map<YearMonth, PagoMensualView>> pagosPorContrato = new HashMap<>();
+        for (PagoMensualView pm : pagoRepository.sumPagosPorContratoYMes(
+                empresaId, mesInicio.atDay(1), mesFin.atEndOfMonth())) {
+            pagosPorContrato.computeIfAbsent(pm.contratoId(), k -> new HashMap<>())
+                    .put(YearMonth.of(pm.anio(), pm.mes()), pm);
+        }
+
+        // Acumuladores por mes (índice 0 = mesInicio)
+        BigDecimal[] proyectadoMes = new BigDecimal[Math.max(numMeses, 0)];
+        BigDecimal[] cobradoMes = new BigDecimal[proyectadoMes.length];
+        int[] contratosMes = new int[proyectadoMes.length];
+        int[] pagosRecibidosMes = new int[proyectadoMes.length];
+        Arrays.fill(proyectadoMes, BigDecimal.ZERO);
+        Arrays.fill(cobradoMes, BigDecimal.ZERO);
+
+        // Una sola pasada: cada contrato contribuye solo a los meses en que está vigente
+        for (Contrato contrato : contratos) {
+            YearMonth desde = YearMonth.from(contrato.getFechaInicio());
+            YearMonth hasta = YearMonth.from(contrato.getFechaFin());
+            if (desde.isBefore(mesInicio)) desde = mesInicio;
+            if (hasta.isAfter(mesFin)) hasta = mesFin;
+
+            Map<YearMonth, PagoMensualView> pagosContrato = pagosPorContrato.getOrDefault(contrato.getId(), Map.of());
+
+            for (YearMonth mes = desde; !mes.isAfter(hasta); mes = mes.plusMonths(1)) {
+                int i = (int) mesInicio.until(mes, ChronoUnit.MONTHS);
+                contratosMes[i]++;
+                if (contrato.getMontoRenta() != null) {
+                    proyectadoMes[i] = proyectadoMes[i].add(contrato.getMontoRenta());
+                }
+
+                PagoMensualView pagosDelMes = pagosContrato.get(mes);
+                if (pagosDelMes != null) {
+                    pagosRecibidosMes[i]++;
+                    if (pagosDelMes.montoAplicado() != null) {
+                        cobradoMes[i] = cobradoMes[i].add(pagosDelMes.montoAplicado());
+                    }
+                }
+            }
+        }
+
         List<ProyeccionCobranzaReporteDTO.ProyeccionMesDTO> detalleMensual = new ArrayList<>();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM yyyy", new Locale("es", "ES"));
 
@@ -957,76 +1039,32 @@ public class ReporteService {
         int totalPagosEsperados = 0;
         int totalPagosRecibidos = 0;
 
-        // Agrupar por mes
-        YearMonth mesInicio = YearMonth.from(periodoInicio);
-        YearMonth mesFin = YearMonth.from(periodoFin);
+        for (int i = 0; i < proyectadoMes.length; i++) {
+            LocalDate inicioMes = mesInicio.plusMonths(i).atDay(1);
 
-        YearMonth mesActual = mesInicio;
-        while (!mesActual.isAfter(mesFin)) {
-            LocalDate inicioMes = mesActual.atDay(1);
-            LocalDate finMes = mesActual.atEndOfMonth();
-
-            BigDecimal montoProyectadoMes = BigDecimal.ZERO;
-            BigDecimal montoCobradoMes = BigDecimal.ZERO;
-            int pagosEsperadosMes = 0;
-            int pagosRecibidosMes = 0;
-            int contratosEnMes = 0;
-
-            for (Contrato contrato : contratos) {
-                // Verificar si el contrato está vigente en este mes
-                if (!contrato.getFechaInicio().isAfter(finMes) && !contrato.getFechaFin().isBefore(inicioMes)) {
-                    contratosEnMes++;
-                    pagosEsperadosMes++;
-
-                    // Agregar renta mensual proyectada
-                    if (contrato.getMontoRenta() != null) {
-                        montoProyectadoMes = montoProyectadoMes.add(contrato.getMontoRenta());
-                    }
-
-                    // Buscar pagos realizados en este mes para este contrato
-                    List<Pago> pagosDelMes = pagoRepository.findByContratoIdAndEmpresaId(contrato.getId(), empresaId)
-                            .stream()
-                            .filter(p -> p.getFechaPago() != null &&
-                                    !p.getFechaPago().isBefore(inicioMes) &&
-                                    !p.getFechaPago().isAfter(finMes))
-                            .toList();
-
-                    if (!pagosDelMes.isEmpty()) {
-                        pagosRecibidosMes++;
-                        for (Pago pago : pagosDelMes) {
-                            if (pago.getMontoAplicado() != null) {
-                                montoCobradoMes = montoCobradoMes.add(pago.getMontoAplicado());
-                            }
-                        }
-                    }
-                }
-            }
-
-            BigDecimal diferencia = montoProyectadoMes.subtract(montoCobradoMes);
+            BigDecimal diferencia = proyectadoMes[i].subtract(cobradoMes[i]);
             BigDecimal porcentaje = BigDecimal.ZERO;
-            if (montoProyectadoMes.compareTo(BigDecimal.ZERO) > 0) {
-                porcentaje = montoCobradoMes.multiply(BigDecimal.valueOf(100))
-                        .divide(montoProyectadoMes, 2, RoundingMode.HALF_UP);
+            if (proyectadoMes[i].compareTo(BigDecimal.ZERO) > 0) {
+                porcentaje = cobradoMes[i].multiply(BigDecimal.valueOf(100))
+                        .divide(proyectadoMes[i], 2, RoundingMode.HALF_UP);
             }
 
             detalleMensual.add(ProyeccionCobranzaReporteDTO.ProyeccionMesDTO.builder()
                     .periodo(inicioMes)
                     .mesAnio(inicioMes.format(formatter))
-                    .montoProyectado(montoProyectadoMes)
-                    .montoCobrado(montoCobradoMes)
+                    .montoProyectado(proyectadoMes[i])
+                    .montoCobrado(cobradoMes[i])
                     .diferencia(diferencia)
                     .porcentajeCumplimiento(porcentaje)
-                    .cantidadContratos(contratosEnMes)
-                    .pagosEsperados(pagosEsperadosMes)
-                    .pagosRecibidos(pagosRecibidosMes)
+                    .cantidadContratos(contratosMes[i])
+                    .pagosEsperados(contratosMes[i])
+                    .pagosRecibidos(pagosRecibidosMes[i])
                     .build());
 
-            totalProyectado = totalProyectado.add(montoProyectadoMes);
-            totalCobrado = totalCobrado.add(montoCobradoMes);
-            totalPagosEsperados += pagosEsperadosMes;
-            totalPagosRecibidos += pagosRecibidosMes;
-
-            mesActual = mesActual.plusMonths(1);
+            totalProyectado = totalProyectado.add(proyectadoMes[i]);
+            totalCobrado = totalCobrado.add(cobradoMes[i]);
+            totalPagosEsperados += contratosMes[i];
+            totalPagosRecibidos += pagosRecibidosMes[i];
         }
 
         BigDecimal porcentajeCumplimiento = BigDecimal.ZERO;
@@ -0,0 +1,42 @@
+package com.inmobiliaria.shared;
+
+/**
+ * Formato único del nombre de una persona y de la dirección de una propiedad, para que las
+ * entidades, las proyecciones de reportes y los recibos muestren exactamente el mismo texto.
+ */
+public final class FormatoTexto {
+
+    private FormatoTexto() {
+    }
+
+    /**
+     * Razón social si es persona moral; si no, nombre y apellidos separados por espacio.
+     */
+    public static String nombreCompleto(boolean personaMoral, String razonSocial, String nombre,
+                                        String apellidoPaterno, String apellidoMaterno) {
+        if (personaMoral) {
+            return razonSocial;
+        }
+        StringBuilder sb = new StringBuilder();
+        if (nombre != null) sb.append(nombre);
+        if (apellidoPaterno != null) sb.append(" ").append(apellidoPaterno);
+        if (apellidoMaterno != null) sb.append(" ").append(apellidoMaterno);
+        return sb.toString().trim();
+    }
+
+    /**
+     * Calle y número, colonia, municipio, estado y código postal; se omiten los datos nulos.
+     */
+    public static String direccionCompleta(String calle, String numeroExterior, String numeroInterior,
+                                           String colonia, String municipio, String estado, String codigoPostal) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(calle);
+        if (numeroExterior != null) sb.append(" ").append(numeroExterior);
+        if (numeroInterior != null) sb.append(" Int. ").append(numeroInterior);
+        if (colonia != null) sb.append(", ").append(colonia);
+        if (municipio != null) sb.append(", ").append(municipio);
+        if (estado != null) sb.append(", ").append(estado);
+        if (codigoPostal != null) sb.append(" C.P. ").append(codigoPostal);
+        return sb.toString();
+    }
+}
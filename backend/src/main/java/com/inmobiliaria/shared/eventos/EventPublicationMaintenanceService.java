@@ -0,0 +1,64 @@
+package com.inmobiliaria.shared.eventos;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.modulith.events.CompletedEventPublications;
+import org.springframework.modulith.events.IncompleteEventPublications;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Mantenimiento del registro de publicaciones de eventos (event_publication):
+ * reintenta los listeners que fallaron y purga las publicaciones ya completadas.
+ *
+ * Con varias instancias solo una reintenta en cada ciclo: la que lo toma en la tabla
+ * bloqueo_tareas; las demás lo omiten. Aun así un reintento puede coincidir con un listener lento
+ * que sigue en curso, por eso los listeners deben ser idempotentes y el umbral muy superior a su
+ * duración.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventPublicationMaintenanceService {
+
+    // El ciclo queda tomado casi 5 minutos: los demás nodos lo omiten aunque su cron dispare después
+    private static final String TOMAR_CICLO_SQL =
+            "UPDATE bloqueo_tareas SET bloqueado_hasta = CURRENT_TIMESTAMP + INTERVAL '4 minutes 30 seconds', " +
+            "nodo = ? WHERE nombre = 'reintento_eventos' AND bloqueado_hasta <= CURRENT_TIMESTAMP";
+
+    private final IncompleteEventPublications incompleteEventPublications;
+    private final CompletedEventPublications completedEventPublications;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${HOSTNAME:local}")
+    private String nodo;
+
+    @Value("${app.eventos.reintento-minutos:30}")
+    private long reintentoMinutos;
+
+    @Value("${app.eventos.retencion-dias:7}")
+    private long retencionDias;
+
+    /**
+     * Reenvía las publicaciones que siguen incompletas después del tiempo de gracia
+     * (el listener falló o la instancia se detuvo antes de procesarlas).
+     */
+    @Scheduled(cron = "0 */5 * * * *")
+    public void reintentarIncompletas() {
+        if (jdbcTemplate.update(TOMAR_CICLO_SQL, nodo) == 0) {
+            log.debug("Otra instancia tomó este ciclo de reintento de publicaciones");
+            return;
+        }
+        incompleteEventPublications.resubmitIncompletePublicationsOlderThan(Duration.ofMinutes(reintentoMinutos));
+    }
+
+    @Scheduled(cron = "0 15 3 * * *")
+    public void purgarCompletadas() {
+        completedEventPublications.deletePublicationsOlderThan(Duration.ofDays(retencionDias));
+        log.info("Publicaciones de eventos completadas con más de {} días eliminadas", retencionDias);
+    }
+}
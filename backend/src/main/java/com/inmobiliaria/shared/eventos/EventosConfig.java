@@ -0,0 +1,14 @@
+package com.inmobiliaria.shared.eventos;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Los listeners {@code @ApplicationModuleListener} se ejecutan de forma asíncrona, después del
+ * commit y en su propia transacción. Cada publicación queda registrada en la tabla
+ * event_publication hasta que el listener termina, de modo que un fallo o reinicio no pierde eventos.
+ */
+@Configuration
+@EnableAsync
+public class EventosConfig {
+}
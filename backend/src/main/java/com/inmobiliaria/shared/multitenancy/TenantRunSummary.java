@@ -0,0 +1,62 @@
+package com.inmobiliaria.shared.multitenancy;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Resumen de una ejecución de {@link TenantTaskExecutor}: resultado y latencia por empresa.
+ */
+public record TenantRunSummary<R>(
+        String process,
+        LocalDateTime startedAt,
+        long durationMs,
+        List<TenantResult<R>> results
+) {
+
+    public enum Status {
+        SUCCESS,
+        FAILED,
+        TIMED_OUT
+    }
+
+    /**
+     * @param waitMs    tiempo en cola esperando un permiso de concurrencia
+     * @param latencyMs tiempo de ejecución de la tarea de la empresa
+     */
+    public record TenantResult<R>(
+            Long empresaId,
+            Status status,
+            R result,
+            String error,
+            long waitMs,
+            long latencyMs
+    ) {}
+
+    public long count(Status status) {
+        return results.stream().filter(r -> r.status() == status).count();
+    }
+
+    public long maxLatencyMs() {
+        return results.stream().mapToLong(TenantResult::latencyMs).max().orElse(0);
+    }
+
+    public long latencyPercentileMs(double percentile) {
+        List<Long> latencias = results.stream()
+                .map(TenantResult::latencyMs)
+                .sorted(Comparator.naturalOrder())
+                .toList();
+        if (latencias.isEmpty()) {
+            return 0;
+        }
+        int indice = (int) Math.ceil(percentile / 100.0 * latencias.size()) - 1;
+        return latencias.get(Math.max(indice, 0));
+    }
+
+    public List<R> successfulResults() {
+        return results.stream()
+                .filter(r -> r.status() == Status.SUCCESS)
+                .map(TenantResult::result)
+                .toList();
+    }
+}
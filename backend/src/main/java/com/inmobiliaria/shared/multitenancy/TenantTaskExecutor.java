@@ -0,0 +1,130 @@
+package com.inmobiliaria.shared.multitenancy;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Ejecuta una tarea por empresa en hilos virtuales para los procesos programados.
+ *
+ * - Cada tarea corre con TenantContext establecido para su empresa y se limpia al terminar.
+ * - Un semáforo limita cuántas empresas se procesan a la vez, para no agotar el pool de conexiones.
+ * - Si una tarea excede el timeout por empresa se interrumpe su hilo y se registra como TIMED_OUT;
+ *   conserva su permiso hasta terminar para que el límite de conexiones se respete.
+ * - Un error en una empresa no detiene a las demás.
+ *
+ * Las transacciones no se propagan entre hilos: cada tarea debe abrir la suya.
+ */
+@Component
+@Slf4j
+public class TenantTaskExecutor {
+
+    private final Semaphore permits;
+    private final long tenantTimeoutMs;
+    private final ScheduledExecutorService watchdog;
+
+    public TenantTaskExecutor(@Value("${app.tenants.executor.max-concurrency:4}") int maxConcurrency,
+                              @Value("${app.tenants.executor.tenant-timeout-seconds:300}") long tenantTimeoutSeconds) {
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.tenantTimeoutMs = TimeUnit.SECONDS.toMillis(tenantTimeoutSeconds);
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tenant-timeout-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * Ejecuta la tarea para cada empresa y espera a que todas terminen.
+     */
+    public <R> TenantRunSummary<R> forEachTenant(String process, Collection<Long> empresaIds, Function<Long, R> task) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long inicio = System.nanoTime();
+
+        List<Future<TenantRunSummary.TenantResult<R>>> futures = new ArrayList<>(empresaIds.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Long empresaId : empresaIds) {
+                futures.add(executor.submit(() -> runTenant(process, empresaId, task)));
+            }
+        }
+
+        List<TenantRunSummary.TenantResult<R>> results = new ArrayList<>(futures.size());
+        for (Future<TenantRunSummary.TenantResult<R>> future : futures) {
+            results.add(future.resultNow());
+        }
+
+        TenantRunSummary<R> summary = new TenantRunSummary<>(process, startedAt,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio), results);
+
+        log.info("{}: {} empresas en {} ms ({} ok, {} con error, {} por timeout); latencia p50 {} ms, p95 {} ms, máx {} ms",
+                process, results.size(), summary.durationMs(),
+                summary.count(TenantRunSummary.Status.SUCCESS),
+                summary.count(TenantRunSummary.Status.FAILED),
+                summary.count(TenantRunSummary.Status.TIMED_OUT),
+                summary.latencyPercentileMs(50), summary.latencyPercentileMs(95), summary.maxLatencyMs());
+        return summary;
+    }
+
+    private <R> TenantRunSummary.TenantResult<R> runTenant(String process, Long empresaId, Function<Long, R> task) {
+        long encolado = System.nanoTime();
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new TenantRunSummary.TenantResult<>(empresaId, TenantRunSummary.Status.FAILED, null,
+                    "Interrumpido esperando turno", elapsedMs(encolado), 0);
+        }
+
+        long inicio = System.nanoTime();
+        long waitMs = TimeUnit.NANOSECONDS.toMillis(inicio - encolado);
+        Thread worker = Thread.currentThread();
+        AtomicBoolean timedOut = new AtomicBoolean(false);
+        ScheduledFuture<?> timeout = watchdog.schedule(() -> {
+            timedOut.set(true);
+            worker.interrupt();
+        }, tenantTimeoutMs, TimeUnit.MILLISECONDS);
+
+        try {
+            TenantContext.setCurrentTenant(empresaId);
+            R result = task.apply(empresaId);
+            if (timedOut.get()) {
+                // Terminó pero después del límite
+                return new TenantRunSummary.TenantResult<>(empresaId, TenantRunSummary.Status.TIMED_OUT, result,
+                        "Excedió " + tenantTimeoutMs + " ms", waitMs, elapsedMs(inicio));
+            }
+            return new TenantRunSummary.TenantResult<>(empresaId, TenantRunSummary.Status.SUCCESS, result,
+                    null, waitMs, elapsedMs(inicio));
+        } catch (Exception e) {
+            TenantRunSummary.Status status = timedOut.get()
+                    ? TenantRunSummary.Status.TIMED_OUT
+                    : TenantRunSummary.Status.FAILED;
+            log.error("{}: error en empresa {} ({}): {}", process, empresaId, status, e.getMessage());
+            return new TenantRunSummary.TenantResult<>(empresaId, status, null, e.getMessage(),
+                    waitMs, elapsedMs(inicio));
+        } finally {
+            timeout.cancel(false);
+            TenantContext.clear();
+            // Limpiar una interrupción del watchdog que llegó justo al terminar
+            Thread.interrupted();
+            permits.release();
+        }
+    }
+
+    private long elapsedMs(long desde) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - desde);
+    }
+}
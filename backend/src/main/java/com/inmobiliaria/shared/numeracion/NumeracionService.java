@@ -0,0 +1,116 @@
+package com.inmobiliaria.shared.numeracion;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.stream.LongStream;
+
+/**
+ * Asigna folios consecutivos por empresa y serie desde la tabla secuencias_documento.
+ *
+ * Cada asignación es un solo UPSERT ... RETURNING sobre el renglón de la serie, así que dos
+ * transacciones concurrentes nunca obtienen el mismo número (a diferencia de contar renglones
+ * o tomar el MAX del folio). Las series con bloque mayor a 1 reservan varios números a la vez
+ * y los reparten desde memoria; ver {@link SerieDocumento}.
+ */
+@Service
+public class NumeracionService {
+
+    private static final String RESERVAR_SQL =
+            "INSERT INTO secuencias_documento (empresa_id, serie, ultimo_valor) VALUES (?, ?, ?) " +
+            "ON CONFLICT (empresa_id, serie) DO UPDATE " +
+            "SET ultimo_valor = secuencias_documento.ultimo_valor + EXCLUDED.ultimo_valor, " +
+            "updated_at = CURRENT_TIMESTAMP " +
+            "RETURNING ultimo_valor";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccionBloque;
+    private final Map<LlaveSerie, BloqueFolios> bloques = new ConcurrentHashMap<>();
+
+    public NumeracionService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccionBloque = new TransactionTemplate(transactionManager);
+        this.transaccionBloque.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Siguiente folio de la serie para la empresa.
+     * En series sin bloque el renglón del contador queda bloqueado hasta que termina la
+     * transacción que llama, por lo que el folio se libera si el documento no se guarda.
+     */
+    @Transactional
+    public long siguiente(Long empresaId, SerieDocumento serie) {
+        if (serie.getTamanoBloque() <= 1) {
+            return reservar(empresaId, serie, 1);
+        }
+        return bloques.computeIfAbsent(new LlaveSerie(empresaId, serie), llave -> new BloqueFolios())
+                .siguiente(() -> transaccionBloque.execute(status ->
+                        reservar(empresaId, serie, serie.getTamanoBloque())), serie.getTamanoBloque());
+    }
+
+    /**
+     * Varios folios consecutivos de una vez, para altas masivas.
+     * En series sin bloque es una sola actualización del contador.
+     */
+    @Transactional
+    public List<Long> siguientes(Long empresaId, SerieDocumento serie, int cantidad) {
+        if (cantidad <= 0) {
+            return List.of();
+        }
+        if (serie.getTamanoBloque() <= 1) {
+            long ultimo = reservar(empresaId, serie, cantidad);
+            return LongStream.rangeClosed(ultimo - cantidad + 1, ultimo).boxed().toList();
+        }
+        List<Long> folios = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            folios.add(siguiente(empresaId, serie));
+        }
+        return folios;
+    }
+
+    /**
+     * Reserva {@code cantidad} números y devuelve el último de ellos.
+     */
+    private long reservar(Long empresaId, SerieDocumento serie, int cantidad) {
+        Long ultimo = jdbcTemplate.queryForObject(RESERVAR_SQL, Long.class, empresaId, serie.name(), cantidad);
+        if (ultimo == null) {
+            throw new IllegalStateException("No se pudo asignar folio para la serie " + serie);
+        }
+        return ultimo;
+    }
+
+    private record LlaveSerie(Long empresaId, SerieDocumento serie) {}
+
+    /**
+     * Rango de folios reservado en memoria para una empresa y serie.
+     * Usa ReentrantLock en lugar de synchronized para no fijar hilos virtuales durante la consulta.
+     */
+    private static final class BloqueFolios {
+        private final ReentrantLock lock = new ReentrantLock();
+        private long siguiente = 1;
+        private long limite = 0;
+
+        long siguiente(LongSupplier reservarBloque, int tamanoBloque) {
+            lock.lock();
+            try {
+                if (siguiente > limite) {
+                    limite = reservarBloque.getAsLong();
+                    siguiente = limite - tamanoBloque + 1;
+                }
+                return siguiente++;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.inmobiliaria.shared.numeracion;
+
+/**
+ * Series de folios por empresa.
+ *
+ * Con tamanoBloque = 1 el folio se toma dentro de la transacción del documento y la serie
+ * queda sin huecos. Con un bloque mayor los folios se reservan por adelantado en una
+ * transacción aparte: no hay espera entre hilos, pero un rollback o un reinicio deja huecos.
+ */
+public enum SerieDocumento {
+    CONTRATO(1),
+    RECIBO(1),
+    ORDEN_MANTENIMIENTO(20);
+
+    private final int tamanoBloque;
+
+    SerieDocumento(int tamanoBloque) {
+        this.tamanoBloque = tamanoBloque;
+    }
+
+    public int getTamanoBloque() {
+        return tamanoBloque;
+    }
+}
@@ -0,0 +1,6 @@
+-- V13: Índice para obtener la última gestión de cobranza por cartera en una sola pasada
+
+-- Soporta SELECT DISTINCT ON (cartera_vencida_id) ... ORDER BY cartera_vencida_id, fecha_contacto DESC
+CREATE INDEX idx_seguimiento_cartera_fecha_activo
+    ON seguimiento_cobranza(empresa_id, cartera_vencida_id, fecha_contacto DESC, id DESC)
+    WHERE activo = TRUE;
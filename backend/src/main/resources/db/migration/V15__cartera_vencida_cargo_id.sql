@@ -0,0 +1,20 @@
+-- Vínculo directo entre la cartera vencida y el cargo que la originó
+ALTER TABLE cartera_vencida ADD COLUMN cargo_id BIGINT REFERENCES cargos(id);
+
+-- Vincular la cartera existente con la misma llave que usaba la sincronización
+-- (contrato, concepto, fecha de vencimiento); si hay cargos repetidos se toma el primero
+UPDATE cartera_vencida cv
+SET cargo_id = c.id
+FROM (
+    SELECT DISTINCT ON (empresa_id, contrato_id, concepto, fecha_vencimiento)
+           id, empresa_id, contrato_id, concepto, fecha_vencimiento
+    FROM cargos
+    ORDER BY empresa_id, contrato_id, concepto, fecha_vencimiento, id
+) c
+WHERE cv.cargo_id IS NULL
+  AND c.empresa_id = cv.empresa_id
+  AND c.contrato_id = cv.contrato_id
+  AND c.concepto = cv.concepto
+  AND c.fecha_vencimiento = cv.fecha_vencimiento;
+
+CREATE INDEX idx_cartera_vencida_cargo ON cartera_vencida(cargo_id);
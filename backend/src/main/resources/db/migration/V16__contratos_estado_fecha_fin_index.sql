@@ -0,0 +1,4 @@
+-- Transiciones de estado por fecha de fin (POR_VENCER / VENCIDO) de contratos activos
+CREATE INDEX idx_contratos_empresa_estado_fecha_fin_activo
+    ON contratos(empresa_id, estado, fecha_fin)
+    WHERE activo = TRUE;
@@ -0,0 +1,23 @@
+-- Contadores de folios por empresa y serie (contratos, recibos, órdenes de mantenimiento)
+CREATE TABLE secuencias_documento (
+    empresa_id BIGINT NOT NULL REFERENCES empresas(id),
+    serie VARCHAR(50) NOT NULL,
+    ultimo_valor BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (empresa_id, serie)
+);
+
+-- Continuar a partir de los folios ya emitidos para no repetir números
+INSERT INTO secuencias_documento (empresa_id, serie, ultimo_valor)
+SELECT empresa_id, 'CONTRATO',
+       MAX(CAST(SUBSTRING(numero_contrato FROM '^CTR-[0-9]{6}-([0-9]+)$') AS BIGINT))
+FROM contratos
+WHERE numero_contrato ~ '^CTR-[0-9]{6}-[0-9]+$'
+GROUP BY empresa_id;
+
+INSERT INTO secuencias_documento (empresa_id, serie, ultimo_valor)
+SELECT empresa_id, 'RECIBO',
+       MAX(CAST(SUBSTRING(numero_recibo FROM '^REC-([0-9]+)$') AS BIGINT))
+FROM pagos
+WHERE numero_recibo ~ '^REC-[0-9]+$'
+GROUP BY empresa_id;
@@ -0,0 +1,19 @@
+-- Un solo cargo fijo por contrato, tipo y periodo (protege la generación mensual de rentas
+-- contra ejecuciones concurrentes o repetidas)
+
+-- Cargos fijos repetidos de ejecuciones anteriores: se conserva el primero como fijo y los demás
+-- quedan como cargos normales, sin tocar montos ni pagos aplicados
+UPDATE cargos SET es_cargo_fijo = FALSE
+WHERE id IN (
+    SELECT id FROM (
+        SELECT id, ROW_NUMBER() OVER (
+                   PARTITION BY contrato_id, tipo_cargo, periodo_anio, periodo_mes ORDER BY id) AS n
+        FROM cargos
+        WHERE es_cargo_fijo = TRUE AND periodo_anio IS NOT NULL AND periodo_mes IS NOT NULL
+    ) repetidos
+    WHERE repetidos.n > 1
+);
+
+CREATE UNIQUE INDEX uk_cargos_contrato_tipo_periodo
+    ON cargos(contrato_id, tipo_cargo, periodo_anio, periodo_mes)
+    WHERE es_cargo_fijo = TRUE;
@@ -0,0 +1,31 @@
+-- Saldos precalculados por contrato. Se actualizan en la misma transacción que modifica
+-- los cargos o pagos del contrato (SaldoContratoService) y pueden reconstruirse desde cero.
+CREATE TABLE saldo_contrato (
+    contrato_id BIGINT PRIMARY KEY REFERENCES contratos(id),
+    empresa_id BIGINT NOT NULL REFERENCES empresas(id),
+    total_cargos DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    total_pagado DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    saldo_pendiente DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    saldo_vencido DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    cargos_pendientes INTEGER NOT NULL DEFAULT 0,
+    cargos_vencidos INTEGER NOT NULL DEFAULT 0,
+    fecha_ultimo_pago DATE,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_saldo_contrato_empresa_id ON saldo_contrato(empresa_id);
+
+-- Carga inicial con los cargos y pagos existentes (los cargos cancelados no cuentan)
+INSERT INTO saldo_contrato (contrato_id, empresa_id, total_cargos, total_pagado, saldo_pendiente,
+                            saldo_vencido, cargos_pendientes, cargos_vencidos, fecha_ultimo_pago)
+SELECT co.id, co.empresa_id,
+       COALESCE(SUM(c.monto_original), 0),
+       COALESCE(SUM(c.monto_pagado), 0),
+       COALESCE(SUM(c.monto_pendiente) FILTER (WHERE c.estado IN ('PENDIENTE', 'PARCIAL', 'VENCIDO')), 0),
+       COALESCE(SUM(c.monto_pendiente) FILTER (WHERE c.estado = 'VENCIDO'), 0),
+       COUNT(c.id) FILTER (WHERE c.estado IN ('PENDIENTE', 'PARCIAL', 'VENCIDO')),
+       COUNT(c.id) FILTER (WHERE c.estado = 'VENCIDO'),
+       (SELECT MAX(p.fecha_pago) FROM pagos p WHERE p.contrato_id = co.id AND p.estado <> 'CANCELADO')
+FROM contratos co
+LEFT JOIN cargos c ON c.contrato_id = co.id AND c.estado <> 'CANCELADO'
+GROUP BY co.id, co.empresa_id;
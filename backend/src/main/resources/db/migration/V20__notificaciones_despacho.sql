@@ -0,0 +1,10 @@
+-- Despacho de notificaciones desde varias instancias: cada lote se reclama con
+-- FOR UPDATE SKIP LOCKED y queda en ENVIANDO hasta registrar el resultado.
+ALTER TABLE notificaciones ADD COLUMN en_envio_desde TIMESTAMP;
+ALTER TABLE notificaciones ADD COLUMN nodo_envio VARCHAR(100);
+
+-- Cola de pendientes en el orden en que se reclaman
+CREATE INDEX idx_notificaciones_pendientes ON notificaciones(id) WHERE estado = 'PENDIENTE';
+
+-- Reclamos de instancias que se detuvieron antes de registrar el resultado
+CREATE INDEX idx_notificaciones_en_envio ON notificaciones(en_envio_desde) WHERE estado = 'ENVIANDO';
@@ -0,0 +1,7 @@
+-- Reintentos de notificaciones fallidas con espera exponencial: una notificación FALLIDA con
+-- proximo_intento vuelve a PENDIENTE al llegar esa fecha; sin proximo_intento ya agotó sus intentos.
+ALTER TABLE notificaciones ADD COLUMN proximo_intento TIMESTAMP;
+
+-- Reintentos vencidos, consultados en cada ciclo del despachador
+CREATE INDEX idx_notificaciones_reintento ON notificaciones(proximo_intento)
+    WHERE estado = 'FALLIDA' AND proximo_intento IS NOT NULL;
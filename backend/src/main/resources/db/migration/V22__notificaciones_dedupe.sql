@@ -0,0 +1,9 @@
+-- Alertas diarias idempotentes: cada notificación automática lleva una clave
+-- (categoría, canal, persona, referencia, día) y una segunda ejecución del mismo día no la duplica.
+-- Las notificaciones manuales no tienen clave (los NULL no chocan en el UNIQUE).
+ALTER TABLE notificaciones ADD COLUMN clave_dedupe VARCHAR(200);
+ALTER TABLE notificaciones ADD CONSTRAINT uk_notificaciones_dedupe UNIQUE (empresa_id, clave_dedupe);
+
+-- Última notificación por persona y referencia, cargada una vez por empresa y categoría
+CREATE INDEX idx_notificaciones_empresa_categoria_fecha
+    ON notificaciones(empresa_id, categoria, fecha_creacion);
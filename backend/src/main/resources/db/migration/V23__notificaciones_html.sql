@@ -0,0 +1,2 @@
+-- Correos generados con una plantilla HTML se envían como text/html
+ALTER TABLE notificaciones ADD COLUMN html BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,14 @@
+-- Un solo registro activo de cartera por cargo (la conciliación empareja 1 a 1 por cargo_id).
+-- Si ya hay duplicados activos se conserva el más antiguo y se desactivan los demás.
+UPDATE cartera_vencida SET activo = FALSE, updated_at = CURRENT_TIMESTAMP
+WHERE id IN (
+    SELECT id FROM (
+        SELECT id, ROW_NUMBER() OVER (PARTITION BY cargo_id ORDER BY id) AS fila
+        FROM cartera_vencida
+        WHERE activo = TRUE AND cargo_id IS NOT NULL
+    ) duplicados
+    WHERE fila > 1
+);
+
+CREATE UNIQUE INDEX uk_cartera_vencida_cargo_activo ON cartera_vencida(cargo_id)
+    WHERE activo = TRUE AND cargo_id IS NOT NULL;
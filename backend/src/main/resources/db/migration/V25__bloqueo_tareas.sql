@@ -0,0 +1,9 @@
+-- Tareas programadas que deben correr en una sola instancia por ciclo: la instancia que
+-- actualiza bloqueado_hasta toma el ciclo y las demás lo omiten.
+CREATE TABLE bloqueo_tareas (
+    nombre VARCHAR(100) PRIMARY KEY,
+    bloqueado_hasta TIMESTAMP NOT NULL,
+    nodo VARCHAR(100)
+);
+
+INSERT INTO bloqueo_tareas (nombre, bloqueado_hasta) VALUES ('reintento_eventos', CURRENT_TIMESTAMP);
@@ -0,0 +1,6 @@
+-- Generación del cache de reportes por empresa, compartida entre instancias: al invalidar se
+-- incrementa y cada instancia descarta las entradas guardadas con una generación anterior.
+CREATE TABLE reporte_cache_generaciones (
+    empresa_id BIGINT PRIMARY KEY,
+    generacion BIGINT NOT NULL
+);
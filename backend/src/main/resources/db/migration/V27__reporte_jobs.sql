@@ -0,0 +1,28 @@
+-- Trabajos de reporte en segundo plano, compartidos por todas las instancias: cualquiera puede
+-- consultar o descargar un trabajo, y los PENDIENTE los reclama la instancia que tenga lugar.
+-- El archivo generado se guarda en el directorio compartido app.reportes.jobs.dir.
+CREATE TABLE reporte_jobs (
+    id VARCHAR(36) PRIMARY KEY,
+    empresa_id BIGINT NOT NULL,
+    tipo VARCHAR(30) NOT NULL,
+    formato VARCHAR(10) NOT NULL,
+    parametros TEXT NOT NULL,
+    -- SHA-256 de parametros: dos solicitudes iguales comparten el trabajo mientras esté en curso
+    clave_parametros VARCHAR(64) NOT NULL,
+    estado VARCHAR(20) NOT NULL,
+    nodo VARCHAR(100),
+    fecha_creacion TIMESTAMP NOT NULL,
+    fecha_inicio TIMESTAMP,
+    fecha_fin TIMESTAMP,
+    fecha_expiracion TIMESTAMP,
+    archivo VARCHAR(100),
+    nombre_archivo VARCHAR(100),
+    error_mensaje TEXT
+);
+
+CREATE UNIQUE INDEX uk_reporte_jobs_en_curso ON reporte_jobs(empresa_id, tipo, clave_parametros)
+    WHERE estado IN ('PENDIENTE', 'EN_PROCESO');
+
+CREATE INDEX idx_reporte_jobs_pendientes ON reporte_jobs(fecha_creacion) WHERE estado = 'PENDIENTE';
+
+CREATE INDEX idx_reporte_jobs_expiracion ON reporte_jobs(fecha_expiracion) WHERE fecha_expiracion IS NOT NULL;
@@ -0,0 +1,107 @@
+package com.inmobiliaria.cobranza;
+
+import com.inmobiliaria.cobranza.domain.CarteraVencida;
+import com.inmobiliaria.cobranza.service.ConciliacionMorosidad;
+import com.inmobiliaria.cobranza.service.ConciliacionMorosidad.CargoConciliable;
+import com.inmobiliaria.cobranza.service.ConciliacionMorosidad.CarteraActiva;
+import com.inmobiliaria.pago.EstadoCargo;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConciliacionMorosidadTest {
+
+    private static final LocalDate VENCIMIENTO = LocalDate.of(2024, 5, 5);
+
+    @Test
+    void calcular_shouldCreateCarteraForUnmatchedCargo() {
+        CargoConciliable cargo = cargo(10L, "Renta mayo", EstadoCargo.PENDIENTE, "8000.00");
+
+        ConciliacionMorosidad.Plan plan = ConciliacionMorosidad.calcular(List.of(), List.of(cargo));
+
+        assertThat(plan.nuevos()).containsExactly(cargo);
+        assertThat(plan.actualizaciones()).isEmpty();
+        assertThat(plan.desactivaciones()).isEmpty();
+    }
+
+    @Test
+    void calcular_shouldUpdateMontoAndLinkLegacyRowByKey() {
+        CarteraActiva legado = cartera(1L, null, "Renta mayo", "8000.00");
+        CargoConciliable cargo = cargo(10L, "Renta mayo", EstadoCargo.PARCIAL, "3000.00");
+
+        ConciliacionMorosidad.Plan plan = ConciliacionMorosidad.calcular(List.of(legado), List.of(cargo));
+
+        assertThat(plan.nuevos()).isEmpty();
+        assertThat(plan.actualizados()).isEqualTo(1);
+        assertThat(plan.actualizaciones()).containsExactly(new ConciliacionMorosidad.Actualizacion(
+                1L, 10L, new BigDecimal("3000.00"), CarteraVencida.EstadoCobranza.PARCIALMENTE_PAGADO));
+    }
+
+    @Test
+    void calcular_shouldCountUnchangedRowsAndOnlyLinkWhenNeeded() {
+        CarteraActiva vinculado = cartera(1L, 10L, "Renta mayo", "8000.00");
+        CarteraActiva legado = cartera(2L, null, "Mantenimiento mayo", "500.00");
+        CargoConciliable renta = cargo(10L, "Renta mayo", EstadoCargo.PENDIENTE, "8000.0");
+        CargoConciliable mantenimiento = cargo(11L, "Mantenimiento mayo", EstadoCargo.PENDIENTE, "500.00");
+
+        ConciliacionMorosidad.Plan plan = ConciliacionMorosidad.calcular(
+                List.of(vinculado, legado), List.of(renta, mantenimiento));
+
+        assertThat(plan.sinCambios()).isEqualTo(2);
+        assertThat(plan.actualizados()).isZero();
+        assertThat(plan.actualizaciones()).containsExactly(new ConciliacionMorosidad.Actualizacion(
+                2L, 11L, new BigDecimal("500.00"), null));
+    }
+
+    @Test
+    void calcular_shouldDeactivateRowsWhoseCargoWasPaid() {
+        CarteraActiva vinculado = cartera(1L, 10L, "Renta mayo", "8000.00");
+        CarteraActiva legado = cartera(2L, null, "Renta abril", "8000.00");
+        CarteraActiva vigente = cartera(3L, 12L, "Renta junio", "8000.00");
+
+        ConciliacionMorosidad.Plan plan = ConciliacionMorosidad.calcular(
+                List.of(vinculado, legado, vigente),
+                List.of(cargo(10L, "Renta mayo", EstadoCargo.PAGADO, "0"),
+                        cargo(11L, "Renta abril", EstadoCargo.PAGADO, "0")));
+
+        assertThat(plan.desactivaciones()).containsExactly(1L, 2L);
+        assertThat(plan.nuevos()).isEmpty();
+    }
+
+    @Test
+    void calcular_shouldNotMatchTwoCargosToTheSameRow() {
+        CarteraActiva legado = cartera(1L, null, "Renta mayo", "8000.00");
+        CargoConciliable primero = cargo(10L, "Renta mayo", EstadoCargo.PENDIENTE, "8000.00");
+        CargoConciliable duplicado = cargo(11L, "Renta mayo", EstadoCargo.PENDIENTE, "8000.00");
+
+        ConciliacionMorosidad.Plan plan = ConciliacionMorosidad.calcular(
+                List.of(legado), List.of(primero, duplicado));
+
+        assertThat(plan.nuevos()).containsExactly(duplicado);
+        assertThat(plan.sinCambios()).isEqualTo(1);
+    }
+
+    @Test
+    void calcularPenalidad_shouldDiscountDiasGracia() {
+        CargoConciliable cargo = new CargoConciliable(10L, 100L, "Renta mayo", VENCIMIENTO, EstadoCargo.PENDIENTE,
+                new BigDecimal("8000.00"), new BigDecimal("8000.00"), 20L, 30L, new BigDecimal("50.00"), 5);
+
+        assertThat(ConciliacionMorosidad.calcularPenalidad(cargo, VENCIMIENTO.plusDays(3)))
+                .isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(ConciliacionMorosidad.calcularPenalidad(cargo, VENCIMIENTO.plusDays(15)))
+                .isEqualByComparingTo("500.00");
+    }
+
+    private CarteraActiva cartera(Long id, Long cargoId, String concepto, String montoPendiente) {
+        return new CarteraActiva(id, cargoId, 100L, concepto, VENCIMIENTO, new BigDecimal(montoPendiente));
+    }
+
+    private CargoConciliable cargo(Long id, String concepto, EstadoCargo estado, String montoPendiente) {
+        return new CargoConciliable(id, 100L, concepto, VENCIMIENTO, estado, new BigDecimal("8000.00"),
+                new BigDecimal(montoPendiente), 20L, 30L, null, null);
+    }
+}
@@ -0,0 +1,126 @@
+package com.inmobiliaria.cobranza;
+
+import com.inmobiliaria.cobranza.service.ConciliacionMorosidad.CargoConciliable;
+import com.inmobiliaria.cobranza.service.ConciliacionMorosidad.CarteraActiva;
+import com.inmobiliaria.cobranza.service.MorosidadAutomaticaService;
+import com.inmobiliaria.cobranza.service.MorosidadAutomaticaService.SincronizacionResult;
+import com.inmobiliaria.empresa.EmpresaRepository;
+import com.inmobiliaria.pago.EstadoCargo;
+import com.inmobiliaria.shared.multitenancy.TenantTaskExecutor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class MorosidadAutomaticaServiceTest {
+
+    private static final LocalDate VENCIMIENTO = LocalDate.now().minusDays(20);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private EmpresaRepository empresaRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TenantTaskExecutor tenantTaskExecutor;
+
+    @InjectMocks
+    private MorosidadAutomaticaService morosidadService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sincronizarCargos_shouldInsertarVencidosYDesactivarPagados() {
+        stubCartera(List.of(new CarteraActiva(1L, 20L, 100L, "Renta abril", VENCIMIENTO, new BigDecimal("8000.00"))));
+        stubCargos(List.of(
+                cargo(10L, "Renta mayo", EstadoCargo.VENCIDO),
+                cargo(20L, "Renta abril", EstadoCargo.PAGADO)));
+        stubInsert(new int[][]{{1}});
+
+        SincronizacionResult result = morosidadService.sincronizarCargos(1L, List.of(10L, 20L, 10L));
+
+        assertThat(result.nuevosRegistros()).isEqualTo(1);
+        assertThat(result.desactivados()).isEqualTo(1);
+
+        // La empresa se bloquea antes de leer la cartera
+        verify(jdbcTemplate).queryForObject(contains("pg_advisory_xact_lock"), eq(Integer.class), eq(1));
+        ArgumentCaptor<Collection<Long>> desactivados = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE cartera_vencida SET estado_cobranza = 'PAGADO'"),
+                desactivados.capture(), anyInt(), any());
+        assertThat(desactivados.getValue()).containsExactly(1L);
+        verify(eventPublisher).publishEvent(any(CarteraVencidaModificadaEvent.class));
+    }
+
+    @Test
+    void sincronizarCargos_shouldOmitirCargoConCarteraActivaInsertadaEnParalelo() {
+        // Otra sincronización insertó la cartera del cargo entre la lectura y el INSERT
+        stubCartera(List.of());
+        stubCargos(List.of(cargo(10L, "Renta mayo", EstadoCargo.VENCIDO)));
+        stubInsert(new int[][]{{0}});
+
+        SincronizacionResult result = morosidadService.sincronizarCargos(1L, List.of(10L));
+
+        assertThat(result.nuevosRegistros()).isZero();
+        assertThat(result.conCambios()).isFalse();
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void sincronizarCargos_shouldNoHacerNadaSinCargos() {
+        SincronizacionResult result = morosidadService.sincronizarCargos(1L, List.of());
+
+        assertThat(result.conCambios()).isFalse();
+        verifyNoInteractions(jdbcTemplate, eventPublisher);
+    }
+
+    private void stubCartera(List<CarteraActiva> cartera) {
+        doReturn(cartera).when(jdbcTemplate)
+                .query(startsWith("SELECT cv.id"), any(RowMapper.class), any(Object[].class));
+    }
+
+    private void stubCargos(List<CargoConciliable> cargos) {
+        doReturn(cargos).when(jdbcTemplate)
+                .query(startsWith("SELECT c.id"), any(RowMapper.class), any(Object[].class));
+    }
+
+    private void stubInsert(int[][] resultado) {
+        doReturn(resultado).when(jdbcTemplate)
+                .batchUpdate(startsWith("INSERT INTO cartera_vencida"), anyCollection(), anyInt(), any());
+    }
+
+    private CargoConciliable cargo(Long id, String concepto, EstadoCargo estado) {
+        BigDecimal pendiente = estado == EstadoCargo.PAGADO ? BigDecimal.ZERO : new BigDecimal("8000.00");
+        return new CargoConciliable(id, 100L, concepto, VENCIMIENTO, estado, new BigDecimal("8000.00"),
+                pendiente, 20L, 30L, null, null);
+    }
+}
@@ -9,6 +9,8 @@ import com.inmobiliaria.catalogo.TipoPropiedad;
 import com.inmobiliaria.contrato.dto.ContratoDTO;
 import com.inmobiliaria.contrato.dto.CreateContratoRequest;
 import com.inmobiliaria.shared.multitenancy.TenantContext;
+import com.inmobiliaria.shared.numeracion.NumeracionService;
+import com.inmobiliaria.shared.numeracion.SerieDocumento;
 import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -40,6 +42,10 @@ class ContratoServiceTest {
     private PropiedadRepository propiedadRepository;
     @Mock
     private PersonaRepository personaRepository;
+    @Mock
+    private ContratoTransicionService contratoTransicionService;
+    @Mock
+    private NumeracionService numeracionService;
 
     @InjectMocks
     private ContratoService contratoService;
@@ -147,12 +153,13 @@ class ContratoServiceTest {
                 .thenReturn(Optional.of(arrendatario));
         when(contratoRepository.findContratoActivoByPropiedad(EMPRESA_ID, 1L))
                 .thenReturn(Optional.empty());
+        when(numeracionService.siguiente(EMPRESA_ID, SerieDocumento.CONTRATO)).thenReturn(12L);
         when(contratoRepository.save(any(Contrato.class))).thenReturn(contrato);
 
         ContratoDTO result = contratoService.createContrato(request);
 
         assertThat(result).isNotNull();
-        verify(contratoRepository).save(any(Contrato.class));
+        verify(contratoRepository).save(argThat(c -> c.getNumeroContrato().endsWith("-0012")));
     }
 
     @Test
@@ -0,0 +1,119 @@
+package com.inmobiliaria.notificacion.service;
+
+import com.inmobiliaria.cobranza.dto.CarteraVencidaDTO;
+import com.inmobiliaria.cobranza.service.CobranzaService;
+import com.inmobiliaria.contrato.ContratoRepository;
+import com.inmobiliaria.notificacion.domain.CategoriaNotificacion;
+import com.inmobiliaria.notificacion.domain.ConfiguracionNotificacion;
+import com.inmobiliaria.notificacion.repository.ConfiguracionNotificacionRepository;
+import com.inmobiliaria.shared.multitenancy.TenantTaskExecutor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AlertSchedulerServiceTest {
+
+    @Mock
+    private ConfiguracionNotificacionRepository configuracionRepository;
+
+    @Mock
+    private CobranzaService cobranzaService;
+
+    @Mock
+    private ContratoRepository contratoRepository;
+
+    @Mock
+    private TenantTaskExecutor tenantTaskExecutor;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Spy
+    private PlantillaService plantillaService = new PlantillaService();
+
+    @InjectMocks
+    private AlertSchedulerService alertSchedulerService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void procesarAlertasDiarias_shouldOmitirRecientesEInsertarEnBatch() throws Exception {
+        ConfiguracionNotificacion config = ConfiguracionNotificacion.builder()
+                .empresaId(1L)
+                .categoria(CategoriaNotificacion.PAGO_VENCIDO)
+                .emailHabilitado(true)
+                .whatsappHabilitado(false)
+                .frecuenciaRecordatorio(7)
+                .activo(true)
+                .build();
+        when(configuracionRepository.findAll()).thenReturn(List.of(config));
+        when(tenantTaskExecutor.forEachTenant(anyString(), anyCollection(), any())).thenAnswer(invocation -> {
+            Function<Long, Object> tarea = invocation.getArgument(2);
+            tarea.apply(1L);
+            return null;
+        });
+        when(cobranzaService.getAllCarteraVencida(false)).thenReturn(List.of(
+                item(10L, 100L, "ana@correo.com"),
+                item(20L, 200L, "luis@correo.com")));
+
+        // Persona 10 ya fue notificada ayer por el contrato 100
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject("persona_id", Long.class)).thenReturn(10L);
+        when(rs.getObject("referencia_id", Long.class)).thenReturn(100L);
+        when(rs.getTimestamp("ultima")).thenReturn(Timestamp.valueOf(LocalDateTime.now().minusDays(1)));
+        doAnswer(invocation -> {
+            ((RowCallbackHandler) invocation.getArgument(1)).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(1L), eq("PAGO_VENCIDO"), any());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+
+        alertSchedulerService.procesarAlertasDiarias();
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+        assertThat(captor.getValue()).hasSize(1);
+        Object[] parametros = captor.getValue().get(0);
+        assertThat(parametros[1]).isEqualTo(20L);
+        assertThat(parametros[4]).isEqualTo("luis@correo.com");
+        assertThat((String) parametros[6]).contains("Persona 20", "$5000.00", "15 días", "Calle 200");
+        assertThat(parametros[7]).isEqualTo(false);
+        assertThat(parametros[10]).isEqualTo("PAGO_VENCIDO:EMAIL:20:CONTRATO:200:" + LocalDate.now());
+    }
+
+    private static CarteraVencidaDTO item(Long personaId, Long contratoId, String email) {
+        return CarteraVencidaDTO.builder()
+                .personaId(personaId)
+                .contratoId(contratoId)
+                .diasVencido(15)
+                .nombrePersona("Persona " + personaId)
+                .emailPersona(email)
+                .direccionPropiedad("Calle " + contratoId)
+                .montoTotal(new BigDecimal("5000.00"))
+                .build();
+    }
+}
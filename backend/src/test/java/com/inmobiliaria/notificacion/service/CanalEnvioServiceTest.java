@@ -0,0 +1,118 @@
+package com.inmobiliaria.notificacion.service;
+
+import com.inmobiliaria.notificacion.config.NotificacionConfig;
+import com.inmobiliaria.notificacion.domain.TipoNotificacion;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Envíos por canal contra un servidor HTTP local que simula la API de WhatsApp.
+ */
+class CanalEnvioServiceTest {
+
+    private HttpServer servidor;
+    private final List<String> peticiones = Collections.synchronizedList(new ArrayList<>());
+    private EmailService emailService;
+    private CanalEnvioService canalEnvioService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/123/messages", exchange -> {
+            String cuerpo = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            peticiones.add(cuerpo);
+            // El número 0000000000 (normalizado a 520000000000) simula un rechazo del proveedor
+            int status = cuerpo.contains("5200000000") ? 400 : 200;
+            byte[] respuesta = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, respuesta.length);
+            exchange.getResponseBody().write(respuesta);
+            exchange.close();
+        });
+        servidor.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        servidor.start();
+
+        WhatsAppService whatsAppService = new WhatsAppService(new NotificacionConfig().restTemplate(1000, 2000));
+        ReflectionTestUtils.setField(whatsAppService, "whatsappEnabled", true);
+        ReflectionTestUtils.setField(whatsAppService, "apiUrl", "http://127.0.0.1:" + servidor.getAddress().getPort());
+        ReflectionTestUtils.setField(whatsAppService, "apiToken", "token");
+        ReflectionTestUtils.setField(whatsAppService, "phoneNumberId", "123");
+
+        emailService = mock(EmailService.class);
+        canalEnvioService = new CanalEnvioService(emailService, whatsAppService);
+        ReflectionTestUtils.setField(canalEnvioService, "emailConcurrencia", 2);
+        ReflectionTestUtils.setField(canalEnvioService, "emailMensajesPorSegundo", 1000.0);
+        ReflectionTestUtils.setField(canalEnvioService, "emailRafaga", 100);
+        ReflectionTestUtils.setField(canalEnvioService, "mensajesPorConexion", 3);
+        ReflectionTestUtils.setField(canalEnvioService, "whatsappConcurrencia", 4);
+        ReflectionTestUtils.setField(canalEnvioService, "whatsappMensajesPorSegundo", 1000.0);
+        ReflectionTestUtils.setField(canalEnvioService, "whatsappRafaga", 100);
+        canalEnvioService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        servidor.stop(0);
+    }
+
+    @Test
+    void enviar_shouldEnviarWhatsAppPorHttpYReportarRechazos() {
+        List<CanalEnvioService.Envio> envios = new ArrayList<>(LongStream.rangeClosed(1, 10)
+                .mapToObj(id -> new CanalEnvioService.Envio(id, TipoNotificacion.WHATSAPP, "55" + (10_000_000 + id), null, "Hola", false))
+                .toList());
+        envios.add(new CanalEnvioService.Envio(11L, TipoNotificacion.WHATSAPP, "0000000000", null, "Hola", false));
+
+        Map<Long, String> errores = canalEnvioService.enviar(envios);
+
+        assertThat(peticiones).hasSize(11);
+        assertThat(errores).containsOnlyKeys(11L);
+    }
+
+    @Test
+    void enviar_shouldAgruparCorreosPorConexion() {
+        when(emailService.sendEmails(anyList())).thenAnswer(invocation -> {
+            List<EmailService.Correo> correos = invocation.getArgument(0);
+            String[] resultados = new String[correos.size()];
+            for (int i = 0; i < correos.size(); i++) {
+                resultados[i] = correos.get(i).to().startsWith("falla") ? "550 buzón inexistente" : null;
+            }
+            return Arrays.asList(resultados);
+        });
+        List<CanalEnvioService.Envio> envios = LongStream.rangeClosed(1, 7)
+                .mapToObj(id -> new CanalEnvioService.Envio(id, TipoNotificacion.EMAIL,
+                        (id == 5 ? "falla" : "cliente") + id + "@correo.com", "Aviso", "Mensaje", false))
+                .toList();
+
+        Map<Long, String> errores = canalEnvioService.enviar(envios);
+
+        // 7 correos con 3 por conexión: 3 lotes
+        verify(emailService, times(3)).sendEmails(anyList());
+        assertThat(errores).containsExactly(Map.entry(5L, "550 buzón inexistente"));
+    }
+
+    @Test
+    void enviar_shouldRechazarCanalNoSoportado() {
+        String error = canalEnvioService.enviar(new CanalEnvioService.Envio(1L, TipoNotificacion.SMS, "5512345678", null, "Hola", false));
+
+        assertThat(error).isEqualTo("Tipo de notificación no soportado");
+    }
+}
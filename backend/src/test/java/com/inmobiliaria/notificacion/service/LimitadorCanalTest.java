@@ -0,0 +1,85 @@
+package com.inmobiliaria.notificacion.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LimitadorCanalTest {
+
+    @Test
+    void ejecutar_shouldPermitirRafagaYEsperarLaRecarga() throws Exception {
+        RelojManual reloj = new RelojManual();
+        LimitadorCanal limitador = new LimitadorCanal("EMAIL", 1, 2, 3, reloj);
+
+        // La ráfaga completa sale sin esperar
+        assertThat(limitador.ejecutar(3, () -> "lote")).isEqualTo("lote");
+        assertThat(reloj.esperado).isZero();
+
+        // 2 mensajes por segundo: el siguiente espera medio segundo a que se recargue un token
+        limitador.ejecutar(1, () -> null);
+        assertThat(reloj.esperado).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+
+        // La recarga no pasa de la ráfaga
+        reloj.ahora += TimeUnit.SECONDS.toNanos(10);
+        reloj.esperado = 0;
+        limitador.ejecutar(3, () -> null);
+        assertThat(reloj.esperado).isZero();
+        limitador.ejecutar(1, () -> null);
+        assertThat(reloj.esperado).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test
+    void ejecutar_shouldRespetarConcurrencia() throws Exception {
+        LimitadorCanal limitador = new LimitadorCanal("WHATSAPP", 2, 10_000, 10_000);
+        AtomicInteger enCurso = new AtomicInteger();
+        AtomicInteger maximo = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 20; i++) {
+                executor.submit(() -> limitador.ejecutar(1, () -> {
+                    maximo.accumulateAndGet(enCurso.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return enCurso.decrementAndGet();
+                }));
+            }
+        }
+
+        assertThat(maximo.get()).isEqualTo(2);
+    }
+
+    @Test
+    void constructor_shouldRechazarLimitesInvalidos() {
+        assertThatThrownBy(() -> new LimitadorCanal("EMAIL", 0, 1, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Reloj que solo avanza al esperar o a mano, y acumula lo esperado.
+     */
+    private static class RelojManual implements LimitadorCanal.Reloj {
+
+        private long ahora;
+        private long esperado;
+
+        @Override
+        public long nanos() {
+            return ahora;
+        }
+
+        @Override
+        public void esperar(long nanos) {
+            ahora += nanos;
+            esperado += nanos;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.inmobiliaria.notificacion.service;
+
+import com.inmobiliaria.notificacion.domain.TipoNotificacion;
+import com.inmobiliaria.notificacion.service.NotificacionDispatcherService.NotificacionReclamada;
+import com.inmobiliaria.notificacion.service.NotificacionDispatcherService.ResultadoLote;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificacionDispatcherServiceTest {
+
+    private static final String RECLAMAR = "UPDATE notificaciones SET estado = 'ENVIANDO'";
+    private static final String ENVIADA = "UPDATE notificaciones SET estado = 'ENVIADA'";
+    private static final String FALLIDA = "UPDATE notificaciones SET estado = 'FALLIDA'";
+    private static final String LIBERAR = "UPDATE notificaciones SET estado = 'PENDIENTE'";
+
+    private static final LocalDateTime RECLAMO = LocalDateTime.of(2026, 10, 17, 9, 30, 0, 123456000);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private CanalEnvioService canalEnvioService;
+
+    @Mock
+    private NotificacionReintentoService reintentoService;
+
+    @InjectMocks
+    private NotificacionDispatcherService dispatcherService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dispatcherService, "tamanoLote", 2);
+        ReflectionTestUtils.setField(dispatcherService, "maxLotes", 5);
+        ReflectionTestUtils.setField(dispatcherService, "reclamoMinutos", 10);
+        ReflectionTestUtils.setField(dispatcherService, "nodo", "nodo-a");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void procesarLote_shouldRegistrarResultadosSoloParaElReclamoDelLote() {
+        reclamar(List.of(
+                reclamada(1L, TipoNotificacion.EMAIL, 0),
+                reclamada(2L, TipoNotificacion.WHATSAPP, 1)));
+        when(canalEnvioService.enviar(anyList())).thenReturn(Map.of(2L, "Proveedor no disponible"));
+        when(reintentoService.esperaReintento(TipoNotificacion.WHATSAPP, 2, 3)).thenReturn(Duration.ofSeconds(90));
+        when(jdbcTemplate.batchUpdate(startsWith(ENVIADA), anyList())).thenReturn(new int[]{1});
+        when(jdbcTemplate.batchUpdate(startsWith(FALLIDA), anyList())).thenReturn(new int[]{1});
+
+        ResultadoLote resultado = dispatcherService.procesarLote();
+
+        assertThat(resultado).isEqualTo(new ResultadoLote(2, 1, 1));
+
+        ArgumentCaptor<String> reclamoSql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(reclamoSql.capture(), any(RowMapper.class), eq("nodo-a"), eq(2));
+        assertThat(reclamoSql.getValue()).contains("FOR UPDATE SKIP LOCKED").contains("RETURNING id, empresa_id, en_envio_desde");
+
+        ArgumentCaptor<String> resultadoSql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(resultadoSql.capture(), anyList());
+        assertThat(resultadoSql.getAllValues()).allSatisfy(sql ->
+                assertThat(sql).endsWith("WHERE id = ? AND estado = 'ENVIANDO' AND nodo_envio = ? AND en_envio_desde = ?"));
+
+        ArgumentCaptor<List<Object[]>> enviadas = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith(ENVIADA), enviadas.capture());
+        assertThat(enviadas.getValue()).containsExactly(new Object[]{1L, "nodo-a", RECLAMO});
+
+        ArgumentCaptor<List<Object[]>> fallidas = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith(FALLIDA), fallidas.capture());
+        assertThat(fallidas.getValue())
+                .containsExactly(new Object[]{"Proveedor no disponible", 90.0, 2L, "nodo-a", RECLAMO});
+        verify(reintentoService).registrarFallo(TipoNotificacion.WHATSAPP, true);
+    }
+
+    @Test
+    void procesarLote_shouldNoContarReintentosDeFallosQueNoSeGuardaron() {
+        reclamar(List.of(
+                reclamada(1L, TipoNotificacion.EMAIL, 0),
+                reclamada(2L, TipoNotificacion.WHATSAPP, 2)));
+        when(canalEnvioService.enviar(anyList())).thenReturn(Map.of(1L, "Rebotado", 2L, "Proveedor no disponible"));
+        when(reintentoService.esperaReintento(TipoNotificacion.EMAIL, 1, 3)).thenReturn(Duration.ofSeconds(60));
+        when(jdbcTemplate.batchUpdate(startsWith(ENVIADA), anyList())).thenReturn(new int[0]);
+        // La primera ya no está reclamada por este nodo; la segunda agotó sus intentos
+        when(jdbcTemplate.batchUpdate(startsWith(FALLIDA), anyList())).thenReturn(new int[]{0, 1});
+
+        dispatcherService.procesarLote();
+
+        verify(reintentoService, never()).registrarFallo(eq(TipoNotificacion.EMAIL), anyBoolean());
+        verify(reintentoService).registrarFallo(TipoNotificacion.WHATSAPP, false);
+    }
+
+    @Test
+    void procesarLote_shouldTolerarNotificacionesReclamadasPorOtraInstancia() {
+        reclamar(List.of(reclamada(1L, TipoNotificacion.EMAIL, 0), reclamada(2L, TipoNotificacion.EMAIL, 0)));
+        when(canalEnvioService.enviar(anyList())).thenReturn(Map.of());
+        // La segunda ya fue liberada y reclamada por otro nodo: su UPDATE no encuentra fila
+        when(jdbcTemplate.batchUpdate(startsWith(ENVIADA), anyList())).thenReturn(new int[]{1, 0});
+        when(jdbcTemplate.batchUpdate(startsWith(FALLIDA), anyList())).thenReturn(new int[0]);
+
+        ResultadoLote resultado = dispatcherService.procesarLote();
+
+        assertThat(resultado).isEqualTo(new ResultadoLote(2, 2, 0));
+        verify(reintentoService, never()).esperaReintento(any(), anyInt(), any());
+        verify(reintentoService, never()).registrarFallo(any(), anyBoolean());
+    }
+
+    @Test
+    void procesarLote_shouldNoEnviarSiNoHayPendientes() {
+        reclamar(List.of());
+
+        ResultadoLote resultado = dispatcherService.procesarLote();
+
+        assertThat(resultado).isEqualTo(new ResultadoLote(0, 0, 0));
+        verifyNoInteractions(canalEnvioService);
+        verify(jdbcTemplate, never()).batchUpdate(any(String.class), anyList());
+    }
+
+    @Test
+    void despacharPendientes_shouldLiberarVencidasReprogramarYParaAlVaciarLaCola() {
+        when(jdbcTemplate.update(startsWith(LIBERAR), any(Object[].class))).thenReturn(1);
+        doReturn(List.of(reclamada(1L, TipoNotificacion.EMAIL, 0), reclamada(2L, TipoNotificacion.EMAIL, 0)))
+                .doReturn(List.of(reclamada(3L, TipoNotificacion.EMAIL, 0)))
+                .when(jdbcTemplate).query(startsWith(RECLAMAR), any(RowMapper.class), any(Object[].class));
+        when(canalEnvioService.enviar(anyList())).thenReturn(Map.of());
+        when(jdbcTemplate.batchUpdate(startsWith(ENVIADA), anyList())).thenReturn(new int[]{1, 1}, new int[]{1});
+        when(jdbcTemplate.batchUpdate(startsWith(FALLIDA), anyList())).thenReturn(new int[0]);
+
+        dispatcherService.despacharPendientes();
+
+        ArgumentCaptor<String> liberarSql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).update(liberarSql.capture(), eq(10));
+        assertThat(liberarSql.getValue()).contains("estado = 'ENVIANDO' AND en_envio_desde < ");
+        verify(reintentoService).reprogramarVencidos();
+        // El segundo lote vino incompleto: no se intenta un tercero
+        verify(jdbcTemplate, times(2)).query(startsWith(RECLAMAR), any(RowMapper.class), any(Object[].class));
+    }
+
+    private void reclamar(List<NotificacionReclamada> reclamadas) {
+        doReturn(reclamadas).when(jdbcTemplate).query(startsWith(RECLAMAR), any(RowMapper.class), any(Object[].class));
+    }
+
+    private static NotificacionReclamada reclamada(Long id, TipoNotificacion tipo, int intentos) {
+        return new NotificacionReclamada(id, 1L, RECLAMO, tipo, "destino-" + id, "Asunto", "Mensaje", false,
+                intentos, 3);
+    }
+}
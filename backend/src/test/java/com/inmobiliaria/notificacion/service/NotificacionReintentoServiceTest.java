@@ -0,0 +1,107 @@
+package com.inmobiliaria.notificacion.service;
+
+import com.inmobiliaria.notificacion.domain.TipoNotificacion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificacionReintentoServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private NotificacionReintentoService reintentoService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        // Base de 60 s, máximo de 10 min, 3 intentos por defecto
+        reintentoService = new NotificacionReintentoService(jdbcTemplate, meterRegistry, 60, 10, 3);
+    }
+
+    @Test
+    void espera_shouldCrecerExponencialmenteConJitterAcotado() {
+        for (int i = 0; i < 50; i++) {
+            assertThat(reintentoService.espera(1)).isBetween(Duration.ofSeconds(30), Duration.ofSeconds(60));
+            assertThat(reintentoService.espera(2)).isBetween(Duration.ofSeconds(60), Duration.ofSeconds(120));
+            assertThat(reintentoService.espera(3)).isBetween(Duration.ofSeconds(120), Duration.ofSeconds(240));
+            // 60 s * 2^9 supera el máximo de 10 minutos
+            assertThat(reintentoService.espera(10)).isBetween(Duration.ofMinutes(5), Duration.ofMinutes(10));
+        }
+    }
+
+    @Test
+    void esperaReintento_shouldProgramarMientrasQuedenIntentos() {
+        Duration espera = reintentoService.esperaReintento(TipoNotificacion.EMAIL, 1, 5);
+
+        assertThat(espera).isBetween(Duration.ofSeconds(30), Duration.ofSeconds(60));
+        // Se cuenta al registrar el fallo guardado, no al calcular la espera
+        assertThat(meterRegistry.counter("notificaciones.reintentos.programados", "canal", "EMAIL").count())
+                .isZero();
+    }
+
+    @Test
+    void esperaReintento_shouldAgotarAlLlegarAMaxIntentos() {
+        assertThat(reintentoService.esperaReintento(TipoNotificacion.WHATSAPP, 5, 5)).isNull();
+        // Sin configuración de la categoría se usa el valor por defecto (3)
+        assertThat(reintentoService.esperaReintento(TipoNotificacion.WHATSAPP, 3, null)).isNull();
+        assertThat(reintentoService.esperaReintento(TipoNotificacion.WHATSAPP, 2, null)).isNotNull();
+    }
+
+    @Test
+    void registrarFallo_shouldContarProgramadosYAgotadosPorCanal() {
+        reintentoService.registrarFallo(TipoNotificacion.EMAIL, true);
+        reintentoService.registrarFallo(TipoNotificacion.WHATSAPP, false);
+        reintentoService.registrarFallo(TipoNotificacion.WHATSAPP, false);
+
+        assertThat(meterRegistry.counter("notificaciones.reintentos.programados", "canal", "EMAIL").count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.counter("notificaciones.reintentos.agotados", "canal", "WHATSAPP").count())
+                .isEqualTo(2.0);
+    }
+
+    @Test
+    void proximoIntento_shouldCalcularLaFechaEnLaBaseDeDatos() {
+        LocalDateTime fechaBase = LocalDateTime.of(2026, 10, 17, 12, 0);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT CAST(CURRENT_TIMESTAMP + make_interval"),
+                eq(LocalDateTime.class), any(Object[].class))).thenReturn(fechaBase);
+
+        assertThat(reintentoService.proximoIntento(TipoNotificacion.EMAIL, 1, 5)).isEqualTo(fechaBase);
+        assertThat(reintentoService.proximoIntento(TipoNotificacion.EMAIL, 5, 5)).isNull();
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(LocalDateTime.class), any(Object[].class));
+    }
+
+    @Test
+    void reprogramarVencidos_shouldContarReintentosPorCanal() {
+        when(jdbcTemplate.queryForList(startsWith("UPDATE notificaciones SET estado = 'PENDIENTE'"), eq(String.class)))
+                .thenReturn(List.of("EMAIL", "WHATSAPP", "EMAIL"));
+
+        assertThat(reintentoService.reprogramarVencidos()).isEqualTo(3);
+
+        assertThat(meterRegistry.counter("notificaciones.reintentos.ejecutados", "canal", "EMAIL").count())
+                .isEqualTo(2.0);
+        assertThat(meterRegistry.counter("notificaciones.reintentos.ejecutados", "canal", "WHATSAPP").count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void segundos_shouldConservarNullSinReintento() {
+        assertThat(NotificacionReintentoService.segundos(Duration.ofMillis(90500))).isEqualTo(90.5);
+        assertThat(NotificacionReintentoService.segundos(null)).isNull();
+    }
+}
@@ -0,0 +1,95 @@
+package com.inmobiliaria.notificacion.service;
+
+import com.inmobiliaria.notificacion.domain.CategoriaNotificacion;
+import com.inmobiliaria.notificacion.domain.ConfiguracionNotificacion;
+import com.inmobiliaria.notificacion.domain.TipoNotificacion;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PlantillaServiceTest {
+
+    private final PlantillaService plantillaService = new PlantillaService();
+
+    @Test
+    void compilar_shouldSustituirVariablesYConservarLasDesconocidas() {
+        PlantillaMensaje plantilla = PlantillaMensaje.compilar("Hola {{ nombre }}, debe ${{monto}} {{otra}} {{no valida}}");
+        Map<String, String> valores = new HashMap<>();
+        valores.put("nombre", "Ana");
+        valores.put("monto", null);
+
+        StringBuilder buffer = new StringBuilder();
+        assertThat(plantilla.renderizar(valores, buffer)).isEqualTo("Hola Ana, debe $ {{otra}} {{no valida}}");
+        assertThat(plantilla.isHtml()).isFalse();
+
+        // El buffer se reutiliza entre destinatarios
+        valores.put("nombre", "Luis");
+        valores.put("monto", "100");
+        assertThat(plantilla.renderizar(valores, buffer)).isEqualTo("Hola Luis, debe $100 {{otra}} {{no valida}}");
+    }
+
+    @Test
+    void compilar_shouldEscaparValoresEnPlantillasHtml() {
+        PlantillaMensaje plantilla = PlantillaMensaje.compilar("<p>Hola <strong>{{nombre}}</strong></p>");
+
+        assertThat(plantilla.isHtml()).isTrue();
+        assertThat(plantilla.renderizar(Map.of("nombre", "<b>Ana & Luis</b>"), new StringBuilder()))
+                .isEqualTo("<p>Hola <strong>&lt;b&gt;Ana &amp; Luis&lt;/b&gt;</strong></p>");
+    }
+
+    @Test
+    void obtener_shouldUsarPlantillaPorCanalYPorDefecto() {
+        ConfiguracionNotificacion config = config("Correo {{nombre}}", null);
+
+        assertThat(render(plantillaService.obtener(config, TipoNotificacion.EMAIL))).isEqualTo("Correo Ana");
+        assertThat(render(plantillaService.obtener(config, TipoNotificacion.WHATSAPP)))
+                .startsWith("Estimado(a) Ana,")
+                .contains("pago vencido desde hace 5 días por la cantidad de $100");
+    }
+
+    @Test
+    void obtener_shouldRecompilarAlCambiarLaConfiguracion() {
+        ConfiguracionNotificacion config = config("Versión 1 {{nombre}}", null);
+        PlantillaMensaje primera = plantillaService.obtener(config, TipoNotificacion.EMAIL);
+        assertThat(plantillaService.obtener(config, TipoNotificacion.EMAIL)).isSameAs(primera);
+
+        // Cambio hecho en otra instancia: la fecha de actualización ya no coincide
+        config.setPlantillaEmail("Versión 2 {{nombre}}");
+        config.setFechaActualizacion(config.getFechaActualizacion().plusMinutes(1));
+        assertThat(render(plantillaService.obtener(config, TipoNotificacion.EMAIL))).isEqualTo("Versión 2 Ana");
+
+        // Invalidación explícita desde updateConfiguracion
+        PlantillaMensaje segunda = plantillaService.obtener(config, TipoNotificacion.EMAIL);
+        plantillaService.invalidar(1L, CategoriaNotificacion.PAGO_VENCIDO);
+        assertThat(plantillaService.obtener(config, TipoNotificacion.EMAIL)).isNotSameAs(segunda);
+    }
+
+    @Test
+    void obtener_shouldFallarSinPlantillaNiTextoPorDefecto() {
+        ConfiguracionNotificacion config = config(null, null);
+        config.setCategoria(CategoriaNotificacion.RECORDATORIO_GENERAL);
+
+        assertThatThrownBy(() -> plantillaService.obtener(config, TipoNotificacion.EMAIL))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ConfiguracionNotificacion config(String plantillaEmail, String plantillaWhatsapp) {
+        return ConfiguracionNotificacion.builder()
+                .empresaId(1L)
+                .categoria(CategoriaNotificacion.PAGO_VENCIDO)
+                .plantillaEmail(plantillaEmail)
+                .plantillaWhatsapp(plantillaWhatsapp)
+                .fechaActualizacion(LocalDateTime.of(2024, 1, 1, 8, 0))
+                .build();
+    }
+
+    private static String render(PlantillaMensaje plantilla) {
+        return plantilla.renderizar(Map.of("nombre", "Ana", "monto", "100", "propiedad", "Calle 1",
+                "dias_vencido", "5"), new StringBuilder());
+    }
+}
@@ -0,0 +1,102 @@
+package com.inmobiliaria.pago;
+
+import com.inmobiliaria.pago.AplicacionPagoService.Aplicacion;
+import com.inmobiliaria.pago.AplicacionPagoService.CargoAbierto;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class AplicacionPagoServiceTest {
+
+    private static final LocalDate VENCIMIENTO = LocalDate.of(2024, 1, 5);
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final AplicacionPagoService aplicacionPagoService = new AplicacionPagoService(jdbcTemplate);
+
+    @Test
+    void distribuir_shouldCubrirCargosEnOrdenHastaAgotarElMonto() {
+        List<CargoAbierto> cargos = List.of(
+                cargo(1L, "10000", "0"),
+                cargo(2L, "10000", "4000"),
+                cargo(3L, "10000", "0"));
+
+        List<Aplicacion> aplicaciones = AplicacionPagoService.distribuir(new BigDecimal("13000"), cargos);
+
+        assertThat(aplicaciones).hasSize(2);
+        assertThat(aplicaciones.get(0)).isEqualTo(new Aplicacion(1L, new BigDecimal("10000"),
+                new BigDecimal("10000"), BigDecimal.ZERO, EstadoCargo.PAGADO));
+        assertThat(aplicaciones.get(1)).isEqualTo(new Aplicacion(2L, new BigDecimal("3000"),
+                new BigDecimal("7000"), new BigDecimal("3000"), EstadoCargo.PARCIAL));
+    }
+
+    @Test
+    void distribuir_shouldOmitirCargosSinSaldoPendiente() {
+        List<CargoAbierto> cargos = List.of(
+                cargo(1L, "5000", "5000"),
+                cargo(2L, "5000", "0"));
+
+        List<Aplicacion> aplicaciones = AplicacionPagoService.distribuir(new BigDecimal("2000"), cargos);
+
+        assertThat(aplicaciones).extracting(Aplicacion::cargoId).containsExactly(2L);
+        assertThat(aplicaciones.get(0).estado()).isEqualTo(EstadoCargo.PARCIAL);
+    }
+
+    @Test
+    void distribuir_shouldNoGenerarAplicacionesSinMontoDisponible() {
+        List<Aplicacion> aplicaciones = AplicacionPagoService.distribuir(BigDecimal.ZERO,
+                List.of(cargo(1L, "5000", "0")));
+
+        assertThat(aplicaciones).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void revertir_shouldBloquearCargosEnOrdenYDevolverlesElMontoEnBatch() {
+        Pago pago = Pago.builder()
+                .id(7L)
+                .empresaId(1L)
+                .monto(new BigDecimal("13000"))
+                .montoAplicado(new BigDecimal("13000"))
+                .fechaAplicacion(VENCIMIENTO)
+                .build();
+        doReturn(List.of(Map.entry(2L, new BigDecimal("3000")), Map.entry(1L, new BigDecimal("10000"))))
+                .when(jdbcTemplate).query(startsWith("SELECT cargo_id"), any(RowMapper.class), any(Object[].class));
+        doReturn(List.of(cargo(1L, "10000", "10000"), cargo(2L, "10000", "7000")))
+                .when(jdbcTemplate).query(startsWith("SELECT id"), any(RowMapper.class), any(Object[].class));
+
+        List<Long> revertidos = aplicacionPagoService.revertir(pago);
+
+        assertThat(revertidos).containsExactly(1L, 2L);
+        ArgumentCaptor<String> bloqueoSql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(bloqueoSql.capture(), any(RowMapper.class), eq(1L), eq(1L), eq(2L));
+        assertThat(bloqueoSql.getValue()).endsWith("ORDER BY id FOR UPDATE");
+
+        ArgumentCaptor<List<Object[]>> cargos = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE cargos"), cargos.capture());
+        assertThat(cargos.getValue()).containsExactly(
+                new Object[]{BigDecimal.ZERO, new BigDecimal("10000"), "PENDIENTE", 1L},
+                new Object[]{new BigDecimal("4000"), new BigDecimal("6000"), "PARCIAL", 2L});
+        verify(jdbcTemplate).update(startsWith("DELETE FROM pago_aplicaciones"), eq(1L), eq(7L));
+
+        assertThat(pago.getMontoAplicado()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(pago.getFechaAplicacion()).isNull();
+    }
+
+    private CargoAbierto cargo(Long id, String montoOriginal, String montoPagado) {
+        return new CargoAbierto(id, new BigDecimal(montoOriginal), new BigDecimal(montoPagado), VENCIMIENTO);
+    }
+}
@@ -0,0 +1,23 @@
+package com.inmobiliaria.pago;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeneracionCargosServiceTest {
+
+    @Test
+    void fechaVencimiento_shouldUsarDiaDePagoDelContrato() {
+        assertThat(GeneracionCargosService.fechaVencimiento(YearMonth.of(2024, 3), 5))
+                .isEqualTo(LocalDate.of(2024, 3, 5));
+    }
+
+    @Test
+    void fechaVencimiento_shouldAjustarAlUltimoDiaDelMes() {
+        assertThat(GeneracionCargosService.fechaVencimiento(YearMonth.of(2024, 2), 31))
+                .isEqualTo(LocalDate.of(2024, 2, 29));
+    }
+}
@@ -0,0 +1,259 @@
+package com.inmobiliaria.pago;
+
+import com.inmobiliaria.contrato.ContratoRepository;
+import com.inmobiliaria.pago.ImportacionPagosService.ContratoImportable;
+import com.inmobiliaria.pago.dto.ImportacionPagosDTO;
+import com.inmobiliaria.pago.dto.ImportacionPagosDTO.EstadoLinea;
+import com.inmobiliaria.pago.dto.ImportacionPagosDTO.ResultadoLinea;
+import com.inmobiliaria.pago.dto.ImportacionPagosDTO.TipoCoincidencia;
+import com.inmobiliaria.persona.PersonaRepository;
+import com.inmobiliaria.shared.numeracion.NumeracionService;
+import com.inmobiliaria.shared.numeracion.SerieDocumento;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ImportacionPagosServiceTest {
+
+    private static final Long EMPRESA_ID = 1L;
+    private static final String ENCABEZADO = "fecha,monto,referencia\n";
+
+    @Mock
+    private PagoService pagoService;
+
+    @Mock
+    private NumeracionService numeracionService;
+
+    @Mock
+    private ContratoRepository contratoRepository;
+
+    @Mock
+    private PersonaRepository personaRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private SaldoContratoService saldoContratoService;
+
+    @InjectMocks
+    private ImportacionPagosService importacionService;
+
+    private final AtomicLong pagoIds = new AtomicLong();
+
+    private final ContratoImportable contrato =
+            new ContratoImportable(1L, "CTR-202401-0007", 10L, new BigDecimal("12000.00"));
+
+    @Test
+    void separarCampos_shouldRespetarComillas() {
+        assertThat(ImportacionPagosService.separarCampos("2024-01-05,\"12,000.00\",\"Pago \"\"enero\"\"\"", ','))
+                .containsExactly("2024-01-05", "12,000.00", "Pago \"enero\"");
+    }
+
+    @Test
+    void parsearMonto_shouldAceptarSimboloYSeparadorDeMiles() {
+        assertThat(ImportacionPagosService.parsearMonto(" $12,000.5 ")).isEqualTo(new BigDecimal("12000.50"));
+    }
+
+    @Test
+    void parsearMonto_shouldDetectarComaDecimal() {
+        assertThat(ImportacionPagosService.parsearMonto("1.234,50")).isEqualTo(new BigDecimal("1234.50"));
+        assertThat(ImportacionPagosService.parsearMonto("1234,5")).isEqualTo(new BigDecimal("1234.50"));
+        assertThat(ImportacionPagosService.parsearMonto("1,234")).isEqualTo(new BigDecimal("1234.00"));
+        assertThat(ImportacionPagosService.parsearMonto("1.234.567")).isEqualTo(new BigDecimal("1234567.00"));
+    }
+
+    @Test
+    void parsearMonto_shouldRechazarFormatoAmbiguo() {
+        assertThatThrownBy(() -> ImportacionPagosService.parsearMonto("1,234,50"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Monto con formato no reconocido: 1,234,50");
+        assertThatThrownBy(() -> ImportacionPagosService.parsearMonto("12,34.5,0"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void parsearMonto_shouldRechazarMontoNoPositivo() {
+        assertThatThrownBy(() -> ImportacionPagosService.parsearMonto("0"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("El monto debe ser mayor a 0");
+    }
+
+    @Test
+    void parsearFecha_shouldAceptarIsoYFormatoLocal() {
+        assertThat(ImportacionPagosService.parsearFecha("2024-01-05")).isEqualTo(LocalDate.of(2024, 1, 5));
+        assertThat(ImportacionPagosService.parsearFecha("05/01/2024")).isEqualTo(LocalDate.of(2024, 1, 5));
+    }
+
+    @Test
+    void buscarPorReferencia_shouldEncontrarNumeroDeContratoDentroDeLaReferencia() {
+        Map<String, ContratoImportable> porNumero = Map.of("CTR-202401-0007", contrato);
+
+        assertThat(ImportacionPagosService.buscarPorReferencia("SPEI renta ctr-202401-0007 enero", porNumero))
+                .isEqualTo(contrato);
+        assertThat(ImportacionPagosService.buscarPorReferencia("SPEI renta enero", porNumero)).isNull();
+    }
+
+    @Test
+    void importar_shouldMarcarDuplicadosRegistradosYRepetidosEnElArchivo() throws Exception {
+        contratos(new ContratoImportable(1L, "CTR-0001", 10L, new BigDecimal("12000.00")));
+        pagosExistentes("SPEI 998877", LocalDate.of(2024, 1, 5), "12000.00");
+        registrarPagos();
+
+        ImportacionPagosDTO resumen = importar(ENCABEZADO
+                + "2024-01-05,12000.00,SPEI 998877\n"
+                + "2024-01-06,12000.00,CTR-0001 enero\n"
+                + "2024-01-06,12000.00,CTR-0001 enero\n");
+
+        assertThat(resumen.getImportados()).isEqualTo(1);
+        assertThat(resumen.getDuplicados()).isEqualTo(2);
+        assertThat(resumen.getLineas()).extracting(ResultadoLinea::getEstado)
+                .containsExactly(EstadoLinea.DUPLICADO, EstadoLinea.IMPORTADO, EstadoLinea.DUPLICADO);
+        verify(pagoService, times(1)).registrarPago(any(Pago.class), eq(true), isNull());
+    }
+
+    @Test
+    void importar_shouldDejarSinCoincidenciaUnMontoCompartidoPorVariosContratos() throws Exception {
+        contratos(
+                new ContratoImportable(1L, "CTR-0001", 10L, new BigDecimal("8000.00")),
+                new ContratoImportable(2L, "CTR-0002", 20L, new BigDecimal("8000.00")),
+                new ContratoImportable(3L, "CTR-0003", 30L, new BigDecimal("15000.00")));
+        registrarPagos();
+
+        ImportacionPagosDTO resumen = importar(ENCABEZADO
+                + "2024-02-01,8000,DEPOSITO\n"
+                + "2024-02-01,15000,DEPOSITO\n");
+
+        ResultadoLinea ambigua = resumen.getLineas().get(0);
+        assertThat(ambigua.getEstado()).isEqualTo(EstadoLinea.SIN_COINCIDENCIA);
+        assertThat(ambigua.getMensaje()).isEqualTo("El monto coincide con 2 contratos");
+
+        ResultadoLinea porMonto = resumen.getLineas().get(1);
+        assertThat(porMonto.getEstado()).isEqualTo(EstadoLinea.IMPORTADO);
+        assertThat(porMonto.getCoincidencia()).isEqualTo(TipoCoincidencia.MONTO);
+        assertThat(porMonto.getContratoId()).isEqualTo(3L);
+    }
+
+    @Test
+    void importar_shouldReintentarLineaPorLineaCuandoFallaElLote() throws Exception {
+        contratos(
+                new ContratoImportable(1L, "CTR-0001", 10L, new BigDecimal("12000.00")),
+                new ContratoImportable(2L, "CTR-0002", 20L, new BigDecimal("9000.00")));
+        registrarPagos("CTR-0002");
+
+        ImportacionPagosDTO resumen = importar(ENCABEZADO
+                + "2024-03-01,12000,CTR-0001\n"
+                + "2024-03-01,9000,CTR-0002\n");
+
+        assertThat(resumen.getImportados()).isEqualTo(1);
+        assertThat(resumen.getConError()).isEqualTo(1);
+        assertThat(resumen.getLineas().get(0).getEstado()).isEqualTo(EstadoLinea.IMPORTADO);
+        assertThat(resumen.getLineas().get(1).getEstado()).isEqualTo(EstadoLinea.ERROR);
+        assertThat(resumen.getLineas().get(1).getMensaje()).isEqualTo("Contrato sin arrendatario");
+        // Un lote de dos que se revierte y luego cada línea en su propia transacción
+        verify(numeracionService).siguientes(EMPRESA_ID, SerieDocumento.RECIBO, 2);
+        verify(numeracionService, times(2)).siguientes(EMPRESA_ID, SerieDocumento.RECIBO, 1);
+        verify(transactionManager, times(2)).rollback(any());
+        verify(saldoContratoService).actualizar(EMPRESA_ID, List.of(1L));
+    }
+
+    private ImportacionPagosDTO importar(String csv) throws IOException {
+        return importacionService.importar(EMPRESA_ID,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), TipoPago.TRANSFERENCIA, "BANCO");
+    }
+
+    private void registrarPagos() {
+        registrarPagos(null);
+    }
+
+    /**
+     * @param referenciaConError el registro de pagos con esta referencia falla
+     */
+    private void registrarPagos(String referenciaConError) {
+        when(numeracionService.siguientes(eq(EMPRESA_ID), eq(SerieDocumento.RECIBO), anyInt()))
+                .thenAnswer(invocation -> IntStream.rangeClosed(1, invocation.<Integer>getArgument(2))
+                        .mapToObj(Long::valueOf).toList());
+        when(pagoService.registrarPago(any(Pago.class), eq(true), isNull())).thenAnswer(invocation -> {
+            Pago pago = invocation.getArgument(0);
+            if (pago.getReferencia().equals(referenciaConError)) {
+                throw new IllegalStateException("Contrato sin arrendatario");
+            }
+            pago.setId(pagoIds.incrementAndGet());
+            return pago;
+        });
+    }
+
+    private void contratos(ContratoImportable... contratos) throws Exception {
+        List<ResultSet> filas = new ArrayList<>();
+        for (ContratoImportable contrato : contratos) {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("id")).thenReturn(contrato.id());
+            when(rs.getString("numero_contrato")).thenReturn(contrato.numeroContrato());
+            when(rs.getLong("arrendatario_id")).thenReturn(contrato.arrendatarioId());
+            when(rs.getBigDecimal("monto_renta")).thenReturn(contrato.montoRenta());
+            filas.add(rs);
+        }
+        responder("SELECT id, numero_contrato", filas);
+    }
+
+    private void pagosExistentes(String referencia, LocalDate fecha, String monto) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("referencia")).thenReturn(referencia);
+        when(rs.getDate("fecha_pago")).thenReturn(Date.valueOf(fecha));
+        when(rs.getBigDecimal("monto")).thenReturn(new BigDecimal(monto));
+        responder("SELECT referencia, fecha_pago, monto", List.of(rs));
+    }
+
+    private void responder(String consulta, List<ResultSet> filas) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (ResultSet rs : filas) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith(consulta), any(RowCallbackHandler.class), any(Object[].class));
+    }
+}
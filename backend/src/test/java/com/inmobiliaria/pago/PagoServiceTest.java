@@ -7,20 +7,27 @@ import com.inmobiliaria.pago.dto.CargoDTO;
 import com.inmobiliaria.pago.dto.CreateCargoRequest;
 import com.inmobiliaria.pago.dto.CreatePagoRequest;
 import com.inmobiliaria.pago.dto.PagoDTO;
+import com.inmobiliaria.pago.eventos.CargosVencidosEvent;
+import com.inmobiliaria.pago.eventos.PagoCanceladoEvent;
+import com.inmobiliaria.pago.eventos.PagosModificadosEvent;
 import com.inmobiliaria.persona.Persona;
 import com.inmobiliaria.persona.PersonaRepository;
 import com.inmobiliaria.persona.TipoPersona;
 import com.inmobiliaria.propiedad.Propiedad;
 import com.inmobiliaria.catalogo.TipoPropiedad;
 import com.inmobiliaria.shared.multitenancy.TenantContext;
+import com.inmobiliaria.shared.numeracion.NumeracionService;
+import com.inmobiliaria.shared.numeracion.SerieDocumento;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -46,6 +53,16 @@ class PagoServiceTest {
     private ContratoRepository contratoRepository;
     @Mock
     private PersonaRepository personaRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private NumeracionService numeracionService;
+    @Mock
+    private AplicacionPagoService aplicacionPagoService;
+    @Mock
+    private GeneracionCargosService generacionCargosService;
+    @Mock
+    private SaldoContratoService saldoContratoService;
 
     @InjectMocks
     private PagoService pagoService;
@@ -166,6 +183,7 @@ class PagoServiceTest {
 
         assertThat(result).isNotNull();
         verify(cargoRepository).save(any(Cargo.class));
+        verify(eventPublisher).publishEvent(new PagosModificadosEvent(EMPRESA_ID));
     }
 
     @Test
@@ -207,7 +225,7 @@ class PagoServiceTest {
                 .thenReturn(Optional.of(contrato));
         when(personaRepository.findByIdAndEmpresaId(1L, EMPRESA_ID))
                 .thenReturn(Optional.of(arrendatario));
-        when(pagoRepository.findUltimoNumeroRecibo(EMPRESA_ID)).thenReturn(null);
+        when(numeracionService.siguiente(EMPRESA_ID, SerieDocumento.RECIBO)).thenReturn(7L);
         when(pagoRepository.save(any(Pago.class))).thenReturn(pago);
         when(pagoAplicacionRepository.findByPagoId(1L))
                 .thenReturn(Arrays.asList());
@@ -215,7 +233,22 @@ class PagoServiceTest {
         PagoDTO result = pagoService.createPago(request);
 
         assertThat(result).isNotNull();
-        verify(pagoRepository).save(any(Pago.class));
+        verify(pagoRepository).save(argThat(p -> "REC-000007".equals(p.getNumeroRecibo())));
+        verify(saldoContratoService).actualizar(EMPRESA_ID, List.of(1L));
+        verify(eventPublisher).publishEvent(new PagosModificadosEvent(EMPRESA_ID));
+    }
+
+    @Test
+    void cancelarPago_shouldRevertirCargosYPublicarEvento() {
+        when(pagoRepository.findByIdAndEmpresaIdForUpdate(1L, EMPRESA_ID)).thenReturn(Optional.of(pago));
+        when(aplicacionPagoService.revertir(pago)).thenReturn(List.of(1L));
+
+        pagoService.cancelarPago(1L);
+
+        assertThat(pago.getEstado()).isEqualTo(EstadoPago.CANCELADO);
+        verify(saldoContratoService).actualizar(EMPRESA_ID, List.of(1L));
+        verify(eventPublisher).publishEvent(new PagoCanceladoEvent(EMPRESA_ID, 1L, List.of(1L)));
+        verify(eventPublisher).publishEvent(new PagosModificadosEvent(EMPRESA_ID));
     }
 
     @Test
@@ -238,4 +271,43 @@ class PagoServiceTest {
 
         assertThat(result).hasSize(1);
     }
+
+    @Test
+    void actualizarCargosVencidos_shouldPublicarUnEventoPorEmpresa() {
+        when(cargoRepository.marcarCargosVencidos(eq(EMPRESA_ID), any(LocalDate.class))).thenReturn(3);
+
+        int result = pagoService.actualizarCargosVencidos();
+
+        assertThat(result).isEqualTo(3);
+        verify(saldoContratoService).actualizarEmpresa(EMPRESA_ID);
+        // El evento lleva la misma fecha de corte que el UPDATE, sin volver a leer el reloj
+        ArgumentCaptor<LocalDate> fecha = ArgumentCaptor.forClass(LocalDate.class);
+        verify(cargoRepository).marcarCargosVencidos(eq(EMPRESA_ID), fecha.capture());
+        verify(eventPublisher).publishEvent(new CargosVencidosEvent(EMPRESA_ID, fecha.getValue(), 3));
+    }
+
+    @Test
+    void actualizarCargosVencidos_shouldNoPublicarEventoSinCambios() {
+        when(cargoRepository.marcarCargosVencidos(eq(EMPRESA_ID), any(LocalDate.class))).thenReturn(0);
+
+        assertThat(pagoService.actualizarCargosVencidos()).isZero();
+        verifyNoInteractions(eventPublisher, saldoContratoService);
+    }
+
+    @Test
+    void getEstadisticas_shouldLeerTotalesDeSaldosPorContrato() {
+        when(pagoRepository.getTotalPagadoByPeriodo(eq(EMPRESA_ID), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(BigDecimal.valueOf(24000));
+        when(pagoRepository.countPagosByPeriodo(eq(EMPRESA_ID), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(2L);
+        when(saldoContratoService.getResumen(EMPRESA_ID)).thenReturn(new SaldoContratoService.ResumenSaldos(
+                BigDecimal.valueOf(36000), BigDecimal.valueOf(12000), 3L, 1L));
+
+        PagoService.PagoEstadisticas result = pagoService.getEstadisticas();
+
+        assertThat(result.getTotalPendiente()).isEqualByComparingTo("36000");
+        assertThat(result.getTotalCargosPendientes()).isEqualTo(3L);
+        assertThat(result.getTotalCargosVencidos()).isEqualTo(1L);
+        verify(cargoRepository, never()).findByEmpresaIdAndEstadoIn(any(), any());
+    }
 }
@@ -0,0 +1,83 @@
+package com.inmobiliaria.pago;
+
+import com.inmobiliaria.persona.TipoPersona;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReciboPdfServiceTest {
+
+    private ReciboPdfService reciboPdfService;
+
+    @BeforeEach
+    void setUp() {
+        reciboPdfService = new ReciboPdfService();
+        ReflectionTestUtils.setField(reciboPdfService, "workers", 2);
+        reciboPdfService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reciboPdfService.shutdown();
+    }
+
+    @Test
+    void generarReciboPdf_shouldGenerarPdf() {
+        byte[] pdf = reciboPdfService.generarReciboPdf(recibo(1L, "REC-000001"));
+
+        assertThat(new String(pdf, 0, 5)).isEqualTo("%PDF-");
+    }
+
+    @Test
+    void escribirRecibosZip_shouldEscribirUnPdfPorReciboEnOrden() throws Exception {
+        List<ReciboView> recibos = IntStream.rangeClosed(1, 7)
+                .mapToObj(i -> recibo((long) i, String.format("REC-%06d", i)))
+                .toList();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reciboPdfService.escribirRecibosZip(recibos, out);
+
+        List<String> entradas = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entrada;
+            while ((entrada = zip.getNextEntry()) != null) {
+                entradas.add(entrada.getName());
+                assertThat(new String(zip.readAllBytes(), 0, 5)).isEqualTo("%PDF-");
+            }
+        }
+        assertThat(entradas).containsExactly(
+                "recibo_REC-000001.pdf", "recibo_REC-000002.pdf", "recibo_REC-000003.pdf",
+                "recibo_REC-000004.pdf", "recibo_REC-000005.pdf", "recibo_REC-000006.pdf",
+                "recibo_REC-000007.pdf");
+    }
+
+    @Test
+    void reciboView_shouldFormatearClienteYDireccionComoLasEntidades() {
+        ReciboView recibo = recibo(1L, "REC-000001");
+
+        assertThat(recibo.nombreCliente()).isEqualTo("Juan Perez");
+        assertThat(recibo.direccionPropiedad()).isEqualTo("Reforma 100 Int. 4, Centro, Cuauhtémoc, CDMX C.P. 06000");
+    }
+
+    private ReciboView recibo(Long pagoId, String numeroRecibo) {
+        return new ReciboView(pagoId, numeroRecibo, LocalDate.of(2025, 1, 5), LocalDateTime.of(2025, 1, 5, 10, 30),
+                EstadoPago.APLICADO, TipoPago.TRANSFERENCIA, "REF123", "BBVA", BigDecimal.valueOf(12000),
+                TipoPersona.FISICA, "Juan", "Perez", null, null, "PEJU800101ABC", "juan@test.com", null,
+                "CTR-001", LocalDate.of(2024, 1, 1), LocalDate.of(2025, 12, 31),
+                "Reforma", "100", "4", "Centro", "Cuauhtémoc", "CDMX", "06000");
+    }
+}
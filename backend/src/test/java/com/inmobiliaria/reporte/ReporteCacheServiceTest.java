@@ -0,0 +1,162 @@
+package com.inmobiliaria.reporte;
+
+import com.inmobiliaria.reporte.domain.TipoReporteCache;
+import com.inmobiliaria.reporte.service.ReporteCacheService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReporteCacheServiceTest {
+
+    private static final LocalDate FECHA = LocalDate.of(2024, 6, 30);
+
+    private ReporteCacheService cacheService;
+    private AtomicInteger generados;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = generacionesCompartidas();
+        cacheService = new ReporteCacheService(jdbcTemplate, new SimpleMeterRegistry(), 2, 10, 0);
+        generados = new AtomicInteger();
+    }
+
+    @Test
+    void obtener_shouldReuseResultForSameKey() {
+        String primero = cacheService.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA, this::generar, UnaryOperator.identity());
+        String segundo = cacheService.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA, this::generar, UnaryOperator.identity());
+
+        assertThat(segundo).isEqualTo(primero);
+        assertThat(generados.get()).isEqualTo(1);
+        assertThat(cacheService.getEstadisticas().aciertos()).isEqualTo(1);
+        assertThat(cacheService.getEstadisticas().fallos()).isEqualTo(1);
+    }
+
+    @Test
+    void obtener_shouldSeparateByEmpresaAndParametros() {
+        cacheService.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA, this::generar, UnaryOperator.identity());
+        cacheService.obtener(2L, TipoReporteCache.CARTERA_VENCIDA, FECHA, this::generar, UnaryOperator.identity());
+        cacheService.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA.plusDays(1), this::generar, UnaryOperator.identity());
+
+        assertThat(generados.get()).isEqualTo(3);
+    }
+
+    @Test
+    void obtener_shouldEvictLeastRecentlyUsed() {
+        cacheService.obtener(1L, TipoReporteCache.ANTIGUEDAD_SALDOS, FECHA, this::generar, UnaryOperator.identity());
+        cacheService.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA, this::generar, UnaryOperator.identity());
+        // Se usa ANTIGUEDAD_SALDOS para que CARTERA_VENCIDA sea la más antigua
+        cacheService.obtener(1L, TipoReporteCache.ANTIGUEDAD_SALDOS, FECHA, this::generar, UnaryOperator.identity());
+        cacheService.obtener(1L, TipoReporteCache.RESUMEN_COBRANZA, FECHA, this::generar, UnaryOperator.identity());
+
+        assertThat(cacheService.getEstadisticas().desalojos()).isEqualTo(1);
+
+        cacheService.obtener(1L, TipoReporteCache.ANTIGUEDAD_SALDOS, FECHA, this::generar, UnaryOperator.identity());
+        assertThat(generados.get()).isEqualTo(3);
+    }
+
+    @Test
+    void invalidarEmpresa_shouldOnlyDropEntriesOfThatEmpresa() {
+        cacheService.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA, this::generar, UnaryOperator.identity());
+        cacheService.obtener(2L, TipoReporteCache.CARTERA_VENCIDA, FECHA, this::generar, UnaryOperator.identity());
+
+        cacheService.invalidarEmpresa(1L);
+
+        cacheService.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA, this::generar, UnaryOperator.identity());
+        cacheService.obtener(2L, TipoReporteCache.CARTERA_VENCIDA, FECHA, this::generar, UnaryOperator.identity());
+        assertThat(generados.get()).isEqualTo(3);
+    }
+
+    @Test
+    void obtener_shouldNotStoreResultComputedBeforeInvalidation() {
+        cacheService.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA, () -> {
+            // Los datos cambian mientras el reporte se está calculando
+            cacheService.invalidarEmpresa(1L);
+            return generar();
+        }, UnaryOperator.identity());
+
+        cacheService.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA, this::generar, UnaryOperator.identity());
+        assertThat(generados.get()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidarEmpresa_shouldAlcanzarAOtrasInstancias() {
+        ReporteCacheService otraInstancia = new ReporteCacheService(jdbcTemplate, new SimpleMeterRegistry(), 2, 10, 0);
+        cacheService.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA, this::generar, UnaryOperator.identity());
+        otraInstancia.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA, this::generar, UnaryOperator.identity());
+
+        // El evento de cambio solo se procesa en la instancia que lo publicó
+        cacheService.invalidarEmpresa(1L);
+
+        otraInstancia.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA, this::generar, UnaryOperator.identity());
+        assertThat(generados.get()).isEqualTo(3);
+    }
+
+    @Test
+    void obtener_shouldDevolverCopiasIndependientes() {
+        List<String> primero = cacheService.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA,
+                () -> new ArrayList<>(List.of("renglón")), ArrayList::new);
+        // Quien recibe el reporte lo modifica (p. ej. al ordenar o filtrar el detalle)
+        primero.add("agregado");
+
+        List<String> segundo = cacheService.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA,
+                () -> new ArrayList<>(List.of("otro")), ArrayList::new);
+        segundo.clear();
+
+        List<String> tercero = cacheService.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA,
+                () -> new ArrayList<>(List.of("otro")), ArrayList::new);
+        assertThat(tercero).containsExactly("renglón");
+    }
+
+    @Test
+    void obtener_shouldReutilizarLaGeneracionLeidaDuranteSuVigencia() {
+        ReporteCacheService conVigencia = new ReporteCacheService(jdbcTemplate, new SimpleMeterRegistry(), 2, 10, 60_000);
+        conVigencia.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA, this::generar, UnaryOperator.identity());
+        conVigencia.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA, this::generar, UnaryOperator.identity());
+
+        verify(jdbcTemplate, times(1)).queryForList(startsWith("SELECT generacion"), eq(Long.class), any(Object[].class));
+
+        // Una invalidación local se ve sin esperar a que venza la generación leída
+        conVigencia.invalidarEmpresa(1L);
+        conVigencia.obtener(1L, TipoReporteCache.CARTERA_VENCIDA, FECHA, this::generar, UnaryOperator.identity());
+        assertThat(generados.get()).isEqualTo(2);
+    }
+
+    /**
+     * JdbcTemplate simulado sobre un mapa en memoria, como la tabla reporte_cache_generaciones.
+     */
+    private static JdbcTemplate generacionesCompartidas() {
+        Map<Long, Long> generaciones = new ConcurrentHashMap<>();
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        when(jdbc.queryForList(startsWith("SELECT generacion"), eq(Long.class), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    Long generacion = generaciones.get(invocation.<Long>getArgument(2));
+                    return generacion != null ? List.of(generacion) : List.of();
+                });
+        when(jdbc.queryForObject(startsWith("INSERT INTO reporte_cache_generaciones"), eq(Long.class), any(Object[].class)))
+                .thenAnswer(invocation -> generaciones.merge(invocation.<Long>getArgument(2), 1L, Long::sum));
+        return jdbc;
+    }
+
+    private String generar() {
+        return "reporte-" + generados.incrementAndGet();
+    }
+}
@@ -0,0 +1,149 @@
+package com.inmobiliaria.reporte;
+
+import com.inmobiliaria.cobranza.domain.CarteraVencida;
+import com.inmobiliaria.cobranza.repository.CarteraVencidaRepository;
+import com.inmobiliaria.cobranza.repository.SeguimientoCobranzaRepository;
+import com.inmobiliaria.empresa.EmpresaRepository;
+import com.inmobiliaria.reporte.domain.TipoReporteCache;
+import com.inmobiliaria.reporte.dto.ReporteCarteraVencidaDTO;
+import com.inmobiliaria.reporte.service.ReporteCacheService;
+import com.inmobiliaria.reporte.service.ReporteCsvStreamService;
+import com.inmobiliaria.reporte.service.ReporteLookupService;
+import com.inmobiliaria.reporte.service.ReporteService;
+import com.inmobiliaria.shared.multitenancy.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * El reporte de cartera vencida (JSON/Excel) y su CSV deben dar los mismos días y clasificación
+ * a una fecha de corte pasada, aunque la entidad tenga los valores calculados a otra fecha.
+ */
+@ExtendWith(MockitoExtension.class)
+class ReporteCarteraVencidaCorteTest {
+
+    private static final Long EMPRESA_ID = 1L;
+    private static final LocalDate CORTE = LocalDate.of(2026, 3, 31);
+
+    @Mock
+    private CarteraVencidaRepository carteraVencidaRepository;
+    @Mock
+    private SeguimientoCobranzaRepository seguimientoCobranzaRepository;
+    @Mock
+    private EmpresaRepository empresaRepository;
+    @Mock
+    private ReporteLookupService reporteLookupService;
+    @Mock
+    private ReporteCacheService reporteCacheService;
+
+    @InjectMocks
+    private ReporteService reporteService;
+
+    private final List<CarteraVencida> cartera = List.of(
+            cargo(1L, LocalDate.of(2026, 3, 20)),
+            cargo(2L, LocalDate.of(2025, 12, 15)),
+            // Vence después del corte: cero días, no negativos
+            cargo(3L, LocalDate.of(2026, 4, 10)));
+
+    @BeforeEach
+    void setUp() {
+        TenantContext.setCurrentTenant(EMPRESA_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void carteraVencida_shouldCoincidirEntreJsonYCsvParaUnCortePasado() throws Exception {
+        when(carteraVencidaRepository.findByEmpresaIdAndActivoTrue(EMPRESA_ID)).thenReturn(cartera);
+        when(reporteCacheService.obtener(eq(EMPRESA_ID), eq(TipoReporteCache.CARTERA_VENCIDA), eq(CORTE), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(3).get());
+
+        ReporteCarteraVencidaDTO reporte = reporteService.generarReporteCarteraVencida(CORTE);
+        List<String[]> csv = csvCarteraVencida();
+
+        assertThat(reporte.getDetalle()).extracting(ReporteCarteraVencidaDTO.CarteraVencidaItemDTO::getDiasVencido)
+                .containsExactly(11, 106, 0);
+        assertThat(reporte.getDetalle()).extracting(ReporteCarteraVencidaDTO.CarteraVencidaItemDTO::getClasificacion)
+                .containsExactly("VENCIDO_1_30", "VENCIDO_MAS_90", "VIGENTE");
+        assertThat(csv).hasSize(3);
+        for (int i = 0; i < csv.size(); i++) {
+            ReporteCarteraVencidaDTO.CarteraVencidaItemDTO item = reporte.getDetalle().get(i);
+            assertThat(csv.get(i)[5]).isEqualTo(String.valueOf(item.getDiasVencido()));
+            assertThat(csv.get(i)[6]).isEqualTo(item.getClasificacion());
+        }
+
+        // Los montos por clasificación también son al corte, no a la clasificación guardada
+        assertThat(reporte.getMonto1a30()).isEqualByComparingTo("100");
+        assertThat(reporte.getMontoMas90()).isEqualByComparingTo("100");
+        assertThat(reporte.getMontoVigente()).isEqualByComparingTo("100");
+    }
+
+    private List<String[]> csvCarteraVencida() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true, true, true, false);
+        when(rs.getLong("id")).thenReturn(1L, 2L, 3L);
+        when(rs.getDate("fecha_vencimiento")).thenReturn(
+                Date.valueOf(cartera.get(0).getFechaVencimiento()),
+                Date.valueOf(cartera.get(1).getFechaVencimiento()),
+                Date.valueOf(cartera.get(2).getFechaVencimiento()));
+        when(rs.getString("concepto")).thenReturn("Renta");
+        when(rs.getBigDecimal("monto_original")).thenReturn(new BigDecimal("100"));
+        when(rs.getBigDecimal("monto_pendiente")).thenReturn(new BigDecimal("100"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ReporteCsvStreamService(dataSource, 500).streamCarteraVencidaCsv(EMPRESA_ID, CORTE, out);
+
+        return out.toString(StandardCharsets.UTF_8).lines()
+                .skip(1)
+                .map(linea -> linea.split(",", -1))
+                .toList();
+    }
+
+    private static CarteraVencida cargo(Long id, LocalDate fechaVencimiento) {
+        // Días y clasificación guardados a una fecha posterior al corte
+        return CarteraVencida.builder()
+                .id(id)
+                .empresaId(EMPRESA_ID)
+                .personaId(10L)
+                .propiedadId(20L)
+                .concepto("Renta")
+                .fechaVencimiento(fechaVencimiento)
+                .diasVencido(200)
+                .clasificacionAntiguedad(CarteraVencida.ClasificacionAntiguedad.VENCIDO_MAS_90)
+                .montoOriginal(new BigDecimal("100"))
+                .montoPendiente(new BigDecimal("100"))
+                .build();
+    }
+}
@@ -0,0 +1,204 @@
+package com.inmobiliaria.reporte;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.inmobiliaria.reporte.domain.EstadoReporteJob;
+import com.inmobiliaria.reporte.domain.FormatoReporte;
+import com.inmobiliaria.reporte.domain.ReporteJob;
+import com.inmobiliaria.reporte.domain.TipoReporteJob;
+import com.inmobiliaria.reporte.dto.ReporteJobDTO;
+import com.inmobiliaria.reporte.dto.ReporteJobRequest;
+import com.inmobiliaria.reporte.service.ExportService;
+import com.inmobiliaria.reporte.service.ReporteCsvStreamService;
+import com.inmobiliaria.reporte.service.ReporteJobService;
+import com.inmobiliaria.reporte.service.ReporteService;
+import com.inmobiliaria.shared.multitenancy.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReporteJobServiceTest {
+
+    private static final String JOB_ID = "3f1c2a9e-8b7d-4c6e-9a5f-0d1e2f3a4b5c";
+    private static final String BUSCAR_EN_CURSO = "SELECT id, empresa_id";
+    private static final String INSERTAR = "INSERT INTO reporte_jobs";
+    private static final String RECLAMAR = "UPDATE reporte_jobs SET estado = 'EN_PROCESO'";
+    private static final String COMPLETADO = "UPDATE reporte_jobs SET estado = 'COMPLETADO'";
+    private static final LocalDateTime INICIO = LocalDateTime.of(2026, 10, 17, 9, 30);
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @Mock
+    private ReporteService reporteService;
+
+    @Mock
+    private ExportService exportService;
+
+    @Mock
+    private ReporteCsvStreamService reporteCsvStreamService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path directorio;
+
+    private ReporteJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        jobService = new ReporteJobService(reporteService, exportService, reporteCsvStreamService,
+                jdbcTemplate, objectMapper);
+        ReflectionTestUtils.setField(jobService, "jobsDir", directorio.toString());
+        ReflectionTestUtils.setField(jobService, "workers", 1);
+        ReflectionTestUtils.setField(jobService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(jobService, "ttlMinutes", 60);
+        ReflectionTestUtils.setField(jobService, "nodo", "nodo-a");
+        jobService.init();
+        TenantContext.setCurrentTenant(1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+        jobService.shutdown();
+    }
+
+    @Test
+    void enviar_shouldReutilizarTrabajoEnCursoDeOtraInstancia() throws Exception {
+        ReporteJobRequest request = pagos(LocalDate.of(2026, 9, 1));
+        doReturn(List.of(job(EstadoReporteJob.EN_PROCESO, request)))
+                .when(jdbcTemplate).query(startsWith(BUSCAR_EN_CURSO), any(RowMapper.class), any(Object[].class));
+
+        ReporteJobDTO dto = jobService.enviar(request);
+
+        assertThat(dto.getId()).isEqualTo(JOB_ID);
+        assertThat(dto.getEstado()).isEqualTo(EstadoReporteJob.EN_PROCESO);
+        verify(jdbcTemplate, never()).query(startsWith(INSERTAR), any(RowMapper.class), any(Object[].class));
+    }
+
+    @Test
+    void enviar_shouldIdentificarSolicitudesIgualesConLaMismaClave() {
+        List<Object> claves = new ArrayList<>();
+        doAnswer(invocation -> {
+            claves.add(invocation.getArgument(4));
+            return List.of();
+        }).when(jdbcTemplate).query(startsWith(BUSCAR_EN_CURSO), any(RowMapper.class), any(Object[].class));
+        doAnswer(invocation -> List.of(ReporteJob.builder()
+                .id(invocation.getArgument(2))
+                .empresaId(1L)
+                .tipo(TipoReporteJob.PAGOS)
+                .formato(FormatoReporte.CSV)
+                .estado(EstadoReporteJob.PENDIENTE)
+                .build()))
+                .when(jdbcTemplate).query(startsWith(INSERTAR), any(RowMapper.class), any(Object[].class));
+        when(jdbcTemplate.queryForObject(any(String.class), eq(Long.class))).thenReturn(0L);
+
+        jobService.enviar(pagos(LocalDate.of(2026, 9, 1)));
+        jobService.enviar(pagos(LocalDate.of(2026, 9, 1)));
+        jobService.enviar(pagos(LocalDate.of(2026, 8, 1)));
+
+        assertThat(claves).hasSize(3);
+        assertThat(claves.get(0)).isEqualTo(claves.get(1)).isNotEqualTo(claves.get(2));
+    }
+
+    @Test
+    void enviar_shouldRechazarCuandoLaColaCompartidaEstaLlena() {
+        doReturn(List.of()).when(jdbcTemplate)
+                .query(startsWith(BUSCAR_EN_CURSO), any(RowMapper.class), any(Object[].class));
+        when(jdbcTemplate.queryForObject(any(String.class), eq(Long.class))).thenReturn(10L);
+
+        assertThatThrownBy(() -> jobService.enviar(pagos(LocalDate.of(2026, 9, 1))))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("demasiados reportes");
+        verify(jdbcTemplate, never()).query(startsWith(INSERTAR), any(RowMapper.class), any(Object[].class));
+    }
+
+    @Test
+    void despacharPendientes_shouldReclamarLugaresLibresYGuardarElArchivoCompartido() throws Exception {
+        ReporteJobRequest request = pagos(LocalDate.of(2026, 9, 1));
+        doReturn(List.of(job(EstadoReporteJob.EN_PROCESO, request))).doReturn(List.of())
+                .when(jdbcTemplate).query(startsWith(RECLAMAR), any(RowMapper.class), any(Object[].class));
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(3);
+            out.write("fecha,monto\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(reporteCsvStreamService).streamPagosPorPeriodoCsv(eq(1L), any(), any(), any());
+        when(jdbcTemplate.update(startsWith(COMPLETADO), any(Object[].class))).thenReturn(1);
+
+        jobService.despacharPendientes();
+
+        verify(jdbcTemplate, atLeastOnce()).query(startsWith(RECLAMAR), any(RowMapper.class), eq("nodo-a"), eq(1));
+        verify(jdbcTemplate, timeout(2000)).update(startsWith(COMPLETADO), eq(JOB_ID + ".csv"), any(),
+                eq(60), eq(JOB_ID), eq("nodo-a"), eq(INICIO));
+        Path archivo = directorio.resolve("trabajos").resolve(JOB_ID + ".csv");
+        assertThat(archivo).hasContent("fecha,monto");
+    }
+
+    @Test
+    void despacharPendientes_shouldDescartarElArchivoSiElTrabajoYaNoEstaReclamado() throws Exception {
+        ReporteJobRequest request = pagos(LocalDate.of(2026, 9, 1));
+        doReturn(List.of(job(EstadoReporteJob.EN_PROCESO, request))).doReturn(List.of())
+                .when(jdbcTemplate).query(startsWith(RECLAMAR), any(RowMapper.class), any(Object[].class));
+        // Otra instancia lo dio por interrumpido mientras se generaba
+        when(jdbcTemplate.update(startsWith(COMPLETADO), any(Object[].class))).thenReturn(0);
+
+        jobService.despacharPendientes();
+
+        verify(jdbcTemplate, timeout(2000)).update(startsWith(COMPLETADO), any(Object[].class));
+        Path archivo = directorio.resolve("trabajos").resolve(JOB_ID + ".csv");
+        verify(jdbcTemplate, timeout(2000).times(2))
+                .query(startsWith(RECLAMAR), any(RowMapper.class), any(Object[].class));
+        assertThat(archivo).doesNotExist();
+    }
+
+    private static ReporteJobRequest pagos(LocalDate fechaInicio) {
+        ReporteJobRequest request = new ReporteJobRequest();
+        request.setTipo(TipoReporteJob.PAGOS);
+        request.setFormato(FormatoReporte.CSV);
+        request.setFechaInicio(fechaInicio);
+        request.setFechaFin(fechaInicio.plusMonths(1).minusDays(1));
+        return request;
+    }
+
+    private ReporteJob job(EstadoReporteJob estado, ReporteJobRequest request) throws Exception {
+        return ReporteJob.builder()
+                .id(JOB_ID)
+                .empresaId(1L)
+                .tipo(request.getTipo())
+                .formato(request.getFormato())
+                .parametros(objectMapper.writeValueAsString(request))
+                .estado(estado)
+                .fechaInicio(INICIO)
+                .build();
+    }
+}
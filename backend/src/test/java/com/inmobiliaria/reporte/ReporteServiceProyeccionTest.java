@@ -0,0 +1,253 @@
+package com.inmobiliaria.reporte;
+
+import com.inmobiliaria.contrato.Contrato;
+import com.inmobiliaria.contrato.ContratoRepository;
+import com.inmobiliaria.empresa.EmpresaRepository;
+import com.inmobiliaria.pago.PagoMensualView;
+import com.inmobiliaria.pago.PagoRepository;
+import com.inmobiliaria.reporte.dto.ProyeccionCobranzaReporteDTO;
+import com.inmobiliaria.reporte.service.ReporteService;
+import com.inmobiliaria.shared.multitenancy.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Verifica que la proyección agregada por contrato y mes produce el mismo resultado
+ * que el cálculo original (meses × contratos × consulta de pagos por contrato).
+ */
+@ExtendWith(MockitoExtension.class)
+class ReporteServiceProyeccionTest {
+
+    @Mock
+    private ContratoRepository contratoRepository;
+    @Mock
+    private PagoRepository pagoRepository;
+    @Mock
+    private EmpresaRepository empresaRepository;
+
+    @InjectMocks
+    private ReporteService reporteService;
+
+    private MockedStatic<TenantContext> tenantContextMock;
+    private final Long EMPRESA_ID = 1L;
+
+    private record PagoPrueba(Long contratoId, LocalDate fechaPago, BigDecimal montoAplicado) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        tenantContextMock = mockStatic(TenantContext.class);
+        tenantContextMock.when(TenantContext::getCurrentTenant).thenReturn(EMPRESA_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tenantContextMock.close();
+    }
+
+    @Test
+    void generarReporteProyeccionConFiltros_shouldMatchOriginalCalculation() {
+        Random random = new Random(42);
+        LocalDate periodoInicio = LocalDate.of(2024, 3, 15);
+        LocalDate periodoFin = LocalDate.of(2025, 8, 10);
+
+        List<Contrato> contratos = new ArrayList<>();
+        List<PagoPrueba> pagos = new ArrayList<>();
+        for (long id = 1; id <= 60; id++) {
+            LocalDate fechaInicio = LocalDate.of(2023, 6, 1).plusDays(random.nextInt(900));
+            LocalDate fechaFin = fechaInicio.plusMonths(1 + random.nextInt(24)).plusDays(random.nextInt(28));
+            contratos.add(Contrato.builder()
+                    .id(id)
+                    .empresaId(EMPRESA_ID)
+                    .fechaInicio(fechaInicio)
+                    .fechaFin(fechaFin)
+                    .montoRenta(random.nextInt(10) == 0 ? null : BigDecimal.valueOf(5000 + random.nextInt(20000), 2))
+                    .build());
+
+            int numPagos = random.nextInt(30);
+            for (int i = 0; i < numPagos; i++) {
+                pagos.add(new PagoPrueba(
+                        id,
+                        random.nextInt(15) == 0 ? null : LocalDate.of(2024, 1, 1).plusDays(random.nextInt(700)),
+                        random.nextInt(8) == 0 ? null : BigDecimal.valueOf(1000 + random.nextInt(900000), 2)));
+            }
+        }
+
+        YearMonth mesInicio = YearMonth.from(periodoInicio);
+        YearMonth mesFin = YearMonth.from(periodoFin);
+
+        when(contratoRepository.findContratosParaProyeccion(EMPRESA_ID, null, null, null, periodoInicio, periodoFin))
+                .thenReturn(contratos);
+        when(pagoRepository.sumPagosPorContratoYMes(EMPRESA_ID, mesInicio.atDay(1), mesFin.atEndOfMonth()))
+                .thenReturn(agruparComoBaseDeDatos(pagos, mesInicio.atDay(1), mesFin.atEndOfMonth()));
+        when(empresaRepository.findById(EMPRESA_ID)).thenReturn(Optional.empty());
+
+        ProyeccionCobranzaReporteDTO result = reporteService.generarReporteProyeccionConFiltros(
+                periodoInicio, periodoFin, null, null, null);
+
+        ProyeccionCobranzaReporteDTO esperado = calculoOriginal(contratos, pagos, periodoInicio, periodoFin);
+
+        assertThat(result.getDetalleMensual()).hasSize(18);
+        assertThat(result.getDetalleMensual()).isEqualTo(esperado.getDetalleMensual());
+        assertThat(result.getTotalProyectado()).isEqualTo(esperado.getTotalProyectado());
+        assertThat(result.getTotalCobrado()).isEqualTo(esperado.getTotalCobrado());
+        assertThat(result.getTotalPendiente()).isEqualTo(esperado.getTotalPendiente());
+        assertThat(result.getPorcentajeCumplimiento()).isEqualTo(esperado.getPorcentajeCumplimiento());
+        assertThat(result.getTotalPagosEsperados()).isEqualTo(esperado.getTotalPagosEsperados());
+        assertThat(result.getTotalPagosRecibidos()).isEqualTo(esperado.getTotalPagosRecibidos());
+        assertThat(result.getTotalContratosActivos()).isEqualTo(contratos.size());
+        verify(pagoRepository, never()).findByContratoIdAndEmpresaId(any(), eq(EMPRESA_ID));
+    }
+
+    @Test
+    void generarReporteProyeccionConFiltros_shouldReturnZerosWithoutContracts() {
+        LocalDate periodoInicio = LocalDate.of(2025, 1, 1);
+        LocalDate periodoFin = LocalDate.of(2025, 3, 31);
+
+        when(contratoRepository.findContratosParaProyeccion(EMPRESA_ID, null, null, null, periodoInicio, periodoFin))
+                .thenReturn(List.of());
+        when(pagoRepository.sumPagosPorContratoYMes(EMPRESA_ID, periodoInicio, periodoFin))
+                .thenReturn(List.of());
+        when(empresaRepository.findById(EMPRESA_ID)).thenReturn(Optional.empty());
+
+        ProyeccionCobranzaReporteDTO result = reporteService.generarReporteProyeccionConFiltros(
+                periodoInicio, periodoFin, null, null, null);
+
+        assertThat(result.getDetalleMensual()).hasSize(3);
+        assertThat(result.getTotalProyectado()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(result.getTotalPagosEsperados()).isZero();
+    }
+
+    /**
+     * Simula el GROUP BY contrato, año, mes de la consulta agregada.
+     */
+    private List<PagoMensualView> agruparComoBaseDeDatos(List<PagoPrueba> pagos, LocalDate desde, LocalDate hasta) {
+        Map<Long, Map<YearMonth, List<PagoPrueba>>> grupos = pagos.stream()
+                .filter(p -> p.fechaPago() != null && !p.fechaPago().isBefore(desde) && !p.fechaPago().isAfter(hasta))
+                .collect(Collectors.groupingBy(PagoPrueba::contratoId,
+                        Collectors.groupingBy(p -> YearMonth.from(p.fechaPago()))));
+
+        List<PagoMensualView> resultado = new ArrayList<>();
+        grupos.forEach((contratoId, porMes) -> porMes.forEach((mes, lista) -> {
+            BigDecimal suma = lista.stream()
+                    .map(PagoPrueba::montoAplicado)
+                    .filter(Objects::nonNull)
+                    .reduce(BigDecimal::add)
+                    .orElse(null);
+            resultado.add(new PagoMensualView(contratoId, mes.getYear(), mes.getMonthValue(), (long) lista.size(), suma));
+        }));
+        return resultado;
+    }
+
+    /**
+     * Copia del algoritmo original: recorre meses × contratos y filtra los pagos de cada contrato.
+     */
+    private ProyeccionCobranzaReporteDTO calculoOriginal(List<Contrato> contratos, List<PagoPrueba> pagos,
+                                                         LocalDate periodoInicio, LocalDate periodoFin) {
+        List<ProyeccionCobranzaReporteDTO.ProyeccionMesDTO> detalleMensual = new ArrayList<>();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM yyyy", new Locale("es", "ES"));
+
+        BigDecimal totalProyectado = BigDecimal.ZERO;
+        BigDecimal totalCobrado = BigDecimal.ZERO;
+        int totalPagosEsperados = 0;
+        int totalPagosRecibidos = 0;
+
+        YearMonth mesActual = YearMonth.from(periodoInicio);
+        YearMonth mesFin = YearMonth.from(periodoFin);
+        while (!mesActual.isAfter(mesFin)) {
+            LocalDate inicioMes = mesActual.atDay(1);
+            LocalDate finMes = mesActual.atEndOfMonth();
+
+            BigDecimal montoProyectadoMes = BigDecimal.ZERO;
+            BigDecimal montoCobradoMes = BigDecimal.ZERO;
+            int pagosEsperadosMes = 0;
+            int pagosRecibidosMes = 0;
+            int contratosEnMes = 0;
+
+            for (Contrato contrato : contratos) {
+                if (!contrato.getFechaInicio().isAfter(finMes) && !contrato.getFechaFin().isBefore(inicioMes)) {
+                    contratosEnMes++;
+                    pagosEsperadosMes++;
+                    if (contrato.getMontoRenta() != null) {
+                        montoProyectadoMes = montoProyectadoMes.add(contrato.getMontoRenta());
+                    }
+
+                    List<PagoPrueba> pagosDelMes = pagos.stream()
+                            .filter(p -> p.contratoId().equals(contrato.getId()))
+                            .filter(p -> p.fechaPago() != null &&
+                                    !p.fechaPago().isBefore(inicioMes) &&
+                                    !p.fechaPago().isAfter(finMes))
+                            .toList();
+
+                    if (!pagosDelMes.isEmpty()) {
+                        pagosRecibidosMes++;
+                        for (PagoPrueba pago : pagosDelMes) {
+                            if (pago.montoAplicado() != null) {
+                                montoCobradoMes = montoCobradoMes.add(pago.montoAplicado());
+                            }
+                        }
+                    }
+                }
+            }
+
+            BigDecimal porcentaje = BigDecimal.ZERO;
+            if (montoProyectadoMes.compareTo(BigDecimal.ZERO) > 0) {
+                porcentaje = montoCobradoMes.multiply(BigDecimal.valueOf(100))
+                        .divide(montoProyectadoMes, 2, RoundingMode.HALF_UP);
+            }
+
+            detalleMensual.add(ProyeccionCobranzaReporteDTO.ProyeccionMesDTO.builder()
+                    .periodo(inicioMes)
+                    .mesAnio(inicioMes.format(formatter))
+                    .montoProyectado(montoProyectadoMes)
+                    .montoCobrado(montoCobradoMes)
+                    .diferencia(montoProyectadoMes.subtract(montoCobradoMes))
+                    .porcentajeCumplimiento(porcentaje)
+                    .cantidadContratos(contratosEnMes)
+                    .pagosEsperados(pagosEsperadosMes)
+                    .pagosRecibidos(pagosRecibidosMes)
+                    .build());
+
+            totalProyectado = totalProyectado.add(montoProyectadoMes);
+            totalCobrado = totalCobrado.add(montoCobradoMes);
+            totalPagosEsperados += pagosEsperadosMes;
+            totalPagosRecibidos += pagosRecibidosMes;
+            mesActual = mesActual.plusMonths(1);
+        }
+
+        BigDecimal porcentajeCumplimiento = BigDecimal.ZERO;
+        if (totalProyectado.compareTo(BigDecimal.ZERO) > 0) {
+            porcentajeCumplimiento = totalCobrado.multiply(BigDecimal.valueOf(100))
+                    .divide(totalProyectado, 2, RoundingMode.HALF_UP);
+        }
+
+        return ProyeccionCobranzaReporteDTO.builder()
+                .totalProyectado(totalProyectado)
+                .totalCobrado(totalCobrado)
+                .totalPendiente(totalProyectado.subtract(totalCobrado))
+                .porcentajeCumplimiento(porcentajeCumplimiento)
+                .totalPagosEsperados(totalPagosEsperados)
+                .totalPagosRecibidos(totalPagosRecibidos)
+                .detalleMensual(detalleMensual)
+                .build();
+    }
+}
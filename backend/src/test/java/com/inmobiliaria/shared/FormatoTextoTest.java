@@ -0,0 +1,30 @@
+package com.inmobiliaria.shared;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FormatoTextoTest {
+
+    @Test
+    void nombreCompleto_shouldUsarRazonSocialParaPersonaMoral() {
+        assertThat(FormatoTexto.nombreCompleto(true, "Inmuebles SA de CV", "Juan", "Pérez", null))
+                .isEqualTo("Inmuebles SA de CV");
+    }
+
+    @Test
+    void nombreCompleto_shouldOmitirApellidosNulos() {
+        assertThat(FormatoTexto.nombreCompleto(false, null, "Juan", "Pérez", "López"))
+                .isEqualTo("Juan Pérez López");
+        assertThat(FormatoTexto.nombreCompleto(false, null, null, "Pérez", null)).isEqualTo("Pérez");
+    }
+
+    @Test
+    void direccionCompleta_shouldOmitirDatosNulos() {
+        assertThat(FormatoTexto.direccionCompleta("Reforma", "100", "4B", "Juárez", "Cuauhtémoc",
+                "Ciudad de México", "06600"))
+                .isEqualTo("Reforma 100 Int. 4B, Juárez, Cuauhtémoc, Ciudad de México C.P. 06600");
+        assertThat(FormatoTexto.direccionCompleta("Reforma", "100", null, null, "Cuauhtémoc", null, null))
+                .isEqualTo("Reforma 100, Cuauhtémoc");
+    }
+}
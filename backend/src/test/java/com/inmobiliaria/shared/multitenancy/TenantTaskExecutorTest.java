@@ -0,0 +1,77 @@
+package com.inmobiliaria.shared.multitenancy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TenantTaskExecutorTest {
+
+    private TenantTaskExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void forEachTenant_shouldRunEachTaskWithItsTenant() {
+        executor = new TenantTaskExecutor(2, 30);
+
+        TenantRunSummary<Long> summary = executor.forEachTenant("prueba", List.of(1L, 2L, 3L),
+                empresaId -> TenantContext.getCurrentTenant());
+
+        assertThat(summary.count(TenantRunSummary.Status.SUCCESS)).isEqualTo(3);
+        assertThat(summary.results())
+                .allSatisfy(r -> assertThat(r.result()).isEqualTo(r.empresaId()));
+    }
+
+    @Test
+    void forEachTenant_shouldNotExceedMaxConcurrency() {
+        executor = new TenantTaskExecutor(2, 30);
+        AtomicInteger enCurso = new AtomicInteger();
+        AtomicInteger maximo = new AtomicInteger();
+
+        executor.forEachTenant("prueba", List.of(1L, 2L, 3L, 4L, 5L, 6L), empresaId -> {
+            maximo.accumulateAndGet(enCurso.incrementAndGet(), Math::max);
+            dormir(50);
+            enCurso.decrementAndGet();
+            return null;
+        });
+
+        assertThat(maximo.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void forEachTenant_shouldIsolateFailuresAndTimeouts() {
+        executor = new TenantTaskExecutor(4, 1);
+
+        TenantRunSummary<String> summary = executor.forEachTenant("prueba", List.of(1L, 2L, 3L), empresaId -> {
+            if (empresaId == 1L) {
+                throw new IllegalStateException("falla");
+            }
+            if (empresaId == 2L) {
+                dormir(5_000);
+            }
+            return "ok";
+        });
+
+        assertThat(summary.count(TenantRunSummary.Status.FAILED)).isEqualTo(1);
+        assertThat(summary.count(TenantRunSummary.Status.TIMED_OUT)).isEqualTo(1);
+        assertThat(summary.successfulResults()).containsExactly("ok");
+    }
+
+    private static void dormir(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrumpido", e);
+        }
+    }
+}
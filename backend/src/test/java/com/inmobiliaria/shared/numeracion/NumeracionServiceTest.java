@@ -0,0 +1,59 @@
+package com.inmobiliaria.shared.numeracion;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NumeracionServiceTest {
+
+    private static final Long EMPRESA_ID = 1L;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private NumeracionService numeracionService;
+
+    @BeforeEach
+    void setUp() {
+        numeracionService = new NumeracionService(jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    void siguiente_sinBloque_shouldReservarUnFolioPorLlamada() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), eq(EMPRESA_ID), eq("RECIBO"), eq(1)))
+                .thenReturn(41L, 42L);
+
+        assertThat(numeracionService.siguiente(EMPRESA_ID, SerieDocumento.RECIBO)).isEqualTo(41L);
+        assertThat(numeracionService.siguiente(EMPRESA_ID, SerieDocumento.RECIBO)).isEqualTo(42L);
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void siguiente_conBloque_shouldRepartirDesdeMemoriaHastaAgotarElBloque() {
+        int bloque = SerieDocumento.ORDEN_MANTENIMIENTO.getTamanoBloque();
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class),
+                eq(EMPRESA_ID), eq("ORDEN_MANTENIMIENTO"), eq(bloque)))
+                .thenReturn((long) bloque, 2L * bloque);
+
+        for (long esperado = 1; esperado <= bloque + 1; esperado++) {
+            assertThat(numeracionService.siguiente(EMPRESA_ID, SerieDocumento.ORDEN_MANTENIMIENTO))
+                    .isEqualTo(esperado);
+        }
+
+        verify(jdbcTemplate, times(2)).queryForObject(anyString(), eq(Long.class),
+                eq(EMPRESA_ID), eq("ORDEN_MANTENIMIENTO"), eq(bloque));
+        verify(transactionManager, times(2)).getTransaction(any());
+    }
+}
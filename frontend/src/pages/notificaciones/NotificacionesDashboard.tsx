@@ -164,6 +164,7 @@ const NotificacionesDashboard: React.FC = () => {
   const getEstadoChip = (estado: EstadoNotificacion) => {
     const colors: Record<EstadoNotificacion, 'default' | 'success' | 'error' | 'warning'> = {
       PENDIENTE: 'warning',
+      ENVIANDO: 'warning',
       ENVIADA: 'success',
       FALLIDA: 'error',
       CANCELADA: 'default',
@@ -289,7 +290,13 @@ const NotificacionesDashboard: React.FC = () => {
                         </>
                       )}
                       {notif.estado === 'FALLIDA' && (
-                        <Tooltip title={notif.errorMensaje || 'Error desconocido'}>
+                        <Tooltip
+                          title={`${notif.errorMensaje || 'Error desconocido'}${
+                            notif.proximoIntento
+                              ? ` — reintento automático: ${new Date(notif.proximoIntento).toLocaleString()}`
+                              : ''
+                          }`}
+                        >
                           <IconButton size="small" onClick={() => handleEnviar(notif.id)}>
                             <RefreshIcon />
                           </IconButton>
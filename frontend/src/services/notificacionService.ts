@@ -2,7 +2,7 @@ import api from './api';
 
 export type TipoNotificacion = 'EMAIL' | 'WHATSAPP' | 'SMS';
 export type CategoriaNotificacion = 'VENCIMIENTO_CONTRATO' | 'PAGO_PENDIENTE' | 'PAGO_VENCIDO' | 'CONFIRMACION_PAGO' | 'RECORDATORIO_GENERAL' | 'ALERTA_MOROSIDAD';
-export type EstadoNotificacion = 'PENDIENTE' | 'ENVIADA' | 'FALLIDA' | 'CANCELADA';
+export type EstadoNotificacion = 'PENDIENTE' | 'ENVIANDO' | 'ENVIADA' | 'FALLIDA' | 'CANCELADA';
 
 export interface Notificacion {
   id: number;
@@ -20,6 +20,7 @@ export interface Notificacion {
   fechaEnvio?: string;
   intentos: number;
   errorMensaje?: string;
+  proximoIntento?: string;
   fechaCreacion: string;
 }
 